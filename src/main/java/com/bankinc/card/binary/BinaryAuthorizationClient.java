@@ -0,0 +1,110 @@
+package com.bankinc.card.binary;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.flush.FlushConsolidationHandler;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cliente local del protocolo binario sobre una unica conexion. Se pueden encadenar peticiones sin
+// esperar la respuesta anterior; cada futuro se completa cuando llega la respuesta con su correlacion
+public class BinaryAuthorizationClient implements AutoCloseable {
+
+    private final EventLoopGroup group = new NioEventLoopGroup(1);
+    private final Map<Long, CompletableFuture<BinaryAuthorizationResponse>> pending = new ConcurrentHashMap<>();
+    private final AtomicLong correlationIds = new AtomicLong();
+    private final Channel channel;
+
+    public BinaryAuthorizationClient(String host, int port) throws IOException {
+        Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel channel) {
+                        channel.pipeline()
+                                .addLast(new FlushConsolidationHandler(256, true))
+                                .addLast(BinaryProtocol.frameDecoder())
+                                .addLast(new BinaryProtocol.ResponseDecoder())
+                                .addLast(new BinaryProtocol.RequestEncoder())
+                                .addLast(new ResponseHandler());
+                    }
+                });
+        try {
+            channel = bootstrap.connect(host, port).sync().channel();
+        } catch (Exception e) {
+            group.shutdownGracefully();
+            throw new IOException("Could not connect to binary authorization listener " + host + ":" + port, e);
+        }
+    }
+
+    public CompletableFuture<BinaryAuthorizationResponse> purchase(String cardId, long amountMinor) {
+        return send(BinaryProtocol.TYPE_PURCHASE, cardId, amountMinor, null);
+    }
+
+    public CompletableFuture<BinaryAuthorizationResponse> balance(String cardId) {
+        return send(BinaryProtocol.TYPE_BALANCE, cardId, 0, null);
+    }
+
+    public CompletableFuture<BinaryAuthorizationResponse> anulate(String cardId, UUID transactionId) {
+        return send(BinaryProtocol.TYPE_ANULATION, cardId, 0, transactionId);
+    }
+
+    private CompletableFuture<BinaryAuthorizationResponse> send(byte type, String cardId, long amountMinor,
+                                                                UUID transactionId) {
+        long correlationId = correlationIds.incrementAndGet();
+        CompletableFuture<BinaryAuthorizationResponse> future = new CompletableFuture<>();
+        pending.put(correlationId, future);
+        channel.writeAndFlush(new BinaryAuthorizationRequest(type, correlationId, cardId, amountMinor, transactionId))
+                .addListener(write -> {
+                    if (!write.isSuccess()) {
+                        pending.remove(correlationId);
+                        future.completeExceptionally(write.cause());
+                    }
+                });
+        return future;
+    }
+
+    @Override
+    public void close() {
+        channel.close().syncUninterruptibly();
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    private class ResponseHandler extends SimpleChannelInboundHandler<BinaryAuthorizationResponse> {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, BinaryAuthorizationResponse response) {
+            CompletableFuture<BinaryAuthorizationResponse> future = pending.remove(response.getCorrelationId());
+            if (future != null) {
+                future.complete(response);
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            IOException closed = new IOException("Binary authorization connection closed");
+            pending.values().forEach(future -> future.completeExceptionally(closed));
+            pending.clear();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            ctx.close();
+        }
+    }
+}
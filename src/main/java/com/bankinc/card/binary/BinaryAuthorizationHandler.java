@@ -0,0 +1,137 @@
+package com.bankinc.card.binary;
+
+import com.bankinc.card.exceptions.*;
+import com.bankinc.card.service.CardService;
+import com.bankinc.card.service.TransactionService;
+import com.bankinc.card.service.partition.CardOwnershipGuard;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+// Traduce cada trama a la misma operacion de servicio que usa TransactionController. Las operaciones
+// bloquean (JPA), asi que se ejecutan en el pool de trabajo y nunca en el event loop de Netty; las
+// respuestas pueden salir en otro orden y el cliente las empareja por la correlacion
+@Slf4j
+class BinaryAuthorizationHandler extends SimpleChannelInboundHandler<Object> {
+
+    private final TransactionService transactionService;
+    private final CardService cardService;
+    private final CardOwnershipGuard cardOwnershipGuard;
+    private final ExecutorService workers;
+    private final int maxInFlight;
+
+    // Solo se modifica desde el event loop del canal
+    private int inFlight;
+
+    BinaryAuthorizationHandler(TransactionService transactionService, CardService cardService,
+                               CardOwnershipGuard cardOwnershipGuard, ExecutorService workers, int maxInFlight) {
+        this.transactionService = transactionService;
+        this.cardService = cardService;
+        this.cardOwnershipGuard = cardOwnershipGuard;
+        this.workers = workers;
+        this.maxInFlight = maxInFlight;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, Object message) {
+        if (message instanceof BinaryAuthorizationResponse invalid) {
+            ctx.writeAndFlush(invalid);
+            return;
+        }
+        BinaryAuthorizationRequest request = (BinaryAuthorizationRequest) message;
+        try {
+            workers.execute(() -> {
+                BinaryAuthorizationResponse response = process(request);
+                ctx.writeAndFlush(response);
+                ctx.executor().execute(() -> completed(ctx));
+            });
+        } catch (RejectedExecutionException e) {
+            ctx.writeAndFlush(response(request, BinaryProtocol.STATUS_BUSY, 0, null));
+            return;
+        }
+        // Con demasiadas peticiones encadenadas se deja de leer del socket hasta que se liberen
+        if (++inFlight >= maxInFlight) {
+            ctx.channel().config().setAutoRead(false);
+        }
+    }
+
+    private void completed(ChannelHandlerContext ctx) {
+        if (inFlight-- == maxInFlight) {
+            ctx.channel().config().setAutoRead(true);
+        }
+    }
+
+    private BinaryAuthorizationResponse process(BinaryAuthorizationRequest request) {
+        try {
+            cardOwnershipGuard.checkOwnership(request.getCardId());
+            return switch (request.getType()) {
+                case BinaryProtocol.TYPE_PURCHASE -> {
+                    UUID transactionId = transactionService.purchase(request.getCardId(),
+                            BigDecimal.valueOf(request.getAmountMinor(), 2));
+                    yield response(request, BinaryProtocol.STATUS_APPROVED, request.getAmountMinor(), transactionId);
+                }
+                case BinaryProtocol.TYPE_BALANCE -> {
+                    BigDecimal balance = cardService.getBalance(request.getCardId());
+                    yield response(request, BinaryProtocol.STATUS_APPROVED, balance.movePointRight(2).longValue(), null);
+                }
+                case BinaryProtocol.TYPE_ANULATION -> {
+                    boolean anulated = transactionService.anulateTransaction(request.getCardId(),
+                            request.getTransactionId());
+                    yield response(request, anulated ? BinaryProtocol.STATUS_APPROVED
+                            : BinaryProtocol.STATUS_TRANSACTION_REJECTED, 0, request.getTransactionId());
+                }
+                default -> response(request, BinaryProtocol.STATUS_INVALID_REQUEST, 0, null);
+            };
+        } catch (BusinessException e) {
+            return response(request, statusOf(e), 0, request.getTransactionId());
+        } catch (RuntimeException e) {
+            log.error("Binary authorization failed for correlation {}", request.getCorrelationId(), e);
+            return response(request, BinaryProtocol.STATUS_SYSTEM_ERROR, 0, request.getTransactionId());
+        }
+    }
+
+    static byte statusOf(BusinessException e) {
+        if (e instanceof InsufficientFundsException) {
+            return BinaryProtocol.STATUS_INSUFFICIENT_FUNDS;
+        }
+        if (e instanceof CardNotFoundException) {
+            return BinaryProtocol.STATUS_CARD_NOT_FOUND;
+        }
+        if (e instanceof CardNotActiveException) {
+            return BinaryProtocol.STATUS_CARD_NOT_ACTIVE;
+        }
+        if (e instanceof CardBlockedException) {
+            return BinaryProtocol.STATUS_CARD_BLOCKED;
+        }
+        if (e instanceof CardExpiredException) {
+            return BinaryProtocol.STATUS_CARD_EXPIRED;
+        }
+        if (e instanceof TransactionProcessingException || e instanceof TransactionNotFoundException) {
+            return BinaryProtocol.STATUS_TRANSACTION_REJECTED;
+        }
+        if (e instanceof CardNotOwnedException) {
+            return BinaryProtocol.STATUS_NOT_OWNER;
+        }
+        if (e instanceof ServiceDrainingException) {
+            return BinaryProtocol.STATUS_BUSY;
+        }
+        return BinaryProtocol.STATUS_INVALID_REQUEST;
+    }
+
+    private static BinaryAuthorizationResponse response(BinaryAuthorizationRequest request, byte status,
+                                                        long amountMinor, UUID transactionId) {
+        return new BinaryAuthorizationResponse(request.getType(), request.getCorrelationId(), status, amountMinor,
+                transactionId);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        log.warn("Closing binary authorization connection {}: {}", ctx.channel().remoteAddress(), cause.getMessage());
+        ctx.close();
+    }
+}
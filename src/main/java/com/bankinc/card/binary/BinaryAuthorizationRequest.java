@@ -0,0 +1,39 @@
+package com.bankinc.card.binary;
+
+import java.util.UUID;
+
+public class BinaryAuthorizationRequest {
+    private final byte type;
+    private final long correlationId;
+    private final String cardId;
+    private final long amountMinor;
+    private final UUID transactionId;
+
+    public BinaryAuthorizationRequest(byte type, long correlationId, String cardId, long amountMinor, UUID transactionId) {
+        this.type = type;
+        this.correlationId = correlationId;
+        this.cardId = cardId;
+        this.amountMinor = amountMinor;
+        this.transactionId = transactionId;
+    }
+
+    public byte getType() {
+        return type;
+    }
+
+    public long getCorrelationId() {
+        return correlationId;
+    }
+
+    public String getCardId() {
+        return cardId;
+    }
+
+    public long getAmountMinor() {
+        return amountMinor;
+    }
+
+    public UUID getTransactionId() {
+        return transactionId;
+    }
+}
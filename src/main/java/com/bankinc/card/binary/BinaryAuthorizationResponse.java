@@ -0,0 +1,43 @@
+package com.bankinc.card.binary;
+
+import java.util.UUID;
+
+public class BinaryAuthorizationResponse {
+    private final byte type;
+    private final long correlationId;
+    private final byte status;
+    private final long amountMinor;
+    private final UUID transactionId;
+
+    public BinaryAuthorizationResponse(byte type, long correlationId, byte status, long amountMinor, UUID transactionId) {
+        this.type = type;
+        this.correlationId = correlationId;
+        this.status = status;
+        this.amountMinor = amountMinor;
+        this.transactionId = transactionId;
+    }
+
+    public boolean isApproved() {
+        return status == BinaryProtocol.STATUS_APPROVED;
+    }
+
+    public byte getType() {
+        return type;
+    }
+
+    public long getCorrelationId() {
+        return correlationId;
+    }
+
+    public byte getStatus() {
+        return status;
+    }
+
+    public long getAmountMinor() {
+        return amountMinor;
+    }
+
+    public UUID getTransactionId() {
+        return transactionId;
+    }
+}
@@ -0,0 +1,124 @@
+package com.bankinc.card.binary;
+
+import com.bankinc.card.service.CardService;
+import com.bankinc.card.service.TransactionService;
+import com.bankinc.card.service.lifecycle.AuthorizationGate;
+import com.bankinc.card.service.partition.CardOwnershipGuard;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Segundo punto de entrada para terminales y pasarelas: TCP con el formato de BinaryProtocol
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "card.binary.enabled", havingValue = "true")
+public class BinaryAuthorizationServer implements SmartLifecycle {
+
+    private static final BinaryProtocol.RequestDecoder REQUEST_DECODER = new BinaryProtocol.RequestDecoder();
+    private static final BinaryProtocol.ResponseEncoder RESPONSE_ENCODER = new BinaryProtocol.ResponseEncoder();
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardOwnershipGuard cardOwnershipGuard;
+
+    // 0 para un puerto libre cualquiera (pruebas)
+    @Value("${card.binary.port:9090}")
+    private int port;
+
+    // 0 deja el valor por defecto de Netty (2 x nucleos)
+    @Value("${card.binary.io-threads:0}")
+    private int ioThreads;
+
+    // Hilos que ejecutan las operaciones; conviene no superar el tamano del pool de conexiones
+    @Value("${card.binary.worker-threads:16}")
+    private int workerThreads;
+
+    @Value("${card.binary.queue-capacity:4096}")
+    private int queueCapacity;
+
+    // Peticiones encadenadas por conexion antes de dejar de leer del socket
+    @Value("${card.binary.max-in-flight:256}")
+    private int maxInFlight;
+
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup ioGroup;
+    private ThreadPoolExecutor workers;
+    private Channel serverChannel;
+
+    @Override
+    public void start() {
+        workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("binary-auth-"));
+        bossGroup = new NioEventLoopGroup(1);
+        ioGroup = new NioEventLoopGroup(ioThreads);
+
+        ServerBootstrap bootstrap = new ServerBootstrap()
+                .group(bossGroup, ioGroup)
+                .channel(NioServerSocketChannel.class)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel channel) {
+                        channel.pipeline()
+                                // Agrupa los flush de respuestas encadenadas en una sola escritura al socket
+                                .addLast(new FlushConsolidationHandler(256, true))
+                                .addLast(BinaryProtocol.frameDecoder())
+                                .addLast(REQUEST_DECODER)
+                                .addLast(RESPONSE_ENCODER)
+                                .addLast(new BinaryAuthorizationHandler(transactionService, cardService,
+                                        cardOwnershipGuard, workers, maxInFlight));
+                    }
+                });
+        serverChannel = bootstrap.bind(port).syncUninterruptibly().channel();
+        log.info("Binary authorization listener started on port {}", getPort());
+    }
+
+    @Override
+    public void stop() {
+        if (serverChannel != null) {
+            serverChannel.close().syncUninterruptibly();
+            serverChannel = null;
+        }
+        bossGroup.shutdownGracefully(0, 2, TimeUnit.SECONDS).syncUninterruptibly();
+        ioGroup.shutdownGracefully(0, 2, TimeUnit.SECONDS).syncUninterruptibly();
+        workers.shutdown();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return serverChannel != null;
+    }
+
+    // Se cierra despues de que AuthorizationGate drene las autorizaciones en curso
+    @Override
+    public int getPhase() {
+        return AuthorizationGate.PHASE - 1;
+    }
+
+    public int getPort() {
+        return ((InetSocketAddress) serverChannel.localAddress()).getPort();
+    }
+}
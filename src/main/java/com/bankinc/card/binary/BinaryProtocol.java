@@ -0,0 +1,155 @@
+package com.bankinc.card.binary;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.MessageToMessageDecoder;
+
+import java.util.List;
+import java.util.UUID;
+
+// Formato de trama (big-endian, campos siempre presentes, los que no aplican van a cero):
+//   peticion:  longitud u16 | version u8 | tipo u8 | correlacion i64 | tarjeta 16 digitos ASCII
+//              | importe en centavos i64 | transaccion (uuid) 2 x i64                       = 2 + 50 bytes
+//   respuesta: longitud u16 | version u8 | tipo u8 | correlacion i64 | estado u8
+//              | importe en centavos i64 (saldo en consultas) | transaccion (uuid) 2 x i64  = 2 + 35 bytes
+// La correlacion la elige el cliente y permite encadenar peticiones sin esperar respuesta
+public final class BinaryProtocol {
+
+    public static final byte VERSION = 1;
+
+    public static final byte TYPE_PURCHASE = 1;
+    public static final byte TYPE_BALANCE = 2;
+    public static final byte TYPE_ANULATION = 3;
+
+    public static final byte STATUS_APPROVED = 0;
+    public static final byte STATUS_INSUFFICIENT_FUNDS = 1;
+    public static final byte STATUS_CARD_NOT_FOUND = 2;
+    public static final byte STATUS_CARD_NOT_ACTIVE = 3;
+    public static final byte STATUS_CARD_BLOCKED = 4;
+    public static final byte STATUS_CARD_EXPIRED = 5;
+    public static final byte STATUS_INVALID_REQUEST = 6;
+    public static final byte STATUS_TRANSACTION_REJECTED = 7;
+    public static final byte STATUS_NOT_OWNER = 8;
+    public static final byte STATUS_BUSY = 9;
+    public static final byte STATUS_SYSTEM_ERROR = 10;
+
+    public static final int CARD_ID_LENGTH = 16;
+    public static final int REQUEST_LENGTH = 1 + 1 + 8 + CARD_ID_LENGTH + 8 + 16;
+    public static final int RESPONSE_LENGTH = 1 + 1 + 8 + 1 + 8 + 16;
+
+    private static final int LENGTH_FIELD = 2;
+    private static final UUID NO_TRANSACTION = new UUID(0, 0);
+
+    private BinaryProtocol() {
+    }
+
+    public static LengthFieldBasedFrameDecoder frameDecoder() {
+        return new LengthFieldBasedFrameDecoder(LENGTH_FIELD + Math.max(REQUEST_LENGTH, RESPONSE_LENGTH), 0, LENGTH_FIELD, 0,
+                LENGTH_FIELD);
+    }
+
+    public static void writeRequest(BinaryAuthorizationRequest request, ByteBuf out) {
+        out.writeShort(REQUEST_LENGTH);
+        out.writeByte(VERSION);
+        out.writeByte(request.getType());
+        out.writeLong(request.getCorrelationId());
+        String cardId = request.getCardId();
+        for (int i = 0; i < CARD_ID_LENGTH; i++) {
+            out.writeByte(cardId != null && i < cardId.length() ? cardId.charAt(i) : '0');
+        }
+        out.writeLong(request.getAmountMinor());
+        writeUuid(request.getTransactionId(), out);
+    }
+
+    // Devuelve null si la trama no es una peticion valida; el llamador responde STATUS_INVALID_REQUEST
+    public static BinaryAuthorizationRequest readRequest(ByteBuf in) {
+        if (in.readableBytes() != REQUEST_LENGTH || in.readByte() != VERSION) {
+            return null;
+        }
+        byte type = in.readByte();
+        long correlationId = in.readLong();
+        char[] digits = new char[CARD_ID_LENGTH];
+        for (int i = 0; i < CARD_ID_LENGTH; i++) {
+            byte digit = in.readByte();
+            if (digit < '0' || digit > '9') {
+                return null;
+            }
+            digits[i] = (char) digit;
+        }
+        long amountMinor = in.readLong();
+        UUID transactionId = new UUID(in.readLong(), in.readLong());
+        return new BinaryAuthorizationRequest(type, correlationId, new String(digits), amountMinor, transactionId);
+    }
+
+    // Correlacion de una trama invalida, para poder contestarla aunque no se haya podido decodificar
+    public static long peekCorrelationId(ByteBuf frame) {
+        return frame.readableBytes() >= 10 ? frame.getLong(frame.readerIndex() + 2) : 0;
+    }
+
+    public static void writeResponse(BinaryAuthorizationResponse response, ByteBuf out) {
+        out.writeShort(RESPONSE_LENGTH);
+        out.writeByte(VERSION);
+        out.writeByte(response.getType());
+        out.writeLong(response.getCorrelationId());
+        out.writeByte(response.getStatus());
+        out.writeLong(response.getAmountMinor());
+        writeUuid(response.getTransactionId(), out);
+    }
+
+    public static BinaryAuthorizationResponse readResponse(ByteBuf in) {
+        if (in.readableBytes() != RESPONSE_LENGTH || in.readByte() != VERSION) {
+            throw new IllegalStateException("Malformed authorization response");
+        }
+        byte type = in.readByte();
+        long correlationId = in.readLong();
+        byte status = in.readByte();
+        long amountMinor = in.readLong();
+        UUID transactionId = new UUID(in.readLong(), in.readLong());
+        return new BinaryAuthorizationResponse(type, correlationId, status, amountMinor, transactionId);
+    }
+
+    private static void writeUuid(UUID uuid, ByteBuf out) {
+        UUID value = uuid == null ? NO_TRANSACTION : uuid;
+        out.writeLong(value.getMostSignificantBits());
+        out.writeLong(value.getLeastSignificantBits());
+    }
+
+    // Las tramas invalidas se entregan como respuesta ya construida para que el handler solo la escriba
+    @ChannelHandler.Sharable
+    static class RequestDecoder extends MessageToMessageDecoder<ByteBuf> {
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf frame, List<Object> out) {
+            long correlationId = peekCorrelationId(frame);
+            BinaryAuthorizationRequest request = readRequest(frame);
+            out.add(request != null ? request : new BinaryAuthorizationResponse((byte) 0, correlationId,
+                    STATUS_INVALID_REQUEST, 0, null));
+        }
+    }
+
+    @ChannelHandler.Sharable
+    static class ResponseEncoder extends MessageToByteEncoder<BinaryAuthorizationResponse> {
+        @Override
+        protected void encode(ChannelHandlerContext ctx, BinaryAuthorizationResponse response, ByteBuf out) {
+            writeResponse(response, out);
+        }
+    }
+
+    @ChannelHandler.Sharable
+    static class RequestEncoder extends MessageToByteEncoder<BinaryAuthorizationRequest> {
+        @Override
+        protected void encode(ChannelHandlerContext ctx, BinaryAuthorizationRequest request, ByteBuf out) {
+            writeRequest(request, out);
+        }
+    }
+
+    @ChannelHandler.Sharable
+    static class ResponseDecoder extends MessageToMessageDecoder<ByteBuf> {
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf frame, List<Object> out) {
+            out.add(readResponse(frame));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.bankinc.card.config;
+
+import com.bankinc.card.dto.ErrorResponse;
+import com.bankinc.card.service.admission.Admission;
+import com.bankinc.card.service.admission.AdmissionBudget;
+import com.bankinc.card.service.admission.AdmissionControl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+
+// Control de admision en los endpoints marcados con @Admission: lo que excede el limite responde
+// 503 con Retry-After sin llegar a pedir una conexion, y cada respuesta alimenta el limitador
+@Configuration
+@ConditionalOnProperty(name = "card.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlConfig implements WebMvcConfigurer {
+
+    private static final String BUDGET_ATTRIBUTE = AdmissionControlConfig.class.getName() + ".budget";
+    private static final String STARTED_ATTRIBUTE = AdmissionControlConfig.class.getName() + ".started";
+
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${card.admission.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+                    throws IOException {
+                if (!(handler instanceof HandlerMethod method)) {
+                    return true;
+                }
+                Admission admission = method.getMethodAnnotation(Admission.class);
+                if (admission == null) {
+                    return true;
+                }
+                if (!admissionControl.tryAcquire(admission.value())) {
+                    response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+                    response.setHeader(HttpHeaders.RETRY_AFTER, Integer.toString(retryAfterSeconds));
+                    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                    objectMapper.writeValue(response.getOutputStream(),
+                            new ErrorResponse("Service is over capacity, please retry later"));
+                    return false;
+                }
+                request.setAttribute(BUDGET_ATTRIBUTE, admission.value());
+                request.setAttribute(STARTED_ATTRIBUTE, System.nanoTime());
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                        Exception ex) {
+                if (request.getAttribute(BUDGET_ATTRIBUTE) instanceof AdmissionBudget budget
+                        && request.getAttribute(STARTED_ATTRIBUTE) instanceof Long started) {
+                    admissionControl.release(budget, System.nanoTime() - started,
+                            ex != null || response.getStatus() >= 500);
+                }
+            }
+        });
+    }
+}
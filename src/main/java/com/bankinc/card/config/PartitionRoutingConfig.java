@@ -0,0 +1,31 @@
+package com.bankinc.card.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+
+import java.io.IOException;
+
+// Con el reenvio entre instancias activo se conserva el cuerpo de la peticion, que Jackson ya consumio
+// cuando el controlador descubre que la tarjeta pertenece a otra instancia
+@Configuration
+@ConditionalOnProperty(name = "card.partitioning.mode", havingValue = "forward")
+public class PartitionRoutingConfig {
+
+    @Bean
+    public OncePerRequestFilter cachedBodyFilter() {
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain filterChain) throws ServletException, IOException {
+                filterChain.doFilter(new ContentCachingRequestWrapper(request), response);
+            }
+        };
+    }
+}
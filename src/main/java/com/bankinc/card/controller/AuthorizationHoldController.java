@@ -0,0 +1,96 @@
+package com.bankinc.card.controller;
+
+import com.bankinc.card.exceptions.InvalidTransactionException;
+import com.bankinc.card.model.AuthorizationHold;
+import com.bankinc.card.service.AuthorizationHoldService;
+import com.bankinc.card.service.admission.Admission;
+import com.bankinc.card.service.admission.AdmissionBudget;
+import com.bankinc.card.service.partition.CardOwnershipGuard;
+import com.bankinc.card.service.store.ConditionalOnJpaStore;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@ConditionalOnJpaStore
+@RequestMapping("/transaction/holds")
+@Tag(name = "AuthorizationHoldController", description = "En esta API manejamos las preautorizaciones sobre el cupo de la tarjeta de credito")
+public class AuthorizationHoldController {
+
+    @Autowired
+    private AuthorizationHoldService authorizationHoldService;
+
+    @Autowired
+    private CardOwnershipGuard cardOwnershipGuard;
+
+    @Operation(summary = "Reservamos cupo de la tarjeta de credito sin debitarlo; vence a los durationMinutes (opcional)")
+    @Admission(AdmissionBudget.PURCHASE)
+    @PostMapping
+    public ResponseEntity<String> authorize(@RequestBody Map<String, Object> payload) {
+        if (!payload.containsKey("cardId") || !payload.containsKey("amount")) {
+            throw new InvalidTransactionException("cardId and amount are required");
+        }
+
+        String cardId = payload.get("cardId").toString();
+        cardOwnershipGuard.checkOwnership(cardId);
+        BigDecimal amount = new BigDecimal(payload.get("amount").toString());
+        Long durationMinutes = payload.containsKey("durationMinutes")
+                ? Long.valueOf(payload.get("durationMinutes").toString())
+                : null;
+        String response = authorizationHoldService.authorize(cardId, amount, durationMinutes).toString();
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Capturamos la preautorizacion por el total o por un importe menor (amount); devuelve el movimiento")
+    @Admission(AdmissionBudget.PURCHASE)
+    @PostMapping("/{holdId}/capture")
+    public ResponseEntity<String> capture(@PathVariable String holdId, @RequestBody Map<String, Object> payload) {
+        if (!payload.containsKey("cardId")) {
+            throw new InvalidTransactionException("cardId is required");
+        }
+
+        String cardId = payload.get("cardId").toString();
+        cardOwnershipGuard.checkOwnership(cardId);
+        BigDecimal amount = payload.containsKey("amount") ? new BigDecimal(payload.get("amount").toString()) : null;
+        String response = authorizationHoldService.capture(cardId, parseHoldId(holdId), amount).toString();
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Liberamos la preautorizacion y devolvemos el cupo reservado")
+    @Admission(AdmissionBudget.PURCHASE)
+    @PostMapping("/{holdId}/release")
+    public ResponseEntity<Boolean> release(@PathVariable String holdId, @RequestBody Map<String, Object> payload) {
+        if (!payload.containsKey("cardId")) {
+            throw new InvalidTransactionException("cardId is required");
+        }
+
+        String cardId = payload.get("cardId").toString();
+        cardOwnershipGuard.checkOwnership(cardId);
+        Boolean response = authorizationHoldService.release(cardId, parseHoldId(holdId));
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Consultamos una preautorizacion")
+    @Admission(AdmissionBudget.INQUIRY)
+    @GetMapping("/{holdId}")
+    public ResponseEntity<AuthorizationHold> getHold(@PathVariable String holdId) {
+        return new ResponseEntity<>(authorizationHoldService.getHold(holdId), HttpStatus.OK);
+    }
+
+    private static UUID parseHoldId(String holdId) {
+        try {
+            return UUID.fromString(holdId);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTransactionException("Invalid hold ID format");
+        }
+    }
+}
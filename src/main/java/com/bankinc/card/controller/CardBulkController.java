@@ -0,0 +1,141 @@
+package com.bankinc.card.controller;
+
+import com.bankinc.card.dto.BulkChunkProgress;
+import com.bankinc.card.dto.BulkOperationResult;
+import com.bankinc.card.exceptions.InvalidCardDataException;
+import com.bankinc.card.exceptions.InvalidCardNumberException;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.service.BulkCardOperation;
+import com.bankinc.card.service.CardBulkService;
+import com.bankinc.card.service.CardIssuanceService;
+import com.bankinc.card.service.store.ConditionalOnJpaStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+@RestController
+@ConditionalOnJpaStore
+@RequestMapping("/card/bulk")
+@Tag(name = "CardBulkController", description = "En esta API manejamos la emision, la activacion y el bloqueo masivo de tarjetas")
+public class CardBulkController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Autowired
+    private CardBulkService cardBulkService;
+
+    @Autowired
+    private CardIssuanceService cardIssuanceService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${card.issuance.max-count:5000000}")
+    private int maxIssueCount;
+
+    @Operation(summary = "Emitimos en lote count tarjetas del producto (productId); los numeros se devuelven por lote")
+    @PostMapping("/issue")
+    public ResponseEntity<StreamingResponseBody> issueCards(@RequestBody Map<String, Object> payload) {
+        String productId = String.valueOf(payload.get("productId"));
+        if (!productId.matches("\\d{6}")) {
+            throw new InvalidCardNumberException("Product ID must be a 6-digit number");
+        }
+        int count;
+        try {
+            count = Integer.parseInt(String.valueOf(payload.get("count")));
+        } catch (NumberFormatException e) {
+            throw new InvalidCardDataException("Count must be a number");
+        }
+        if (count <= 0 || count > maxIssueCount) {
+            throw new InvalidCardDataException("Count must be between 1 and " + maxIssueCount);
+        }
+        StreamingResponseBody body = out -> {
+            BulkOperationResult result = cardIssuanceService.issue(productId, count, chunk -> writeLine(out, chunk));
+            writeLine(out, result);
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    @Operation(summary = "Activamos tarjetas en lote por lista de ids (cardIds), producto (productId) o vencimiento (expirationDate MM/yyyy); el progreso se devuelve por lote")
+    @PostMapping("/activate")
+    public ResponseEntity<StreamingResponseBody> activateCards(@RequestBody Map<String, Object> payload) {
+        return execute(BulkCardOperation.ACTIVATE, payload);
+    }
+
+    @Operation(summary = "Bloqueamos tarjetas en lote por lista de ids (cardIds), producto (productId) o vencimiento (expirationDate MM/yyyy); el progreso se devuelve por lote")
+    @PostMapping("/block")
+    public ResponseEntity<StreamingResponseBody> blockCards(@RequestBody Map<String, Object> payload) {
+        return execute(BulkCardOperation.BLOCK, payload);
+    }
+
+    private ResponseEntity<StreamingResponseBody> execute(BulkCardOperation operation, Map<String, Object> payload) {
+        BulkRun run = resolve(operation, payload);
+        StreamingResponseBody body = out -> {
+            BulkOperationResult result = run.execute(progress -> writeLine(out, progress));
+            writeLine(out, result);
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    // Se valida antes de empezar a escribir la respuesta para no fallar a mitad del stream
+    private BulkRun resolve(BulkCardOperation operation, Map<String, Object> payload) {
+        if (payload.size() != 1) {
+            throw new InvalidCardDataException("Exactly one of cardIds, productId or expirationDate is required");
+        }
+        if (payload.get("cardIds") instanceof List<?> values) {
+            List<String> cardIds = values.stream().map(String::valueOf).toList();
+            cardIds.forEach(CardBulkController::validateCardId);
+            return listener -> cardBulkService.byCardIds(operation, cardIds, listener);
+        }
+        if (payload.containsKey("productId")) {
+            String productId = String.valueOf(payload.get("productId"));
+            if (!productId.matches("\\d{6}")) {
+                throw new InvalidCardNumberException("Product ID must be a 6-digit number");
+            }
+            return listener -> cardBulkService.byProduct(operation, productId, listener);
+        }
+        if (payload.containsKey("expirationDate")) {
+            String expirationDate = String.valueOf(payload.get("expirationDate"));
+            if (!expirationDate.matches("(0[1-9]|1[0-2])/\\d{4}")) {
+                throw new InvalidCardDataException("Expiration date must have the format MM/yyyy");
+            }
+            return listener -> cardBulkService.byExpiration(operation, expirationDate, listener);
+        }
+        throw new InvalidCardDataException("Exactly one of cardIds, productId or expirationDate is required");
+    }
+
+    private static void validateCardId(String cardId) {
+        if (!CardNumber.isValid(cardId)) {
+            throw new InvalidCardNumberException("Card ID must be a 16-digit number: " + cardId);
+        }
+    }
+
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private interface BulkRun {
+        BulkOperationResult execute(Consumer<BulkChunkProgress> listener);
+    }
+}
@@ -2,6 +2,9 @@ package com.bankinc.card.controller;
 
 import com.bankinc.card.exceptions.*;
 import com.bankinc.card.service.CardService;
+import com.bankinc.card.service.admission.Admission;
+import com.bankinc.card.service.admission.AdmissionBudget;
+import com.bankinc.card.service.partition.CardOwnershipGuard;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -22,7 +25,11 @@ public class CardController {
     @Autowired
     private CardService cardService;
 
+    @Autowired
+    private CardOwnershipGuard cardOwnershipGuard;
+
     @Operation(summary = "Creamos una tarjeta de credito con los 6 digitos del producto, se asignan nombres y apellidos al azar")
+    @Admission(AdmissionBudget.PURCHASE)
     @GetMapping("/{productId}/number")
     public ResponseEntity<String> generateCardNumber(@PathVariable String productId) {
         if (productId.length() != 6 || !productId.matches("-?\\d{6}")) {
@@ -33,23 +40,28 @@ public class CardController {
     }
 
     @Operation(summary = "Activamos la tarjeta de credito")
+    @Admission(AdmissionBudget.PURCHASE)
     @PostMapping("/enroll")
     public ResponseEntity<String> activateCard(@RequestBody Map<String, String> payload) {
         if (!payload.containsKey("cardId")) {
             throw new InvalidCardNumberException("Card ID is required");
         }
+        cardOwnershipGuard.checkOwnership(payload.get("cardId"));
         cardService.activateCard(payload.get("cardId"));
         return new ResponseEntity<>("Card activated successfully", HttpStatus.OK);
     }
 
     @Operation(summary = "Bolqueamos la tarjeta de credito")
+    @Admission(AdmissionBudget.PURCHASE)
     @DeleteMapping("/{cardId}")
     public ResponseEntity<String> blockCard(@PathVariable String cardId) {
+        cardOwnershipGuard.checkOwnership(cardId);
         cardService.blockCard(cardId);
         return new ResponseEntity<>("Card blocked successfully", HttpStatus.OK);
     }
 
     @Operation(summary = "Recargamos el cupo de la tajeta de credito")
+    @Admission(AdmissionBudget.PURCHASE)
     @PostMapping("/balance")
     public ResponseEntity<String> rechargeBalance(@RequestBody Map<String, Object> payload) {
         if (!payload.containsKey("cardId") || !payload.containsKey("balance")) {
@@ -57,6 +69,7 @@ public class CardController {
         }
         
         String cardId = payload.get("cardId").toString();
+        cardOwnershipGuard.checkOwnership(cardId);
         BigDecimal balance;
         try {
             balance = new BigDecimal(payload.get("balance").toString());
@@ -72,8 +85,10 @@ public class CardController {
     }
 
     @Operation(summary = "Obtenemos el cupo de la tarjeta de credito")
+    @Admission(AdmissionBudget.INQUIRY)
     @GetMapping("/balance/{cardId}")
     public ResponseEntity<BigDecimal> getBalance(@PathVariable String cardId) {
+        cardOwnershipGuard.checkOwnership(cardId);
         BigDecimal balance = cardService.getBalance(cardId);
         return new ResponseEntity<>(balance, HttpStatus.OK);
     }
@@ -0,0 +1,47 @@
+package com.bankinc.card.controller;
+
+import com.bankinc.card.dto.LedgerBalance;
+import com.bankinc.card.service.ledger.BalanceLedger;
+import com.bankinc.card.service.partition.CardOwnershipGuard;
+import com.bankinc.card.service.store.ConditionalOnJpaStore;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+
+@RestController
+@ConditionalOnJpaStore
+@RequestMapping("/card/ledger")
+@Tag(name = "LedgerController", description = "En esta API reconstruimos el saldo de la tarjeta desde su libro mayor de movimientos")
+public class LedgerController {
+
+    @Autowired
+    private BalanceLedger balanceLedger;
+
+    @Autowired
+    private CardOwnershipGuard cardOwnershipGuard;
+
+    @Operation(summary = "Reconstruimos el saldo actual (o el de una fecha con ?at=) desde la ultima instantanea y los movimientos posteriores")
+    @GetMapping("/{cardId}")
+    public ResponseEntity<LedgerBalance> getBalance(@PathVariable String cardId,
+                                                    @RequestParam(required = false)
+                                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        cardOwnershipGuard.checkOwnership(cardId);
+        LedgerBalance balance = at == null ? balanceLedger.current(cardId) : balanceLedger.balanceAt(cardId, at);
+        return new ResponseEntity<>(balance, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Recalculamos el saldo guardado en la tarjeta desde su libro mayor y lo corregimos si no coincide")
+    @PostMapping("/{cardId}/rebuild")
+    public ResponseEntity<LedgerBalance> rebuild(@PathVariable String cardId) {
+        cardOwnershipGuard.checkOwnership(cardId);
+        return new ResponseEntity<>(balanceLedger.rebuild(cardId), HttpStatus.OK);
+    }
+}
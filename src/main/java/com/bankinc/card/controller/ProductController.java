@@ -0,0 +1,67 @@
+package com.bankinc.card.controller;
+
+import com.bankinc.card.dto.ProductAggregate;
+import com.bankinc.card.exceptions.InvalidCardNumberException;
+import com.bankinc.card.service.ProductAggregateService;
+import com.bankinc.card.service.store.ConditionalOnJpaStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+@RestController
+@ConditionalOnJpaStore
+@RequestMapping("/card/products")
+@Tag(name = "ProductController", description = "En esta API consultamos los agregados de tarjetas por producto")
+public class ProductController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Autowired
+    private ProductAggregateService productAggregateService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Operation(summary = "Obtenemos tarjetas por estado, saldo total y exposicion pendiente de un producto")
+    @GetMapping("/{productId}/aggregates")
+    public ResponseEntity<ProductAggregate> getAggregate(@PathVariable String productId) {
+        validateProductId(productId);
+        return new ResponseEntity<>(productAggregateService.aggregate(productId), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Transmitimos los agregados de los productos indicados (o de todos), una linea JSON por producto")
+    @GetMapping("/aggregates")
+    public ResponseEntity<StreamingResponseBody> streamAggregates(@RequestParam(required = false) List<String> productIds) {
+        if (productIds != null) {
+            productIds.forEach(ProductController::validateProductId);
+        }
+        StreamingResponseBody body = out -> productAggregateService.streamAggregates(productIds, aggregate -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(aggregate));
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    private static void validateProductId(String productId) {
+        if (!productId.matches("\\d{6}")) {
+            throw new InvalidCardNumberException("Product ID must be a 6-digit number");
+        }
+    }
+}
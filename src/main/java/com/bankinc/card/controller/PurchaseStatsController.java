@@ -0,0 +1,31 @@
+package com.bankinc.card.controller;
+
+import com.bankinc.card.service.stats.PurchaseStatsStream;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/transaction/stats")
+@Tag(name = "PurchaseStatsController", description = "En esta API seguimos en tiempo real las compras aprobadas, rechazadas y anuladas por producto")
+public class PurchaseStatsController {
+
+    @Autowired
+    private PurchaseStatsStream purchaseStatsStream;
+
+    @Operation(summary = "Nos suscribimos por server-sent events a los totales por producto del ultimo segundo, minuto, hora y dia")
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream() {
+        SseEmitter emitter = purchaseStatsStream.subscribe();
+        return emitter == null
+                ? ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build()
+                : ResponseEntity.ok(emitter);
+    }
+}
@@ -0,0 +1,42 @@
+package com.bankinc.card.controller;
+
+import com.bankinc.card.dto.RechargeImportReport;
+import com.bankinc.card.service.recharge.RechargeImportService;
+import com.bankinc.card.service.store.ConditionalOnJpaStore;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@ConditionalOnJpaStore
+@RequestMapping("/card/recharges/imports")
+@Tag(name = "RechargeImportController", description = "En esta API importamos ficheros masivos de recargas")
+public class RechargeImportController {
+
+    @Autowired
+    private RechargeImportService rechargeImportService;
+
+    @Operation(summary = "Importamos en segundo plano un fichero de recargas (cardId, importe) del buzon; los rechazos quedan en un fichero aparte")
+    @PostMapping("/{fileName}")
+    public ResponseEntity<RechargeImportReport> importFile(@PathVariable String fileName) {
+        return new ResponseEntity<>(rechargeImportService.start(fileName), HttpStatus.ACCEPTED);
+    }
+
+    @Operation(summary = "Reanudamos un fichero fallido tras la ultima linea confirmada")
+    @PostMapping("/{fileName}/resume")
+    public ResponseEntity<RechargeImportReport> resumeFile(@PathVariable String fileName) {
+        return new ResponseEntity<>(rechargeImportService.resume(fileName), HttpStatus.ACCEPTED);
+    }
+
+    @Operation(summary = "Consultamos el progreso o el resultado de la ultima importacion de recargas")
+    @GetMapping
+    public ResponseEntity<RechargeImportReport> getStatus() {
+        RechargeImportReport report = rechargeImportService.getStatus();
+        return report == null ? ResponseEntity.noContent().build() : new ResponseEntity<>(report, HttpStatus.OK);
+    }
+}
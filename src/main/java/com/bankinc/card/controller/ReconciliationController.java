@@ -0,0 +1,36 @@
+package com.bankinc.card.controller;
+
+import com.bankinc.card.dto.ReconciliationReport;
+import com.bankinc.card.service.reconciliation.LedgerReconciliationService;
+import com.bankinc.card.service.store.ConditionalOnJpaStore;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@ConditionalOnJpaStore
+@RequestMapping("/card/reconciliation")
+@Tag(name = "ReconciliationController", description = "En esta API conciliamos los saldos de las tarjetas con sus recargas, compras y preautorizaciones")
+public class ReconciliationController {
+
+    @Autowired
+    private LedgerReconciliationService reconciliationService;
+
+    @Operation(summary = "Lanzamos la conciliacion de saldos en segundo plano; si ya hay una en curso devolvemos su estado")
+    @PostMapping
+    public ResponseEntity<ReconciliationReport> start() {
+        return new ResponseEntity<>(reconciliationService.start(), HttpStatus.ACCEPTED);
+    }
+
+    @Operation(summary = "Consultamos el progreso de la conciliacion en curso o el resultado de la ultima")
+    @GetMapping
+    public ResponseEntity<ReconciliationReport> getStatus() {
+        ReconciliationReport report = reconciliationService.getStatus();
+        return report == null ? ResponseEntity.noContent().build() : new ResponseEntity<>(report, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,52 @@
+package com.bankinc.card.controller;
+
+import com.bankinc.card.dto.StatementRunReport;
+import com.bankinc.card.exceptions.InvalidTransactionException;
+import com.bankinc.card.service.statement.StatementService;
+import com.bankinc.card.service.store.ConditionalOnJpaStore;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+
+@RestController
+@ConditionalOnJpaStore
+@RequestMapping("/card/statements")
+@Tag(name = "StatementController", description = "En esta API generamos los extractos mensuales de todas las tarjetas")
+public class StatementController {
+
+    @Autowired
+    private StatementService statementService;
+
+    @Operation(summary = "Generamos en segundo plano los extractos de un mes cerrado (yyyy-MM); si se interrumpio, se reanuda desde el ultimo checkpoint")
+    @PostMapping("/{period}")
+    public ResponseEntity<StatementRunReport> generate(@PathVariable String period) {
+        YearMonth month = parsePeriod(period);
+        if (!month.isBefore(YearMonth.now())) {
+            throw new InvalidTransactionException("Statements can only be generated for closed periods");
+        }
+        return new ResponseEntity<>(statementService.start(month), HttpStatus.ACCEPTED);
+    }
+
+    @Operation(summary = "Consultamos el progreso o el resultado de la generacion de extractos de un mes")
+    @GetMapping("/{period}")
+    public ResponseEntity<StatementRunReport> getStatus(@PathVariable String period) {
+        StatementRunReport report = statementService.getStatus(parsePeriod(period));
+        return report == null ? ResponseEntity.noContent().build() : new ResponseEntity<>(report, HttpStatus.OK);
+    }
+
+    private static YearMonth parsePeriod(String period) {
+        try {
+            return YearMonth.parse(period);
+        } catch (DateTimeParseException e) {
+            throw new InvalidTransactionException("Period must be in yyyy-MM format");
+        }
+    }
+}
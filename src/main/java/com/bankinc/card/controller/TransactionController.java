@@ -1,19 +1,37 @@
 package com.bankinc.card.controller;
 
+import com.bankinc.card.dto.SplitPurchaseLeg;
+import com.bankinc.card.dto.SplitPurchaseResult;
+import com.bankinc.card.dto.TransactionSearchPage;
+import com.bankinc.card.exceptions.InvalidCardNumberException;
 import com.bankinc.card.exceptions.InvalidTransactionException;
 import com.bankinc.card.exceptions.TransactionNotFoundException;
+import com.bankinc.card.model.CardNumber;
 import com.bankinc.card.model.Transaction;
+import com.bankinc.card.service.SplitPurchaseService;
 import com.bankinc.card.service.TransactionService;
+import com.bankinc.card.service.admission.Admission;
+import com.bankinc.card.service.admission.AdmissionBudget;
+import com.bankinc.card.service.partition.CardOwnershipGuard;
+import com.bankinc.card.service.search.TransactionSearchCriteria;
+import com.bankinc.card.service.search.TransactionSearchCursor;
+import com.bankinc.card.service.search.TransactionSearchService;
+import com.bankinc.card.service.search.TransactionSortField;
+import com.bankinc.card.service.store.JpaCardStore;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -25,7 +43,18 @@ public class TransactionController {
     @Autowired
     private TransactionService transactionService;
 
+    @Autowired
+    private CardOwnershipGuard cardOwnershipGuard;
+
+    // No existe con el motor en memoria: busca en la tabla de movimientos, que alli esta vacia
+    @Autowired(required = false)
+    private TransactionSearchService transactionSearchService;
+
+    @Autowired
+    private SplitPurchaseService splitPurchaseService;
+
     @Operation(summary = "Realizamos un debito al cupo de la tarjeta de credito")
+    @Admission(AdmissionBudget.PURCHASE)
     @PostMapping("/purchase")
     public ResponseEntity<String> purchase(@RequestBody Map<String, Object> payload) {
         if (!payload.containsKey("cardId") || !payload.containsKey("price")) {
@@ -33,12 +62,34 @@ public class TransactionController {
         }
         
         String cardId = payload.get("cardId").toString();
+        cardOwnershipGuard.checkOwnership(cardId);
         BigDecimal price = new BigDecimal(payload.get("price").toString());
         String response = transactionService.purchase(cardId, price).toString();
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    @Operation(summary = "Realizamos una compra repartida entre varias tarjetas: se aprueban todos los tramos o ninguno")
+    @Admission(AdmissionBudget.PURCHASE)
+    @PostMapping("/purchase/split")
+    public ResponseEntity<SplitPurchaseResult> splitPurchase(@RequestBody Map<String, Object> payload) {
+        if (!(payload.get("legs") instanceof List<?> items)) {
+            throw new InvalidTransactionException("legs are required");
+        }
+
+        List<SplitPurchaseLeg> legs = new ArrayList<>(items.size());
+        for (Object item : items) {
+            if (!(item instanceof Map<?, ?> leg) || leg.get("cardId") == null || leg.get("price") == null) {
+                throw new InvalidTransactionException("cardId and price are required for every card");
+            }
+            legs.add(new SplitPurchaseLeg(leg.get("cardId").toString(), new BigDecimal(leg.get("price").toString())));
+        }
+        // Todas las tarjetas tienen que ser de una misma instancia para debitarlas en la misma unidad atomica
+        cardOwnershipGuard.checkOwnership(legs.stream().map(SplitPurchaseLeg::getCardId).toList());
+        return new ResponseEntity<>(splitPurchaseService.purchase(legs), HttpStatus.OK);
+    }
+
     @Operation(summary = "Verificamos un movimiento de la tarjeta de credito")
+    @Admission(AdmissionBudget.INQUIRY)
     @GetMapping("/{transactionId}")
     public ResponseEntity<Transaction> getTransaction(@PathVariable String transactionId) {
         if (transactionId == null || transactionId.trim().isEmpty()) {
@@ -53,7 +104,56 @@ public class TransactionController {
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    @Operation(summary = "Consultamos los movimientos de la tarjeta de credito, incluidos los ya archivados")
+    @Admission(AdmissionBudget.INQUIRY)
+    @GetMapping("/card/{cardId}")
+    public ResponseEntity<List<Transaction>> getCardHistory(@PathVariable String cardId) {
+        if (!CardNumber.isValid(cardId)) {
+            throw new InvalidCardNumberException("Card ID must be a 16-digit number");
+        }
+        cardOwnershipGuard.checkOwnership(cardId);
+        return new ResponseEntity<>(transactionService.getCardHistory(cardId), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Buscamos movimientos por tarjeta, fechas [from, to), importes, anulados; orden por timestamp o price y paginas con cursor")
+    @Admission(AdmissionBudget.INQUIRY)
+    @GetMapping("/search")
+    public ResponseEntity<TransactionSearchPage> search(
+            @RequestParam(required = false) String cardId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) Boolean anulated,
+            @RequestParam(defaultValue = "TIMESTAMP") String sort,
+            @RequestParam(defaultValue = "DESC") String direction,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) String cursor) {
+        if (transactionSearchService == null) {
+            throw new InvalidTransactionException("Transaction search requires card.store.engine=" + JpaCardStore.ENGINE);
+        }
+        CardNumber cardNumber = null;
+        if (cardId != null) {
+            cardNumber = CardNumber.tryParse(cardId)
+                    .orElseThrow(() -> new InvalidTransactionException("Card ID must be a 16-digit number"));
+        }
+        TransactionSortField sortField;
+        try {
+            sortField = TransactionSortField.valueOf(sort.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTransactionException("Sort must be TIMESTAMP or PRICE");
+        }
+        if (!"ASC".equalsIgnoreCase(direction) && !"DESC".equalsIgnoreCase(direction)) {
+            throw new InvalidTransactionException("Direction must be ASC or DESC");
+        }
+        TransactionSearchCriteria criteria = new TransactionSearchCriteria(cardNumber, from, to, minAmount, maxAmount,
+                anulated, sortField, "DESC".equalsIgnoreCase(direction), limit,
+                cursor == null ? null : TransactionSearchCursor.decode(cursor));
+        return new ResponseEntity<>(transactionSearchService.search(criteria), HttpStatus.OK);
+    }
+
     @Operation(summary = "Anulamos un movieminto de la tarjeta de credito si es menor a 24 horas de haberse realizado")
+    @Admission(AdmissionBudget.PURCHASE)
     @PostMapping("/anulation")
     public ResponseEntity<Boolean> anulateTransaction(@RequestBody Map<String, Object> payload) {
         if (!payload.containsKey("cardId") || !payload.containsKey("transactionId")) {
@@ -61,6 +161,7 @@ public class TransactionController {
         }
         
         String cardId = payload.get("cardId").toString();
+        cardOwnershipGuard.checkOwnership(cardId);
         String transactionId = payload.get("transactionId").toString();
         Boolean response = transactionService.anulateTransaction(cardId, UUID.fromString(transactionId));
         return new ResponseEntity<>(response, HttpStatus.OK);
@@ -0,0 +1,48 @@
+package com.bankinc.card.dto;
+
+import com.bankinc.card.model.CardNumber;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Movimiento finalizado tal como se guarda en los segmentos del archivo
+public class ArchivedTransaction {
+    private final UUID id;
+    private final CardNumber cardNumber;
+    private final BigDecimal price;
+    private final LocalDateTime timestamp;
+    private final boolean anulated;
+
+    public ArchivedTransaction(UUID id, CardNumber cardNumber, BigDecimal price, LocalDateTime timestamp, boolean anulated) {
+        this.id = id;
+        this.cardNumber = cardNumber;
+        this.price = price;
+        this.timestamp = timestamp;
+        this.anulated = anulated;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public CardNumber getCardNumber() {
+        return cardNumber;
+    }
+
+    public String getCardId() {
+        return cardNumber.toString();
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public boolean isAnulated() {
+        return anulated;
+    }
+}
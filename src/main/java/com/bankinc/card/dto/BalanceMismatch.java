@@ -0,0 +1,59 @@
+package com.bankinc.card.dto;
+
+import java.math.BigDecimal;
+
+// Tarjeta cuyo saldo no coincide con lo que explican sus recargas, compras y preautorizaciones
+public class BalanceMismatch {
+    private final String cardId;
+    private final BigDecimal balance;
+    private final BigDecimal expectedBalance;
+    private final BigDecimal difference;
+    private final BigDecimal openingBalance;
+    private final BigDecimal recharged;
+    private final BigDecimal purchased;
+    private final BigDecimal held;
+
+    public BalanceMismatch(String cardId, BigDecimal balance, BigDecimal expectedBalance, BigDecimal openingBalance,
+                           BigDecimal recharged, BigDecimal purchased, BigDecimal held) {
+        this.cardId = cardId;
+        this.balance = balance;
+        this.expectedBalance = expectedBalance;
+        this.difference = balance.subtract(expectedBalance);
+        this.openingBalance = openingBalance;
+        this.recharged = recharged;
+        this.purchased = purchased;
+        this.held = held;
+    }
+
+    public String getCardId() {
+        return cardId;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public BigDecimal getExpectedBalance() {
+        return expectedBalance;
+    }
+
+    public BigDecimal getDifference() {
+        return difference;
+    }
+
+    public BigDecimal getOpeningBalance() {
+        return openingBalance;
+    }
+
+    public BigDecimal getRecharged() {
+        return recharged;
+    }
+
+    public BigDecimal getPurchased() {
+        return purchased;
+    }
+
+    public BigDecimal getHeld() {
+        return held;
+    }
+}
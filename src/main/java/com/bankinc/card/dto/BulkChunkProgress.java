@@ -0,0 +1,37 @@
+package com.bankinc.card.dto;
+
+public class BulkChunkProgress {
+    private final int chunk;
+    private final int matched;
+    private final int updated;
+    private final String lastCardId;
+    private final long elapsedMillis;
+
+    public BulkChunkProgress(int chunk, int matched, int updated, String lastCardId, long elapsedMillis) {
+        this.chunk = chunk;
+        this.matched = matched;
+        this.updated = updated;
+        this.lastCardId = lastCardId;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getChunk() {
+        return chunk;
+    }
+
+    public int getMatched() {
+        return matched;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public String getLastCardId() {
+        return lastCardId;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
@@ -0,0 +1,54 @@
+package com.bankinc.card.dto;
+
+public class BulkOperationResult {
+    private final String operation;
+    private final int chunks;
+    private final long matched;
+    private final long updated;
+    private final long notFound;
+    private final long elapsedMillis;
+
+    public BulkOperationResult(String operation, int chunks, long matched, long updated, long elapsedMillis) {
+        this(operation, chunks, matched, updated, 0, elapsedMillis);
+    }
+
+    // matched cuenta solo tarjetas existentes; los numeros pedidos que no existen van en notFound
+    public BulkOperationResult(String operation, int chunks, long matched, long updated, long notFound,
+                               long elapsedMillis) {
+        this.operation = operation;
+        this.chunks = chunks;
+        this.matched = matched;
+        this.updated = updated;
+        this.notFound = notFound;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public long getMatched() {
+        return matched;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    // Ya estaban en el estado pedido
+    public long getSkipped() {
+        return matched - updated;
+    }
+
+    public long getNotFound() {
+        return notFound;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
@@ -0,0 +1,36 @@
+package com.bankinc.card.dto;
+
+import com.bankinc.card.model.CardNumber;
+
+import java.math.BigDecimal;
+
+// Saldo de una tarjeta leido sin cargar la entidad, para la conciliacion
+public class CardBalanceRow {
+    private final CardNumber cardNumber;
+    private final BigDecimal balance;
+    private final BigDecimal openingBalance;
+    private final long version;
+
+    public CardBalanceRow(CardNumber cardNumber, BigDecimal balance, BigDecimal openingBalance, Long version) {
+        this.cardNumber = cardNumber;
+        this.balance = balance == null ? BigDecimal.ZERO : balance;
+        this.openingBalance = openingBalance;
+        this.version = version == null ? 0 : version;
+    }
+
+    public CardNumber getCardNumber() {
+        return cardNumber;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public BigDecimal getOpeningBalance() {
+        return openingBalance;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
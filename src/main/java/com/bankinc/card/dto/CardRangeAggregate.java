@@ -0,0 +1,40 @@
+package com.bankinc.card.dto;
+
+import java.math.BigDecimal;
+
+// Agregado de un rango de numeros de tarjeta; SUM devuelve null cuando el rango esta vacio
+public class CardRangeAggregate {
+    private final long cards;
+    private final long active;
+    private final long blocked;
+    private final long inactive;
+    private final BigDecimal balance;
+
+    public CardRangeAggregate(Long cards, Long active, Long blocked, Long inactive, BigDecimal balance) {
+        this.cards = cards == null ? 0 : cards;
+        this.active = active == null ? 0 : active;
+        this.blocked = blocked == null ? 0 : blocked;
+        this.inactive = inactive == null ? 0 : inactive;
+        this.balance = balance == null ? BigDecimal.ZERO : balance;
+    }
+
+    public long getCards() {
+        return cards;
+    }
+
+    public long getActive() {
+        return active;
+    }
+
+    public long getBlocked() {
+        return blocked;
+    }
+
+    public long getInactive() {
+        return inactive;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+}
@@ -0,0 +1,55 @@
+package com.bankinc.card.dto;
+
+import com.bankinc.card.model.CardNumber;
+
+import java.math.BigDecimal;
+
+// Lo que el directorio de estado necesita de una tarjeta, sin cargar la entidad
+public class CardStateRow {
+    private final CardNumber cardNumber;
+    private final boolean active;
+    private final boolean blocked;
+    private final String expirationDate;
+    private final BigDecimal balance;
+    private final long ledgerSequence;
+    private final long version;
+
+    public CardStateRow(CardNumber cardNumber, boolean active, boolean blocked, String expirationDate,
+                        BigDecimal balance, long ledgerSequence, Long version) {
+        this.cardNumber = cardNumber;
+        this.active = active;
+        this.blocked = blocked;
+        this.expirationDate = expirationDate;
+        this.balance = balance;
+        this.ledgerSequence = ledgerSequence;
+        this.version = version == null ? 0 : version;
+    }
+
+    public CardNumber getCardNumber() {
+        return cardNumber;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public boolean isBlocked() {
+        return blocked;
+    }
+
+    public String getExpirationDate() {
+        return expirationDate;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public long getLedgerSequence() {
+        return ledgerSequence;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
@@ -1,7 +1,8 @@
 package com.bankinc.card.dto;
 
+// Inmutable: los rechazos preasignados comparten la misma instancia entre peticiones
 public class ErrorResponse {
-    private String message;
+    private final String message;
 
     public ErrorResponse(String message) {
         this.message = message;
@@ -10,8 +11,4 @@ public class ErrorResponse {
     public String getMessage() {
         return message;
     }
-
-    public void setMessage(String message) {
-        this.message = message;
-    }
 }
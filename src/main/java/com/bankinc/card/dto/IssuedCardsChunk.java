@@ -0,0 +1,34 @@
+package com.bankinc.card.dto;
+
+import java.util.List;
+
+// Lote confirmado de una emision masiva; attempts > 1 si el lote choco con numeros ya emitidos
+public class IssuedCardsChunk {
+    private final int chunk;
+    private final List<String> cardIds;
+    private final int attempts;
+    private final long elapsedMillis;
+
+    public IssuedCardsChunk(int chunk, List<String> cardIds, int attempts, long elapsedMillis) {
+        this.chunk = chunk;
+        this.cardIds = cardIds;
+        this.attempts = attempts;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getChunk() {
+        return chunk;
+    }
+
+    public List<String> getCardIds() {
+        return cardIds;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
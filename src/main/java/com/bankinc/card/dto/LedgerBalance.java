@@ -0,0 +1,59 @@
+package com.bankinc.card.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Saldo reconstruido desde el libro mayor: instantanea mas la cola de apuntes posteriores.
+// balance es la proyeccion guardada en la tarjeta y solo acompana al saldo actual (at null)
+public class LedgerBalance {
+    private final String cardId;
+    private final LocalDateTime at;
+    private final BigDecimal balance;
+    private final BigDecimal replayedBalance;
+    private final long sequence;
+    private final long snapshotSequence;
+    private final long replayedEntries;
+
+    public LedgerBalance(String cardId, LocalDateTime at, BigDecimal balance, BigDecimal replayedBalance,
+                         long sequence, long snapshotSequence, long replayedEntries) {
+        this.cardId = cardId;
+        this.at = at;
+        this.balance = balance;
+        this.replayedBalance = replayedBalance;
+        this.sequence = sequence;
+        this.snapshotSequence = snapshotSequence;
+        this.replayedEntries = replayedEntries;
+    }
+
+    public String getCardId() {
+        return cardId;
+    }
+
+    public LocalDateTime getAt() {
+        return at;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public BigDecimal getReplayedBalance() {
+        return replayedBalance;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getSnapshotSequence() {
+        return snapshotSequence;
+    }
+
+    public long getReplayedEntries() {
+        return replayedEntries;
+    }
+
+    public boolean isConsistent() {
+        return balance == null || balance.compareTo(replayedBalance) == 0;
+    }
+}
@@ -0,0 +1,22 @@
+package com.bankinc.card.dto;
+
+import java.math.BigDecimal;
+
+// Ultima secuencia del libro mayor de una tarjeta y el saldo que la acompana
+public class LedgerPosition {
+    private final long sequence;
+    private final BigDecimal balance;
+
+    public LedgerPosition(Long sequence, BigDecimal balance) {
+        this.sequence = sequence == null ? 0 : sequence;
+        this.balance = balance;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+}
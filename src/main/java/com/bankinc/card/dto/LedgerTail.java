@@ -0,0 +1,22 @@
+package com.bankinc.card.dto;
+
+import java.math.BigDecimal;
+
+// Suma y numero de apuntes posteriores a una instantanea; SUM devuelve null si no hay ninguno
+public class LedgerTail {
+    private final BigDecimal amount;
+    private final long entries;
+
+    public LedgerTail(BigDecimal amount, Long entries) {
+        this.amount = amount == null ? BigDecimal.ZERO : amount;
+        this.entries = entries == null ? 0 : entries;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public long getEntries() {
+        return entries;
+    }
+}
@@ -0,0 +1,71 @@
+package com.bankinc.card.dto;
+
+import java.math.BigDecimal;
+
+public class ProductAggregate {
+    private final String productId;
+    private long cards;
+    private long activeCards;
+    private long blockedCards;
+    private long inactiveCards;
+    private BigDecimal totalBalance = BigDecimal.ZERO;
+    private BigDecimal outstandingExposure = BigDecimal.ZERO;
+    private int ranges;
+    private long elapsedMillis;
+
+    public ProductAggregate(String productId) {
+        this.productId = productId;
+    }
+
+    public void add(CardRangeAggregate range, BigDecimal outstanding) {
+        cards += range.getCards();
+        activeCards += range.getActive();
+        blockedCards += range.getBlocked();
+        inactiveCards += range.getInactive();
+        totalBalance = totalBalance.add(range.getBalance());
+        if (outstanding != null) {
+            outstandingExposure = outstandingExposure.add(outstanding);
+        }
+        ranges++;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public long getCards() {
+        return cards;
+    }
+
+    public long getActiveCards() {
+        return activeCards;
+    }
+
+    public long getBlockedCards() {
+        return blockedCards;
+    }
+
+    public long getInactiveCards() {
+        return inactiveCards;
+    }
+
+    public BigDecimal getTotalBalance() {
+        return totalBalance;
+    }
+
+    public BigDecimal getOutstandingExposure() {
+        return outstandingExposure;
+    }
+
+    public int getRanges() {
+        return ranges;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+}
@@ -0,0 +1,64 @@
+package com.bankinc.card.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+// Totales de un producto: el ultimo segundo completo, el ultimo minuto, la ultima hora y el ultimo
+// dia. Las series por segundo, minuto y hora solo se incluyen al pedir un producto concreto
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductStats {
+    private final String productId;
+    private final WindowTotals lastSecond;
+    private final WindowTotals lastMinute;
+    private final WindowTotals lastHour;
+    private final WindowTotals lastDay;
+    private final List<WindowTotals> perSecond;
+    private final List<WindowTotals> perMinute;
+    private final List<WindowTotals> perHour;
+
+    public ProductStats(String productId, WindowTotals lastSecond, WindowTotals lastMinute, WindowTotals lastHour,
+                        WindowTotals lastDay, List<WindowTotals> perSecond, List<WindowTotals> perMinute,
+                        List<WindowTotals> perHour) {
+        this.productId = productId;
+        this.lastSecond = lastSecond;
+        this.lastMinute = lastMinute;
+        this.lastHour = lastHour;
+        this.lastDay = lastDay;
+        this.perSecond = perSecond;
+        this.perMinute = perMinute;
+        this.perHour = perHour;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public WindowTotals getLastSecond() {
+        return lastSecond;
+    }
+
+    public WindowTotals getLastMinute() {
+        return lastMinute;
+    }
+
+    public WindowTotals getLastHour() {
+        return lastHour;
+    }
+
+    public WindowTotals getLastDay() {
+        return lastDay;
+    }
+
+    public List<WindowTotals> getPerSecond() {
+        return perSecond;
+    }
+
+    public List<WindowTotals> getPerMinute() {
+        return perMinute;
+    }
+
+    public List<WindowTotals> getPerHour() {
+        return perHour;
+    }
+}
@@ -0,0 +1,86 @@
+package com.bankinc.card.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Estado de la importacion de un fichero de recargas; committedLines es la ultima linea del
+// fichero cuyo lote quedo confirmado (si la importacion falla, lo anterior ya esta aplicado)
+public class RechargeImportReport {
+    private final String file;
+    private final String status;
+    private final LocalDateTime startedAt;
+    private final LocalDateTime finishedAt;
+    private final long chunks;
+    private final long committedLines;
+    private final long accepted;
+    private final long rejected;
+    private final BigDecimal amount;
+    private final long elapsedMillis;
+    private final String rejectsFile;
+    private final String error;
+
+    public RechargeImportReport(String file, String status, LocalDateTime startedAt, LocalDateTime finishedAt,
+                                long chunks, long committedLines, long accepted, long rejected,
+                                BigDecimal amount, long elapsedMillis, String rejectsFile, String error) {
+        this.file = file;
+        this.status = status;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.chunks = chunks;
+        this.committedLines = committedLines;
+        this.accepted = accepted;
+        this.rejected = rejected;
+        this.amount = amount;
+        this.elapsedMillis = elapsedMillis;
+        this.rejectsFile = rejectsFile;
+        this.error = error;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public long getChunks() {
+        return chunks;
+    }
+
+    public long getCommittedLines() {
+        return committedLines;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public String getRejectsFile() {
+        return rejectsFile;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
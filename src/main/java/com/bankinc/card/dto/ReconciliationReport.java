@@ -0,0 +1,79 @@
+package com.bankinc.card.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Estado y resultado de una conciliacion; mismatches es una muestra, el detalle completo esta en reportFile
+public class ReconciliationReport {
+    private final String status;
+    private final LocalDateTime startedAt;
+    private final LocalDateTime finishedAt;
+    private final long totalCards;
+    private final long checkedCards;
+    private final long pendingOpeningBalance;
+    private final long mismatchCount;
+    private final long elapsedMillis;
+    private final String reportFile;
+    private final String error;
+    private final List<BalanceMismatch> mismatches;
+
+    public ReconciliationReport(String status, LocalDateTime startedAt, LocalDateTime finishedAt, long totalCards,
+                                long checkedCards, long pendingOpeningBalance, long mismatchCount, long elapsedMillis,
+                                String reportFile, String error, List<BalanceMismatch> mismatches) {
+        this.status = status;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.totalCards = totalCards;
+        this.checkedCards = checkedCards;
+        this.pendingOpeningBalance = pendingOpeningBalance;
+        this.mismatchCount = mismatchCount;
+        this.elapsedMillis = elapsedMillis;
+        this.reportFile = reportFile;
+        this.error = error;
+        this.mismatches = mismatches;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public long getTotalCards() {
+        return totalCards;
+    }
+
+    public long getCheckedCards() {
+        return checkedCards;
+    }
+
+    public long getPendingOpeningBalance() {
+        return pendingOpeningBalance;
+    }
+
+    public long getMismatchCount() {
+        return mismatchCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public String getReportFile() {
+        return reportFile;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public List<BalanceMismatch> getMismatches() {
+        return mismatches;
+    }
+}
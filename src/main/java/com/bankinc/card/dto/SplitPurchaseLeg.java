@@ -0,0 +1,33 @@
+package com.bankinc.card.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Tramo de una compra repartida: lo que paga una tarjeta y, una vez aprobada, su movimiento
+public class SplitPurchaseLeg {
+    private final String cardId;
+    private final BigDecimal price;
+    private final UUID transactionId;
+
+    public SplitPurchaseLeg(String cardId, BigDecimal price) {
+        this(cardId, price, null);
+    }
+
+    public SplitPurchaseLeg(String cardId, BigDecimal price, UUID transactionId) {
+        this.cardId = cardId;
+        this.price = price;
+        this.transactionId = transactionId;
+    }
+
+    public String getCardId() {
+        return cardId;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public UUID getTransactionId() {
+        return transactionId;
+    }
+}
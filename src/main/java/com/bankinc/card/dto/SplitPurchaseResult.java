@@ -0,0 +1,30 @@
+package com.bankinc.card.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+// Compra repartida aprobada: el movimiento padre es el del primer tramo
+public class SplitPurchaseResult {
+    private final UUID parentTransactionId;
+    private final BigDecimal total;
+    private final List<SplitPurchaseLeg> legs;
+
+    public SplitPurchaseResult(UUID parentTransactionId, BigDecimal total, List<SplitPurchaseLeg> legs) {
+        this.parentTransactionId = parentTransactionId;
+        this.total = total;
+        this.legs = legs;
+    }
+
+    public UUID getParentTransactionId() {
+        return parentTransactionId;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public List<SplitPurchaseLeg> getLegs() {
+        return legs;
+    }
+}
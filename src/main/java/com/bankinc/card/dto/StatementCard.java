@@ -0,0 +1,28 @@
+package com.bankinc.card.dto;
+
+import com.bankinc.card.model.CardNumber;
+
+// Cabecera del extracto: solo las columnas que se imprimen, sin cargar la entidad ni sus movimientos
+public class StatementCard {
+    private final CardNumber cardNumber;
+    private final String holderName;
+    private final String productId;
+
+    public StatementCard(CardNumber cardNumber, String holderName, String productId) {
+        this.cardNumber = cardNumber;
+        this.holderName = holderName;
+        this.productId = productId;
+    }
+
+    public CardNumber getCardNumber() {
+        return cardNumber;
+    }
+
+    public String getHolderName() {
+        return holderName;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+}
@@ -0,0 +1,85 @@
+package com.bankinc.card.dto;
+
+import java.time.LocalDateTime;
+
+// Estado de la generacion de extractos de un periodo; resumedFrom es la ultima tarjeta del
+// checkpoint desde el que se reanudo (null si empezo de cero)
+public class StatementRunReport {
+    private final String period;
+    private final String status;
+    private final LocalDateTime startedAt;
+    private final LocalDateTime finishedAt;
+    private final String resumedFrom;
+    private final String checkpointCardId;
+    private final long chunks;
+    private final long cards;
+    private final long transactions;
+    private final long elapsedMillis;
+    private final String directory;
+    private final String error;
+
+    public StatementRunReport(String period, String status, LocalDateTime startedAt, LocalDateTime finishedAt,
+                              String resumedFrom, String checkpointCardId, long chunks, long cards,
+                              long transactions, long elapsedMillis, String directory, String error) {
+        this.period = period;
+        this.status = status;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.resumedFrom = resumedFrom;
+        this.checkpointCardId = checkpointCardId;
+        this.chunks = chunks;
+        this.cards = cards;
+        this.transactions = transactions;
+        this.elapsedMillis = elapsedMillis;
+        this.directory = directory;
+        this.error = error;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getResumedFrom() {
+        return resumedFrom;
+    }
+
+    public String getCheckpointCardId() {
+        return checkpointCardId;
+    }
+
+    public long getChunks() {
+        return chunks;
+    }
+
+    public long getCards() {
+        return cards;
+    }
+
+    public long getTransactions() {
+        return transactions;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
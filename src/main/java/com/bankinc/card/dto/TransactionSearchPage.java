@@ -0,0 +1,22 @@
+package com.bankinc.card.dto;
+
+import java.util.List;
+
+// nextCursor es null en la ultima pagina
+public class TransactionSearchPage {
+    private final List<TransactionSearchRow> transactions;
+    private final String nextCursor;
+
+    public TransactionSearchPage(List<TransactionSearchRow> transactions, String nextCursor) {
+        this.transactions = transactions;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<TransactionSearchRow> getTransactions() {
+        return transactions;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,56 @@
+package com.bankinc.card.dto;
+
+import com.bankinc.card.model.CardNumber;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Fila de la busqueda de movimientos. La consulta solo lee el indice de movimientos y devuelve la
+// clave de la tarjeta; el numero se completa despues con una consulta por pagina
+public class TransactionSearchRow {
+    private final UUID id;
+    private final UUID cardKey;
+    private final BigDecimal price;
+    private final LocalDateTime timestamp;
+    private final boolean anulated;
+    private CardNumber cardNumber;
+
+    public TransactionSearchRow(UUID id, UUID cardKey, BigDecimal price, LocalDateTime timestamp, boolean anulated) {
+        this.id = id;
+        this.cardKey = cardKey;
+        this.price = price;
+        this.timestamp = timestamp;
+        this.anulated = anulated;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    @JsonIgnore
+    public UUID getCardKey() {
+        return cardKey;
+    }
+
+    public String getCardId() {
+        return cardNumber == null ? null : cardNumber.toString();
+    }
+
+    public void setCardNumber(CardNumber cardNumber) {
+        this.cardNumber = cardNumber;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public boolean isAnulated() {
+        return anulated;
+    }
+}
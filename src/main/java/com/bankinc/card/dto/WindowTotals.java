@@ -0,0 +1,55 @@
+package com.bankinc.card.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Compras aprobadas, rechazadas y anuladas de un periodo que empieza en start; importes en centimos
+// internamente y expuestos con dos decimales
+public class WindowTotals {
+    private final long startMillis;
+    private final long approvedCount;
+    private final long approvedCents;
+    private final long declinedCount;
+    private final long declinedCents;
+    private final long anulatedCount;
+    private final long anulatedCents;
+
+    public WindowTotals(long startMillis, long approvedCount, long approvedCents, long declinedCount,
+                        long declinedCents, long anulatedCount, long anulatedCents) {
+        this.startMillis = startMillis;
+        this.approvedCount = approvedCount;
+        this.approvedCents = approvedCents;
+        this.declinedCount = declinedCount;
+        this.declinedCents = declinedCents;
+        this.anulatedCount = anulatedCount;
+        this.anulatedCents = anulatedCents;
+    }
+
+    public Instant getStart() {
+        return Instant.ofEpochMilli(startMillis);
+    }
+
+    public long getApprovedCount() {
+        return approvedCount;
+    }
+
+    public BigDecimal getApprovedAmount() {
+        return BigDecimal.valueOf(approvedCents, 2);
+    }
+
+    public long getDeclinedCount() {
+        return declinedCount;
+    }
+
+    public BigDecimal getDeclinedAmount() {
+        return BigDecimal.valueOf(declinedCents, 2);
+    }
+
+    public long getAnulatedCount() {
+        return anulatedCount;
+    }
+
+    public BigDecimal getAnulatedAmount() {
+        return BigDecimal.valueOf(anulatedCents, 2);
+    }
+}
@@ -0,0 +1,23 @@
+package com.bankinc.card.exceptions;
+
+import com.bankinc.card.dto.ErrorResponse;
+
+// Base de los rechazos de negocio: son trafico normal, no errores del sistema,
+// asi que no capturan stack trace y cachean el cuerpo de la respuesta.
+public abstract class BusinessException extends RuntimeException {
+
+    private transient ErrorResponse errorResponse;
+
+    protected BusinessException(String message) {
+        super(message, null, false, false);
+    }
+
+    public ErrorResponse getErrorResponse() {
+        ErrorResponse response = errorResponse;
+        if (response == null) {
+            response = new ErrorResponse(getMessage());
+            errorResponse = response;
+        }
+        return response;
+    }
+}
@@ -1,6 +1,8 @@
 package com.bankinc.card.exceptions;
 
-public class CardActivationException extends RuntimeException {
+public class CardActivationException extends BusinessException {
+    public static final CardActivationException ALREADY_ACTIVE = new CardActivationException("Card is already active");
+
     public CardActivationException(String message) {
         super(message);
     }
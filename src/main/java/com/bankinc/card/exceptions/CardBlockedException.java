@@ -1,7 +1,11 @@
 package com.bankinc.card.exceptions;
 
-public class CardBlockedException extends RuntimeException {
+public class CardBlockedException extends BusinessException {
+    public static final CardBlockedException BLOCKED = new CardBlockedException("Card is blocked");
+    public static final CardBlockedException ALREADY_BLOCKED = new CardBlockedException("Card is already blocked");
+    public static final CardBlockedException RECHARGE_BLOCKED = new CardBlockedException("Cannot recharge balance: card is blocked");
+
     public CardBlockedException(String message) {
         super(message);
     }
-}
\ No newline at end of file
+}
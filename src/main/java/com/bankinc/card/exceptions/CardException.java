@@ -1,6 +1,6 @@
 package com.bankinc.card.exceptions;
 
-public class CardException extends RuntimeException {
+public class CardException extends BusinessException {
     public CardException(String message) {
         super(message);
     }
@@ -1,6 +1,8 @@
 package com.bankinc.card.exceptions;
 
-public class CardExpiredException extends RuntimeException {
+public class CardExpiredException extends BusinessException {
+    public static final CardExpiredException EXPIRED = new CardExpiredException("Card is expired");
+
     public CardExpiredException(String message) {
         super(message);
     }
@@ -1,6 +1,8 @@
 package com.bankinc.card.exceptions;
 
-public class CardNotActiveException extends RuntimeException {
+public class CardNotActiveException extends BusinessException {
+    public static final CardNotActiveException NOT_ACTIVATED = new CardNotActiveException("Card is not activated");
+
     public CardNotActiveException(String message) {
         super(message);
     }
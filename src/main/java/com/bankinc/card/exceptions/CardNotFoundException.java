@@ -1,6 +1,8 @@
 package com.bankinc.card.exceptions;
 
-public class CardNotFoundException extends RuntimeException {
+public class CardNotFoundException extends BusinessException {
+    public static final CardNotFoundException NOT_FOUND_OR_INACTIVE = new CardNotFoundException("Card not found or not active");
+
     public CardNotFoundException(String message) {
         super(message);
     }
@@ -0,0 +1,21 @@
+package com.bankinc.card.exceptions;
+
+// La tarjeta pertenece a otra instancia de card-service
+public class CardNotOwnedException extends BusinessException {
+    private final String ownerInstanceId;
+    private final String ownerBaseUrl;
+
+    public CardNotOwnedException(String ownerInstanceId, String ownerBaseUrl) {
+        super("Card is owned by instance " + ownerInstanceId);
+        this.ownerInstanceId = ownerInstanceId;
+        this.ownerBaseUrl = ownerBaseUrl;
+    }
+
+    public String getOwnerInstanceId() {
+        return ownerInstanceId;
+    }
+
+    public String getOwnerBaseUrl() {
+        return ownerBaseUrl;
+    }
+}
@@ -1,6 +1,8 @@
 package com.bankinc.card.exceptions;
 
-public class InsufficientFundsException extends RuntimeException {
+public class InsufficientFundsException extends BusinessException {
+    public static final InsufficientFundsException INSUFFICIENT_FUNDS = new InsufficientFundsException("Insufficient funds");
+
     public InsufficientFundsException(String message) {
         super(message);
     }
@@ -1,6 +1,6 @@
 package com.bankinc.card.exceptions;
 
-public class InvalidBalanceException extends RuntimeException {
+public class InvalidBalanceException extends BusinessException {
     public InvalidBalanceException(String message) {
         super(message);
     }
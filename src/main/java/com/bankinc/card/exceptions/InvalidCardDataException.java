@@ -1,7 +1,9 @@
 package com.bankinc.card.exceptions;
 
-public class InvalidCardDataException extends RuntimeException {
+public class InvalidCardDataException extends BusinessException {
+    public static final InvalidCardDataException INVALID_EXPIRATION_DATE = new InvalidCardDataException("Invalid expiration date format");
+
     public InvalidCardDataException(String message) {
         super(message);
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,6 @@
 package com.bankinc.card.exceptions;
 
-public class InvalidCardNumberException extends RuntimeException {
+public class InvalidCardNumberException extends BusinessException {
     public InvalidCardNumberException(String message) {
         super(message);
     }
@@ -1,7 +1,12 @@
 package com.bankinc.card.exceptions;
 
-public class InvalidTransactionException extends RuntimeException {
+public class InvalidTransactionException extends BusinessException {
+    public static final InvalidTransactionException NON_POSITIVE_AMOUNT = new InvalidTransactionException("Transaction amount must be greater than zero");
+    public static final InvalidTransactionException CAPTURE_EXCEEDS_HOLD = new InvalidTransactionException("Capture amount exceeds the authorized amount");
+    public static final InvalidTransactionException INVALID_HOLD_DURATION = new InvalidTransactionException("Hold duration must be between 1 minute and the configured maximum");
+    public static final InvalidTransactionException CARDS_ON_SEVERAL_INSTANCES = new InvalidTransactionException("The cards are handled by different instances and cannot be charged together");
+
     public InvalidTransactionException(String message) {
         super(message);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,9 @@
+package com.bankinc.card.exceptions;
+
+// Fallo del sistema (base de datos caida, error inesperado) al procesar una operacion. A diferencia
+// de los rechazos de negocio conserva la causa y el stack trace para poder diagnosticarlo
+public class ProcessingFailureException extends RuntimeException {
+    public ProcessingFailureException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,9 @@
+package com.bankinc.card.exceptions;
+
+public class ServiceDrainingException extends BusinessException {
+    public static final ServiceDrainingException DRAINING = new ServiceDrainingException("Service is shutting down, please retry on another instance");
+
+    public ServiceDrainingException(String message) {
+        super(message);
+    }
+}
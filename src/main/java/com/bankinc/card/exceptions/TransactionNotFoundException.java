@@ -1,6 +1,6 @@
 package com.bankinc.card.exceptions;
 
-public class TransactionNotFoundException extends RuntimeException {
+public class TransactionNotFoundException extends BusinessException {
     public TransactionNotFoundException(String message) {
         super(message);
     }
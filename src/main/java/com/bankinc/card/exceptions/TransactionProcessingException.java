@@ -1,7 +1,17 @@
 package com.bankinc.card.exceptions;
 
-public class TransactionProcessingException extends RuntimeException {
+public class TransactionProcessingException extends BusinessException {
+    public static final TransactionProcessingException ANULATION_NOT_FOUND = new TransactionProcessingException("Error processing transaction anulation: Transaction not found");
+    public static final TransactionProcessingException ANULATION_NOT_CARD_OWNER = new TransactionProcessingException("Error processing transaction anulation: Transaction does not belong to this card");
+    public static final TransactionProcessingException ANULATION_WINDOW_CLOSED = new TransactionProcessingException("Error processing transaction anulation: Transaction cannot be anulated after 24 hours");
+    public static final TransactionProcessingException ALREADY_ANULATED = new TransactionProcessingException("Error processing transaction anulation: Transaction already anulated");
+    public static final TransactionProcessingException HOLD_NOT_FOUND = new TransactionProcessingException("Error processing authorization hold: Hold not found");
+    public static final TransactionProcessingException HOLD_NOT_CARD_OWNER = new TransactionProcessingException("Error processing authorization hold: Hold does not belong to this card");
+    public static final TransactionProcessingException HOLD_ALREADY_SETTLED = new TransactionProcessingException("Error processing authorization hold: Hold already captured, released or expired");
+    public static final TransactionProcessingException HOLD_EXPIRED = new TransactionProcessingException("Error processing authorization hold: Hold has expired");
+    public static final TransactionProcessingException CONCURRENT_UPDATE = new TransactionProcessingException("Error processing transaction: concurrent update on card, please retry");
+
     public TransactionProcessingException(String message) {
         super(message);
     }
-}
\ No newline at end of file
+}
@@ -2,53 +2,135 @@ package com.bankinc.card.exceptions.handler;
 
 import com.bankinc.card.dto.ErrorResponse;
 import com.bankinc.card.exceptions.*;
+import com.bankinc.card.service.partition.CardOwnershipGuard;
+import com.bankinc.card.service.partition.PartitionForwarder;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 
+import java.io.IOException;
+
+@Slf4j
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    @Autowired
+    private PartitionForwarder partitionForwarder;
+
+    @Value("${card.partitioning.mode:redirect}")
+    private String partitioningMode;
+
+    @Value("${card.admission.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
     @ExceptionHandler(CardNotActiveException.class)
     @ResponseBody
     public ResponseEntity<ErrorResponse> handleCardNotActive(CardNotActiveException ex) {
-        ErrorResponse error = new ErrorResponse(ex.getMessage());
-        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+        return new ResponseEntity<>(ex.getErrorResponse(), HttpStatus.BAD_REQUEST);
     }
 
     @ExceptionHandler(CardNotFoundException.class)
     @ResponseBody
     public ResponseEntity<ErrorResponse> handleCardNotFound(CardNotFoundException ex) {
-        ErrorResponse error = new ErrorResponse(ex.getMessage());
-        return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
+        return new ResponseEntity<>(ex.getErrorResponse(), HttpStatus.NOT_FOUND);
     }
 
     @ExceptionHandler(InvalidTransactionException.class)
     @ResponseBody
     public ResponseEntity<ErrorResponse> handleInvalidTransaction(InvalidTransactionException ex) {
-        ErrorResponse error = new ErrorResponse(ex.getMessage());
-        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+        return new ResponseEntity<>(ex.getErrorResponse(), HttpStatus.BAD_REQUEST);
     }
 
     @ExceptionHandler(CardBlockedException.class)
     @ResponseBody
     public ResponseEntity<ErrorResponse> handleCardBlocked(CardBlockedException ex) {
-        ErrorResponse error = new ErrorResponse(ex.getMessage());
-        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+        return new ResponseEntity<>(ex.getErrorResponse(), HttpStatus.BAD_REQUEST);
     }
 
     @ExceptionHandler(InsufficientFundsException.class)
     @ResponseBody
     public ResponseEntity<ErrorResponse> handleInsufficientFunds(InsufficientFundsException ex) {
-        ErrorResponse error = new ErrorResponse(ex.getMessage());
-        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+        return new ResponseEntity<>(ex.getErrorResponse(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(CardExpiredException.class)
+    @ResponseBody
+    public ResponseEntity<ErrorResponse> handleCardExpired(CardExpiredException ex) {
+        return new ResponseEntity<>(ex.getErrorResponse(), HttpStatus.BAD_REQUEST);
+    }
+
+    // Rechazos de anulaciones y preautorizaciones: la misma respuesta cacheada de la excepcion
+    // preasignada y un estado que no se confunde con un fallo del sistema
+    @ExceptionHandler(TransactionProcessingException.class)
+    @ResponseBody
+    public ResponseEntity<ErrorResponse> handleTransactionProcessing(TransactionProcessingException ex) {
+        return new ResponseEntity<>(ex.getErrorResponse(), statusOf(ex));
+    }
+
+    // Conflictos con otra operacion sobre el mismo registro: 409; lo que no existe: 404; el resto son
+    // rechazos de negocio como los de la tarjeta: 400
+    static HttpStatus statusOf(TransactionProcessingException ex) {
+        if (ex == TransactionProcessingException.CONCURRENT_UPDATE
+                || ex == TransactionProcessingException.ALREADY_ANULATED
+                || ex == TransactionProcessingException.HOLD_ALREADY_SETTLED) {
+            return HttpStatus.CONFLICT;
+        }
+        if (ex == TransactionProcessingException.ANULATION_NOT_FOUND
+                || ex == TransactionProcessingException.HOLD_NOT_FOUND) {
+            return HttpStatus.NOT_FOUND;
+        }
+        return HttpStatus.BAD_REQUEST;
+    }
+
+    // La tarjeta pertenece a otra instancia: se reenvia internamente o se indica a quien llamar. Una
+    // peticion ya reenviada no se reenvia otra vez: las instancias discrepan sobre el propietario
+    // mientras se reparte la particion y el cliente debe reintentar
+    @ExceptionHandler(CardNotOwnedException.class)
+    public ResponseEntity<?> handleCardNotOwned(CardNotOwnedException ex, HttpServletRequest request) {
+        if (CardOwnershipGuard.isForwarded(request)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, Integer.toString(retryAfterSeconds))
+                    .header("X-Card-Owner", ex.getOwnerInstanceId())
+                    .body(ex.getErrorResponse());
+        }
+        if ("forward".equalsIgnoreCase(partitioningMode)) {
+            try {
+                return partitionForwarder.forward(request, ex.getOwnerBaseUrl());
+            } catch (IOException e) {
+                log.warn("Forwarding to partition owner {} failed: {}", ex.getOwnerInstanceId(), e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT)
+                .location(PartitionForwarder.targetUri(request, ex.getOwnerBaseUrl()))
+                .header("X-Card-Owner", ex.getOwnerInstanceId())
+                .body(ex.getErrorResponse());
+    }
+
+    // Instancia apagandose: el cliente debe reintentar (en otra instancia tras el balanceador)
+    @ExceptionHandler(ServiceDrainingException.class)
+    @ResponseBody
+    public ResponseEntity<ErrorResponse> handleServiceDraining(ServiceDrainingException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Integer.toString(retryAfterSeconds))
+                .body(ex.getErrorResponse());
     }
 
     @ExceptionHandler(Exception.class)
     @ResponseBody
-    public ResponseEntity<ErrorResponse> handleGeneral(Exception ex) {
+    public ResponseEntity<ErrorResponse> handleGeneral(Exception ex, HttpServletRequest request) {
+        // Los rechazos de negocio sin manejador propio no son fallos; el resto se registra con su causa
+        if (!(ex instanceof BusinessException)) {
+            log.error("Unexpected error processing {} {}", request.getMethod(), request.getRequestURI(), ex);
+        }
         ErrorResponse error = new ErrorResponse("An unexpected error occurred: " + ex.getMessage());
         return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
     }
@@ -56,7 +138,6 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(TransactionNotFoundException.class)
     @ResponseBody
     public ResponseEntity<ErrorResponse> handleTransactionNotFound(TransactionNotFoundException ex) {
-        ErrorResponse error = new ErrorResponse(ex.getMessage());
-        return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
+        return new ResponseEntity<>(ex.getErrorResponse(), HttpStatus.NOT_FOUND);
     }
 }
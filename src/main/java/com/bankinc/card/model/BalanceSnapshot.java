@@ -0,0 +1,86 @@
+package com.bankinc.card.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Saldo de la tarjeta tras aplicar el apunte con esta secuencia. La secuencia 0 es el saldo con
+// el que la tarjeta entro en el libro mayor
+@Entity
+@Table(indexes = {
+    @Index(name = "idx_balance_snapshot_card_seq", columnList = "card_id, sequence", unique = true)
+})
+public class BalanceSnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+    @ManyToOne
+    @JoinColumn(name = "card_id", nullable = false)
+    private Card card;
+    @Column(nullable = false)
+    private long sequence;
+    @Column(precision = 10, scale = 2, nullable = false)
+    private BigDecimal balance;
+    @Column(nullable = false)
+    private LocalDateTime timestamp;
+
+    public BalanceSnapshot() {
+    }
+
+    public BalanceSnapshot(Card card, long sequence, BigDecimal balance, LocalDateTime timestamp) {
+        this.card = card;
+        this.sequence = sequence;
+        this.balance = balance;
+        this.timestamp = timestamp;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public Card getCard() {
+        return card;
+    }
+
+    public void setCard(Card card) {
+        this.card = card;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -1,25 +1,42 @@
 package com.bankinc.card.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.UUID;
 
 @Entity
+// El indice de cardId es unico: ultima garantia contra numeros repetidos al emitir. ddl-auto=update no
+// convierte un indice existente; en bases ya creadas hay que recrearlo como UNIQUE a mano
+@Table(indexes = {
+    @Index(name = "idx_card_card_id", columnList = "cardId", unique = true),
+    @Index(name = "idx_card_product", columnList = "productId, cardId")
+})
 public class Card {
 
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private UUID id;
+    // Se guarda como long en memoria; en la columna sigue el texto de 16 digitos
+    @Convert(converter = CardNumberConverter.class)
     @Column(length = 16, nullable = false)
-    private String cardId;
+    private CardNumber cardId;
+    // Primeros 6 digitos de cardId; nullable hasta completar el backfill de tarjetas antiguas
+    @Column(length = 6)
+    private String productId;
     @Column(length = 50, nullable = false)
     private String holderName;
     @Column(length = 7, nullable = false)
@@ -28,6 +45,19 @@ public class Card {
     private boolean isBlocked;
     @Column(precision = 10, scale = 2)
     private BigDecimal balance;
+    // Saldo de partida para conciliar: 0 al emitir; en las tarjetas anteriores a las recargas
+    // registradas lo completa OpeningBalanceBackfill
+    @Column(precision = 10, scale = 2)
+    private BigDecimal openingBalance;
+    // El default permite agregar la columna a tablas existentes con ddl-auto=update
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+    // Secuencia del ultimo apunte del libro mayor; balance es la proyeccion de esos apuntes
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long ledgerSequence;
     @OneToMany(mappedBy = "card", cascade = CascadeType.ALL)
     private List<Transaction> transactions;
 
@@ -42,11 +72,28 @@ public class Card {
     }
 
     public String getCardId() {
-        return cardId;
+        return cardId == null ? null : cardId.toString();
     }
 
     public void setCardId(String cardId) {
-        this.cardId = cardId;
+        this.cardId = cardId == null ? null : CardNumber.parse(cardId);
+    }
+
+    @JsonIgnore
+    public CardNumber getCardNumber() {
+        return cardId;
+    }
+
+    public void setCardNumber(CardNumber cardNumber) {
+        this.cardId = cardNumber;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
     }
 
     public String getHolderName() {
@@ -81,6 +128,14 @@ public class Card {
         isBlocked = blocked;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public BigDecimal getBalance() {
         return balance;
     }
@@ -88,4 +143,21 @@ public class Card {
     public void setBalance(BigDecimal balance) {
         this.balance = balance;
     }
-}
\ No newline at end of file
+
+    public BigDecimal getOpeningBalance() {
+        return openingBalance;
+    }
+
+    public void setOpeningBalance(BigDecimal openingBalance) {
+        this.openingBalance = openingBalance;
+    }
+
+    @JsonIgnore
+    public long getLedgerSequence() {
+        return ledgerSequence;
+    }
+
+    public void setLedgerSequence(long ledgerSequence) {
+        this.ledgerSequence = ledgerSequence;
+    }
+}
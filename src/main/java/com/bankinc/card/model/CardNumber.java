@@ -0,0 +1,164 @@
+package com.bankinc.card.model;
+
+import com.bankinc.card.exceptions.InvalidCardNumberException;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+// Numero de tarjeta de 16 digitos guardado en un long: comparar y hashear cuesta una operacion
+// y ocupa una fraccion de un String. El orden numerico coincide con el lexicografico de la
+// columna porque siempre se escribe con ceros a la izquierda.
+// Las tarjetas emitidas antes de validar el digito de control no cumplen Luhn, por eso parse()
+// solo exige 16 digitos y la comprobacion de Luhn es aparte
+public final class CardNumber implements Comparable<CardNumber> {
+
+    public static final int LENGTH = 16;
+    public static final int PRODUCT_LENGTH = 6;
+    public static final long MAX_VALUE = 9_999_999_999_999_999L;
+    public static final CardNumber MIN = new CardNumber(0);
+    public static final CardNumber MAX = new CardNumber(MAX_VALUE);
+
+    private static final long PRODUCT_DIVISOR = 10_000_000_000L;
+
+    private final long value;
+
+    private CardNumber(long value) {
+        this.value = value;
+    }
+
+    public static CardNumber of(long value) {
+        if (value < 0 || value > MAX_VALUE) {
+            throw new InvalidCardNumberException("Card ID must be a 16-digit number");
+        }
+        return new CardNumber(value);
+    }
+
+    public static CardNumber parse(CharSequence text) {
+        long value = parseOrNegative(text);
+        if (value < 0) {
+            throw new InvalidCardNumberException("Card ID must be a 16-digit number");
+        }
+        return new CardNumber(value);
+    }
+
+    // Para busquedas: un texto que no es un numero de tarjeta no encuentra nada
+    public static Optional<CardNumber> tryParse(CharSequence text) {
+        long value = parseOrNegative(text);
+        return value < 0 ? Optional.empty() : Optional.of(new CardNumber(value));
+    }
+
+    public static boolean isValid(CharSequence text) {
+        return parseOrNegative(text) >= 0;
+    }
+
+    // Sin asignar memoria: el valor del numero o -1 si el texto no es un numero de tarjeta
+    public static long parseOrNegative(CharSequence text) {
+        if (text == null || text.length() != LENGTH) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // Primer numero del producto (los 6 digitos iniciales)
+    public static CardNumber firstOfProduct(String productId) {
+        return new CardNumber(parseProduct(productId) * PRODUCT_DIVISOR);
+    }
+
+    public static CardNumber lastOfProduct(String productId) {
+        return new CardNumber(parseProduct(productId) * PRODUCT_DIVISOR + PRODUCT_DIVISOR - 1);
+    }
+
+    private static long parseProduct(String productId) {
+        if (productId == null || productId.length() != PRODUCT_LENGTH) {
+            throw new InvalidCardNumberException("Product ID must be a 6-digit number");
+        }
+        long value = 0;
+        for (int i = 0; i < PRODUCT_LENGTH; i++) {
+            int digit = productId.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new InvalidCardNumberException("Product ID must be a 6-digit number");
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    public long longValue() {
+        return value;
+    }
+
+    public String productId() {
+        return pad(value / PRODUCT_DIVISOR, PRODUCT_LENGTH);
+    }
+
+    // Siguiente numero en orden; null al llegar al ultimo. Sirve de cota inferior en los recorridos por keyset
+    public CardNumber next() {
+        return value == MAX_VALUE ? null : new CardNumber(value + 1);
+    }
+
+    public boolean isLuhnValid() {
+        return isLuhnValid(value);
+    }
+
+    public static boolean isLuhnValid(long value) {
+        return luhnCheckDigit(value / 10) == value % 10;
+    }
+
+    // Digito de control que completa los 15 digitos de payload
+    public static int luhnCheckDigit(long payload) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = 0; i < LENGTH - 1; i++) {
+            int digit = (int) (payload % 10);
+            payload /= 10;
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    @JsonValue
+    @Override
+    public String toString() {
+        return pad(value, LENGTH);
+    }
+
+    private static String pad(long value, int length) {
+        byte[] digits = new byte[length];
+        for (int i = length - 1; i >= 0; i--) {
+            digits[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return new String(digits, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public int compareTo(CardNumber other) {
+        return Long.compare(value, other.value);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CardNumber cardNumber && cardNumber.value == value;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(value);
+    }
+}
@@ -0,0 +1,19 @@
+package com.bankinc.card.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// La columna sigue siendo VARCHAR(16) con ceros a la izquierda: no hace falta migrar datos ni indices
+@Converter
+public class CardNumberConverter implements AttributeConverter<CardNumber, String> {
+
+    @Override
+    public String convertToDatabaseColumn(CardNumber cardNumber) {
+        return cardNumber == null ? null : cardNumber.toString();
+    }
+
+    @Override
+    public CardNumber convertToEntityAttribute(String column) {
+        return column == null ? null : CardNumber.parse(column);
+    }
+}
@@ -0,0 +1,8 @@
+package com.bankinc.card.model;
+
+public enum HoldStatus {
+    AUTHORIZED,
+    CAPTURED,
+    RELEASED,
+    EXPIRED
+}
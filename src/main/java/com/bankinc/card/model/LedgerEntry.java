@@ -0,0 +1,114 @@
+package com.bankinc.card.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Apunte del libro mayor: un cambio de saldo, solo se inserta. La secuencia es correlativa por
+// tarjeta y se asigna con la fila de la tarjeta bloqueada o versionada, por eso el indice unico
+// hace de ultima defensa contra dos apuntes con el mismo numero
+@Entity
+@Table(indexes = {
+    @Index(name = "idx_ledger_entry_card_seq", columnList = "card_id, sequence", unique = true)
+})
+public class LedgerEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+    @ManyToOne
+    @JoinColumn(name = "card_id", nullable = false)
+    private Card card;
+    @Column(nullable = false)
+    private long sequence;
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private LedgerEntryType type;
+    // Con signo: negativo para debitos
+    @Column(precision = 10, scale = 2, nullable = false)
+    private BigDecimal amount;
+    // Compra, anulacion o preautorizacion que origino el apunte; las recargas no tienen
+    private UUID reference;
+    @Column(nullable = false)
+    private LocalDateTime timestamp;
+
+    public LedgerEntry() {
+    }
+
+    public LedgerEntry(Card card, long sequence, LedgerEntryType type, BigDecimal amount, UUID reference,
+                       LocalDateTime timestamp) {
+        this.card = card;
+        this.sequence = sequence;
+        this.type = type;
+        this.amount = amount;
+        this.reference = reference;
+        this.timestamp = timestamp;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public Card getCard() {
+        return card;
+    }
+
+    public void setCard(Card card) {
+        this.card = card;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public LedgerEntryType getType() {
+        return type;
+    }
+
+    public void setType(LedgerEntryType type) {
+        this.type = type;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public UUID getReference() {
+        return reference;
+    }
+
+    public void setReference(UUID reference) {
+        this.reference = reference;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -0,0 +1,11 @@
+package com.bankinc.card.model;
+
+public enum LedgerEntryType {
+    RECHARGE,
+    PURCHASE,
+    ANULATION,
+    HOLD,
+    HOLD_CAPTURE,
+    HOLD_RELEASE,
+    HOLD_EXPIRATION
+}
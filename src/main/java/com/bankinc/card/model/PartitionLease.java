@@ -0,0 +1,59 @@
+package com.bankinc.card.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+import java.time.LocalDateTime;
+
+// Particion del espacio de tarjetas y la instancia que la posee mientras renueve el lease
+@Entity
+public class PartitionLease {
+
+    @Id
+    private Integer partitionId;
+    @Column(length = 64)
+    private String ownerInstanceId;
+    @Column(length = 255)
+    private String ownerBaseUrl;
+    private LocalDateTime leaseExpiresAt;
+
+    public PartitionLease() {
+    }
+
+    public PartitionLease(Integer partitionId) {
+        this.partitionId = partitionId;
+    }
+
+    public Integer getPartitionId() {
+        return partitionId;
+    }
+
+    public void setPartitionId(Integer partitionId) {
+        this.partitionId = partitionId;
+    }
+
+    public String getOwnerInstanceId() {
+        return ownerInstanceId;
+    }
+
+    public void setOwnerInstanceId(String ownerInstanceId) {
+        this.ownerInstanceId = ownerInstanceId;
+    }
+
+    public String getOwnerBaseUrl() {
+        return ownerBaseUrl;
+    }
+
+    public void setOwnerBaseUrl(String ownerBaseUrl) {
+        this.ownerBaseUrl = ownerBaseUrl;
+    }
+
+    public LocalDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+}
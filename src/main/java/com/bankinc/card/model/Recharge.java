@@ -0,0 +1,73 @@
+package com.bankinc.card.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Recarga aplicada al saldo; se guarda en la misma transaccion que el cambio de saldo
+@Entity
+@Table(indexes = {
+    @Index(name = "idx_recharge_card", columnList = "card_id, timestamp")
+})
+public class Recharge {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+    @ManyToOne
+    @JoinColumn(name = "card_id", nullable = false)
+    private Card card;
+    @Column(precision = 10, scale = 2, nullable = false)
+    private BigDecimal amount;
+    private LocalDateTime timestamp;
+
+    public Recharge() {
+    }
+
+    public Recharge(Card card, BigDecimal amount, LocalDateTime timestamp) {
+        this.card = card;
+        this.amount = amount;
+        this.timestamp = timestamp;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public Card getCard() {
+        return card;
+    }
+
+    public void setCard(Card card) {
+        this.card = card;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+}
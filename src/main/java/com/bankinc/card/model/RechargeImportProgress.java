@@ -0,0 +1,54 @@
+package com.bankinc.card.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+import java.time.LocalDateTime;
+
+// Ultima linea aplicada de un fichero de recargas. Se escribe en la misma transaccion que cada lote,
+// asi que al reanudar un fichero fallido (o interrumpido por una caida) no se aplica dos veces
+@Entity
+public class RechargeImportProgress {
+
+    @Id
+    @Column(length = 255)
+    private String fileName;
+    @Column(nullable = false)
+    private long committedLines;
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    public RechargeImportProgress() {
+    }
+
+    public RechargeImportProgress(String fileName, long committedLines, LocalDateTime updatedAt) {
+        this.fileName = fileName;
+        this.committedLines = committedLines;
+        this.updatedAt = updatedAt;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public long getCommittedLines() {
+        return committedLines;
+    }
+
+    public void setCommittedLines(long committedLines) {
+        this.committedLines = committedLines;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,44 @@
+package com.bankinc.card.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+import java.time.LocalDateTime;
+
+// Instancia de card-service viva; se considera caida si deja de enviar latidos
+@Entity
+public class ServiceInstance {
+
+    @Id
+    @Column(length = 64)
+    private String instanceId;
+    @Column(length = 255, nullable = false)
+    private String baseUrl;
+    @Column(nullable = false)
+    private LocalDateTime heartbeatAt;
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void setInstanceId(String instanceId) {
+        this.instanceId = instanceId;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public void setBaseUrl(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public LocalDateTime getHeartbeatAt() {
+        return heartbeatAt;
+    }
+
+    public void setHeartbeatAt(LocalDateTime heartbeatAt) {
+        this.heartbeatAt = heartbeatAt;
+    }
+}
@@ -5,14 +5,28 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
+// Indices de la busqueda de movimientos: incluyen todas las columnas que devuelve, asi que las
+// consultas tipicas se resuelven solo con el indice. Sustituyen a idx_transaction_card (card_id,
+// timestamp) e idx_transaction_timestamp, que son prefijos suyos; ddl-auto=update no los borra de
+// las bases ya creadas y conviene eliminarlos a mano para no pagarlos en cada compra
+@Table(indexes = {
+    @Index(name = "idx_transaction_card_time", columnList = "card_id, timestamp, id, price, anulated"),
+    @Index(name = "idx_transaction_card_price", columnList = "card_id, price, id, timestamp, anulated"),
+    @Index(name = "idx_transaction_time", columnList = "timestamp, id, card_id, price, anulated"),
+    @Index(name = "idx_transaction_parent", columnList = "parent_id"),
+    @Index(name = "idx_transaction_open", columnList = "finalized, timestamp")
+})
 public class Transaction {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -21,9 +35,17 @@ public class Transaction {
     private BigDecimal price;
     private LocalDateTime timestamp;
     private boolean anulated;
+    // Cerrada la ventana de anulacion el movimiento ya no cambia y puede archivarse
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private boolean finalized;
     @ManyToOne
     @JoinColumn(name = "card_id", nullable = false)
     private Card card;
+    // Compra repartida entre varias tarjetas: cada tramo es un movimiento de su tarjeta y los
+    // demas apuntan al primero (el padre, que no tiene parentId)
+    @Column(name = "parent_id")
+    private UUID parentId;
 
     // Constructor vacío
     public Transaction() {
@@ -82,4 +104,20 @@ public class Transaction {
     public void setAnulated(boolean anulated) {
         this.anulated = anulated;
     }
+
+    public UUID getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(UUID parentId) {
+        this.parentId = parentId;
+    }
+
+    public boolean isFinalized() {
+        return finalized;
+    }
+
+    public void setFinalized(boolean finalized) {
+        this.finalized = finalized;
+    }
 }
@@ -0,0 +1,55 @@
+package com.bankinc.card.repository;
+
+import com.bankinc.card.model.AuthorizationHold;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.model.HoldStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AuthorizationHoldRepository extends JpaRepository<AuthorizationHold, UUID> {
+
+    @Query("SELECT h FROM AuthorizationHold h JOIN FETCH h.card WHERE h.id = :id")
+    Optional<AuthorizationHold> findWithCard(@Param("id") UUID id);
+
+    // Cierre condicional: de una captura, una liberacion y un vencimiento concurrentes solo uno aplica
+    @Modifying
+    @Query("UPDATE AuthorizationHold h SET h.status = :status, h.capturedAmount = :capturedAmount, "
+            + "h.transactionId = :transactionId, h.settledAt = :settledAt "
+            + "WHERE h.id = :id AND h.status = com.bankinc.card.model.HoldStatus.AUTHORIZED")
+    int settle(@Param("id") UUID id, @Param("status") HoldStatus status,
+               @Param("capturedAmount") BigDecimal capturedAmount, @Param("transactionId") UUID transactionId,
+               @Param("settledAt") LocalDateTime settledAt);
+
+    // Barrido de preautorizaciones vencidas sobre idx_hold_status_expires, por keyset (expiresAt, id): la
+    // primera pagina sin cota y las siguientes a partir de la ultima fila leida. Filas (id, expiresAt, cardId)
+    @Query("SELECT h.id, h.expiresAt, c.cardId FROM AuthorizationHold h JOIN h.card c "
+            + "WHERE h.status = com.bankinc.card.model.HoldStatus.AUTHORIZED AND h.expiresAt < :now "
+            + "ORDER BY h.expiresAt, h.id")
+    List<Object[]> findExpired(@Param("now") LocalDateTime now, Pageable page);
+
+    @Query("SELECT h.id, h.expiresAt, c.cardId FROM AuthorizationHold h JOIN h.card c "
+            + "WHERE h.status = com.bankinc.card.model.HoldStatus.AUTHORIZED AND h.expiresAt < :now "
+            + "AND (h.expiresAt > :afterExpiresAt OR (h.expiresAt = :afterExpiresAt AND h.id > :afterId)) "
+            + "ORDER BY h.expiresAt, h.id")
+    List<Object[]> findExpiredAfter(@Param("now") LocalDateTime now, @Param("afterExpiresAt") LocalDateTime afterExpiresAt,
+                                    @Param("afterId") UUID afterId, Pageable page);
+
+    // Cupo reservado por preautorizaciones abiertas, por tarjeta en el rango inclusivo: filas (cardId, suma)
+    @Query("SELECT c.cardId, SUM(h.amount) FROM AuthorizationHold h JOIN h.card c "
+            + "WHERE c.cardId BETWEEN :fromCardId AND :toCardId "
+            + "AND h.status = com.bankinc.card.model.HoldStatus.AUTHORIZED GROUP BY c.cardId")
+    List<Object[]> sumAuthorizedByCardInRange(@Param("fromCardId") CardNumber fromCardId,
+                                              @Param("toCardId") CardNumber toCardId);
+}
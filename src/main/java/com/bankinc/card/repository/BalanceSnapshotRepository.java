@@ -0,0 +1,26 @@
+package com.bankinc.card.repository;
+
+import com.bankinc.card.model.BalanceSnapshot;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, UUID> {
+
+    // Con PageRequest.of(0, 1): la ultima instantanea hasta la secuencia o el instante indicados
+    @Query("SELECT s FROM BalanceSnapshot s WHERE s.card.id = :cardId AND s.sequence <= :toSequence "
+            + "ORDER BY s.sequence DESC")
+    List<BalanceSnapshot> findLatest(@Param("cardId") UUID cardId, @Param("toSequence") long toSequence, Pageable page);
+
+    @Query("SELECT s FROM BalanceSnapshot s WHERE s.card.id = :cardId AND s.timestamp <= :at "
+            + "ORDER BY s.sequence DESC")
+    List<BalanceSnapshot> findLatestAt(@Param("cardId") UUID cardId, @Param("at") LocalDateTime at, Pageable page);
+}
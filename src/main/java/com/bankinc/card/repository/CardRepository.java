@@ -1,15 +1,149 @@
 package com.bankinc.card.repository;
 
+import com.bankinc.card.dto.CardBalanceRow;
+import com.bankinc.card.dto.CardRangeAggregate;
+import com.bankinc.card.dto.CardStateRow;
+import com.bankinc.card.dto.LedgerPosition;
+import com.bankinc.card.dto.StatementCard;
 import com.bankinc.card.model.Card;
+import com.bankinc.card.model.CardNumber;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface CardRepository extends JpaRepository<Card, UUID> {
-    Optional<Card> findByCardId(String cardId);
-    Optional<Card> findByCardIdAndIsActive(String cardId, boolean isActive);
+    // JPQL explicito: Hibernate cachea el plan de las consultas JPQL pero no el de las derivadas (Criteria)
+    @Query("SELECT c FROM Card c WHERE c.cardId = :cardId")
+    Optional<Card> findByCardNumber(@Param("cardId") CardNumber cardId);
+
+    @Query("SELECT c FROM Card c WHERE c.cardId = :cardId AND c.isActive = :isActive")
+    Optional<Card> findByCardNumberAndIsActive(@Param("cardId") CardNumber cardId, @Param("isActive") boolean isActive);
+
+    @Query("SELECT c FROM Card c WHERE c.cardId IN :cardIds")
+    List<Card> findAllByCardNumbers(@Param("cardIds") Collection<CardNumber> cardIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Card c WHERE c.cardId = :cardId")
+    Optional<Card> findByCardNumberForUpdate(@Param("cardId") CardNumber cardId);
+
+    // Busqueda de movimientos: la clave de la tarjeta para filtrar sin unir, y los numeros de las de una pagina
+    @Query("SELECT c.id FROM Card c WHERE c.cardId = :cardId")
+    Optional<UUID> findIdByCardNumber(@Param("cardId") CardNumber cardId);
+
+    @Query("SELECT c.id, c.cardId FROM Card c WHERE c.id IN :ids")
+    List<Object[]> findCardNumbersByIds(@Param("ids") Collection<UUID> ids);
+
+    // Un id que no es un numero de tarjeta valido no existe
+    default Optional<Card> findByCardId(String cardId) {
+        return CardNumber.tryParse(cardId).flatMap(this::findByCardNumber);
+    }
+
+    default Optional<Card> findByCardIdAndIsActive(String cardId, boolean isActive) {
+        return CardNumber.tryParse(cardId).flatMap(cardNumber -> findByCardNumberAndIsActive(cardNumber, isActive));
+    }
+
+    default Optional<Card> findByCardIdForUpdate(String cardId) {
+        return CardNumber.tryParse(cardId).flatMap(this::findByCardNumberForUpdate);
+    }
+
+    // Actualizaciones condicionales atomicas: el saldo nunca queda negativo
+    @Modifying
+    @Query("UPDATE Card c SET c.balance = c.balance + :delta, c.version = c.version + 1, "
+            + "c.ledgerSequence = c.ledgerSequence + 1 "
+            + "WHERE c.cardId = :cardId AND c.balance + :delta >= 0 AND c.isActive = true AND c.isBlocked = false")
+    int applyBalanceDeltaIfEligible(@Param("cardId") CardNumber cardId, @Param("delta") BigDecimal delta);
+
+    @Modifying
+    @Query("UPDATE Card c SET c.balance = c.balance + :delta, c.version = c.version + 1, "
+            + "c.ledgerSequence = c.ledgerSequence + 1 "
+            + "WHERE c.cardId = :cardId AND c.balance + :delta >= 0")
+    int applyBalanceDelta(@Param("cardId") CardNumber cardId, @Param("delta") BigDecimal delta);
+
+    // Cabeceras de extracto por keyset; la cota es inclusiva
+    @Query("SELECT new com.bankinc.card.dto.StatementCard(c.cardId, c.holderName, c.productId) FROM Card c "
+            + "WHERE c.cardId >= :fromCardId ORDER BY c.cardId")
+    List<StatementCard> findStatementCards(@Param("fromCardId") CardNumber fromCardId, Pageable page);
+
+    // Tras un UPDATE condicional, con la fila aun bloqueada por la transaccion
+    @Query("SELECT new com.bankinc.card.dto.LedgerPosition(c.ledgerSequence, c.balance) FROM Card c WHERE c.cardId = :cardId")
+    LedgerPosition findLedgerPosition(@Param("cardId") CardNumber cardId);
+
+    // Recorrido por keyset para las operaciones masivas; la cota es inclusiva (ultimo leido + 1)
+    @Query("SELECT c.cardId FROM Card c WHERE c.productId = :productId AND c.cardId >= :fromCardId ORDER BY c.cardId")
+    List<CardNumber> findCardIdsByProductFrom(@Param("productId") String productId, @Param("fromCardId") CardNumber fromCardId, Pageable page);
+
+    @Query("SELECT c.cardId FROM Card c WHERE c.expirationDate = :expirationDate AND c.cardId >= :fromCardId ORDER BY c.cardId")
+    List<CardNumber> findCardIdsByExpirationFrom(@Param("expirationDate") String expirationDate, @Param("fromCardId") CardNumber fromCardId, Pageable page);
+
+    @Query("SELECT c.cardId FROM Card c WHERE c.productId IS NULL ORDER BY c.cardId")
+    List<CardNumber> findCardIdsWithoutProduct(Pageable page);
+
+    @Modifying
+    @Query("UPDATE Card c SET c.productId = SUBSTRING(c.cardId, 1, 6) WHERE c.cardId IN :cardIds")
+    int assignProductIds(@Param("cardIds") Collection<CardNumber> cardIds);
+
+    @Query("SELECT DISTINCT c.productId FROM Card c WHERE c.productId IS NOT NULL ORDER BY c.productId")
+    List<String> findProductIds();
+
+    @Query("SELECT new com.bankinc.card.dto.CardRangeAggregate(COUNT(c), "
+            + "SUM(CASE WHEN c.isActive = true AND c.isBlocked = false THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN c.isActive = true AND c.isBlocked = true THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN c.isActive = false THEN 1 ELSE 0 END), "
+            + "SUM(c.balance)) "
+            + "FROM Card c WHERE c.productId = :productId AND c.cardId BETWEEN :fromCardId AND :toCardId")
+    CardRangeAggregate aggregateRange(@Param("productId") String productId, @Param("fromCardId") CardNumber fromCardId,
+                                      @Param("toCardId") CardNumber toCardId);
+
+    // Lista explicita de una operacion masiva: cuantas existen de verdad
+    @Query("SELECT COUNT(c) FROM Card c WHERE c.cardId IN :cardIds")
+    long countByCardNumbers(@Param("cardIds") Collection<CardNumber> cardIds);
+
+    @Modifying
+    @Query("UPDATE Card c SET c.isActive = true, c.isBlocked = false, c.version = c.version + 1 WHERE c.cardId IN :cardIds AND c.isActive = false")
+    int activateAll(@Param("cardIds") Collection<CardNumber> cardIds);
+
+    @Modifying
+    @Query("UPDATE Card c SET c.isBlocked = true, c.version = c.version + 1 WHERE c.cardId IN :cardIds AND c.isBlocked = false")
+    int blockAll(@Param("cardIds") Collection<CardNumber> cardIds);
+
+    // Conciliacion: recorrido por keyset del rango inclusivo sin cargar entidades
+    @Query("SELECT new com.bankinc.card.dto.CardBalanceRow(c.cardId, c.balance, c.openingBalance, c.version) "
+            + "FROM Card c WHERE c.cardId >= :fromCardId AND c.cardId <= :toCardId ORDER BY c.cardId")
+    List<CardBalanceRow> findBalanceRows(@Param("fromCardId") CardNumber fromCardId, @Param("toCardId") CardNumber toCardId,
+                                         Pageable page);
+
+    @Query("SELECT COUNT(c) FROM Card c WHERE c.cardId >= :fromCardId AND c.cardId <= :toCardId")
+    long countInRange(@Param("fromCardId") CardNumber fromCardId, @Param("toCardId") CardNumber toCardId);
+
+    // Emision: numeros ya usados de un producto, recorridos solo sobre el indice de cardId
+    @Query("SELECT c.cardId FROM Card c WHERE c.cardId >= :fromCardId AND c.cardId <= :toCardId ORDER BY c.cardId")
+    List<CardNumber> findCardIdsInRange(@Param("fromCardId") CardNumber fromCardId, @Param("toCardId") CardNumber toCardId,
+                                        Pageable page);
+
+    @Query("SELECT c.cardId FROM Card c WHERE c.openingBalance IS NULL ORDER BY c.cardId")
+    List<CardNumber> findCardIdsWithoutOpeningBalance(Pageable page);
+
+    // Directorio de estado: recorrido por keyset del rango inclusivo sin cargar entidades
+    @Query("SELECT new com.bankinc.card.dto.CardStateRow(c.cardId, c.isActive, c.isBlocked, c.expirationDate, "
+            + "c.balance, c.ledgerSequence, c.version) "
+            + "FROM Card c WHERE c.cardId >= :fromCardId AND c.cardId <= :toCardId ORDER BY c.cardId")
+    List<CardStateRow> findStateRows(@Param("fromCardId") CardNumber fromCardId, @Param("toCardId") CardNumber toCardId,
+                                     Pageable page);
+
+    @Query("SELECT new com.bankinc.card.dto.CardStateRow(c.cardId, c.isActive, c.isBlocked, c.expirationDate, "
+            + "c.balance, c.ledgerSequence, c.version) FROM Card c WHERE c.cardId IN :cardIds")
+    List<CardStateRow> findStateRowsByCardNumbers(@Param("cardIds") Collection<CardNumber> cardIds);
 }
@@ -0,0 +1,27 @@
+package com.bankinc.card.repository;
+
+import com.bankinc.card.dto.LedgerTail;
+import com.bankinc.card.model.LedgerEntry;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, UUID> {
+
+    // Apuntes posteriores a una instantanea, resueltos por el indice (card_id, sequence)
+    @Query("SELECT new com.bankinc.card.dto.LedgerTail(SUM(e.amount), COUNT(e)) FROM LedgerEntry e "
+            + "WHERE e.card.id = :cardId AND e.sequence > :afterSequence AND e.sequence <= :toSequence")
+    LedgerTail sumTail(@Param("cardId") UUID cardId, @Param("afterSequence") long afterSequence,
+                       @Param("toSequence") long toSequence);
+
+    @Query("SELECT new com.bankinc.card.dto.LedgerTail(SUM(e.amount), COUNT(e)) FROM LedgerEntry e "
+            + "WHERE e.card.id = :cardId AND e.sequence > :afterSequence AND e.timestamp <= :at")
+    LedgerTail sumTailUntil(@Param("cardId") UUID cardId, @Param("afterSequence") long afterSequence,
+                            @Param("at") LocalDateTime at);
+}
@@ -0,0 +1,35 @@
+package com.bankinc.card.repository;
+
+import com.bankinc.card.model.PartitionLease;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PartitionLeaseRepository extends JpaRepository<PartitionLease, Integer> {
+
+    // Adquiere o renueva en una sola sentencia las particiones libres, vencidas o ya propias
+    @Modifying
+    @Query("UPDATE PartitionLease l SET l.ownerInstanceId = :instanceId, l.ownerBaseUrl = :baseUrl, "
+            + "l.leaseExpiresAt = :expiresAt WHERE l.partitionId IN :partitionIds AND "
+            + "(l.ownerInstanceId = :instanceId OR l.ownerInstanceId IS NULL OR l.leaseExpiresAt < :now)")
+    int acquire(@Param("partitionIds") Collection<Integer> partitionIds, @Param("instanceId") String instanceId,
+                @Param("baseUrl") String baseUrl, @Param("now") LocalDateTime now,
+                @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE PartitionLease l SET l.ownerInstanceId = NULL, l.ownerBaseUrl = NULL, l.leaseExpiresAt = NULL "
+            + "WHERE l.ownerInstanceId = :instanceId AND l.partitionId NOT IN :keep")
+    int releaseExcept(@Param("instanceId") String instanceId, @Param("keep") Collection<Integer> keep);
+
+    @Modifying
+    @Query("UPDATE PartitionLease l SET l.ownerInstanceId = NULL, l.ownerBaseUrl = NULL, l.leaseExpiresAt = NULL "
+            + "WHERE l.ownerInstanceId = :instanceId")
+    int releaseAll(@Param("instanceId") String instanceId);
+}
@@ -0,0 +1,10 @@
+package com.bankinc.card.repository;
+
+import com.bankinc.card.model.RechargeImportProgress;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RechargeImportProgressRepository extends JpaRepository<RechargeImportProgress, String> {
+}
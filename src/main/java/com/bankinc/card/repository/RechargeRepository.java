@@ -0,0 +1,21 @@
+package com.bankinc.card.repository;
+
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.model.Recharge;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RechargeRepository extends JpaRepository<Recharge, UUID> {
+
+    // Total recargado por tarjeta en el rango inclusivo: filas (cardId, suma)
+    @Query("SELECT c.cardId, SUM(r.amount) FROM Recharge r JOIN r.card c "
+            + "WHERE c.cardId BETWEEN :fromCardId AND :toCardId GROUP BY c.cardId")
+    List<Object[]> sumByCardInRange(@Param("fromCardId") CardNumber fromCardId, @Param("toCardId") CardNumber toCardId);
+}
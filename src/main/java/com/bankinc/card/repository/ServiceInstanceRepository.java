@@ -0,0 +1,23 @@
+package com.bankinc.card.repository;
+
+import com.bankinc.card.model.ServiceInstance;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ServiceInstanceRepository extends JpaRepository<ServiceInstance, String> {
+
+    @Query("SELECT i FROM ServiceInstance i WHERE i.heartbeatAt > :since ORDER BY i.instanceId")
+    List<ServiceInstance> findAlive(@Param("since") LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM ServiceInstance i WHERE i.heartbeatAt <= :since")
+    int deleteStale(@Param("since") LocalDateTime since);
+}
@@ -1,12 +1,108 @@
 package com.bankinc.card.repository;
 
+import com.bankinc.card.dto.ArchivedTransaction;
+import com.bankinc.card.model.CardNumber;
 import com.bankinc.card.model.Transaction;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
+public interface TransactionRepository extends JpaRepository<Transaction, UUID>, TransactionSearchRepository {
+
+    @Modifying
+    @Query("UPDATE Transaction t SET t.anulated = true WHERE t.id = :id AND t.anulated = false")
+    int markAnulated(@Param("id") UUID id);
+
+    @Query("SELECT SUM(t.price) FROM Transaction t JOIN t.card c "
+            + "WHERE c.productId = :productId AND c.cardId BETWEEN :fromCardId AND :toCardId AND t.anulated = false")
+    BigDecimal sumOutstandingInRange(@Param("productId") String productId, @Param("fromCardId") CardNumber fromCardId,
+                                     @Param("toCardId") CardNumber toCardId);
+
+    // Importe no anulado por tarjeta en el rango inclusivo: filas (cardId, suma)
+    @Query("SELECT c.cardId, SUM(t.price) FROM Transaction t JOIN t.card c "
+            + "WHERE c.cardId BETWEEN :fromCardId AND :toCardId AND t.anulated = false GROUP BY c.cardId")
+    List<Object[]> sumOutstandingByCardInRange(@Param("fromCardId") CardNumber fromCardId,
+                                               @Param("toCardId") CardNumber toCardId);
+
+    // Candidatas a estar tambien en el archivo: el archivador escribe el segmento antes de borrar las filas
+    @Query("SELECT new com.bankinc.card.dto.ArchivedTransaction(t.id, c.cardId, t.price, t.timestamp, t.anulated) "
+            + "FROM Transaction t JOIN t.card c WHERE c.cardId BETWEEN :fromCardId AND :toCardId "
+            + "AND t.finalized = true AND t.anulated = false")
+    List<ArchivedTransaction> findFinalizedOutstandingInRange(@Param("fromCardId") CardNumber fromCardId,
+                                                              @Param("toCardId") CardNumber toCardId);
+
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.card c WHERE c.cardId = :cardId ORDER BY t.timestamp")
+    List<Transaction> findByCardIdOrderByTimestamp(@Param("cardId") CardNumber cardId);
+
+    // Tarjetas con movimientos anteriores al corte, paginadas por clave para el archivado
+    @Query("SELECT DISTINCT c.cardId FROM Transaction t JOIN t.card c "
+            + "WHERE t.finalized = true AND t.timestamp < :cutoff AND c.cardId >= :fromCardId ORDER BY c.cardId")
+    List<CardNumber> findCardIdsWithTransactionsBefore(@Param("cutoff") LocalDateTime cutoff,
+                                                       @Param("fromCardId") CardNumber fromCardId, Pageable pageable);
+
+    @Query("SELECT new com.bankinc.card.dto.ArchivedTransaction(t.id, c.cardId, t.price, t.timestamp, t.anulated) "
+            + "FROM Transaction t JOIN t.card c WHERE c.cardId IN :cardIds AND t.finalized = true AND t.timestamp < :cutoff "
+            + "ORDER BY c.cardId, t.timestamp")
+    List<ArchivedTransaction> findArchivable(@Param("cardIds") Collection<CardNumber> cardIds,
+                                             @Param("cutoff") LocalDateTime cutoff);
+
+    // Movimientos del periodo [start, end) para los extractos de un rango de tarjetas, por keyset sobre
+    // (tarjeta, fecha, id): la primera pagina sin cota y las siguientes a partir de la ultima fila leida
+    @Query("SELECT new com.bankinc.card.dto.ArchivedTransaction(t.id, c.cardId, t.price, t.timestamp, t.anulated) "
+            + "FROM Transaction t JOIN t.card c WHERE c.cardId BETWEEN :fromCardId AND :toCardId "
+            + "AND t.timestamp >= :start AND t.timestamp < :end ORDER BY c.cardId, t.timestamp, t.id")
+    List<ArchivedTransaction> findStatementLines(@Param("fromCardId") CardNumber fromCardId,
+                                                 @Param("toCardId") CardNumber toCardId,
+                                                 @Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+                                                 Pageable page);
+
+    @Query("SELECT new com.bankinc.card.dto.ArchivedTransaction(t.id, c.cardId, t.price, t.timestamp, t.anulated) "
+            + "FROM Transaction t JOIN t.card c WHERE c.cardId BETWEEN :fromCardId AND :toCardId "
+            + "AND t.timestamp >= :start AND t.timestamp < :end "
+            + "AND (c.cardId > :afterCardId OR (c.cardId = :afterCardId AND (t.timestamp > :afterTimestamp "
+            + "OR (t.timestamp = :afterTimestamp AND t.id > :afterId)))) "
+            + "ORDER BY c.cardId, t.timestamp, t.id")
+    List<ArchivedTransaction> findStatementLinesAfter(@Param("fromCardId") CardNumber fromCardId,
+                                                      @Param("toCardId") CardNumber toCardId,
+                                                      @Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+                                                      @Param("afterCardId") CardNumber afterCardId,
+                                                      @Param("afterTimestamp") LocalDateTime afterTimestamp,
+                                                      @Param("afterId") UUID afterId, Pageable page);
+
+    @Modifying
+    @Query("UPDATE Transaction t SET t.finalized = true WHERE t.id IN :ids AND t.finalized = false")
+    int finalizeAll(@Param("ids") Collection<UUID> ids);
+
+    @Modifying
+    @Query("UPDATE Transaction t SET t.finalized = true WHERE t.finalized = false AND t.timestamp < :cutoff")
+    int finalizeBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    // Movimientos con la ventana de anulacion ya cerrada y sin finalizar, sobre idx_transaction_open y por
+    // keyset (timestamp, id), para el barrido con particionado. Filas (id, timestamp, cardId)
+    @Query("SELECT t.id, t.timestamp, c.cardId FROM Transaction t JOIN t.card c "
+            + "WHERE t.finalized = false AND t.timestamp < :cutoff ORDER BY t.timestamp, t.id")
+    List<Object[]> findOpenBefore(@Param("cutoff") LocalDateTime cutoff, Pageable page);
+
+    @Query("SELECT t.id, t.timestamp, c.cardId FROM Transaction t JOIN t.card c "
+            + "WHERE t.finalized = false AND t.timestamp < :cutoff "
+            + "AND (t.timestamp > :afterTimestamp OR (t.timestamp = :afterTimestamp AND t.id > :afterId)) "
+            + "ORDER BY t.timestamp, t.id")
+    List<Object[]> findOpenBeforeAfter(@Param("cutoff") LocalDateTime cutoff,
+                                       @Param("afterTimestamp") LocalDateTime afterTimestamp,
+                                       @Param("afterId") UUID afterId, Pageable page);
+
+    @Modifying
+    @Query("DELETE FROM Transaction t WHERE t.id IN :ids")
+    int deleteAllByIds(@Param("ids") Collection<UUID> ids);
 }
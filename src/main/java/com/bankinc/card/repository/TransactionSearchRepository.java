@@ -0,0 +1,15 @@
+package com.bankinc.card.repository;
+
+import com.bankinc.card.dto.TransactionSearchRow;
+import com.bankinc.card.model.Transaction;
+import com.bankinc.card.service.search.TransactionSortField;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+// Busqueda de movimientos con proyeccion: JpaSpecificationExecutor solo devuelve entidades
+public interface TransactionSearchRepository {
+
+    List<TransactionSearchRow> search(Specification<Transaction> filter, TransactionSortField sort, boolean descending,
+                                      int limit);
+}
@@ -0,0 +1,44 @@
+package com.bankinc.card.repository;
+
+import com.bankinc.card.dto.TransactionSearchRow;
+import com.bankinc.card.model.Transaction;
+import com.bankinc.card.service.search.TransactionSortField;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public class TransactionSearchRepositoryImpl implements TransactionSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Solo columnas de Transaction: card.id es la clave ajena y no une con la tabla de tarjetas
+    @Override
+    public List<TransactionSearchRow> search(Specification<Transaction> filter, TransactionSortField sort,
+                                             boolean descending, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TransactionSearchRow> query = cb.createQuery(TransactionSearchRow.class);
+        Root<Transaction> root = query.from(Transaction.class);
+        query.select(cb.construct(TransactionSearchRow.class, root.get("id"), root.get("card").get("id"),
+                root.get("price"), root.get("timestamp"), root.get("anulated")));
+        Predicate predicate = filter.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        Path<Object> sortPath = root.get(sort.attribute());
+        Path<Object> id = root.get("id");
+        List<Order> order = descending
+                ? List.of(cb.desc(sortPath), cb.desc(id))
+                : List.of(cb.asc(sortPath), cb.asc(id));
+        query.orderBy(order);
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
@@ -0,0 +1,311 @@
+package com.bankinc.card.service;
+
+import com.bankinc.card.exceptions.*;
+import com.bankinc.card.model.AuthorizationHold;
+import com.bankinc.card.model.Card;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.model.HoldStatus;
+import com.bankinc.card.model.LedgerEntryType;
+import com.bankinc.card.model.Transaction;
+import com.bankinc.card.repository.AuthorizationHoldRepository;
+import com.bankinc.card.repository.TransactionRepository;
+import com.bankinc.card.service.concurrency.BalanceMutation;
+import com.bankinc.card.service.concurrency.CardBalanceUpdater;
+import com.bankinc.card.service.expiry.ExpiryKind;
+import com.bankinc.card.service.expiry.ExpiryScheduler;
+import com.bankinc.card.service.lifecycle.AuthorizationGate;
+import com.bankinc.card.service.partition.CardOwnershipGuard;
+import com.bankinc.card.service.store.ConditionalOnJpaStore;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+// Preautorizaciones: authorize descuenta el importe del cupo disponible sin generar movimiento;
+// capture genera el movimiento por el importe final y devuelve la diferencia; release y el
+// vencimiento devuelven todo el importe. El cierre es condicional, asi que solo uno de ellos aplica
+@Slf4j
+@Service
+@ConditionalOnJpaStore
+public class AuthorizationHoldService {
+
+    @Autowired
+    private AuthorizationHoldRepository holdRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private CardBalanceUpdater cardBalanceUpdater;
+
+    @Autowired
+    private ExpiryScheduler expiryScheduler;
+
+    @Autowired
+    private TransactionFinalizer transactionFinalizer;
+
+    @Autowired
+    private AuthorizationGate authorizationGate;
+
+    @Autowired
+    private CardOwnershipGuard cardOwnershipGuard;
+
+    @Value("${card.holds.default-duration-minutes:10080}")
+    private long defaultDurationMinutes;
+
+    @Value("${card.holds.max-duration-minutes:43200}")
+    private long maxDurationMinutes;
+
+    @Value("${card.expiry.sweep-page-size:500}")
+    private int sweepPageSize;
+
+    @PostConstruct
+    void init() {
+        expiryScheduler.register(ExpiryKind.HOLD_EXPIRATION, this::expireAll);
+    }
+
+    // La rueda solo conoce las preautorizaciones creadas aqui desde el arranque: el barrido vence las
+    // pendientes de antes de un reinicio y las de una instancia caida cuyas particiones pasaron a esta
+    @Scheduled(fixedDelayString = "${card.expiry.sweep-interval-ms:60000}",
+            initialDelayString = "${card.expiry.sweep-interval-ms:60000}")
+    public void sweep() {
+        try {
+            expireDue(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            log.error("Authorization hold expiry sweep failed", e);
+        }
+    }
+
+    // Solo las de tarjetas de particiones propias: las demas las vence su propietario
+    void expireDue(LocalDateTime now) {
+        PageRequest page = PageRequest.of(0, sweepPageSize);
+        List<Object[]> rows = holdRepository.findExpired(now, page);
+        while (!rows.isEmpty()) {
+            List<UUID> owned = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                if (cardOwnershipGuard.isOwnedLocally((CardNumber) row[2])) {
+                    owned.add((UUID) row[0]);
+                }
+            }
+            expireAll(owned);
+            Object[] last = rows.get(rows.size() - 1);
+            rows = rows.size() < sweepPageSize ? List.of()
+                    : holdRepository.findExpiredAfter(now, (LocalDateTime) last[1], (UUID) last[0], page);
+        }
+    }
+
+    public UUID authorize(String cardId, BigDecimal amount, Long durationMinutes) {
+        authorizationGate.enter();
+        try {
+            return authorizeHold(cardId, amount, durationMinutes);
+        } finally {
+            authorizationGate.exit();
+        }
+    }
+
+    private UUID authorizeHold(String cardId, BigDecimal amount, Long durationMinutes) {
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw InvalidTransactionException.NON_POSITIVE_AMOUNT;
+        }
+        long minutes = durationMinutes == null ? defaultDurationMinutes : durationMinutes;
+        if (minutes < 1 || minutes > maxDurationMinutes) {
+            throw InvalidTransactionException.INVALID_HOLD_DURATION;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusMinutes(minutes);
+        UUID holdId;
+        try {
+            holdId = cardBalanceUpdater.update(cardId, new BalanceMutation<UUID>() {
+                @Override
+                public BigDecimal delta(Card card) {
+                    // Mismas validaciones que una compra: la reserva debe caber en el cupo disponible
+                    TransactionService.validatePurchase(card, amount, now);
+                    return amount.negate();
+                }
+
+                @Override
+                public UUID apply(Card card) {
+                    AuthorizationHold hold = new AuthorizationHold();
+                    hold.setCard(card);
+                    hold.setAmount(amount);
+                    hold.setStatus(HoldStatus.AUTHORIZED);
+                    hold.setCreatedAt(now);
+                    hold.setExpiresAt(expiresAt);
+                    holdRepository.save(hold);
+                    return hold.getId();
+                }
+
+                @Override
+                public LedgerEntryType entryType() {
+                    return LedgerEntryType.HOLD;
+                }
+            });
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ProcessingFailureException("Error processing authorization hold: " + e.getMessage(), e);
+        }
+        expiryScheduler.schedule(ExpiryKind.HOLD_EXPIRATION, holdId, expiresAt);
+        return holdId;
+    }
+
+    // Sin importe se captura el total reservado; un importe menor devuelve la diferencia al cupo
+    public UUID capture(String cardId, UUID holdId, BigDecimal amount) {
+        authorizationGate.enter();
+        try {
+            return captureHold(cardId, holdId, amount);
+        } finally {
+            authorizationGate.exit();
+        }
+    }
+
+    private UUID captureHold(String cardId, UUID holdId, BigDecimal amount) {
+        AuthorizationHold hold = findOpenHold(cardId, holdId);
+        BigDecimal captured = amount == null ? hold.getAmount() : amount;
+        if (captured.compareTo(BigDecimal.ZERO) <= 0) {
+            throw InvalidTransactionException.NON_POSITIVE_AMOUNT;
+        }
+        if (captured.compareTo(hold.getAmount()) > 0) {
+            throw InvalidTransactionException.CAPTURE_EXCEEDS_HOLD;
+        }
+        if (hold.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw TransactionProcessingException.HOLD_EXPIRED;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        UUID transactionId = settle(cardId, hold, HoldStatus.CAPTURED, hold.getAmount().subtract(captured), card -> {
+            Transaction transaction = new Transaction();
+            transaction.setCard(card);
+            transaction.setPrice(captured);
+            transaction.setTimestamp(now);
+            transaction.setAnulated(false);
+            transactionRepository.save(transaction);
+            return transaction.getId();
+        }, captured, now);
+        transactionFinalizer.schedule(transactionId, now);
+        return transactionId;
+    }
+
+    public boolean release(String cardId, UUID holdId) {
+        authorizationGate.enter();
+        try {
+            return releaseHold(cardId, holdId);
+        } finally {
+            authorizationGate.exit();
+        }
+    }
+
+    private boolean releaseHold(String cardId, UUID holdId) {
+        AuthorizationHold hold = findOpenHold(cardId, holdId);
+        settle(cardId, hold, HoldStatus.RELEASED, hold.getAmount(), card -> null, null, LocalDateTime.now());
+        return true;
+    }
+
+    public AuthorizationHold getHold(String holdId) {
+        try {
+            return holdRepository.findWithCard(UUID.fromString(holdId))
+                    .orElseThrow(() -> TransactionProcessingException.HOLD_NOT_FOUND);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTransactionException("Invalid hold ID format");
+        }
+    }
+
+    // Manejador de la rueda de vencimientos y del barrido; las ya cerradas por captura o liberacion se ignoran
+    void expireAll(List<UUID> holdIds) {
+        int expired = 0;
+        for (UUID holdId : holdIds) {
+            AuthorizationHold hold = holdRepository.findWithCard(holdId).orElse(null);
+            if (hold == null || hold.getStatus() != HoldStatus.AUTHORIZED) {
+                continue;
+            }
+            // La particion cambio de manos desde que se programo: la vence el barrido del nuevo propietario
+            if (!cardOwnershipGuard.isOwnedLocally(hold.getCard().getCardNumber())) {
+                continue;
+            }
+            try {
+                settle(hold.getCard().getCardId(), hold, HoldStatus.EXPIRED, hold.getAmount(), card -> null, null,
+                        LocalDateTime.now());
+                expired++;
+            } catch (TransactionProcessingException e) {
+                // Capturada o liberada mientras tanto
+            } catch (ProcessingFailureException e) {
+                log.error("Could not expire authorization hold {}", holdId, e);
+            }
+        }
+        if (expired > 0) {
+            log.info("Expired {} authorization holds", expired);
+        }
+    }
+
+    private AuthorizationHold findOpenHold(String cardId, UUID holdId) {
+        AuthorizationHold hold = holdRepository.findWithCard(holdId)
+                .orElseThrow(() -> TransactionProcessingException.HOLD_NOT_FOUND);
+        if (!hold.getCard().getCardId().equals(cardId)) {
+            throw TransactionProcessingException.HOLD_NOT_CARD_OWNER;
+        }
+        if (hold.getStatus() != HoldStatus.AUTHORIZED) {
+            throw TransactionProcessingException.HOLD_ALREADY_SETTLED;
+        }
+        return hold;
+    }
+
+    // Devuelve al cupo lo no capturado y cierra la preautorizacion en la misma transaccion
+    private <T> T settle(String cardId, AuthorizationHold hold, HoldStatus status, BigDecimal refund,
+                         Function<Card, T> completion, BigDecimal capturedAmount,
+                         LocalDateTime now) {
+        try {
+            return cardBalanceUpdater.update(cardId, new BalanceMutation<T>() {
+                @Override
+                public BigDecimal delta(Card card) {
+                    return refund;
+                }
+
+                @Override
+                public T apply(Card card) {
+                    T result = completion.apply(card);
+                    UUID transactionId = result instanceof UUID id ? id : null;
+                    if (holdRepository.settle(hold.getId(), status, capturedAmount, transactionId, now) == 0) {
+                        throw TransactionProcessingException.HOLD_ALREADY_SETTLED;
+                    }
+                    return result;
+                }
+
+                @Override
+                public LedgerEntryType entryType() {
+                    return switch (status) {
+                        case CAPTURED -> LedgerEntryType.HOLD_CAPTURE;
+                        case EXPIRED -> LedgerEntryType.HOLD_EXPIRATION;
+                        default -> LedgerEntryType.HOLD_RELEASE;
+                    };
+                }
+
+                // Los cierres de una preautorizacion se enlazan con ella, no con la compra capturada
+                @Override
+                public UUID ledgerReference(T result) {
+                    return hold.getId();
+                }
+
+                // La reserva ya se valido al autorizar; se cierra aunque la tarjeta se haya bloqueado despues
+                @Override
+                public boolean requiresEligibleCard() {
+                    return false;
+                }
+            });
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ProcessingFailureException("Error processing authorization hold: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.bankinc.card.service;
+
+public enum BulkCardOperation {
+    ACTIVATE,
+    BLOCK
+}
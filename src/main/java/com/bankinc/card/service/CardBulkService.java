@@ -0,0 +1,139 @@
+package com.bankinc.card.service;
+
+import com.bankinc.card.dto.BulkChunkProgress;
+import com.bankinc.card.dto.BulkOperationResult;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.service.directory.CardDirectory;
+import com.bankinc.card.service.store.CardGenerations;
+import com.bankinc.card.service.store.ConditionalOnJpaStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+@Service
+@ConditionalOnJpaStore
+public class CardBulkService {
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CardDirectory cardDirectory;
+
+    @Autowired
+    private CardGenerations cardGenerations;
+
+    // Oracle admite como maximo 1000 elementos en un IN
+    @Value("${card.bulk.chunk-size:500}")
+    private int chunkSize;
+
+    // Pausa entre lotes para no acaparar conexiones del trafico en linea
+    @Value("${card.bulk.chunk-pause-ms:0}")
+    private long chunkPauseMillis;
+
+    public BulkOperationResult byCardIds(BulkCardOperation operation, List<String> cardIds,
+                                         Consumer<BulkChunkProgress> listener) {
+        // Ordenadas para que los lotes bloqueen filas siempre en el mismo orden
+        List<CardNumber> sorted = cardIds.stream().map(CardNumber::parse).distinct().sorted().toList();
+        return execute(operation, fromCardId -> {
+            int from = indexFrom(sorted, fromCardId);
+            return sorted.subList(from, Math.min(from + chunkSize, sorted.size()));
+        }, true, listener);
+    }
+
+    public BulkOperationResult byProduct(BulkCardOperation operation, String productId,
+                                         Consumer<BulkChunkProgress> listener) {
+        return execute(operation, from -> cardRepository.findCardIdsByProductFrom(
+                productId, from, PageRequest.of(0, chunkSize)), false, listener);
+    }
+
+    public BulkOperationResult byExpiration(BulkCardOperation operation, String expirationDate,
+                                            Consumer<BulkChunkProgress> listener) {
+        return execute(operation, from -> cardRepository.findCardIdsByExpirationFrom(
+                expirationDate, from, PageRequest.of(0, chunkSize)), false, listener);
+    }
+
+    // nextChunk recibe la cota inferior inclusiva: la siguiente tarjeta a la ultima procesada. Los
+    // numeros de una lista explicita pueden no existir: se cuentan aparte para no darlos por omitidos
+    private BulkOperationResult execute(BulkCardOperation operation, Function<CardNumber, List<CardNumber>> nextChunk,
+                                        boolean explicitIds, Consumer<BulkChunkProgress> listener) {
+        long start = System.currentTimeMillis();
+        int chunks = 0;
+        long matched = 0;
+        long updated = 0;
+        long notFound = 0;
+
+        List<CardNumber> chunk = nextChunk.apply(CardNumber.MIN);
+        while (!chunk.isEmpty()) {
+            long chunkStart = System.currentTimeMillis();
+            List<CardNumber> cardIds = chunk;
+            // Cada lote en su propia transaccion para liberar los bloqueos cuanto antes
+            ChunkOutcome outcome = transactionTemplate.execute(status -> {
+                int existing = explicitIds ? (int) cardRepository.countByCardNumbers(cardIds) : cardIds.size();
+                return new ChunkOutcome(existing, apply(operation, cardIds));
+            });
+            int chunkMatched = outcome == null ? 0 : outcome.matched();
+            int chunkUpdated = outcome == null ? 0 : outcome.updated();
+            if (chunkUpdated > 0) {
+                cardGenerations.advance(cardIds);
+            }
+
+            chunks++;
+            matched += chunkMatched;
+            updated += chunkUpdated;
+            notFound += chunk.size() - chunkMatched;
+            CardNumber last = chunk.get(chunk.size() - 1);
+            listener.accept(new BulkChunkProgress(chunks, chunkMatched, chunkUpdated, last.toString(),
+                    System.currentTimeMillis() - chunkStart));
+
+            pauseBetweenChunks();
+            CardNumber next = last.next();
+            chunk = next == null ? List.of() : nextChunk.apply(next);
+        }
+
+        return new BulkOperationResult(operation.name(), chunks, matched, updated, notFound,
+                System.currentTimeMillis() - start);
+    }
+
+    private record ChunkOutcome(int matched, int updated) {
+    }
+
+    private int apply(BulkCardOperation operation, List<CardNumber> cardIds) {
+        int updated = switch (operation) {
+            case ACTIVATE -> cardRepository.activateAll(cardIds);
+            case BLOCK -> cardRepository.blockAll(cardIds);
+        };
+        if (updated > 0) {
+            cardDirectory.cardsChanged(cardIds);
+        }
+        return updated;
+    }
+
+    private static int indexFrom(List<CardNumber> sorted, CardNumber cardId) {
+        int index = Collections.binarySearch(sorted, cardId);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private void pauseBetweenChunks() {
+        if (chunkPauseMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(chunkPauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bulk operation interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.bankinc.card.service;
+
+import com.bankinc.card.dto.BulkOperationResult;
+import com.bankinc.card.dto.IssuedCardsChunk;
+import com.bankinc.card.model.Card;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.service.directory.CardDirectory;
+import com.bankinc.card.service.store.ConditionalOnJpaStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Emision masiva de tarjetas de un producto para lanzamientos de programas. Los numeros salen de
+// CardNumberIssuer (Luhn valido y unicos segun su filtro de Bloom) y se insertan en lotes JDBC,
+// cada lote en su propia transaccion. Si un lote choca con el indice unico (otra instancia emitio
+// alguno de esos numeros) se recarga el filtro del producto y se repite el lote con numeros nuevos
+@Slf4j
+@Service
+@ConditionalOnJpaStore
+public class CardIssuanceService {
+
+    static final String OPERATION = "ISSUE";
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CardNumberIssuer cardNumberIssuer;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CardDirectory cardDirectory;
+
+    // Multiplo de hibernate.jdbc.batch_size; Oracle admite como maximo 1000 elementos en el IN del directorio
+    @Value("${card.issuance.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${card.issuance.max-attempts:3}")
+    private int maxAttempts;
+
+    public BulkOperationResult issue(String productId, int count, Consumer<IssuedCardsChunk> listener) {
+        long start = System.currentTimeMillis();
+        cardNumberIssuer.prepare(productId, count);
+        int chunks = 0;
+        long issued = 0;
+
+        while (issued < count) {
+            long chunkStart = System.currentTimeMillis();
+            int size = (int) Math.min(chunkSize, count - issued);
+            int attempt = 1;
+            List<Card> cards = newCards(productId, size);
+            while (!insert(cards)) {
+                if (attempt++ >= maxAttempts) {
+                    throw new IllegalStateException("Card numbers for product " + productId
+                            + " kept colliding after " + maxAttempts + " attempts");
+                }
+                log.warn("Issued card numbers collided for product {}, reloading its filter", productId);
+                cardNumberIssuer.reload(productId);
+                cards = newCards(productId, size);
+            }
+
+            chunks++;
+            issued += size;
+            listener.accept(new IssuedCardsChunk(chunks, cards.stream().map(Card::getCardId).toList(), attempt,
+                    System.currentTimeMillis() - chunkStart));
+        }
+
+        return new BulkOperationResult(OPERATION, chunks, count, issued, System.currentTimeMillis() - start);
+    }
+
+    private List<Card> newCards(String productId, int size) {
+        List<Card> cards = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            cards.add(CardService.newCard(cardNumberIssuer.next(productId), productId));
+        }
+        return cards;
+    }
+
+    // false si algun numero ya existia: el lote entero se deshace
+    private boolean insert(List<Card> cards) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                cardRepository.saveAll(cards);
+                cardRepository.flush();
+                List<CardNumber> cardNumbers = cards.stream().map(Card::getCardNumber).toList();
+                cardDirectory.cardsChanged(cardNumbers);
+            });
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            // Las entidades quedaron con id asignado por el persist fallido: se descartan
+            return false;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.bankinc.card.service;
+
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.service.store.CardStore;
+import com.bankinc.card.util.LongBloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Genera numeros de tarjeta nuevos: 6 digitos de producto, 9 al azar y el digito de control de
+// Luhn. Por producto se mantiene un filtro de Bloom con los numeros ya emitidos, cargado del almacen
+// la primera vez: un candidato que el filtro no conoce seguro que no existe, y uno que "puede
+// existir" se descarta sin consultar. El filtro solo ve lo emitido por esta instancia desde la
+// carga; el indice unico de cardId es la garantia final y quien lo choque debe llamar a reload
+@Slf4j
+@Component
+public class CardNumberIssuer {
+
+    private static final long PAYLOAD_RANGE = 1_000_000_000L;
+
+    @Autowired
+    private CardStore cardStore;
+
+    @Value("${card.issuance.bloom-min-capacity:100000}")
+    private long minCapacity;
+
+    @Value("${card.issuance.bloom-false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    @Value("${card.issuance.page-size:5000}")
+    private int pageSize;
+
+    // Mas alla de esta ocupacion los candidatos chocan demasiado y el producto se considera agotado
+    @Value("${card.issuance.max-product-fill:0.5}")
+    private double maxProductFill;
+
+    private final ConcurrentHashMap<String, ProductNumbers> products = new ConcurrentHashMap<>();
+
+    // Antes de una emision grande: dimensiona el filtro una vez para todos los numeros
+    public void prepare(String productId, long count) {
+        numbers(productId).ensureCapacity(count);
+    }
+
+    public CardNumber next(String productId) {
+        LongBloomFilter filter = numbers(productId).ensureCapacity(1);
+        long prefix = CardNumber.firstOfProduct(productId).longValue() / 10;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // Con el producto medio lleno haria falta una media de dos intentos: el limite solo corta productos agotados
+        for (int attempt = 0; attempt < 1_000; attempt++) {
+            long payload = prefix + random.nextLong(PAYLOAD_RANGE);
+            long value = payload * 10 + CardNumber.luhnCheckDigit(payload);
+            if (!filter.mightContain(value) && filter.put(value)) {
+                return CardNumber.of(value);
+            }
+        }
+        throw new IllegalStateException("No free card numbers left for product " + productId);
+    }
+
+    // Tras chocar con el indice unico: otra instancia emitio numeros que el filtro no conoce
+    public void reload(String productId) {
+        ProductNumbers numbers = products.get(productId);
+        if (numbers != null) {
+            numbers.reload();
+        }
+    }
+
+    private ProductNumbers numbers(String productId) {
+        return products.computeIfAbsent(productId, ProductNumbers::new);
+    }
+
+    private LongBloomFilter load(String productId, long capacity) {
+        long start = System.currentTimeMillis();
+        CardNumber to = CardNumber.lastOfProduct(productId);
+        LongBloomFilter filter = new LongBloomFilter(capacity, falsePositiveRate);
+        cardStore.forEachCardNumber(CardNumber.firstOfProduct(productId), to, pageSize, filter::put);
+        log.info("Card number filter for product {} loaded {} cards in {} ms, {} KiB", productId, filter.size(),
+                System.currentTimeMillis() - start, filter.bytes() / 1024);
+        return filter;
+    }
+
+    private final class ProductNumbers {
+        private final String productId;
+        private volatile LongBloomFilter filter;
+
+        ProductNumbers(String productId) {
+            this.productId = productId;
+        }
+
+        LongBloomFilter ensureCapacity(long additional) {
+            LongBloomFilter current = filter;
+            if (current != null && current.size() + additional <= current.capacity()) {
+                return current;
+            }
+            return grow(additional);
+        }
+
+        // Los numeros que otros hilos reserven mientras se reconstruye pueden faltar en el filtro
+        // nuevo; el indice unico los cubre
+        private synchronized LongBloomFilter grow(long additional) {
+            LongBloomFilter current = filter;
+            long existing = current == null
+                    ? cardStore.countCards(CardNumber.firstOfProduct(productId), CardNumber.lastOfProduct(productId))
+                    : current.size();
+            if (existing + additional > PAYLOAD_RANGE * maxProductFill) {
+                throw new IllegalStateException("Product " + productId + " cannot issue " + additional
+                        + " more cards: " + existing + " already issued");
+            }
+            if (current == null || existing + additional > current.capacity()) {
+                // Holgura para no reconstruir en cada lote de una emision grande
+                current = load(productId, Math.max(minCapacity, (existing + additional) * 2));
+                filter = current;
+            }
+            return current;
+        }
+
+        synchronized void reload() {
+            LongBloomFilter current = filter;
+            if (current != null) {
+                filter = load(productId, current.capacity());
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.bankinc.card.service;
+
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.repository.CardRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// Completa productId en las tarjetas creadas antes de existir la columna
+@Slf4j
+@Component
+public class CardProductBackfill implements ApplicationRunner {
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${card.bulk.chunk-size:500}")
+    private int chunkSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long updated = 0;
+        List<CardNumber> cardIds = cardRepository.findCardIdsWithoutProduct(PageRequest.of(0, chunkSize));
+        while (!cardIds.isEmpty()) {
+            List<CardNumber> chunk = cardIds;
+            Integer count = transactionTemplate.execute(status -> cardRepository.assignProductIds(chunk));
+            updated += count == null ? 0 : count;
+            cardIds = cardRepository.findCardIdsWithoutProduct(PageRequest.of(0, chunkSize));
+        }
+        if (updated > 0) {
+            log.info("Assigned productId to {} existing cards", updated);
+        }
+    }
+}
@@ -2,110 +2,193 @@ package com.bankinc.card.service;
 
 import com.bankinc.card.exceptions.*;
 import com.bankinc.card.model.Card;
-import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.model.LedgerEntryType;
+import com.bankinc.card.model.Recharge;
+import com.bankinc.card.service.concurrency.BalanceMutation;
+import com.bankinc.card.service.directory.CardDirectory;
+import com.bankinc.card.service.store.CardStore;
+import com.bankinc.card.util.SingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 public class CardService {
 
     @Autowired
-    private CardRepository cardRepository;
+    private CardStore cardStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CardDirectory cardDirectory;
+
+    @Autowired
+    private CardNumberIssuer cardNumberIssuer;
+
+    // Terminales y apps consultan la misma tarjeta a la vez tras cada compra: una sola lectura por tarjeta en curso
+    private final SingleFlight<Optional<Card>> cardReads = new SingleFlight<>();
 
     private static final List<String> NAMES = Arrays.asList("Juan", "Maria", "Carlos", "Ana", "Luis", "Sofia", "Pedro");
     private static final List<String> SURNAMES = Arrays.asList("Gomez", "Perez", "Lopez", "Rodriguez", "Martinez", "Fernandez");
-
+    private static final DateTimeFormatter EXPIRATION_FORMAT = DateTimeFormatter.ofPattern("MM/yyyy");
+    private static final int MAX_ISSUE_ATTEMPTS = 3;
+
+
+    @PostConstruct
+    void init() {
+        FunctionCounter.builder("card.reads.calls", cardReads, SingleFlight::getCalls)
+                .register(meterRegistry);
+        FunctionCounter.builder("card.reads.coalesced", cardReads, SingleFlight::getShared)
+                .register(meterRegistry);
+        Gauge.builder("card.reads.coalescing.ratio", cardReads, SingleFlight::coalescingRatio)
+                .register(meterRegistry);
+    }
 
     public String generateCardNumber(String productId) {
-        StringBuilder cardNumber = new StringBuilder(productId);
-        Random random = new Random();
-
-        while (cardNumber.length() < 16) {
-            cardNumber.append(random.nextInt(10));
+        try {
+            // Un choque con el indice unico solo ocurre si otra instancia emitio el mismo numero
+            for (int attempt = 1; ; attempt++) {
+                Card card = newCard(cardNumberIssuer.next(productId), productId);
+                try {
+                    cardStore.saveCard(card);
+                    cardDirectory.cardChanged(card);
+                    return card.getCardId();
+                } catch (DataIntegrityViolationException e) {
+                    if (attempt >= MAX_ISSUE_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Error generating card number");
         }
+    }
 
-        LocalDate expirationDate = LocalDate.now().plusYears(3);
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/yyyy");
-        String expirationDateFormatted = expirationDate.format(formatter);
-
+    // Tarjeta recien emitida: inactiva, bloqueada y sin saldo, vence en 3 anos
+    static Card newCard(CardNumber cardNumber, String productId) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
         String name = NAMES.get(random.nextInt(NAMES.size()));
         String surname = SURNAMES.get(random.nextInt(SURNAMES.size()));
 
         Card card = new Card();
-        card.setCardId(cardNumber.toString());
+        card.setCardNumber(cardNumber);
+        card.setProductId(productId);
         card.setHolderName(name + " " + surname);
-        card.setExpirationDate(expirationDateFormatted);
+        card.setExpirationDate(LocalDate.now().plusYears(3).format(EXPIRATION_FORMAT));
         card.setActive(false);
         card.setBlocked(true);
         card.setBalance(BigDecimal.ZERO);
-        
-        try {
-            cardRepository.save(card);
-            return cardNumber.toString();
-        } catch (Exception e) {
-            throw new RuntimeException("Error generating card number");
-        }
+        card.setOpeningBalance(BigDecimal.ZERO);
+        return card;
     }
 
+    // Sin leer y guardar la tarjeta entera: un cambio de saldo concurrente sube su version y el guardado
+    // fallaria justo cuando mas importa, al bloquear una tarjeta que se esta usando
     public void activateCard(String cardId) {
-        Card card = cardRepository.findByCardId(cardId)
+        CardNumber cardNumber = CardNumber.tryParse(cardId)
             .orElseThrow(() -> new CardNotFoundException("Card not found with ID: " + cardId));
-        
-        if (card.isActive()) {
-            throw new CardActivationException("Card is already active");
+
+        if (!cardStore.activateCard(cardNumber)) {
+            requireCard(cardId);
+            throw CardActivationException.ALREADY_ACTIVE;
         }
-        
-        card.setActive(true);
-        card.setBlocked(false);
-        cardRepository.save(card);
+        cardDirectory.cardsChanged(List.of(cardNumber));
     }
 
     public void blockCard(String cardId) {
-        Card card = cardRepository.findByCardId(cardId)
+        CardNumber cardNumber = CardNumber.tryParse(cardId)
             .orElseThrow(() -> new CardNotFoundException("Card not found with ID: " + cardId));
-        
-        if (card.isBlocked()) {
-            throw new CardBlockedException("Card is already blocked");
+
+        if (!cardStore.blockCard(cardNumber)) {
+            requireCard(cardId);
+            throw CardBlockedException.ALREADY_BLOCKED;
         }
-        
-        card.setBlocked(true);
-        cardRepository.save(card);
+        cardDirectory.cardsChanged(List.of(cardNumber));
+    }
+
+    // El UPDATE condicional no distingue una tarjeta inexistente de una que ya estaba en ese estado
+    private void requireCard(String cardId) {
+        cardStore.findCard(cardId)
+            .orElseThrow(() -> new CardNotFoundException("Card not found with ID: " + cardId));
     }
 
     public void rechargeBalance(String cardId, BigDecimal balance) {
-        Card card = cardRepository.findByCardIdAndIsActive(cardId, true)
-            .orElseThrow(() -> new CardNotFoundException("Card not found or not active"));
-        
-        if (card.isBlocked()) {
-            throw new CardBlockedException("Cannot recharge balance: card is blocked");
-        }
-        
-        card.setBalance(card.getBalance().add(balance));
-        cardRepository.save(card);
+        cardStore.updateBalance(cardId, new BalanceMutation<Void>() {
+            @Override
+            public BigDecimal delta(Card card) {
+                if (!card.isActive()) {
+                    throw CardNotFoundException.NOT_FOUND_OR_INACTIVE;
+                }
+                if (card.isBlocked()) {
+                    throw CardBlockedException.RECHARGE_BLOCKED;
+                }
+                return balance;
+            }
+
+            // La recarga queda registrada en la misma transaccion que el cambio de saldo
+            @Override
+            public Void apply(Card card) {
+                cardStore.saveRecharge(new Recharge(card, balance, LocalDateTime.now()));
+                return null;
+            }
+
+            @Override
+            public LedgerEntryType entryType() {
+                return LedgerEntryType.RECHARGE;
+            }
+
+            @Override
+            public RuntimeException cardNotFound(String cardId) {
+                return CardNotFoundException.NOT_FOUND_OR_INACTIVE;
+            }
+        });
     }
 
     public BigDecimal getBalance(String cardId) {
-        Card card = cardRepository.findByCardId(cardId)
+        Card card = readCard(cardId)
             .orElseThrow(() -> new CardNotFoundException("Card not found with ID: " + cardId));
         return card.getBalance();
     }
 
+    // La tarjeta puede compartirse con otras peticiones concurrentes: es solo de lectura
     public Card getCard(String cardId) {
-        return cardRepository.findByCardId(cardId)
+        return readCard(cardId)
             .orElseThrow(() -> new CardNotFoundException("Card not found with ID: " + cardId));
     }
 
+    // getBalance y getCard de la misma tarjeta se agrupan en la misma lectura, nunca con una empezada
+    // antes de la ultima escritura confirmada de la tarjeta
+    private Optional<Card> readCard(String cardId) {
+        Optional<CardNumber> cardNumber = CardNumber.tryParse(cardId);
+        if (cardNumber.isEmpty()) {
+            return Optional.empty();
+        }
+        long generation = cardStore.generation(cardNumber.get());
+        return cardReads.execute(cardNumber.get().longValue(), generation, () -> cardStore.findCard(cardId));
+    }
+
     public Card updateCard(Card card) {
         if (card == null || card.getCardId() == null) {
             throw new InvalidCardNumberException("Invalid card data");
         }
-        return cardRepository.save(card);
+        Card saved = cardStore.saveCard(card);
+        cardDirectory.cardChanged(card);
+        return saved;
     }
 }
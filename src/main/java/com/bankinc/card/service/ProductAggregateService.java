@@ -0,0 +1,111 @@
+package com.bankinc.card.service;
+
+import com.bankinc.card.dto.CardRangeAggregate;
+import com.bankinc.card.dto.ProductAggregate;
+import com.bankinc.card.exceptions.ProcessingFailureException;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.repository.TransactionRepository;
+import com.bankinc.card.service.archive.TransactionArchive;
+import com.bankinc.card.service.store.ConditionalOnJpaStore;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+@Service
+@ConditionalOnJpaStore
+public class ProductAggregateService {
+
+    private static final long SUFFIX_SPACE = 10_000_000_000L;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionArchive transactionArchive;
+
+    // Cada rango ocupa una conexion del pool; por defecto se deja margen al trafico en linea
+    @Value("${card.aggregates.ranges:8}")
+    private int ranges;
+
+    private final ExecutorService executor;
+
+    public ProductAggregateService(@Value("${card.aggregates.parallelism:2}") int parallelism) {
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "product-aggregates");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public ProductAggregate aggregate(String productId) {
+        long start = System.currentTimeMillis();
+        List<CompletableFuture<RangeResult>> futures = new ArrayList<>(ranges);
+        for (CardNumber[] range : splitRanges(productId, ranges)) {
+            futures.add(CompletableFuture.supplyAsync(() -> scanRange(productId, range[0], range[1]), executor));
+        }
+
+        ProductAggregate aggregate = new ProductAggregate(productId);
+        try {
+            for (CompletableFuture<RangeResult> future : futures) {
+                RangeResult result = future.join();
+                aggregate.add(result.cards(), result.outstanding());
+            }
+        } catch (RuntimeException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new ProcessingFailureException("Error aggregating product " + productId + ": " + e.getMessage(), e);
+        }
+        aggregate.setElapsedMillis(System.currentTimeMillis() - start);
+        return aggregate;
+    }
+
+    public void streamAggregates(List<String> productIds, Consumer<ProductAggregate> consumer) {
+        List<String> products = productIds == null || productIds.isEmpty()
+                ? cardRepository.findProductIds()
+                : productIds;
+        for (String productId : products) {
+            consumer.accept(aggregate(productId));
+        }
+    }
+
+    private RangeResult scanRange(String productId, CardNumber fromCardId, CardNumber toCardId) {
+        CardRangeAggregate cards = cardRepository.aggregateRange(productId, fromCardId, toCardId);
+        BigDecimal outstanding = transactionRepository.sumOutstandingInRange(productId, fromCardId, toCardId);
+        // Los movimientos archivados siguen contando en la exposicion
+        BigDecimal archived = transactionArchive.sumOutstanding(fromCardId, toCardId);
+        return new RangeResult(cards, outstanding == null ? archived : outstanding.add(archived));
+    }
+
+    // Divide los 10 digitos que siguen al producto en rangos contiguos e inclusivos
+    static List<CardNumber[]> splitRanges(String productId, int parts) {
+        List<CardNumber[]> result = new ArrayList<>(parts);
+        long base = CardNumber.firstOfProduct(productId).longValue();
+        long step = SUFFIX_SPACE / parts;
+        for (int i = 0; i < parts; i++) {
+            long from = i * step;
+            long to = i == parts - 1 ? SUFFIX_SPACE - 1 : from + step - 1;
+            result.add(new CardNumber[] {CardNumber.of(base + from), CardNumber.of(base + to)});
+        }
+        return result;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private record RangeResult(CardRangeAggregate cards, BigDecimal outstanding) {
+    }
+}
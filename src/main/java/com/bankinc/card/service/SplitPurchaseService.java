@@ -0,0 +1,196 @@
+package com.bankinc.card.service;
+
+import com.bankinc.card.dto.SplitPurchaseLeg;
+import com.bankinc.card.dto.SplitPurchaseResult;
+import com.bankinc.card.exceptions.BusinessException;
+import com.bankinc.card.exceptions.CardNotFoundException;
+import com.bankinc.card.exceptions.InvalidTransactionException;
+import com.bankinc.card.exceptions.ProcessingFailureException;
+import com.bankinc.card.exceptions.TransactionProcessingException;
+import com.bankinc.card.model.Card;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.model.LedgerEntryType;
+import com.bankinc.card.service.concurrency.BalanceMutation;
+import com.bankinc.card.service.directory.CardDirectory;
+import com.bankinc.card.service.lifecycle.AuthorizationGate;
+import com.bankinc.card.service.stats.PurchaseOutcome;
+import com.bankinc.card.service.stats.PurchaseStats;
+import com.bankinc.card.service.store.CardStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Compra pagada con varias tarjetas (corporativa y personal, varias tarjetas regalo). Primero se
+// comprueba que cada tarjeta puede pagar su tramo, sin bloquear nada: un rechazo corta
+// la compra sin tocar ningun saldo. Despues todos los tramos se debitan en una sola unidad atomica
+// del almacen, con las tarjetas bloqueadas en orden de numero y las mismas validaciones que una
+// compra normal: se aprueban todos o ninguno. Cada tramo es un movimiento de su tarjeta; el primero
+// es el padre y los demas lo referencian con parentId
+@Service
+public class SplitPurchaseService {
+
+    @Autowired
+    private CardStore cardStore;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private CardDirectory cardDirectory;
+
+    @Autowired
+    private PurchaseStats purchaseStats;
+
+    // No existe con el motor en memoria, que no cierra ventanas de anulacion
+    @Autowired(required = false)
+    private TransactionFinalizer transactionFinalizer;
+
+    @Autowired
+    private AuthorizationGate authorizationGate;
+
+    @Value("${card.split.max-legs:8}")
+    private int maxLegs;
+
+    public SplitPurchaseResult purchase(List<SplitPurchaseLeg> legs) {
+        authorizationGate.enter();
+        try {
+            return authorize(legs);
+        } finally {
+            authorizationGate.exit();
+        }
+    }
+
+    private SplitPurchaseResult authorize(List<SplitPurchaseLeg> legs) {
+        validateLegs(legs);
+        LocalDateTime now = LocalDateTime.now();
+        List<String> cardIds = legs.stream().map(SplitPurchaseLeg::getCardId).toList();
+        AtomicReference<UUID> parent = new AtomicReference<>();
+        // Tramo que se esta validando: el rechazo cuenta solo para su tarjeta
+        AtomicReference<SplitPurchaseLeg> failing = new AtomicReference<>();
+        List<UUID> transactionIds;
+        try {
+            checkEligibility(legs, now, failing);
+            List<BalanceMutation<UUID>> mutations = new ArrayList<>(legs.size());
+            for (SplitPurchaseLeg leg : legs) {
+                mutations.add(tracked(leg, transactionService.purchaseMutation(leg.getPrice(), now, parent), failing));
+            }
+            transactionIds = cardStore.updateBalances(cardIds, mutations);
+        } catch (BusinessException e) {
+            // Los fallos de procesamiento no son rechazos de la tarjeta; los demas tramos no se rechazaron
+            SplitPurchaseLeg leg = failing.get();
+            if (!(e instanceof TransactionProcessingException) && leg != null) {
+                purchaseStats.record(leg.getCardId(), leg.getPrice(), PurchaseOutcome.DECLINED);
+            }
+            throw e;
+        } catch (Exception e) {
+            throw new ProcessingFailureException("Error processing split purchase: " + e.getMessage(), e);
+        }
+
+        List<SplitPurchaseLeg> approved = new ArrayList<>(legs.size());
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < legs.size(); i++) {
+            SplitPurchaseLeg leg = legs.get(i);
+            UUID transactionId = transactionIds.get(i);
+            purchaseStats.record(leg.getCardId(), leg.getPrice(), PurchaseOutcome.APPROVED);
+            if (transactionFinalizer != null) {
+                transactionFinalizer.schedule(transactionId, now);
+            }
+            approved.add(new SplitPurchaseLeg(leg.getCardId(), leg.getPrice(), transactionId));
+            total = total.add(leg.getPrice());
+        }
+        return new SplitPurchaseResult(parent.get(), total, approved);
+    }
+
+    private void validateLegs(List<SplitPurchaseLeg> legs) {
+        if (legs == null || legs.size() < 2) {
+            throw new InvalidTransactionException("A split purchase needs at least two cards");
+        }
+        if (legs.size() > maxLegs) {
+            throw new InvalidTransactionException("A split purchase accepts at most " + maxLegs + " cards");
+        }
+        Set<String> cardIds = new HashSet<>();
+        for (SplitPurchaseLeg leg : legs) {
+            if (leg.getCardId() == null || leg.getPrice() == null) {
+                throw new InvalidTransactionException("cardId and price are required for every card");
+            }
+            if (leg.getPrice().compareTo(BigDecimal.ZERO) <= 0) {
+                throw InvalidTransactionException.NON_POSITIVE_AMOUNT;
+            }
+            if (!cardIds.add(leg.getCardId())) {
+                throw new InvalidTransactionException("Each card can fund only one part of a split purchase");
+            }
+        }
+    }
+
+    // Sin bloquear nada y en el hilo de la peticion, dentro de su presupuesto de admision: primero el
+    // directorio en memoria y despues una sola lectura de todas las tarjetas. Se propaga el rechazo
+    // del primer tramo que falle, en el orden recibido. El debito vuelve a validar con la tarjeta ya bloqueada
+    private void checkEligibility(List<SplitPurchaseLeg> legs, LocalDateTime now, AtomicReference<SplitPurchaseLeg> failing) {
+        List<CardNumber> cardNumbers = new ArrayList<>(legs.size());
+        for (SplitPurchaseLeg leg : legs) {
+            failing.set(leg);
+            cardDirectory.prevalidatePurchase(leg.getCardId(), leg.getPrice(), now);
+            CardNumber.tryParse(leg.getCardId()).ifPresent(cardNumbers::add);
+        }
+        Map<CardNumber, Card> cards = new HashMap<>();
+        for (Card card : cardStore.findCards(cardNumbers)) {
+            cards.put(card.getCardNumber(), card);
+        }
+        for (SplitPurchaseLeg leg : legs) {
+            failing.set(leg);
+            Card card = CardNumber.tryParse(leg.getCardId()).map(cards::get)
+                    .orElseThrow(() -> new CardNotFoundException("Card not found with ID: " + leg.getCardId()));
+            TransactionService.validatePurchase(card, leg.getPrice(), now);
+        }
+    }
+
+    // El almacen valida cada tramo con su tarjeta bloqueada, en orden de numero: la mutacion anota
+    // que tramo se valida antes de delegar
+    private static BalanceMutation<UUID> tracked(SplitPurchaseLeg leg, BalanceMutation<UUID> mutation,
+                                                 AtomicReference<SplitPurchaseLeg> failing) {
+        return new BalanceMutation<>() {
+            @Override
+            public BigDecimal delta(Card card) {
+                failing.set(leg);
+                return mutation.delta(card);
+            }
+
+            @Override
+            public UUID apply(Card card) {
+                return mutation.apply(card);
+            }
+
+            @Override
+            public LedgerEntryType entryType() {
+                return mutation.entryType();
+            }
+
+            @Override
+            public UUID ledgerReference(UUID result) {
+                return mutation.ledgerReference(result);
+            }
+
+            @Override
+            public boolean requiresEligibleCard() {
+                return mutation.requiresEligibleCard();
+            }
+
+            @Override
+            public RuntimeException cardNotFound(String cardId) {
+                failing.set(leg);
+                return mutation.cardNotFound(cardId);
+            }
+        };
+    }
+}
@@ -0,0 +1,106 @@
+package com.bankinc.card.service;
+
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.repository.TransactionRepository;
+import com.bankinc.card.service.expiry.ExpiryKind;
+import com.bankinc.card.service.expiry.ExpiryScheduler;
+import com.bankinc.card.service.partition.CardOwnershipGuard;
+import com.bankinc.card.service.store.ConditionalOnJpaStore;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Marca como finalizados los movimientos cuando se cierra su ventana de anulacion
+@Slf4j
+@Service
+@ConditionalOnJpaStore
+public class TransactionFinalizer {
+
+    static final int ANULATION_WINDOW_HOURS = 24;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ExpiryScheduler expiryScheduler;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CardOwnershipGuard cardOwnershipGuard;
+
+    // Oracle admite como maximo 1000 elementos en un IN
+    @Value("${card.expiry.finalize-chunk-size:500}")
+    private int chunkSize;
+
+    @PostConstruct
+    void init() {
+        expiryScheduler.register(ExpiryKind.TRANSACTION_FINALIZATION, this::finalizeAll);
+    }
+
+    // La rueda solo conoce los movimientos de esta instancia desde el arranque: el barrido cierra los
+    // que vencieron con el servicio parado o en una instancia caida
+    @Scheduled(fixedDelayString = "${card.expiry.sweep-interval-ms:60000}",
+            initialDelayString = "${card.expiry.sweep-interval-ms:60000}")
+    public void sweep() {
+        try {
+            long finalized = finalizeDue(LocalDateTime.now().minusHours(ANULATION_WINDOW_HOURS));
+            if (finalized > 0) {
+                log.info("Finalized {} transactions past the anulation window", finalized);
+            }
+        } catch (RuntimeException e) {
+            log.error("Transaction finalization sweep failed", e);
+        }
+    }
+
+    // Sin particionado una sola sentencia sobre idx_transaction_open; con particionado solo los
+    // movimientos de tarjetas de particiones propias, por paginas
+    long finalizeDue(LocalDateTime cutoff) {
+        if (!cardOwnershipGuard.isEnabled()) {
+            Integer finalized = transactionTemplate.execute(status -> transactionRepository.finalizeBefore(cutoff));
+            return finalized == null ? 0 : finalized;
+        }
+        long finalized = 0;
+        PageRequest page = PageRequest.of(0, chunkSize);
+        List<Object[]> rows = transactionRepository.findOpenBefore(cutoff, page);
+        while (!rows.isEmpty()) {
+            List<UUID> owned = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                if (cardOwnershipGuard.isOwnedLocally((CardNumber) row[2])) {
+                    owned.add((UUID) row[0]);
+                }
+            }
+            if (!owned.isEmpty()) {
+                Integer chunk = transactionTemplate.execute(status -> transactionRepository.finalizeAll(owned));
+                finalized += chunk == null ? 0 : chunk;
+            }
+            Object[] last = rows.get(rows.size() - 1);
+            rows = rows.size() < chunkSize ? List.of()
+                    : transactionRepository.findOpenBeforeAfter(cutoff, (LocalDateTime) last[1], (UUID) last[0], page);
+        }
+        return finalized;
+    }
+
+    public void schedule(UUID transactionId, LocalDateTime timestamp) {
+        expiryScheduler.schedule(ExpiryKind.TRANSACTION_FINALIZATION, transactionId,
+                timestamp.plusHours(ANULATION_WINDOW_HOURS));
+    }
+
+    void finalizeAll(List<UUID> transactionIds) {
+        for (int from = 0; from < transactionIds.size(); from += chunkSize) {
+            List<UUID> chunk = transactionIds.subList(from, Math.min(from + chunkSize, transactionIds.size()));
+            transactionTemplate.executeWithoutResult(status -> transactionRepository.finalizeAll(chunk));
+        }
+    }
+}
@@ -1,104 +1,202 @@
 package com.bankinc.card.service;
 
+import com.bankinc.card.dto.ArchivedTransaction;
 import com.bankinc.card.exceptions.*;
 import com.bankinc.card.model.Card;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.model.LedgerEntryType;
 import com.bankinc.card.model.Transaction;
-import com.bankinc.card.repository.TransactionRepository;
+import com.bankinc.card.service.archive.TransactionArchive;
+import com.bankinc.card.service.concurrency.BalanceMutation;
+import com.bankinc.card.service.directory.CardDirectory;
+import com.bankinc.card.service.lifecycle.AuthorizationGate;
+import com.bankinc.card.service.lifecycle.WarmUp;
+import com.bankinc.card.service.stats.PurchaseOutcome;
+import com.bankinc.card.service.stats.PurchaseStats;
+import com.bankinc.card.service.store.CardStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class TransactionService {
 
     @Autowired
-    private TransactionRepository transactionRepository;
+    private CardStore cardStore;
 
     @Autowired
-    private CardService cardService;
+    private TransactionArchive transactionArchive;
 
-    @Transactional
+    // No existe con el motor en memoria, que no cierra ventanas de anulacion
+    @Autowired(required = false)
+    private TransactionFinalizer transactionFinalizer;
+
+    @Autowired
+    private CardDirectory cardDirectory;
+
+    @Autowired
+    private PurchaseStats purchaseStats;
+
+    @Autowired
+    private AuthorizationGate authorizationGate;
+
+    // Sin @Transactional: el almacen (con JPA, la estrategia de concurrencia) abre y si hace falta reintenta la transaccion
     public UUID purchase(String cardId, BigDecimal price) {
+        authorizationGate.enter();
+        try {
+            return authorizePurchase(cardId, price);
+        } finally {
+            authorizationGate.exit();
+        }
+    }
+
+    private UUID authorizePurchase(String cardId, BigDecimal price) {
         // Validar que el precio sea positivo
         if (price.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new InvalidTransactionException("Transaction amount must be greater than zero");
+            throw InvalidTransactionException.NON_POSITIVE_AMOUNT;
         }
 
-        // Obtener y validar la existencia de la tarjeta
-        Card card = cardService.getCard(cardId);
-        if (card == null) {
-            throw new CardNotFoundException("Card not found");
+        LocalDateTime now = LocalDateTime.now();
+        UUID transactionId;
+        try {
+            // Las tarjetas que el directorio ya sabe que no pueden comprar se rechazan sin ir a la base
+            cardDirectory.prevalidatePurchase(cardId, price, now);
+            transactionId = cardStore.updateBalance(cardId, purchaseMutation(price, now, null));
+        } catch (BusinessException e) {
+            // Los fallos de procesamiento no son rechazos de la tarjeta
+            if (!(e instanceof TransactionProcessingException) && !isSynthetic(cardId)) {
+                purchaseStats.record(cardId, price, PurchaseOutcome.DECLINED);
+            }
+            throw e;
+        } catch (Exception e) {
+            throw new ProcessingFailureException("Error processing transaction: " + e.getMessage(), e);
+        }
+        if (isSynthetic(cardId)) {
+            return transactionId;
         }
+        purchaseStats.record(cardId, price, PurchaseOutcome.APPROVED);
+        // Solo tras el commit: la rueda cierra la ventana de anulacion a las 24h
+        if (transactionFinalizer != null) {
+            transactionFinalizer.schedule(transactionId, now);
+        }
+        return transactionId;
+    }
+
+    // Las compras del calentamiento se deshacen: no cuentan en las estadisticas ni programan su cierre
+    private static boolean isSynthetic(String cardId) {
+        return WarmUp.SYNTHETIC_CARD_ID.equals(cardId);
+    }
+
+    // Debito de una compra. En una compra repartida (splitParent != null) el primer tramo que se
+    // aplica queda como padre y los siguientes guardan su id en parentId
+    BalanceMutation<UUID> purchaseMutation(BigDecimal price, LocalDateTime now, AtomicReference<UUID> splitParent) {
+        return new BalanceMutation<>() {
+            @Override
+            public BigDecimal delta(Card card) {
+                validatePurchase(card, price, now);
+                return price.negate();
+            }
+
+            @Override
+            public UUID apply(Card card) {
+                // Crear y guardar la transacción con el saldo ya debitado
+                Transaction transaction = new Transaction();
+                transaction.setCard(card);
+                transaction.setPrice(price);
+                transaction.setTimestamp(now);
+                transaction.setAnulated(false);
+                if (splitParent != null) {
+                    transaction.setParentId(splitParent.get());
+                }
+                cardStore.saveTransaction(transaction);
+                if (splitParent != null && splitParent.get() == null) {
+                    splitParent.set(transaction.getId());
+                }
+                return transaction.getId();
+            }
+
+            @Override
+            public LedgerEntryType entryType() {
+                return LedgerEntryType.PURCHASE;
+            }
+        };
+    }
 
+    static void validatePurchase(Card card, BigDecimal price, LocalDateTime now) {
         // Validar que la tarjeta esté activa
         if (!card.isActive()) {
-            throw new CardNotActiveException("Card is not activated");
+            throw CardNotActiveException.NOT_ACTIVATED;
         }
 
         // Validar que la tarjeta no esté bloqueada
         if (card.isBlocked()) {
-            throw new CardBlockedException("Card is blocked");
+            throw CardBlockedException.BLOCKED;
         }
 
         // Validar la fecha de vencimiento
-        LocalDateTime now = LocalDateTime.now();
         if (isCardExpired(card.getExpirationDate(), now)) {
-            throw new CardExpiredException("Card is expired");
+            throw CardExpiredException.EXPIRED;
         }
 
         // Validar el saldo disponible
         if (card.getBalance().compareTo(price) < 0) {
-            throw new InsufficientFundsException("Insufficient funds: available balance is " 
-                + card.getBalance());
-        }
-
-        try {
-            // Crear la transacción
-            Transaction transaction = new Transaction();
-            transaction.setCard(card);
-            transaction.setPrice(price);
-            transaction.setTimestamp(now);
-            transaction.setAnulated(false);
-
-            // Actualizar el balance de la tarjeta
-            card.setBalance(card.getBalance().subtract(price));
-            cardService.updateCard(card);
-
-            // Guardar la transacción
-            transactionRepository.save(transaction);
-            
-            return transaction.getId();
-
-        } catch (Exception e) {
-            throw new TransactionProcessingException("Error processing transaction: " + e.getMessage());
+            throw InsufficientFundsException.INSUFFICIENT_FUNDS;
         }
     }
 
     // Método auxiliar para validar la fecha de vencimiento
-    private boolean isCardExpired(String expirationDate, LocalDateTime currentDate) {
-        // Asumiendo que expirationDate está en formato "MM/yy"
-        try {
-            String[] parts = expirationDate.split("/");
-            int month = Integer.parseInt(parts[0]);
-            int year = 2000 + Integer.parseInt(parts[1]); // Convertir yy a yyyy
+    private static boolean isCardExpired(String expirationDate, LocalDateTime currentDate) {
+        int expiration = expirationMonth(expirationDate);
+        if (expiration < 0) {
+            throw InvalidCardDataException.INVALID_EXPIRATION_DATE;
+        }
 
-            LocalDateTime cardExpiration = LocalDateTime.of(year, month, 1, 0, 0)
-                .plusMonths(1).minusSeconds(1); // Último día del mes a las 23:59:59
+        // Vence al terminar el último día del mes
+        return currentDate.getYear() * 12 + currentDate.getMonthValue() - 1 > expiration;
+    }
 
-            return currentDate.isAfter(cardExpiration);
-        } catch (Exception e) {
-            throw new InvalidCardDataException("Invalid expiration date format");
+    // Mes de vencimiento como anio * 12 + mes - 1, o -1 si el formato no es valido
+    public static int expirationMonth(String expirationDate) {
+        // Asumiendo que expirationDate está en formato "MM/yy"; se recorre el texto
+        // sin split ni parseInt para no asignar memoria en el camino de rechazo
+        int separator = expirationDate == null ? -1 : expirationDate.indexOf('/');
+        int month = parseDigits(expirationDate, 0, separator);
+        int year = parseDigits(expirationDate, separator + 1, expirationDate == null ? -1 : expirationDate.length());
+        if (month < 1 || month > 12 || year < 0) {
+            return -1;
+        }
+        year += 2000; // Convertir yy a yyyy
+        return year * 12 + month - 1;
+    }
+
+    private static int parseDigits(String value, int from, int to) {
+        if (from < 0 || to <= from) {
+            return -1;
         }
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9' || result > 100_000) {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
     }
 
 
     public Transaction getTransaction(String transactionId) {
         try {
             UUID uuid = UUID.fromString(transactionId);
-            Transaction transaction = transactionRepository.findById(uuid)
+            Transaction transaction = cardStore.findTransaction(uuid)
+                .or(() -> findArchived(uuid))
                 .orElseThrow(() -> new TransactionNotFoundException("Transaction not found with ID: " + transactionId));
             return transaction;
         } catch (IllegalArgumentException e) {
@@ -106,37 +204,105 @@ public class TransactionService {
         }
     }
 
-    @Transactional
-public boolean anulateTransaction(String cardId, UUID transactionId) {
-    try {
-        Transaction transaction = transactionRepository.findById(transactionId)
-            .orElseThrow(() -> new TransactionProcessingException("Transaction not found"));
-
-        if (!transaction.getCard().getCardId().equals(cardId)) {
-            throw new InvalidTransactionException("Transaction does not belong to this card");
+    // Movimientos de la tabla y del archivo, en orden cronologico
+    public List<Transaction> getCardHistory(String cardId) {
+        CardNumber cardNumber = CardNumber.parse(cardId);
+        List<Transaction> history = new ArrayList<>();
+        List<ArchivedTransaction> archived = transactionArchive.findByCardId(cardNumber);
+        if (!archived.isEmpty()) {
+            Card card = cardStore.findCard(cardNumber).orElse(null);
+            archived.forEach(transaction -> history.add(toTransaction(transaction, card)));
         }
+        history.addAll(cardStore.findTransactionsByCard(cardNumber));
+        history.sort(Comparator.comparing(Transaction::getTimestamp));
+        return history;
+    }
 
-        if (transaction.getTimestamp().isBefore(LocalDateTime.now().minusHours(24))) {
-            throw new InvalidTransactionException("Transaction cannot be anulated after 24 hours");
-        }
+    private Optional<Transaction> findArchived(UUID transactionId) {
+        return transactionArchive.findById(transactionId)
+                .map(archived -> toTransaction(archived, cardStore.findCard(archived.getCardNumber()).orElse(null)));
+    }
+
+    private static Transaction toTransaction(ArchivedTransaction archived, Card card) {
+        Transaction transaction = new Transaction();
+        transaction.setId(archived.getId());
+        transaction.setCard(card);
+        transaction.setPrice(archived.getPrice());
+        transaction.setTimestamp(archived.getTimestamp());
+        transaction.setAnulated(archived.isAnulated());
+        return transaction;
+    }
 
-        if (transaction.isAnulated()) {
-            throw new InvalidTransactionException("Transaction already anulated");
+    public boolean anulateTransaction(String cardId, UUID transactionId) {
+        authorizationGate.enter();
+        try {
+            return anulate(cardId, transactionId);
+        } finally {
+            authorizationGate.exit();
         }
+    }
+
+    private boolean anulate(String cardId, UUID transactionId) {
+        try {
+            Transaction transaction = cardStore.findTransaction(transactionId)
+                .orElseThrow(() -> transactionArchive.contains(transactionId)
+                        // Solo se archivan movimientos ya fuera de la ventana de anulacion
+                        ? TransactionProcessingException.ANULATION_WINDOW_CLOSED
+                        : TransactionProcessingException.ANULATION_NOT_FOUND);
+
+            if (!transaction.getCard().getCardId().equals(cardId)) {
+                throw TransactionProcessingException.ANULATION_NOT_CARD_OWNER;
+            }
+
+            if (transaction.isFinalized() || transaction.getTimestamp().isBefore(LocalDateTime.now().minusHours(24))) {
+                throw TransactionProcessingException.ANULATION_WINDOW_CLOSED;
+            }
+
+            if (transaction.isAnulated()) {
+                throw TransactionProcessingException.ALREADY_ANULATED;
+            }
 
-        transaction.setAnulated(true);
-        
-        Card card = transaction.getCard();
-        card.setBalance(card.getBalance().add(transaction.getPrice()));
-        cardService.updateCard(card);
-        
-        transactionRepository.save(transaction);
-        
-        return true;
+            boolean anulated = cardStore.updateBalance(cardId, new BalanceMutation<Boolean>() {
+                @Override
+                public BigDecimal delta(Card card) {
+                    return transaction.getPrice();
+                }
 
-    } catch (Exception e) {
-        throw new TransactionProcessingException("Error processing transaction anulation: " + e.getMessage());
+                @Override
+                public Boolean apply(Card card) {
+                    // Marca condicional: de dos anulaciones concurrentes solo una acredita el saldo
+                    if (!cardStore.markAnulated(transactionId)) {
+                        throw TransactionProcessingException.ALREADY_ANULATED;
+                    }
+                    return true;
+                }
+
+                @Override
+                public LedgerEntryType entryType() {
+                    return LedgerEntryType.ANULATION;
+                }
+
+                @Override
+                public UUID ledgerReference(Boolean result) {
+                    return transactionId;
+                }
+
+                @Override
+                public boolean requiresEligibleCard() {
+                    return false;
+                }
+            });
+            purchaseStats.record(cardId, transaction.getPrice(), PurchaseOutcome.ANULATED);
+            return anulated;
+
+        } catch (TransactionProcessingException e) {
+            // Rechazos ya preasignados: se propagan sin volver a envolverlos
+            throw e;
+        } catch (BusinessException e) {
+            throw new TransactionProcessingException("Error processing transaction anulation: " + e.getMessage());
+        } catch (Exception e) {
+            throw new ProcessingFailureException("Error processing transaction anulation: " + e.getMessage(), e);
+        }
     }
-}
 
 }
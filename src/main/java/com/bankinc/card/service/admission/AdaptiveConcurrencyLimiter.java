@@ -0,0 +1,101 @@
+package com.bankinc.card.service.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Limite de peticiones simultaneas que se ajusta con la latencia observada (AIMD): mientras la
+// latencia se mantiene cerca de la minima reciente y el limite se usa, crece en 1 por cada
+// "limite" respuestas; cuando la latencia supera tolerance veces la minima, o la peticion falla
+// por el servidor, se multiplica por decrease-factor, como mucho una vez por latencia para que una
+// rafaga de respuestas lentas no lo hunda. Adquirir no bloquea: lo que no cabe se rechaza al momento
+public class AdaptiveConcurrencyLimiter {
+
+    // Respuestas tras las que se vuelve a medir la latencia minima, por si la base cambio
+    private static final int MIN_LATENCY_WINDOW = 1000;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double decreaseFactor;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private volatile int limit;
+
+    // Protegidos por this
+    private double estimatedLimit;
+    private long minLatency = Long.MAX_VALUE;
+    private long windowMinLatency = Long.MAX_VALUE;
+    private int windowSamples;
+    private long lastDecrease;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance,
+                                      double decreaseFactor) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.decreaseFactor = decreaseFactor;
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+        this.lastDecrease = System.nanoTime();
+    }
+
+    public boolean tryAcquire() {
+        if (inFlight.incrementAndGet() > limit) {
+            inFlight.decrementAndGet();
+            reject();
+            return false;
+        }
+        return true;
+    }
+
+    // Rechazo decidido fuera del limitador (una consulta que cede ante las compras)
+    void reject() {
+        rejected.increment();
+    }
+
+    // failed: la peticion no se pudo atender (5xx); cuenta como sobrecarga aunque haya sido rapida
+    public void release(long latencyNanos, boolean failed) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        onSample(latencyNanos, inFlightBefore, failed, System.nanoTime());
+    }
+
+    synchronized void onSample(long latencyNanos, int inFlightBefore, boolean failed, long now) {
+        windowMinLatency = Math.min(windowMinLatency, latencyNanos);
+        minLatency = Math.min(minLatency, latencyNanos);
+        if (++windowSamples >= MIN_LATENCY_WINDOW) {
+            minLatency = windowMinLatency;
+            windowMinLatency = Long.MAX_VALUE;
+            windowSamples = 0;
+        }
+
+        if (failed || latencyNanos > minLatency * tolerance) {
+            if (now - lastDecrease >= latencyNanos) {
+                estimatedLimit = Math.max(minLimit, estimatedLimit * decreaseFactor);
+                lastDecrease = now;
+            }
+        } else if (inFlightBefore * 2 >= limit) {
+            // Solo crece si al menos la mitad del limite estaba en uso
+            estimatedLimit = Math.min(maxLimit, estimatedLimit + 1.0 / estimatedLimit);
+        }
+        limit = (int) estimatedLimit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public double utilization() {
+        return (double) inFlight.get() / limit;
+    }
+}
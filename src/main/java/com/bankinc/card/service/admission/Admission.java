@@ -0,0 +1,13 @@
+package com.bankinc.card.service.admission;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marca un endpoint para pasar por el control de admision con el presupuesto indicado
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Admission {
+    AdmissionBudget value();
+}
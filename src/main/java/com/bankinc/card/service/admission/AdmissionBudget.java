@@ -0,0 +1,7 @@
+package com.bankinc.card.service.admission;
+
+// Presupuestos de concurrencia independientes: las consultas ceden ante las autorizaciones
+public enum AdmissionBudget {
+    PURCHASE,
+    INQUIRY
+}
@@ -0,0 +1,88 @@
+package com.bankinc.card.service.admission;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+// Un limitador adaptativo por presupuesto. Con el pool de 5 conexiones, lo que no cabe se rechaza
+// al momento con 503 en lugar de esperar hasta 60s por una conexion. Las consultas ademas ceden:
+// si las compras usan mas de inquiry-yield-utilization de su limite, se rechazan aunque les quede cupo
+@Component
+public class AdmissionControl {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${card.admission.purchase.initial-limit:10}")
+    private int purchaseInitialLimit;
+
+    @Value("${card.admission.purchase.min-limit:2}")
+    private int purchaseMinLimit;
+
+    @Value("${card.admission.purchase.max-limit:50}")
+    private int purchaseMaxLimit;
+
+    @Value("${card.admission.inquiry.initial-limit:5}")
+    private int inquiryInitialLimit;
+
+    @Value("${card.admission.inquiry.min-limit:1}")
+    private int inquiryMinLimit;
+
+    @Value("${card.admission.inquiry.max-limit:20}")
+    private int inquiryMaxLimit;
+
+    @Value("${card.admission.latency-tolerance:2.0}")
+    private double latencyTolerance;
+
+    @Value("${card.admission.decrease-factor:0.9}")
+    private double decreaseFactor;
+
+    @Value("${card.admission.inquiry-yield-utilization:0.8}")
+    private double inquiryYieldUtilization;
+
+    private final Map<AdmissionBudget, AdaptiveConcurrencyLimiter> limiters = new EnumMap<>(AdmissionBudget.class);
+
+    @PostConstruct
+    void init() {
+        limiters.put(AdmissionBudget.PURCHASE, new AdaptiveConcurrencyLimiter(purchaseInitialLimit, purchaseMinLimit,
+                purchaseMaxLimit, latencyTolerance, decreaseFactor));
+        limiters.put(AdmissionBudget.INQUIRY, new AdaptiveConcurrencyLimiter(inquiryInitialLimit, inquiryMinLimit,
+                inquiryMaxLimit, latencyTolerance, decreaseFactor));
+        limiters.forEach((budget, limiter) -> {
+            String tag = budget.name().toLowerCase();
+            Gauge.builder("card.admission.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .tag("budget", tag)
+                    .register(meterRegistry);
+            Gauge.builder("card.admission.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .tag("budget", tag)
+                    .register(meterRegistry);
+            FunctionCounter.builder("card.admission.rejected", limiter, AdaptiveConcurrencyLimiter::getRejected)
+                    .tag("budget", tag)
+                    .register(meterRegistry);
+        });
+    }
+
+    public boolean tryAcquire(AdmissionBudget budget) {
+        if (budget == AdmissionBudget.INQUIRY
+                && limiters.get(AdmissionBudget.PURCHASE).utilization() >= inquiryYieldUtilization) {
+            limiters.get(AdmissionBudget.INQUIRY).reject();
+            return false;
+        }
+        return limiters.get(budget).tryAcquire();
+    }
+
+    public void release(AdmissionBudget budget, long latencyNanos, boolean failed) {
+        limiters.get(budget).release(latencyNanos, failed);
+    }
+
+    public AdaptiveConcurrencyLimiter getLimiter(AdmissionBudget budget) {
+        return limiters.get(budget);
+    }
+}
@@ -0,0 +1,285 @@
+package com.bankinc.card.service.archive;
+
+import com.bankinc.card.dto.ArchivedTransaction;
+import com.bankinc.card.model.CardNumber;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+// Lector de un segmento mapeado en memoria. Las busquedas por tarjeta o por id son binarias sobre los
+// indices del propio fichero y solo se descomprimen las paginas que contienen las filas pedidas.
+// Solo usa lecturas absolutas sobre el buffer, asi que puede compartirse entre hilos
+final class ArchiveSegment {
+
+    static final int MAGIC = 0x53585443; // "CTXS"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int PAGE_ENTRY_SIZE = 16;
+    static final int CARD_ENTRY_SIZE = 24;
+    static final int ID_ENTRY_SIZE = 20;
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int rows;
+    private final int cards;
+    private final int pageSize;
+    private final long directoryOffset;
+    private final long cardIndexOffset;
+    private final long idIndexOffset;
+
+    private ArchiveSegment(Path path, MappedByteBuffer buffer) {
+        this.path = path;
+        this.buffer = buffer;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("Not a transaction archive segment: " + path);
+        }
+        this.rows = buffer.getInt(8);
+        this.cards = buffer.getInt(12);
+        this.pageSize = buffer.getInt(20);
+        this.directoryOffset = buffer.getLong(24);
+        this.cardIndexOffset = buffer.getLong(32);
+        this.idIndexOffset = buffer.getLong(40);
+    }
+
+    static ArchiveSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new ArchiveSegment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    boolean contains(UUID id) {
+        return findRow(id) >= 0;
+    }
+
+    ArchivedTransaction findById(UUID id) {
+        int row = findRow(id);
+        if (row < 0) {
+            return null;
+        }
+        return decodePage(row / pageSize).get(row % pageSize);
+    }
+
+    List<ArchivedTransaction> findByCard(long cardNumber) {
+        int entry = findCard(cardNumber);
+        if (entry < 0) {
+            return List.of();
+        }
+        int position = (int) (cardIndexOffset + (long) entry * CARD_ENTRY_SIZE);
+        int first = buffer.getInt(position + 8);
+        int count = buffer.getInt(position + 12);
+
+        List<ArchivedTransaction> result = new ArrayList<>(count);
+        for (int page = first / pageSize; page <= (first + count - 1) / pageSize; page++) {
+            List<ArchivedTransaction> decoded = decodePage(page);
+            int from = Math.max(first - page * pageSize, 0);
+            int to = Math.min(first + count - page * pageSize, decoded.size());
+            result.addAll(decoded.subList(from, to));
+        }
+        return result;
+    }
+
+    // Suma de importes no anulados de las tarjetas del rango inclusivo, solo con el indice por tarjeta
+    long sumOutstandingCents(long fromCardNumber, long toCardNumber) {
+        int entry = findCard(fromCardNumber);
+        if (entry < 0) {
+            entry = -entry - 1;
+        }
+        long total = 0;
+        for (; entry < cards; entry++) {
+            int position = (int) (cardIndexOffset + (long) entry * CARD_ENTRY_SIZE);
+            if (buffer.getLong(position) > toCardNumber) {
+                break;
+            }
+            total += buffer.getLong(position + 16);
+        }
+        return total;
+    }
+
+    // Lo mismo, tarjeta a tarjeta
+    void forEachOutstanding(long fromCardNumber, long toCardNumber, TransactionArchive.OutstandingVisitor visitor) {
+        int entry = findCard(fromCardNumber);
+        if (entry < 0) {
+            entry = -entry - 1;
+        }
+        for (; entry < cards; entry++) {
+            int position = (int) (cardIndexOffset + (long) entry * CARD_ENTRY_SIZE);
+            long cardNumber = buffer.getLong(position);
+            if (cardNumber > toCardNumber) {
+                break;
+            }
+            visitor.accept(cardNumber, buffer.getLong(position + 16));
+        }
+    }
+
+    private int findCard(long cardNumber) {
+        int low = 0;
+        int high = cards - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long value = buffer.getLong((int) (cardIndexOffset + (long) mid * CARD_ENTRY_SIZE));
+            if (value < cardNumber) {
+                low = mid + 1;
+            } else if (value > cardNumber) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private int findRow(UUID id) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        int low = 0;
+        int high = rows - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int position = (int) (idIndexOffset + (long) mid * ID_ENTRY_SIZE);
+            int compare = Long.compare(buffer.getLong(position), msb);
+            if (compare == 0) {
+                compare = Long.compare(buffer.getLong(position + 8), lsb);
+            }
+            if (compare < 0) {
+                low = mid + 1;
+            } else if (compare > 0) {
+                high = mid - 1;
+            } else {
+                return buffer.getInt(position + 16);
+            }
+        }
+        return -1;
+    }
+
+    private List<ArchivedTransaction> decodePage(int page) {
+        int entry = (int) (directoryOffset + (long) page * PAGE_ENTRY_SIZE);
+        int offset = (int) buffer.getLong(entry);
+        byte[] compressed = new byte[buffer.getInt(entry + 8)];
+        byte[] raw = new byte[buffer.getInt(entry + 12)];
+        buffer.get(offset, compressed);
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            inflater.inflate(raw);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt page " + page + " in archive segment " + path, e);
+        } finally {
+            inflater.end();
+        }
+
+        int count = Math.min(pageSize, rows - page * pageSize);
+        int firstRow = page * pageSize;
+        VarIntInput in = new VarIntInput(raw);
+        long[] micros = new long[count];
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            previous += in.readVarLong();
+            micros[i] = previous;
+        }
+        long[] cents = new long[count];
+        for (int i = 0; i < count; i++) {
+            cents[i] = in.readVarLong();
+        }
+        int anulatedOffset = in.position;
+        in.position += (count + 7) / 8;
+
+        CardNumber[] cardIds = cardIdsOfPage(firstRow, count);
+        List<ArchivedTransaction> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            UUID id = new UUID(in.readLong(), in.readLong());
+            boolean anulated = (raw[anulatedOffset + (i >>> 3)] & (1 << (i & 7))) != 0;
+            result.add(new ArchivedTransaction(id, cardIds[i], BigDecimal.valueOf(cents[i], 2),
+                    fromMicros(micros[i]), anulated));
+        }
+        return result;
+    }
+
+    // La tarjeta no se repite por fila: se deduce de los rangos del indice por tarjeta
+    private CardNumber[] cardIdsOfPage(int firstRow, int count) {
+        CardNumber[] cardIds = new CardNumber[count];
+        int low = 0;
+        int high = cards - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (buffer.getInt((int) (cardIndexOffset + (long) mid * CARD_ENTRY_SIZE) + 8) <= firstRow) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        int filled = 0;
+        for (int entry = low; entry < cards && filled < count; entry++) {
+            int position = (int) (cardIndexOffset + (long) entry * CARD_ENTRY_SIZE);
+            CardNumber cardId = CardNumber.of(buffer.getLong(position));
+            int end = buffer.getInt(position + 8) + buffer.getInt(position + 12);
+            while (filled < count && firstRow + filled < end) {
+                cardIds[filled++] = cardId;
+            }
+        }
+        return cardIds;
+    }
+
+    int getRows() {
+        return rows;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    static long toMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+
+    private static final class VarIntInput {
+        private final byte[] bytes;
+        private int position;
+
+        VarIntInput(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long readVarLong() {
+            long zigzag = 0;
+            int shift = 0;
+            byte current;
+            do {
+                current = bytes[position++];
+                zigzag |= (long) (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 8) {
+                value |= (long) (bytes[position++] & 0xFF) << shift;
+            }
+            return value;
+        }
+    }
+}
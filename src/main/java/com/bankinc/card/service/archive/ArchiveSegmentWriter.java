@@ -0,0 +1,222 @@
+package com.bankinc.card.service.archive;
+
+import com.bankinc.card.dto.ArchivedTransaction;
+import com.bankinc.card.model.CardNumber;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.Deflater;
+
+// Escribe un segmento inmutable. Formato (little-endian):
+//   cabecera de 64 bytes (ver ArchiveSegment)
+//   paginas de hasta pageSize filas comprimidas con deflate; dentro de cada pagina los datos van por
+//   columnas: instantes en microsegundos (varint, delta con la fila anterior), importes en centavos
+//   (varint), bitmap de anulados y los ids (16 bytes por fila)
+//   directorio de paginas: offset i64 | longitud comprimida i32 | longitud original i32
+//   indice por tarjeta, ordenado: tarjeta i64 | primera fila i32 | filas i32 | centavos no anulados i64
+//   indice por id, ordenado: msb i64 | lsb i64 | fila i32
+// Los indices van sin comprimir para poder buscar en ellos directamente sobre el fichero mapeado
+final class ArchiveSegmentWriter {
+
+    static final Comparator<ArchivedTransaction> ROW_ORDER = Comparator
+            .comparing(ArchivedTransaction::getCardNumber)
+            .thenComparing(ArchivedTransaction::getTimestamp);
+
+    private ArchiveSegmentWriter() {
+    }
+
+    // Se escribe en un .tmp y se renombra al final: un segmento visible siempre esta completo
+    static void write(Path target, List<ArchivedTransaction> transactions, int pageSize) throws IOException {
+        List<ArchivedTransaction> rows = new ArrayList<>(transactions);
+        rows.sort(ROW_ORDER);
+        int pages = (rows.size() + pageSize - 1) / pageSize;
+
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.position(ArchiveSegment.HEADER_SIZE);
+
+            ByteBuffer directory = buffer(pages * ArchiveSegment.PAGE_ENTRY_SIZE);
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+            try {
+                for (int page = 0; page < pages; page++) {
+                    byte[] raw = encodePage(rows.subList(page * pageSize, Math.min(rows.size(), (page + 1) * pageSize)));
+                    byte[] compressed = compress(deflater, raw);
+                    directory.putLong(channel.position()).putInt(compressed.length).putInt(raw.length);
+                    writeFully(channel, ByteBuffer.wrap(compressed));
+                }
+            } finally {
+                deflater.end();
+            }
+
+            long directoryOffset = channel.position();
+            writeFully(channel, directory.flip());
+            long cardIndexOffset = channel.position();
+            int cards = writeCardIndex(channel, rows);
+            long idIndexOffset = channel.position();
+            writeIdIndex(channel, rows);
+
+            ByteBuffer header = buffer(ArchiveSegment.HEADER_SIZE)
+                    .putInt(ArchiveSegment.MAGIC)
+                    .putInt(ArchiveSegment.VERSION)
+                    .putInt(rows.size())
+                    .putInt(cards)
+                    .putInt(pages)
+                    .putInt(pageSize)
+                    .putLong(directoryOffset)
+                    .putLong(cardIndexOffset)
+                    .putLong(idIndexOffset)
+                    .putLong(rows.isEmpty() ? 0 : ArchiveSegment.toMicros(rows.get(0).getTimestamp()))
+                    .putLong(rows.stream().mapToLong(row -> ArchiveSegment.toMicros(row.getTimestamp())).max().orElse(0));
+            channel.position(0);
+            writeFully(channel, header.flip());
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static byte[] encodePage(List<ArchivedTransaction> rows) {
+        VarIntOutput out = new VarIntOutput(rows.size() * 24);
+        long previous = 0;
+        for (ArchivedTransaction row : rows) {
+            long micros = ArchiveSegment.toMicros(row.getTimestamp());
+            out.writeVarLong(micros - previous);
+            previous = micros;
+        }
+        for (ArchivedTransaction row : rows) {
+            out.writeVarLong(ArchiveSegment.toCents(row.getPrice()));
+        }
+        byte[] anulated = new byte[(rows.size() + 7) / 8];
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i).isAnulated()) {
+                anulated[i >>> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+        out.write(anulated);
+        for (ArchivedTransaction row : rows) {
+            out.writeLong(row.getId().getMostSignificantBits());
+            out.writeLong(row.getId().getLeastSignificantBits());
+        }
+        return out.toByteArray();
+    }
+
+    private static int writeCardIndex(FileChannel channel, List<ArchivedTransaction> rows) throws IOException {
+        List<long[]> entries = new ArrayList<>();
+        int first = 0;
+        while (first < rows.size()) {
+            CardNumber cardId = rows.get(first).getCardNumber();
+            int end = first;
+            long outstandingCents = 0;
+            while (end < rows.size() && rows.get(end).getCardNumber().equals(cardId)) {
+                if (!rows.get(end).isAnulated()) {
+                    outstandingCents += ArchiveSegment.toCents(rows.get(end).getPrice());
+                }
+                end++;
+            }
+            entries.add(new long[] {cardId.longValue(), first, end - first, outstandingCents});
+            first = end;
+        }
+        ByteBuffer index = buffer(entries.size() * ArchiveSegment.CARD_ENTRY_SIZE);
+        for (long[] entry : entries) {
+            index.putLong(entry[0]).putInt((int) entry[1]).putInt((int) entry[2]).putLong(entry[3]);
+        }
+        writeFully(channel, index.flip());
+        return entries.size();
+    }
+
+    private static void writeIdIndex(FileChannel channel, List<ArchivedTransaction> rows) throws IOException {
+        Integer[] order = new Integer[rows.size()];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparing((Integer row) -> rows.get(row).getId().getMostSignificantBits())
+                .thenComparing(row -> rows.get(row).getId().getLeastSignificantBits()));
+        ByteBuffer index = buffer(rows.size() * ArchiveSegment.ID_ENTRY_SIZE);
+        for (int row : order) {
+            index.putLong(rows.get(row).getId().getMostSignificantBits())
+                    .putLong(rows.get(row).getId().getLeastSignificantBits())
+                    .putInt(row);
+        }
+        writeFully(channel, index.flip());
+    }
+
+    private static byte[] compress(Deflater deflater, byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        VarIntOutput out = new VarIntOutput(raw.length / 2 + 64);
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            out.write(chunk, deflater.deflate(chunk));
+        }
+        return out.toByteArray();
+    }
+
+    private static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // Buffer creciente con enteros de longitud variable (zigzag + 7 bits por byte)
+    static final class VarIntOutput {
+        private byte[] bytes;
+        private int size;
+
+        VarIntOutput(int capacity) {
+            bytes = new byte[Math.max(capacity, 16)];
+        }
+
+        void writeVarLong(long value) {
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                writeByte((int) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            writeByte((int) zigzag);
+        }
+
+        void writeLong(long value) {
+            for (int shift = 0; shift < 64; shift += 8) {
+                writeByte((int) (value >>> shift));
+            }
+        }
+
+        void write(byte[] source) {
+            write(source, source.length);
+        }
+
+        void write(byte[] source, int length) {
+            ensure(length);
+            System.arraycopy(source, 0, bytes, size, length);
+            size += length;
+        }
+
+        private void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+}
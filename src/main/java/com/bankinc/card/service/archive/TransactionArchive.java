@@ -0,0 +1,157 @@
+package com.bankinc.card.service.archive;
+
+import com.bankinc.card.dto.ArchivedTransaction;
+import com.bankinc.card.model.CardNumber;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Segundo nivel de almacenamiento para los movimientos finalizados. Los segmentos son inmutables;
+// lo que se archiva sale de la tabla TRANSACTION pero sigue siendo consultable desde aqui
+@Slf4j
+@Component
+public class TransactionArchive {
+
+    static final String SEGMENT_SUFFIX = ".seg";
+
+    @Value("${card.archive.directory:./data/archive}")
+    private String directory;
+
+    @Value("${card.archive.page-size:1024}")
+    private int pageSize;
+
+    private final List<ArchiveSegment> segments = new CopyOnWriteArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    @PostConstruct
+    void load() throws IOException {
+        Path root = Paths.get(directory);
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(root)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SEGMENT_SUFFIX)) {
+                    files.add(file);
+                } else if (name.endsWith(SEGMENT_SUFFIX + ".tmp")) {
+                    // Segmento a medio escribir de una ejecucion interrumpida; sus filas siguen en la tabla
+                    Files.delete(file);
+                }
+            }
+        }
+        files.sort(Comparator.comparing(Path::toString));
+        long rows = 0;
+        for (Path file : files) {
+            ArchiveSegment segment = ArchiveSegment.open(file);
+            segments.add(segment);
+            rows += segment.getRows();
+        }
+        log.info("Transaction archive loaded {} segments with {} transactions from {}", segments.size(), rows, root);
+    }
+
+    // Escribe un segmento nuevo y lo hace visible para las lecturas antes de borrar las filas de la tabla
+    public void append(List<ArchivedTransaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        try {
+            Path root = Files.createDirectories(Paths.get(directory));
+            Path file = root.resolve(String.format("transactions-%d-%04d%s", System.currentTimeMillis(),
+                    sequence.incrementAndGet() % 10_000, SEGMENT_SUFFIX));
+            ArchiveSegmentWriter.write(file, transactions, pageSize);
+            segments.add(ArchiveSegment.open(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write transaction archive segment", e);
+        }
+    }
+
+    public boolean contains(UUID transactionId) {
+        for (ArchiveSegment segment : segments) {
+            if (segment.contains(transactionId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Optional<ArchivedTransaction> findById(UUID transactionId) {
+        for (ArchiveSegment segment : segments) {
+            ArchivedTransaction transaction = segment.findById(transactionId);
+            if (transaction != null) {
+                return Optional.of(transaction);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public List<ArchivedTransaction> findByCardId(CardNumber cardNumber) {
+        List<ArchivedTransaction> result = new ArrayList<>();
+        for (ArchiveSegment segment : segments) {
+            result.addAll(segment.findByCard(cardNumber.longValue()));
+        }
+        result.sort(Comparator.comparing(ArchivedTransaction::getTimestamp));
+        return result;
+    }
+
+    // Movimientos archivados de la tarjeta en [start, end); solo se retienen los del periodo
+    public List<ArchivedTransaction> findByCardId(CardNumber cardNumber, LocalDateTime start, LocalDateTime end) {
+        List<ArchivedTransaction> result = new ArrayList<>();
+        for (ArchiveSegment segment : segments) {
+            for (ArchivedTransaction transaction : segment.findByCard(cardNumber.longValue())) {
+                if (!transaction.getTimestamp().isBefore(start) && transaction.getTimestamp().isBefore(end)) {
+                    result.add(transaction);
+                }
+            }
+        }
+        result.sort(Comparator.comparing(ArchivedTransaction::getTimestamp).thenComparing(ArchivedTransaction::getId));
+        return result;
+    }
+
+    // Importe archivado y no anulado de las tarjetas del rango inclusivo [fromCardId, toCardId]
+    public BigDecimal sumOutstanding(CardNumber fromCardId, CardNumber toCardId) {
+        long cents = 0;
+        for (ArchiveSegment segment : segments) {
+            cents += segment.sumOutstandingCents(fromCardId.longValue(), toCardId.longValue());
+        }
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    // Importe archivado y no anulado por tarjeta; una tarjeta puede aparecer una vez por segmento
+    public void forEachOutstanding(CardNumber fromCardId, CardNumber toCardId, OutstandingVisitor visitor) {
+        for (ArchiveSegment segment : segments) {
+            segment.forEachOutstanding(fromCardId.longValue(), toCardId.longValue(), visitor);
+        }
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    public long getTransactionCount() {
+        return segments.stream().mapToLong(ArchiveSegment::getRows).sum();
+    }
+
+    @FunctionalInterface
+    public interface OutstandingVisitor {
+        void accept(long cardNumber, long cents);
+    }
+}
@@ -0,0 +1,142 @@
+package com.bankinc.card.service.archive;
+
+import com.bankinc.card.dto.ArchivedTransaction;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.repository.TransactionRepository;
+import com.bankinc.card.service.partition.CardOwnershipGuard;
+import com.bankinc.card.service.store.JpaCardStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Mueve al archivo los movimientos que ya no pueden cambiar (fuera de la ventana de anulacion de 24h)
+// y mayores que card.archive.min-age-hours. Primero se escribe el segmento y despues se borran las
+// filas; si se interrumpe entre ambos pasos la siguiente ejecucion solo borra las filas ya archivadas.
+// Los segmentos son ficheros locales de la instancia: con particionado, al moverse un lease el nuevo
+// propietario no veria el historico archivado, asi que ambas opciones no se pueden activar a la vez.
+// Tampoco con el motor en memoria, que no guarda los movimientos en la tabla
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "card.archive.enabled", havingValue = "true")
+public class TransactionArchiver {
+
+    // Ventana de anulacion mas una hora de margen frente a anulaciones en curso
+    private static final int MIN_AGE_HOURS = 25;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionArchive transactionArchive;
+
+    @Autowired
+    private CardOwnershipGuard cardOwnershipGuard;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${card.archive.min-age-hours:48}")
+    private int minAgeHours;
+
+    @Value("${card.archive.card-batch-size:200}")
+    private int cardBatchSize;
+
+    @Value("${card.archive.segment-rows:50000}")
+    private int segmentRows;
+
+    // Oracle admite como maximo 1000 elementos en un IN
+    @Value("${card.archive.delete-chunk-size:500}")
+    private int deleteChunkSize;
+
+    @Value("${card.store.engine:" + JpaCardStore.ENGINE + "}")
+    private String storeEngine;
+
+    private Counter archivedRows;
+
+    @PostConstruct
+    void init() {
+        if (cardOwnershipGuard.isEnabled()) {
+            throw new IllegalStateException("card.archive.enabled cannot be combined with card.partitioning.enabled: "
+                    + "archive segments are local to each instance");
+        }
+        if (!JpaCardStore.ENGINE.equals(storeEngine)) {
+            throw new IllegalStateException("card.archive.enabled requires card.store.engine=" + JpaCardStore.ENGINE
+                    + ": it moves finalized rows out of the transaction table");
+        }
+        archivedRows = meterRegistry.counter("card.archive.transactions");
+        Gauge.builder("card.archive.segments", transactionArchive, TransactionArchive::getSegmentCount)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${card.archive.interval-ms:3600000}",
+            initialDelayString = "${card.archive.initial-delay-ms:60000}")
+    public void archive() {
+        try {
+            long archived = archiveOlderThan(LocalDateTime.now().minusHours(Math.max(minAgeHours, MIN_AGE_HOURS)));
+            if (archived > 0) {
+                log.info("Archived {} finalized transactions", archived);
+            }
+        } catch (RuntimeException e) {
+            log.error("Transaction archiving failed", e);
+        }
+    }
+
+    long archiveOlderThan(LocalDateTime cutoff) {
+        long archived = 0;
+        CardNumber from = CardNumber.MIN;
+        List<ArchivedTransaction> pending = new ArrayList<>();
+        List<UUID> alreadyArchived = new ArrayList<>();
+
+        List<CardNumber> cardIds = transactionRepository.findCardIdsWithTransactionsBefore(cutoff, from,
+                PageRequest.of(0, cardBatchSize));
+        while (!cardIds.isEmpty()) {
+            from = cardIds.get(cardIds.size() - 1).next();
+            for (ArchivedTransaction transaction : transactionRepository.findArchivable(cardIds, cutoff)) {
+                if (transactionArchive.contains(transaction.getId())) {
+                    alreadyArchived.add(transaction.getId());
+                } else {
+                    pending.add(transaction);
+                }
+            }
+            if (pending.size() >= segmentRows) {
+                archived += flush(pending, alreadyArchived);
+            }
+            cardIds = from == null ? List.of() : transactionRepository.findCardIdsWithTransactionsBefore(cutoff, from,
+                    PageRequest.of(0, cardBatchSize));
+        }
+        return archived + flush(pending, alreadyArchived);
+    }
+
+    private int flush(List<ArchivedTransaction> pending, List<UUID> alreadyArchived) {
+        transactionArchive.append(pending);
+        List<UUID> ids = new ArrayList<>(pending.size() + alreadyArchived.size());
+        pending.forEach(transaction -> ids.add(transaction.getId()));
+        ids.addAll(alreadyArchived);
+        for (int from = 0; from < ids.size(); from += deleteChunkSize) {
+            List<UUID> chunk = ids.subList(from, Math.min(from + deleteChunkSize, ids.size()));
+            transactionTemplate.executeWithoutResult(status -> transactionRepository.deleteAllByIds(chunk));
+        }
+        int archived = pending.size();
+        archivedRows.increment(archived);
+        pending.clear();
+        alreadyArchived.clear();
+        return archived;
+    }
+}
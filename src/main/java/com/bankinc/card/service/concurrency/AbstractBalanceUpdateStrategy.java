@@ -0,0 +1,84 @@
+package com.bankinc.card.service.concurrency;
+
+import com.bankinc.card.exceptions.TransactionProcessingException;
+import com.bankinc.card.model.Card;
+import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.service.ledger.BalanceLedger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+abstract class AbstractBalanceUpdateStrategy implements BalanceUpdateStrategy {
+
+    @Autowired
+    protected CardRepository cardRepository;
+
+    @Autowired
+    protected TransactionTemplate transactionTemplate;
+
+    @Autowired
+    protected BalanceLedger balanceLedger;
+
+    @Value("${card.concurrency.max-attempts:5}")
+    protected int maxAttempts;
+
+    @Value("${card.concurrency.backoff-ms:2}")
+    protected long backoffMillis;
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    protected void recordAttempt() {
+        attempts.increment();
+    }
+
+    // Sobre la tarjeta gestionada: saldo y secuencia del libro mayor viajan en el mismo flush
+    protected <T> T applyManaged(Card card, BalanceMutation<T> mutation) {
+        BigDecimal delta = mutation.delta(card);
+        card.setBalance(card.getBalance().add(delta));
+        T result = mutation.apply(card);
+        long sequence = card.getLedgerSequence() + 1;
+        card.setLedgerSequence(sequence);
+        beforeLedgerAppend();
+        balanceLedger.append(card, sequence, card.getBalance(), mutation.entryType(), delta,
+                mutation.ledgerReference(result));
+        return result;
+    }
+
+    // Hibernate ejecuta los INSERT antes que los UPDATE en un flush: sin proteccion previa de la fila,
+    // quien necesite que la tarjeta se escriba antes que el apunte lo fuerza aqui
+    protected void beforeLedgerAppend() {
+    }
+
+    // Espera exponencial con jitter completo antes del siguiente intento
+    protected void backoff(int attempt) {
+        if (attempt >= maxAttempts) {
+            throw TransactionProcessingException.CONCURRENT_UPDATE;
+        }
+        retries.increment();
+        long ceiling = backoffMillis << Math.min(attempt, 10);
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw TransactionProcessingException.CONCURRENT_UPDATE;
+        }
+    }
+
+    @Override
+    public long getAttempts() {
+        return attempts.sum();
+    }
+
+    @Override
+    public long getRetries() {
+        return retries.sum();
+    }
+}
@@ -0,0 +1,63 @@
+package com.bankinc.card.service.concurrency;
+
+import com.bankinc.card.dto.LedgerPosition;
+import com.bankinc.card.model.Card;
+import com.bankinc.card.service.store.ConditionalOnJpaStore;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+// Valida sobre una lectura sin bloqueo y aplica el cambio con un UPDATE condicional; si la
+// condicion ya no se cumple se vuelve a leer para devolver el rechazo correcto o reintentar
+@Component
+@ConditionalOnJpaStore
+public class AtomicBalanceUpdateStrategy extends AbstractBalanceUpdateStrategy {
+
+    public static final String NAME = "atomic";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public <T> T update(String cardId, BalanceMutation<T> mutation) {
+        for (int attempt = 1; ; attempt++) {
+            recordAttempt();
+            Attempt<T> result = transactionTemplate.execute(status -> {
+                Card card = cardRepository.findByCardId(cardId)
+                        .orElseThrow(() -> mutation.cardNotFound(cardId));
+                BigDecimal delta = mutation.delta(card);
+                // Se desasocia para que el flush no sobrescriba el saldo actualizado en la base
+                entityManager.detach(card);
+
+                int updated = mutation.requiresEligibleCard()
+                        ? cardRepository.applyBalanceDeltaIfEligible(card.getCardNumber(), delta)
+                        : cardRepository.applyBalanceDelta(card.getCardNumber(), delta);
+                if (updated == 0) {
+                    return null;
+                }
+                // La fila sigue bloqueada por el UPDATE: secuencia y saldo leidos son los que dejo
+                LedgerPosition position = cardRepository.findLedgerPosition(card.getCardNumber());
+                card.setBalance(position.getBalance());
+                card.setLedgerSequence(position.getSequence());
+                T value = mutation.apply(card);
+                balanceLedger.append(card, position.getSequence(), position.getBalance(), mutation.entryType(), delta,
+                        mutation.ledgerReference(value));
+                return new Attempt<>(value);
+            });
+            if (result != null) {
+                return result.value();
+            }
+            backoff(attempt);
+        }
+    }
+
+    private record Attempt<T>(T value) {
+    }
+}
@@ -0,0 +1,36 @@
+package com.bankinc.card.service.concurrency;
+
+import com.bankinc.card.exceptions.CardNotFoundException;
+import com.bankinc.card.model.Card;
+import com.bankinc.card.model.LedgerEntryType;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Cambio de saldo sobre una tarjeta. La estrategia de concurrencia decide como se protege la
+// lectura-modificacion-escritura; la mutacion solo valida y completa la operacion.
+public interface BalanceMutation<T> {
+
+    // Valida la tarjeta y devuelve el cambio de saldo (negativo para debitos); lanza el rechazo si no procede
+    BigDecimal delta(Card card);
+
+    // Se ejecuta en la misma transaccion, con el saldo ya actualizado
+    T apply(Card card);
+
+    // Tipo del apunte que la estrategia deja en el libro mayor junto al cambio de saldo
+    LedgerEntryType entryType();
+
+    // Operacion que origina el apunte; por defecto el id que devuelve apply()
+    default UUID ledgerReference(T result) {
+        return result instanceof UUID id ? id : null;
+    }
+
+    // Los creditos por anulacion se aplican aunque la tarjeta este bloqueada
+    default boolean requiresEligibleCard() {
+        return true;
+    }
+
+    default RuntimeException cardNotFound(String cardId) {
+        return new CardNotFoundException("Card not found with ID: " + cardId);
+    }
+}
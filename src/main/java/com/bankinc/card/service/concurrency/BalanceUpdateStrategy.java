@@ -0,0 +1,12 @@
+package com.bankinc.card.service.concurrency;
+
+public interface BalanceUpdateStrategy {
+
+    String name();
+
+    <T> T update(String cardId, BalanceMutation<T> mutation);
+
+    long getAttempts();
+
+    long getRetries();
+}
@@ -0,0 +1,65 @@
+package com.bankinc.card.service.concurrency;
+
+import com.bankinc.card.service.store.ConditionalOnJpaStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Punto unico por el que pasan compras, anulaciones y recargas; la estrategia se elige con
+// card.concurrency.strategy (optimistic, pessimistic o atomic)
+@Slf4j
+@Component
+@ConditionalOnJpaStore
+public class CardBalanceUpdater {
+
+    @Autowired
+    private List<BalanceUpdateStrategy> strategies;
+
+    @Autowired
+    private PessimisticBalanceUpdateStrategy pessimisticStrategy;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${card.concurrency.strategy:" + PessimisticBalanceUpdateStrategy.NAME + "}")
+    private String strategyName;
+
+    private BalanceUpdateStrategy strategy;
+
+    @PostConstruct
+    void init() {
+        strategy = strategies.stream()
+                .filter(candidate -> candidate.name().equalsIgnoreCase(strategyName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown card.concurrency.strategy: " + strategyName));
+        for (BalanceUpdateStrategy candidate : strategies) {
+            FunctionCounter.builder("card.balance.update.attempts", candidate, BalanceUpdateStrategy::getAttempts)
+                    .tag("strategy", candidate.name())
+                    .register(meterRegistry);
+            FunctionCounter.builder("card.balance.update.retries", candidate, BalanceUpdateStrategy::getRetries)
+                    .tag("strategy", candidate.name())
+                    .register(meterRegistry);
+        }
+        log.info("Card balance updates use the {} concurrency strategy", strategy.name());
+    }
+
+    public <T> T update(String cardId, BalanceMutation<T> mutation) {
+        return strategy.update(cardId, mutation);
+    }
+
+    // Las operaciones sobre varias tarjetas bloquean siempre, sea cual sea la estrategia: con
+    // version o UPDATE condicional un conflicto en una tarjeta obligaria a repetirlas todas
+    public <T> List<T> updateAll(List<String> cardIds, List<? extends BalanceMutation<T>> mutations) {
+        return pessimisticStrategy.updateAll(cardIds, mutations);
+    }
+
+    public BalanceUpdateStrategy getStrategy() {
+        return strategy;
+    }
+}
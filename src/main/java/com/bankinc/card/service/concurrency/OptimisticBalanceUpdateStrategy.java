@@ -0,0 +1,45 @@
+package com.bankinc.card.service.concurrency;
+
+import com.bankinc.card.model.Card;
+import com.bankinc.card.service.store.ConditionalOnJpaStore;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+// Lee sin bloquear y confia en @Version de Card; ante un conflicto reintenta la transaccion completa.
+// El UPDATE versionado de la tarjeta se envia antes del apunte del libro mayor: si no, dos
+// actualizaciones concurrentes chocan en el indice unico (card_id, sequence) de ledger_entry antes
+// de que la version detecte el conflicto, y eso no se reintenta
+@Component
+@ConditionalOnJpaStore
+public class OptimisticBalanceUpdateStrategy extends AbstractBalanceUpdateStrategy {
+
+    public static final String NAME = "optimistic";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    protected void beforeLedgerAppend() {
+        cardRepository.flush();
+    }
+
+    @Override
+    public <T> T update(String cardId, BalanceMutation<T> mutation) {
+        for (int attempt = 1; ; attempt++) {
+            recordAttempt();
+            try {
+                return transactionTemplate.execute(status -> {
+                    Card card = cardRepository.findByCardId(cardId)
+                            .orElseThrow(() -> mutation.cardNotFound(cardId));
+                    T result = applyManaged(card, mutation);
+                    cardRepository.flush();
+                    return result;
+                });
+            } catch (ObjectOptimisticLockingFailureException e) {
+                backoff(attempt);
+            }
+        }
+    }
+}
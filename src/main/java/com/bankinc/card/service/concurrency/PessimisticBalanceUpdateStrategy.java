@@ -0,0 +1,53 @@
+package com.bankinc.card.service.concurrency;
+
+import com.bankinc.card.model.Card;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.service.store.ConditionalOnJpaStore;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// SELECT ... FOR UPDATE sobre la fila de la tarjeta durante toda la transaccion
+@Component
+@ConditionalOnJpaStore
+public class PessimisticBalanceUpdateStrategy extends AbstractBalanceUpdateStrategy {
+
+    public static final String NAME = "pessimistic";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public <T> T update(String cardId, BalanceMutation<T> mutation) {
+        recordAttempt();
+        return transactionTemplate.execute(status -> {
+            Card card = cardRepository.findByCardIdForUpdate(cardId)
+                    .orElseThrow(() -> mutation.cardNotFound(cardId));
+            return applyManaged(card, mutation);
+        });
+    }
+
+    // Varias tarjetas en la misma transaccion: un SELECT ... FOR UPDATE por tarjeta en orden de
+    // numero (un IN con ORDER BY no garantiza en que orden bloquea Oracle las filas) y despues las
+    // mutaciones en el orden recibido
+    public <T> List<T> updateAll(List<String> cardIds, List<? extends BalanceMutation<T>> mutations) {
+        recordAttempt();
+        return transactionTemplate.execute(status -> {
+            Card[] cards = new Card[cardIds.size()];
+            IntStream.range(0, cardIds.size()).boxed()
+                    .sorted(Comparator.comparingLong((Integer index) -> CardNumber.parseOrNegative(cardIds.get(index))))
+                    .forEach(index -> cards[index] = cardRepository.findByCardIdForUpdate(cardIds.get(index))
+                            .orElseThrow(() -> mutations.get(index).cardNotFound(cardIds.get(index))));
+            List<T> results = new ArrayList<>(cards.length);
+            for (int i = 0; i < cards.length; i++) {
+                results.add(applyManaged(cards[i], mutations.get(i)));
+            }
+            return results;
+        });
+    }
+}
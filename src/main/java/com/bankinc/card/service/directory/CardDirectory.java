@@ -0,0 +1,286 @@
+package com.bankinc.card.service.directory;
+
+import com.bankinc.card.dto.CardStateRow;
+import com.bankinc.card.exceptions.CardBlockedException;
+import com.bankinc.card.exceptions.CardExpiredException;
+import com.bankinc.card.exceptions.CardNotActiveException;
+import com.bankinc.card.exceptions.InsufficientFundsException;
+import com.bankinc.card.model.Card;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.service.TransactionService;
+import com.bankinc.card.service.partition.CardOwnershipGuard;
+import com.bankinc.card.service.store.JpaCardStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+// Directorio compacto del estado de todas las tarjetas (activa, bloqueada, vencimiento y saldo en
+// centimos) fuera del heap, para rechazar compras imposibles sin ir a la base de datos ni asignar
+// memoria. Se carga en paralelo al arrancar y se mantiene con cada cambio confirmado: los de saldo
+// llegan desde el libro mayor y los de estado desde CardService y las operaciones masivas.
+// Solo rechaza cuando esta seguro; si no conoce la tarjeta o aun carga, decide la base de datos.
+// Con particionado los cambios de otra instancia no llegan aqui y, tras un reparto de particiones,
+// rechazaria con estado viejo: se desactiva aunque card.directory.enabled siga a true.
+// Con el motor en memoria tampoco se usa: el almacen ya resuelve en memoria y la base no tiene sus tarjetas
+@Slf4j
+@Service
+public class CardDirectory {
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CardOwnershipGuard cardOwnershipGuard;
+
+    @Value("${card.directory.enabled:true}")
+    private boolean enabled;
+
+    @Value("${card.store.engine:" + JpaCardStore.ENGINE + "}")
+    private String storeEngine;
+
+    @Value("${card.directory.page-size:1000}")
+    private int pageSize;
+
+    // Un rango con mas tarjetas que esto se divide en dos durante la carga
+    @Value("${card.directory.split-threshold:50000}")
+    private long splitThreshold;
+
+    private final ForkJoinPool loader;
+    private final LongAdder rejections = new LongAdder();
+
+    private volatile CardStateTable table;
+    private volatile boolean ready;
+
+    // Cada hilo de carga ocupa una conexion del pool mientras recorre su rango
+    public CardDirectory(@Value("${card.directory.loader-threads:2}") int loaderThreads) {
+        this.loader = new ForkJoinPool(loaderThreads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("card-directory-loader-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    @PostConstruct
+    void init() {
+        if (enabled && !JpaCardStore.ENGINE.equals(storeEngine)) {
+            log.info("Card directory disabled: card.store.engine={} does not keep cards in the database", storeEngine);
+            enabled = false;
+        }
+        if (enabled && cardOwnershipGuard.isEnabled()) {
+            log.info("Card directory disabled: with card.partitioning.enabled other instances change cards it cannot see");
+            enabled = false;
+        }
+        Gauge.builder("card.directory.entries", this, directory -> directory.table == null ? 0 : directory.table.size())
+                .register(meterRegistry);
+        Gauge.builder("card.directory.bytes", this, directory -> directory.table == null ? 0 : directory.table.bytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("card.directory.rejections", rejections, LongAdder::sum)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startLoading() {
+        if (enabled) {
+            loader.execute(this::load);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Rechaza igual que TransactionService.validatePurchase, en el mismo orden y con las mismas
+    // excepciones preasignadas, ninguna con datos de la tarjeta en el mensaje
+    public void prevalidatePurchase(String cardId, BigDecimal price, LocalDateTime now) {
+        if (!ready) {
+            return;
+        }
+        long key = CardNumber.parseOrNegative(cardId);
+        if (key < 0) {
+            return;
+        }
+        CardStateTable states = table;
+        long state = states.state(key);
+        int flags = (int) (state >>> 24);
+        if (state < 0 || (flags & CardStateTable.STATE_KNOWN) == 0) {
+            return;
+        }
+        if ((flags & CardStateTable.ACTIVE) == 0) {
+            rejections.increment();
+            throw CardNotActiveException.NOT_ACTIVATED;
+        }
+        if ((flags & CardStateTable.BLOCKED) != 0) {
+            rejections.increment();
+            throw CardBlockedException.BLOCKED;
+        }
+        int expiry = (int) (state & CardStateTable.NO_EXPIRY);
+        if (expiry != CardStateTable.NO_EXPIRY && now.getYear() * 12 + now.getMonthValue() - 1 > expiry) {
+            rejections.increment();
+            throw CardExpiredException.EXPIRED;
+        }
+        // Precios con mas de dos decimales o fuera de rango los decide la base de datos
+        if (price.scale() > 2 || price.precision() - price.scale() > 16) {
+            return;
+        }
+        long balance = states.balanceCents(key);
+        if (balance != Long.MIN_VALUE && balance < price.movePointRight(2).longValue()) {
+            rejections.increment();
+            throw InsufficientFundsException.INSUFFICIENT_FUNDS;
+        }
+    }
+
+    // Cambio de saldo hecho por el libro mayor; se aplica al confirmarse la transaccion
+    public void balanceChanged(CardNumber cardNumber, long sequence, BigDecimal balance) {
+        if (!enabled) {
+            return;
+        }
+        long key = cardNumber.longValue();
+        long cents = toCents(balance);
+        afterCommit(() -> {
+            CardStateTable states = table;
+            if (states != null) {
+                states.putBalance(key, (int) sequence, cents);
+            }
+        });
+    }
+
+    // Alta, activacion, bloqueo o cualquier otro cambio de la tarjeta completa
+    public void cardChanged(Card card) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> put(card.getCardNumber(), card.isActive(), card.isBlocked(), card.getExpirationDate(),
+                card.getLedgerSequence(), card.getBalance(), card.getVersion() == null ? 0 : card.getVersion()));
+    }
+
+    // Las operaciones masivas no cargan las tarjetas: se vuelve a leer su estado ya confirmado
+    public void cardsChanged(Collection<CardNumber> cardNumbers) {
+        if (!enabled || table == null || cardNumbers.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> cardRepository.findStateRowsByCardNumbers(cardNumbers).forEach(this::put));
+    }
+
+    private void load() {
+        long start = System.currentTimeMillis();
+        try {
+            long cards = cardRepository.countInRange(CardNumber.MIN, CardNumber.MAX);
+            // Holgura para las altas posteriores sin tener que crecer enseguida
+            table = new CardStateTable((int) Math.min(cards + cards / 4, Integer.MAX_VALUE));
+            new RangeTask(CardNumber.MIN, CardNumber.MAX, cards).invoke();
+            ready = true;
+            log.info("Card directory loaded {} cards in {} ms, {} KiB off-heap", table.size(),
+                    System.currentTimeMillis() - start, table.bytes() / 1024);
+        } catch (RuntimeException e) {
+            log.error("Card directory could not be loaded; purchases are validated against the database only", e);
+        }
+    }
+
+    private void loadRange(CardNumber from, CardNumber to) {
+        CardNumber next = from;
+        while (next != null && next.compareTo(to) <= 0) {
+            List<CardStateRow> rows = cardRepository.findStateRows(next, to, PageRequest.of(0, pageSize));
+            if (rows.isEmpty()) {
+                return;
+            }
+            rows.forEach(this::put);
+            next = rows.get(rows.size() - 1).getCardNumber().next();
+        }
+    }
+
+    private void put(CardStateRow row) {
+        put(row.getCardNumber(), row.isActive(), row.isBlocked(), row.getExpirationDate(), row.getLedgerSequence(),
+                row.getBalance(), row.getVersion());
+    }
+
+    private void put(CardNumber cardNumber, boolean active, boolean blocked, String expirationDate, long sequence,
+                     BigDecimal balance, long version) {
+        CardStateTable states = table;
+        if (states == null || cardNumber == null) {
+            return;
+        }
+        int flags = (active ? CardStateTable.ACTIVE : 0) | (blocked ? CardStateTable.BLOCKED : 0);
+        int expiry = TransactionService.expirationMonth(expirationDate);
+        states.put(cardNumber.longValue(), (int) version, flags, expiry < 0 ? CardStateTable.NO_EXPIRY : expiry,
+                (int) sequence, toCents(balance));
+    }
+
+    // Hacia arriba: con un saldo algo mayor que el real se consulta la base, nunca se rechaza de mas
+    private static long toCents(BigDecimal balance) {
+        return balance == null ? 0 : balance.setScale(2, RoundingMode.CEILING).unscaledValue().longValue();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        loader.shutdownNow();
+    }
+
+    // Igual que la conciliacion: se divide por la mitad del espacio numerico mientras haya demasiadas tarjetas
+    private final class RangeTask extends RecursiveAction {
+        private final CardNumber from;
+        private final CardNumber to;
+        private final long cards;
+
+        private RangeTask(CardNumber from, CardNumber to, long cards) {
+            this.from = from;
+            this.to = to;
+            this.cards = cards;
+        }
+
+        @Override
+        protected void compute() {
+            if (cards == 0) {
+                return;
+            }
+            if (cards <= splitThreshold || from.equals(to)) {
+                loadRange(from, to);
+                return;
+            }
+            long middle = from.longValue() + (to.longValue() - from.longValue()) / 2;
+            CardNumber leftTo = CardNumber.of(middle);
+            long leftCards = cardRepository.countInRange(from, leftTo);
+            invokeAll(new RangeTask(from, leftTo, leftCards),
+                    new RangeTask(CardNumber.of(middle + 1), to, cards - leftCards));
+        }
+    }
+}
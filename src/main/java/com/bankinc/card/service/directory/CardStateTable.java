@@ -0,0 +1,185 @@
+package com.bankinc.card.service.directory;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Tabla hash de direccionamiento abierto fuera del heap: un buffer directo por campo (estructura de
+// arrays), asi el GC no recorre ningun objeto por tarjeta y una busqueda solo toca el array de claves.
+// Por ranura: clave (numero de tarjeta + 1, 0 = libre), saldo en centimos, secuencia del libro
+// mayor, version de la tarjeta y un int con los flags en el byte alto y el mes de vencimiento
+// (anio * 12 + mes - 1) en los 24 bits bajos. 28 bytes por ranura.
+// Las lecturas no bloquean: la clave se publica con release tras escribir el resto de campos.
+// Las escrituras se serializan en el propio objeto; al crecer se copia a una tabla nueva que se
+// publica de una vez. No hay borrado: las tarjetas no se eliminan
+final class CardStateTable {
+
+    static final int ACTIVE = 1;
+    static final int BLOCKED = 1 << 1;
+    // Sin flags conocidos la entrada solo tiene saldo (llego un cambio de saldo antes que la carga)
+    static final int STATE_KNOWN = 1 << 2;
+    static final int NO_EXPIRY = (1 << 24) - 1;
+
+    static final int BYTES_PER_SLOT = 8 + 8 + 4 + 4 + 4;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final float LOAD_FACTOR = 0.7f;
+    private static final int MIN_CAPACITY = 1024;
+    // Un buffer directo se indexa con int: 2^27 ranuras de 8 bytes (unos 94 millones de tarjetas)
+    private static final int MAX_CAPACITY = 1 << 27;
+
+    private volatile Slots slots;
+    private int size;
+
+    CardStateTable(int expectedSize) {
+        this.slots = new Slots(capacityFor(expectedSize));
+    }
+
+    int size() {
+        return size;
+    }
+
+    long bytes() {
+        return (long) slots.capacity * BYTES_PER_SLOT;
+    }
+
+    // Ranura de la tarjeta o -1; state y saldo se leen luego con la misma instancia de Slots
+    private static int find(Slots table, long key) {
+        long stored = key + 1;
+        for (int slot = slot(key, table.mask); ; slot = (slot + 1) & table.mask) {
+            long current = (long) LONGS.getAcquire(table.keys, slot << 3);
+            if (current == stored) {
+                return slot;
+            }
+            if (current == 0) {
+                return -1;
+            }
+        }
+    }
+
+    // Estado empaquetado (flags << 24 | mes de vencimiento); -1 si la tarjeta no esta
+    long state(long key) {
+        Slots table = slots;
+        int slot = find(table, key);
+        return slot < 0 ? -1 : (int) INTS.getAcquire(table.states, slot << 2) & 0xFFFFFFFFL;
+    }
+
+    // Saldo en centimos; Long.MIN_VALUE si la tarjeta no esta
+    long balanceCents(long key) {
+        Slots table = slots;
+        int slot = find(table, key);
+        return slot < 0 ? Long.MIN_VALUE : (long) LONGS.getAcquire(table.balances, slot << 3);
+    }
+
+    // Estado y saldo leidos de la base; cada parte solo se aplica si no es mas antigua que la guardada
+    synchronized void put(long key, int version, int flags, int expiryMonth, int sequence, long balanceCents) {
+        int state = (flags | STATE_KNOWN) << 24 | (expiryMonth & NO_EXPIRY);
+        Slots table = slots;
+        int slot = find(table, key);
+        if (slot < 0) {
+            insert(key, version, state, sequence, balanceCents);
+            return;
+        }
+        int storedState = (int) INTS.getAcquire(table.states, slot << 2);
+        if ((storedState >>> 24 & STATE_KNOWN) == 0 || version - (int) INTS.getAcquire(table.versions, slot << 2) >= 0) {
+            INTS.setRelease(table.versions, slot << 2, version);
+            INTS.setRelease(table.states, slot << 2, state);
+        }
+        if (sequence - (int) INTS.getAcquire(table.sequences, slot << 2) >= 0) {
+            INTS.setRelease(table.sequences, slot << 2, sequence);
+            LONGS.setRelease(table.balances, slot << 3, balanceCents);
+        }
+    }
+
+    // Cambio de saldo confirmado; los confirmados a la vez pueden llegar desordenados
+    synchronized void putBalance(long key, int sequence, long balanceCents) {
+        Slots table = slots;
+        int slot = find(table, key);
+        if (slot < 0) {
+            insert(key, 0, NO_EXPIRY, sequence, balanceCents);
+            return;
+        }
+        if (sequence - (int) INTS.getAcquire(table.sequences, slot << 2) > 0) {
+            INTS.setRelease(table.sequences, slot << 2, sequence);
+            LONGS.setRelease(table.balances, slot << 3, balanceCents);
+        }
+    }
+
+    private void insert(long key, int version, int state, int sequence, long balanceCents) {
+        if (size + 1 > slots.capacity * LOAD_FACTOR) {
+            grow();
+        }
+        Slots table = slots;
+        int slot = slot(key, table.mask);
+        while ((long) LONGS.getAcquire(table.keys, slot << 3) != 0) {
+            slot = (slot + 1) & table.mask;
+        }
+        write(table, slot, key + 1, version, state, sequence, balanceCents);
+        size++;
+    }
+
+    private void grow() {
+        Slots old = slots;
+        if (old.capacity == MAX_CAPACITY) {
+            throw new IllegalStateException("Card state table is full");
+        }
+        Slots table = new Slots(old.capacity << 1);
+        for (int i = 0; i < old.capacity; i++) {
+            long stored = (long) LONGS.getAcquire(old.keys, i << 3);
+            if (stored == 0) {
+                continue;
+            }
+            int slot = slot(stored - 1, table.mask);
+            while ((long) LONGS.get(table.keys, slot << 3) != 0) {
+                slot = (slot + 1) & table.mask;
+            }
+            write(table, slot, stored, (int) INTS.get(old.versions, i << 2), (int) INTS.get(old.states, i << 2),
+                    (int) INTS.get(old.sequences, i << 2), (long) LONGS.get(old.balances, i << 3));
+        }
+        slots = table;
+    }
+
+    private static void write(Slots table, int slot, long storedKey, int version, int state, int sequence,
+                              long balanceCents) {
+        INTS.set(table.versions, slot << 2, version);
+        INTS.set(table.states, slot << 2, state);
+        INTS.set(table.sequences, slot << 2, sequence);
+        LONGS.set(table.balances, slot << 3, balanceCents);
+        LONGS.setRelease(table.keys, slot << 3, storedKey);
+    }
+
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long needed = (long) Math.ceil(expectedSize / (double) LOAD_FACTOR) + 1;
+        if (needed > MAX_CAPACITY) {
+            throw new IllegalArgumentException("expectedSize too large: " + expectedSize);
+        }
+        return Math.max(MIN_CAPACITY, Integer.highestOneBit((int) needed - 1) << 1);
+    }
+
+    private static final class Slots {
+        private final int capacity;
+        private final int mask;
+        private final ByteBuffer keys;
+        private final ByteBuffer balances;
+        private final ByteBuffer sequences;
+        private final ByteBuffer versions;
+        private final ByteBuffer states;
+
+        private Slots(int capacity) {
+            this.capacity = capacity;
+            this.mask = capacity - 1;
+            this.keys = ByteBuffer.allocateDirect(capacity * 8).order(ByteOrder.nativeOrder());
+            this.balances = ByteBuffer.allocateDirect(capacity * 8).order(ByteOrder.nativeOrder());
+            this.sequences = ByteBuffer.allocateDirect(capacity * 4).order(ByteOrder.nativeOrder());
+            this.versions = ByteBuffer.allocateDirect(capacity * 4).order(ByteOrder.nativeOrder());
+            this.states = ByteBuffer.allocateDirect(capacity * 4).order(ByteOrder.nativeOrder());
+        }
+    }
+}
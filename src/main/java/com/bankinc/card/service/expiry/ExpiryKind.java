@@ -0,0 +1,8 @@
+package com.bankinc.card.service.expiry;
+
+public enum ExpiryKind {
+    // Preautorizacion abierta que llega a su vencimiento
+    HOLD_EXPIRATION,
+    // Movimiento cuya ventana de anulacion de 24h se cierra
+    TRANSACTION_FINALIZATION
+}
@@ -0,0 +1,109 @@
+package com.bankinc.card.service.expiry;
+
+import com.bankinc.card.util.HierarchicalTimingWheel;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Vencimientos con una unica rueda de tiempos en memoria para lo creado en esta instancia. Cada
+// servicio registra el manejador de su tipo; lo que la rueda no conoce (anterior al arranque o de una
+// particion heredada) lo recoge el barrido periodico de cada servicio. Los manejadores
+// reciben los ids vencidos en lote, en un hilo aparte para que el tick no espere a la base, y deben
+// ser idempotentes: una entrada puede vencer cuando el registro ya se cerro por otra via
+@Slf4j
+@Component
+public class ExpiryScheduler implements SmartLifecycle {
+
+    private final HierarchicalTimingWheel<Expiry> wheel;
+    private final long tickMillis;
+    private final Map<ExpiryKind, Consumer<List<UUID>>> handlers = new EnumMap<>(ExpiryKind.class);
+
+    private ScheduledExecutorService ticker;
+    private ExecutorService dispatcher;
+    private volatile boolean running;
+
+    public ExpiryScheduler(@Value("${card.expiry.tick-ms:1000}") long tickMillis,
+                           @Value("${card.expiry.wheel-size:64}") int wheelSize,
+                           MeterRegistry meterRegistry) {
+        this.tickMillis = tickMillis;
+        this.wheel = new HierarchicalTimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+        Gauge.builder("card.expiry.pending", wheel, HierarchicalTimingWheel::size).register(meterRegistry);
+    }
+
+    public synchronized void register(ExpiryKind kind, Consumer<List<UUID>> handler) {
+        handlers.put(kind, handler);
+    }
+
+    public void schedule(ExpiryKind kind, UUID id, LocalDateTime at) {
+        wheel.schedule(at.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), new Expiry(kind, id));
+    }
+
+    private void tick() {
+        Map<ExpiryKind, List<UUID>> due = new EnumMap<>(ExpiryKind.class);
+        wheel.advance(System.currentTimeMillis(),
+                expiry -> due.computeIfAbsent(expiry.kind(), kind -> new ArrayList<>()).add(expiry.id()));
+        due.forEach((kind, ids) -> dispatcher.execute(() -> dispatch(kind, ids)));
+    }
+
+    private void dispatch(ExpiryKind kind, List<UUID> ids) {
+        Consumer<List<UUID>> handler;
+        synchronized (this) {
+            handler = handlers.get(kind);
+        }
+        if (handler == null) {
+            log.warn("No handler registered for {} expirations, dropping {}", kind, ids.size());
+            return;
+        }
+        try {
+            handler.accept(ids);
+        } catch (RuntimeException e) {
+            log.error("Failed to process {} {} expirations", ids.size(), kind, e);
+        }
+    }
+
+    // Arranca cuando todos los servicios ya registraron sus manejadores
+    @Override
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("expiry-wheel-"));
+        dispatcher = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("expiry-worker-"));
+        ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        ticker.shutdownNow();
+        dispatcher.shutdown();
+        try {
+            dispatcher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private record Expiry(ExpiryKind kind, UUID id) {
+    }
+}
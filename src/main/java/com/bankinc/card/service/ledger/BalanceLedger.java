@@ -0,0 +1,137 @@
+package com.bankinc.card.service.ledger;
+
+import com.bankinc.card.dto.LedgerBalance;
+import com.bankinc.card.dto.LedgerTail;
+import com.bankinc.card.exceptions.CardNotFoundException;
+import com.bankinc.card.exceptions.InvalidTransactionException;
+import com.bankinc.card.model.BalanceSnapshot;
+import com.bankinc.card.model.Card;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.model.LedgerEntry;
+import com.bankinc.card.model.LedgerEntryType;
+import com.bankinc.card.repository.BalanceSnapshotRepository;
+import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.repository.LedgerEntryRepository;
+import com.bankinc.card.service.directory.CardDirectory;
+import com.bankinc.card.service.store.CardGenerations;
+import com.bankinc.card.service.store.ConditionalOnJpaStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+// Libro mayor de saldos: cada cambio deja un apunte inmutable en la misma transaccion que
+// actualiza Card.balance, que pasa a ser la proyeccion de esos apuntes. Cada snapshot-interval
+// apuntes se guarda el saldo resultante, asi reconstruir un saldo lee una instantanea y como
+// mucho snapshot-interval apuntes, por mucho que crezca el historico
+@Slf4j
+@Service
+@ConditionalOnJpaStore
+public class BalanceLedger {
+
+    private static final PageRequest LATEST = PageRequest.of(0, 1);
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CardDirectory cardDirectory;
+
+    @Autowired
+    private CardGenerations cardGenerations;
+
+    @Value("${card.ledger.snapshot-interval:100}")
+    private int snapshotInterval;
+
+    // Lo llama la estrategia de concurrencia con la tarjeta ya protegida (bloqueo, version o
+    // UPDATE condicional), por eso la secuencia no se repite; balanceAfter incluye el delta
+    public void append(Card card, long sequence, BigDecimal balanceAfter, LedgerEntryType type, BigDecimal delta,
+                       UUID reference) {
+        LocalDateTime now = LocalDateTime.now();
+        if (sequence == 1) {
+            // Primer apunte: el saldo previo es el punto de partida (0 para las tarjetas nuevas)
+            balanceSnapshotRepository.save(new BalanceSnapshot(card, 0, balanceAfter.subtract(delta), now));
+        }
+        ledgerEntryRepository.save(new LedgerEntry(card, sequence, type, delta, reference, now));
+        if (sequence % snapshotInterval == 0) {
+            balanceSnapshotRepository.save(new BalanceSnapshot(card, sequence, balanceAfter, now));
+        }
+        cardDirectory.balanceChanged(card.getCardNumber(), sequence, balanceAfter);
+    }
+
+    // Sin bloqueos: los apuntes hasta la secuencia leida en la tarjeta se confirmaron con ella
+    public LedgerBalance current(String cardId) {
+        return replay(findCard(cardId));
+    }
+
+    public LedgerBalance balanceAt(String cardId, LocalDateTime at) {
+        Card card = findCard(cardId);
+        BalanceSnapshot snapshot = first(balanceSnapshotRepository.findLatestAt(card.getId(), at, LATEST));
+        if (snapshot == null) {
+            throw new InvalidTransactionException("No ledger history for card " + cardId + " at " + at);
+        }
+        LedgerTail tail = ledgerEntryRepository.sumTailUntil(card.getId(), snapshot.getSequence(), at);
+        return new LedgerBalance(cardId, at, null, snapshot.getBalance().add(tail.getAmount()),
+                snapshot.getSequence() + tail.getEntries(), snapshot.getSequence(), tail.getEntries());
+    }
+
+    // Recalcula la proyeccion desde el libro mayor con la tarjeta bloqueada y la corrige si difiere
+    public LedgerBalance rebuild(String cardId) {
+        LedgerBalance rebuilt = transactionTemplate.execute(status -> {
+            Card card = cardRepository.findByCardIdForUpdate(cardId)
+                    .orElseThrow(() -> new CardNotFoundException("Card not found with ID: " + cardId));
+            LedgerBalance replayed = replay(card);
+            if (!replayed.isConsistent()) {
+                log.warn("Card {} balance {} rebuilt from its ledger as {}", cardId, card.getBalance(),
+                        replayed.getReplayedBalance());
+                card.setBalance(replayed.getReplayedBalance());
+                cardDirectory.cardChanged(card);
+            }
+            return replayed;
+        });
+        if (!rebuilt.isConsistent()) {
+            cardGenerations.advance(CardNumber.parseOrNegative(cardId));
+        }
+        return rebuilt;
+    }
+
+    private LedgerBalance replay(Card card) {
+        long sequence = card.getLedgerSequence();
+        if (sequence == 0) {
+            // Sin movimientos desde que existe el libro mayor: la proyeccion es el saldo de partida
+            return new LedgerBalance(card.getCardId(), null, card.getBalance(), card.getBalance(), 0, 0, 0);
+        }
+        BalanceSnapshot snapshot = first(balanceSnapshotRepository.findLatest(card.getId(), sequence, LATEST));
+        if (snapshot == null) {
+            throw new IllegalStateException("Ledger of card " + card.getCardId() + " has no opening snapshot");
+        }
+        LedgerTail tail = ledgerEntryRepository.sumTail(card.getId(), snapshot.getSequence(), sequence);
+        return new LedgerBalance(card.getCardId(), null, card.getBalance(), snapshot.getBalance().add(tail.getAmount()),
+                sequence, snapshot.getSequence(), tail.getEntries());
+    }
+
+    private Card findCard(String cardId) {
+        return cardRepository.findByCardId(cardId)
+                .orElseThrow(() -> new CardNotFoundException("Card not found with ID: " + cardId));
+    }
+
+    private static BalanceSnapshot first(List<BalanceSnapshot> snapshots) {
+        return snapshots.isEmpty() ? null : snapshots.get(0);
+    }
+}
@@ -0,0 +1,98 @@
+package com.bankinc.card.service.lifecycle;
+
+import com.bankinc.card.exceptions.ServiceDrainingException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Puerta de las operaciones que mueven saldo (compras, anulaciones y preautorizaciones) desde REST
+// y desde el protocolo binario. Al apagar es lo primero que se detiene: deja de admitir
+// autorizaciones (503 / STATUS_BUSY), marca la instancia como no lista y espera a que terminen las
+// que estan en curso, como mucho drain-timeout-ms. Despues se cierran el listener binario y el
+// servidor web (server.shutdown=graceful) y por ultimo el pool de conexiones
+@Slf4j
+@Component
+public class AuthorizationGate implements SmartLifecycle {
+
+    // Antes que cualquier otro componente con ciclo de vida
+    public static final int PHASE = Integer.MAX_VALUE;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${card.lifecycle.drain-timeout-ms:20000}")
+    private long drainTimeoutMillis;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean draining;
+    private volatile boolean running;
+
+    public void enter() {
+        if (draining) {
+            throw ServiceDrainingException.DRAINING;
+        }
+        inFlight.incrementAndGet();
+        // El drenaje pudo empezar entre la comprobacion y el incremento
+        if (draining) {
+            exit();
+            throw ServiceDrainingException.DRAINING;
+        }
+    }
+
+    public void exit() {
+        inFlight.decrementAndGet();
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        draining = true;
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        long start = System.currentTimeMillis();
+        long deadline = start + drainTimeoutMillis;
+        log.info("Draining {} in-flight authorizations", inFlight.get());
+        try {
+            while (inFlight.get() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int remaining = inFlight.get();
+        if (remaining > 0) {
+            log.warn("Drain deadline reached with {} authorizations still in flight", remaining);
+        } else {
+            log.info("Authorizations drained in {} ms", System.currentTimeMillis() - start);
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
@@ -0,0 +1,185 @@
+package com.bankinc.card.service.lifecycle;
+
+import com.bankinc.card.model.Card;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.repository.TransactionRepository;
+import com.bankinc.card.service.CardService;
+import com.bankinc.card.service.TransactionService;
+import com.bankinc.card.service.store.JpaCardStore;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Calentamiento antes de recibir trafico: llena el pool de Hikari, prepara las consultas calientes
+// de tarjetas y movimientos y ejecuta compras y consultas de saldo sobre una tarjeta sintetica,
+// para que la compilacion JIT y la inicializacion de Hibernate no caigan sobre los primeros clientes.
+// Todo ocurre en una transaccion que se deshace: no queda nada en la base, y TransactionService no
+// registra estadisticas ni programa el cierre de las compras de la tarjeta sintetica. Se ejecuta dentro de
+// ApplicationReadyEvent, asi la disponibilidad (readiness) no pasa a ACCEPTING_TRAFFIC hasta que
+// termina, y este indicador mantiene /actuator/health en OUT_OF_SERVICE mientras tanto y al drenar.
+// Un fallo del calentamiento se registra pero no impide arrancar
+@Slf4j
+@Component
+public class WarmUp implements HealthIndicator {
+
+    // Fuera de cualquier producto emitido; su numero nunca llega a confirmarse
+    public static final String SYNTHETIC_CARD_ID = CardNumber.MAX.toString();
+    private static final String SYNTHETIC_PRODUCT_ID = CardNumber.MAX.productId();
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private AuthorizationGate authorizationGate;
+
+    @Value("${card.warmup.enabled:true}")
+    private boolean enabled;
+
+    // Compras y consultas de saldo sinteticas; unos miles bastan para que el JIT compile el camino
+    @Value("${card.warmup.iterations:2000}")
+    private int iterations;
+
+    // El motor en memoria no guarda nada en la base: solo se calientan el pool y las consultas
+    @Value("${card.store.engine:" + JpaCardStore.ENGINE + "}")
+    private String storeEngine;
+
+    private volatile boolean done;
+    private volatile long elapsedMillis;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        if (!enabled) {
+            done = true;
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            int connections = fillPool();
+            transactionTemplate.executeWithoutResult(status -> {
+                status.setRollbackOnly();
+                prepareStatements();
+                if (JpaCardStore.ENGINE.equals(storeEngine)) {
+                    exercise();
+                }
+            });
+            log.info("Warm-up finished in {} ms: {} pooled connections, {} synthetic purchases",
+                    System.currentTimeMillis() - start, connections, iterations);
+        } catch (RuntimeException e) {
+            log.warn("Warm-up failed, accepting traffic anyway: {}", e.getMessage());
+        } finally {
+            elapsedMillis = System.currentTimeMillis() - start;
+            done = true;
+        }
+    }
+
+    // Abre a la vez tantas conexiones como admite el pool para que esten creadas antes del trafico
+    private int fillPool() {
+        int size;
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                return 0;
+            }
+            size = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        } catch (SQLException e) {
+            return 0;
+        }
+        List<Connection> connections = new ArrayList<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                connections.add(dataSource.getConnection());
+            }
+        } catch (SQLException e) {
+            log.warn("Could only open {} of {} pooled connections during warm-up", connections.size(), size);
+        } finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    // Vuelve al pool o se descarta; no afecta al calentamiento
+                }
+            }
+        }
+        return connections.size();
+    }
+
+    // Las consultas del camino de autorizacion sobre claves inexistentes: solo se preparan
+    private void prepareStatements() {
+        CardNumber missing = CardNumber.MAX;
+        UUID missingId = new UUID(0, 0);
+        cardRepository.findByCardNumber(missing);
+        cardRepository.findByCardNumberAndIsActive(missing, true);
+        cardRepository.findByCardNumberForUpdate(missing);
+        cardRepository.applyBalanceDeltaIfEligible(missing, BigDecimal.ZERO);
+        cardRepository.findLedgerPosition(missing);
+        transactionRepository.findById(missingId);
+        transactionRepository.findByCardIdOrderByTimestamp(missing);
+        transactionRepository.markAnulated(missingId);
+        cardRepository.findCardIdsInRange(missing, missing, PageRequest.of(0, 1));
+    }
+
+    private void exercise() {
+        Card card = new Card();
+        card.setCardId(SYNTHETIC_CARD_ID);
+        card.setProductId(SYNTHETIC_PRODUCT_ID);
+        card.setHolderName("Warm Up");
+        card.setExpirationDate("12/2099");
+        card.setActive(true);
+        card.setBlocked(false);
+        card.setBalance(BigDecimal.valueOf(iterations).add(BigDecimal.ONE));
+        card.setOpeningBalance(card.getBalance());
+        cardRepository.saveAndFlush(card);
+
+        for (int i = 0; i < iterations; i++) {
+            transactionService.purchase(SYNTHETIC_CARD_ID, BigDecimal.ONE);
+            cardService.getBalance(SYNTHETIC_CARD_ID);
+        }
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public Health health() {
+        if (!done) {
+            return Health.outOfService().withDetail("phase", "warming up").build();
+        }
+        if (authorizationGate.isDraining()) {
+            return Health.outOfService().withDetail("phase", "draining")
+                    .withDetail("inFlight", authorizationGate.getInFlight()).build();
+        }
+        return Health.up().withDetail("warmUpMillis", elapsedMillis).build();
+    }
+}
@@ -0,0 +1,133 @@
+package com.bankinc.card.service.partition;
+
+import com.bankinc.card.exceptions.CardNotOwnedException;
+import com.bankinc.card.exceptions.InvalidTransactionException;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.model.PartitionLease;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+// Tabla de propietarios por particion. Con card.partitioning.enabled=false todas las tarjetas son locales
+@Component
+public class CardOwnershipGuard {
+
+    // Marca las peticiones ya reenviadas por otra instancia para no volver a reenviarlas. No exime de
+    // la comprobacion de propiedad: cualquier cliente puede enviar la cabecera
+    public static final String FORWARDED_HEADER = "X-Card-Partition-Forwarded";
+
+    private final boolean enabled;
+    private final int partitions;
+    private final String instanceId;
+    private final String baseUrl;
+
+    private volatile Owner[] owners;
+
+    public CardOwnershipGuard(@Value("${card.partitioning.enabled:false}") boolean enabled,
+                              @Value("${card.partitioning.partitions:64}") int partitions,
+                              @Value("${card.partitioning.instance-id:}") String instanceId,
+                              @Value("${card.partitioning.advertised-url:http://localhost:${server.port:8080}}") String baseUrl) {
+        this.enabled = enabled;
+        this.partitions = partitions;
+        this.instanceId = instanceId.isBlank() ? UUID.randomUUID().toString() : instanceId;
+        this.baseUrl = baseUrl;
+        this.owners = new Owner[partitions];
+    }
+
+    // Lanza CardNotOwnedException si otra instancia tiene un lease vigente sobre la tarjeta, tambien
+    // en peticiones reenviadas: si el lease cambio de manos por el camino, esta instancia ya no escribe
+    public void checkOwnership(String cardId) {
+        if (!enabled || cardId == null) {
+            return;
+        }
+        Owner owner = owners[PartitionAssignment.partitionOf(cardId, partitions)];
+        if (owner != null && !owner.instanceId().equals(instanceId) && owner.expiresAt().isAfter(LocalDateTime.now())) {
+            throw new CardNotOwnedException(owner.instanceId(), owner.baseUrl());
+        }
+    }
+
+    // Operaciones sobre varias tarjetas que se aplican en una sola unidad atomica: se resuelven todos
+    // los propietarios antes de decidir. Si otra instancia tiene todas las tarjetas con lease se le
+    // envia la operacion una sola vez; si estan repartidas entre instancias ninguna puede hacerla
+    // entera y se rechaza, en vez de redirigir tarjeta a tarjeta entre instancias sin fin
+    public void checkOwnership(Collection<String> cardIds) {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Owner remote = null;
+        boolean local = false;
+        for (String cardId : cardIds) {
+            Owner owner = owners[PartitionAssignment.partitionOf(cardId, partitions)];
+            if (owner == null || !owner.expiresAt().isAfter(now)) {
+                continue;
+            }
+            if (owner.instanceId().equals(instanceId)) {
+                local = true;
+            } else if (remote == null) {
+                remote = owner;
+            } else if (!remote.instanceId().equals(owner.instanceId())) {
+                throw InvalidTransactionException.CARDS_ON_SEVERAL_INSTANCES;
+            }
+        }
+        if (remote != null) {
+            if (local) {
+                throw InvalidTransactionException.CARDS_ON_SEVERAL_INSTANCES;
+            }
+            throw new CardNotOwnedException(remote.instanceId(), remote.baseUrl());
+        }
+    }
+
+    // Solo las tarjetas de particiones propias pueden usar estado en memoria de forma segura
+    public boolean isOwnedLocally(String cardId) {
+        return !enabled || isOwnedLocally(PartitionAssignment.partitionOf(cardId, partitions));
+    }
+
+    public boolean isOwnedLocally(CardNumber cardNumber) {
+        return !enabled || isOwnedLocally(PartitionAssignment.partitionOf(cardNumber, partitions));
+    }
+
+    private boolean isOwnedLocally(int partition) {
+        Owner owner = owners[partition];
+        return owner != null && owner.instanceId().equals(instanceId) && owner.expiresAt().isAfter(LocalDateTime.now());
+    }
+
+    void updateOwners(List<PartitionLease> leases) {
+        Owner[] updated = new Owner[partitions];
+        for (PartitionLease lease : leases) {
+            int partition = lease.getPartitionId();
+            if (partition < partitions && lease.getOwnerInstanceId() != null && lease.getLeaseExpiresAt() != null) {
+                updated[partition] = new Owner(lease.getOwnerInstanceId(), lease.getOwnerBaseUrl(), lease.getLeaseExpiresAt());
+            }
+        }
+        owners = updated;
+    }
+
+    public static boolean isForwarded(HttpServletRequest request) {
+        return request.getHeader(FORWARDED_HEADER) != null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    private record Owner(String instanceId, String baseUrl, LocalDateTime expiresAt) {
+    }
+}
@@ -0,0 +1,46 @@
+package com.bankinc.card.service.partition;
+
+import com.bankinc.card.model.CardNumber;
+
+import java.util.List;
+
+// Asignacion determinista de particiones por hashing de rendezvous: todas las instancias que ven
+// el mismo conjunto de vivas calculan el mismo reparto, y al entrar o salir una instancia solo se
+// mueven las particiones que le corresponden
+public final class PartitionAssignment {
+
+    private PartitionAssignment() {
+    }
+
+    // Se mezcla el valor numerico de la tarjeta; el hashCode del texto solo para ids no numericos
+    public static int partitionOf(String cardId, int partitions) {
+        return CardNumber.tryParse(cardId)
+                .map(cardNumber -> partitionOf(cardNumber, partitions))
+                .orElseGet(() -> Math.floorMod(mix(cardId.hashCode()), partitions));
+    }
+
+    public static int partitionOf(CardNumber cardNumber, int partitions) {
+        return Math.floorMod(mix(cardNumber.longValue()), partitions);
+    }
+
+    public static String ownerOf(int partition, List<String> instanceIds) {
+        String owner = null;
+        long best = Long.MIN_VALUE;
+        for (String instanceId : instanceIds) {
+            long score = mix(instanceId.hashCode() * 31L + partition);
+            if (owner == null || score > best || (score == best && instanceId.compareTo(owner) < 0)) {
+                owner = instanceId;
+                best = score;
+            }
+        }
+        return owner;
+    }
+
+    // Finalizador de SplitMix64 para repartir bien claves con hashCode parecidos
+    static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,61 @@
+package com.bankinc.card.service.partition;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+// Reenvia la peticion original a la instancia propietaria y devuelve su respuesta tal cual
+@Component
+public class PartitionForwarder {
+
+    private final HttpClient httpClient;
+    private final Duration timeout;
+
+    public PartitionForwarder(@Value("${card.partitioning.forward-timeout-ms:2000}") long timeoutMillis) {
+        this.timeout = Duration.ofMillis(timeoutMillis);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    public ResponseEntity<byte[]> forward(HttpServletRequest request, String ownerBaseUrl)
+            throws IOException, InterruptedException {
+        ContentCachingRequestWrapper cached = WebUtils.getNativeRequest(request, ContentCachingRequestWrapper.class);
+        byte[] body = cached == null ? new byte[0] : cached.getContentAsByteArray();
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(targetUri(request, ownerBaseUrl))
+                .timeout(timeout)
+                .header(CardOwnershipGuard.FORWARDED_HEADER, "true")
+                .method(request.getMethod(), body.length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        if (request.getContentType() != null) {
+            builder.header(HttpHeaders.CONTENT_TYPE, request.getContentType());
+        }
+
+        HttpResponse<byte[]> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+        ResponseEntity.BodyBuilder result = ResponseEntity.status(HttpStatus.valueOf(response.statusCode()));
+        response.headers().firstValue(HttpHeaders.CONTENT_TYPE)
+                .ifPresent(contentType -> result.contentType(MediaType.parseMediaType(contentType)));
+        return result.body(response.body());
+    }
+
+    public static URI targetUri(HttpServletRequest request, String ownerBaseUrl) {
+        String query = request.getQueryString();
+        return URI.create(ownerBaseUrl + request.getRequestURI() + (query == null ? "" : "?" + query));
+    }
+}
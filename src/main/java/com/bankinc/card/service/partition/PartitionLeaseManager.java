@@ -0,0 +1,149 @@
+package com.bankinc.card.service.partition;
+
+import com.bankinc.card.model.PartitionLease;
+import com.bankinc.card.model.ServiceInstance;
+import com.bankinc.card.repository.PartitionLeaseRepository;
+import com.bankinc.card.repository.ServiceInstanceRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Latido de la instancia y reparto de particiones mediante leases en base de datos. En cada ciclo:
+// registra el latido, calcula el reparto deseado con las instancias vivas, libera lo que ya no le
+// corresponde, adquiere/renueva lo propio y refresca la tabla de propietarios del guard
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "card.partitioning.enabled", havingValue = "true")
+public class PartitionLeaseManager {
+
+    @Autowired
+    private CardOwnershipGuard guard;
+
+    @Autowired
+    private ServiceInstanceRepository serviceInstanceRepository;
+
+    @Autowired
+    private PartitionLeaseRepository partitionLeaseRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Una instancia sin latidos durante este tiempo se considera caida
+    @Value("${card.partitioning.instance-ttl-ms:10000}")
+    private long instanceTtlMillis;
+
+    @Value("${card.partitioning.lease-ttl-ms:15000}")
+    private long leaseTtlMillis;
+
+    private List<Integer> ownedPartitions = List.of();
+
+    @PostConstruct
+    void init() {
+        createMissingLeases();
+        heartbeat();
+    }
+
+    @Scheduled(fixedDelayString = "${card.partitioning.heartbeat-ms:2000}",
+            initialDelayString = "${card.partitioning.heartbeat-ms:2000}")
+    public void heartbeat() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<String> alive = registerHeartbeat(now);
+            List<Integer> desired = desiredPartitions(alive);
+
+            transactionTemplate.executeWithoutResult(status -> {
+                // Primero se liberan las particiones que pasan a otra instancia
+                if (desired.isEmpty()) {
+                    partitionLeaseRepository.releaseAll(guard.getInstanceId());
+                } else {
+                    partitionLeaseRepository.releaseExcept(guard.getInstanceId(), desired);
+                    partitionLeaseRepository.acquire(desired, guard.getInstanceId(), guard.getBaseUrl(), now,
+                            now.plus(Duration.ofMillis(leaseTtlMillis)));
+                }
+            });
+
+            List<PartitionLease> leases = partitionLeaseRepository.findAll();
+            guard.updateOwners(leases);
+            logRebalance(leases);
+        } catch (RuntimeException e) {
+            // Si la base no responde los leases vencen solos y otra instancia los toma
+            log.warn("Partition heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    private List<String> registerHeartbeat(LocalDateTime now) {
+        return transactionTemplate.execute(status -> {
+            ServiceInstance instance = new ServiceInstance();
+            instance.setInstanceId(guard.getInstanceId());
+            instance.setBaseUrl(guard.getBaseUrl());
+            instance.setHeartbeatAt(now);
+            serviceInstanceRepository.save(instance);
+
+            LocalDateTime since = now.minus(Duration.ofMillis(instanceTtlMillis));
+            serviceInstanceRepository.deleteStale(since);
+            return serviceInstanceRepository.findAlive(since).stream()
+                    .map(ServiceInstance::getInstanceId)
+                    .toList();
+        });
+    }
+
+    private List<Integer> desiredPartitions(List<String> alive) {
+        List<Integer> desired = new ArrayList<>();
+        for (int partition = 0; partition < guard.getPartitions(); partition++) {
+            if (guard.getInstanceId().equals(PartitionAssignment.ownerOf(partition, alive))) {
+                desired.add(partition);
+            }
+        }
+        return desired;
+    }
+
+    private void createMissingLeases() {
+        for (int partition = 0; partition < guard.getPartitions(); partition++) {
+            if (partitionLeaseRepository.existsById(partition)) {
+                continue;
+            }
+            try {
+                partitionLeaseRepository.save(new PartitionLease(partition));
+            } catch (DataIntegrityViolationException e) {
+                // Otra instancia la creo al mismo tiempo
+            }
+        }
+    }
+
+    private void logRebalance(List<PartitionLease> leases) {
+        List<Integer> owned = leases.stream()
+                .filter(lease -> guard.getInstanceId().equals(lease.getOwnerInstanceId()))
+                .map(PartitionLease::getPartitionId)
+                .sorted()
+                .toList();
+        if (!owned.equals(ownedPartitions)) {
+            log.info("Instance {} now owns {} of {} partitions", guard.getInstanceId(), owned.size(), guard.getPartitions());
+            ownedPartitions = owned;
+        }
+    }
+
+    // Al apagar se liberan los leases para que el resto reequilibre sin esperar a que venzan
+    @PreDestroy
+    void shutdown() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                partitionLeaseRepository.releaseAll(guard.getInstanceId());
+                serviceInstanceRepository.deleteById(guard.getInstanceId());
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not release partition leases on shutdown: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.bankinc.card.service.recharge;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Lector de ficheros de recargas (cardId, importe) sobre un FileChannel con un buffer directo:
+// cada linea se valida y se convierte a numeros directamente desde los bytes, sin crear un String
+// por linea ni partirla. Admite CSV (separador , ; o |) y ancho fijo (tarjeta en las 16 primeras
+// columnas y el importe tras espacios). El importe se lee en centimos con hasta dos decimales.
+// Si la primera linea no empieza por un digito se toma como cabecera
+final class RechargeFileReader implements Closeable {
+
+    static final int MAX_LINE_LENGTH = 256;
+    // La columna del importe es NUMBER(10, 2)
+    static final long MAX_AMOUNT_CENTS = 9_999_999_999L;
+
+    private static final int CARD_DIGITS = 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final byte[] line = new byte[MAX_LINE_LENGTH];
+    private long lineNumber;
+    private boolean endOfFile;
+
+    RechargeFileReader(Path file, int bufferSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.buffer = ByteBuffer.allocateDirect(Math.max(bufferSize, MAX_LINE_LENGTH * 2));
+        this.buffer.flip();
+    }
+
+    // Lee la siguiente linea con contenido; false al terminar el fichero
+    boolean next(RechargeLine target) throws IOException {
+        while (true) {
+            int length = readLine();
+            if (length < 0) {
+                return false;
+            }
+            lineNumber++;
+            if (length > MAX_LINE_LENGTH) {
+                target.reject(lineNumber, "Line too long", line, MAX_LINE_LENGTH);
+                return true;
+            }
+            if (isBlank(length) || (lineNumber == 1 && !isDigit(line[0]))) {
+                continue;
+            }
+            parse(target, length);
+            return true;
+        }
+    }
+
+    long lineNumber() {
+        return lineNumber;
+    }
+
+    private void parse(RechargeLine target, int length) {
+        if (length < CARD_DIGITS) {
+            target.reject(lineNumber, "Card ID must be a 16-digit number", line, length);
+            return;
+        }
+        long cardNumber = 0;
+        for (int i = 0; i < CARD_DIGITS; i++) {
+            if (!isDigit(line[i])) {
+                target.reject(lineNumber, "Card ID must be a 16-digit number", line, length);
+                return;
+            }
+            cardNumber = cardNumber * 10 + (line[i] - '0');
+        }
+
+        // Separador: espacios (ancho fijo) o un delimitador rodeado opcionalmente de espacios
+        int position = skipSpaces(CARD_DIGITS, length);
+        boolean separated = position > CARD_DIGITS;
+        if (position < length && (line[position] == ',' || line[position] == ';' || line[position] == '|')) {
+            position = skipSpaces(position + 1, length);
+            separated = true;
+        }
+        if (!separated || position == length) {
+            target.reject(lineNumber, "Card ID and balance are required", line, length);
+            return;
+        }
+
+        long cents = parseCents(position, length);
+        if (cents < 0) {
+            target.reject(lineNumber, "Invalid balance format", line, length);
+        } else if (cents == 0) {
+            target.reject(lineNumber, "Balance must be greater than zero", line, length);
+        } else if (cents > MAX_AMOUNT_CENTS) {
+            target.reject(lineNumber, "Balance exceeds the maximum recharge amount", line, length);
+        } else {
+            target.accept(lineNumber, cardNumber, cents);
+        }
+    }
+
+    // Centimos del importe; -1 si no es un numero con como mucho dos decimales
+    private long parseCents(int position, int length) {
+        long units = 0;
+        int digits = 0;
+        while (position < length && isDigit(line[position])) {
+            // Por encima del maximo solo importa que es demasiado grande
+            units = Math.min(units * 10 + (line[position] - '0'), MAX_AMOUNT_CENTS);
+            position++;
+            digits++;
+        }
+        int decimals = 0;
+        long fraction = 0;
+        if (position < length && line[position] == '.') {
+            position++;
+            while (position < length && isDigit(line[position])) {
+                if (++decimals > 2) {
+                    return -1;
+                }
+                fraction = fraction * 10 + (line[position] - '0');
+                position++;
+            }
+            if (decimals == 0) {
+                return -1;
+            }
+        }
+        if (digits == 0 || skipSpaces(position, length) != length) {
+            return -1;
+        }
+        return Math.min(units * 100 + (decimals == 1 ? fraction * 10 : fraction), MAX_AMOUNT_CENTS + 1);
+    }
+
+    // Copia la siguiente linea (sin \r\n) en line y devuelve su longitud real, que puede superar
+    // MAX_LINE_LENGTH; -1 al final del fichero
+    private int readLine() throws IOException {
+        int length = 0;
+        while (true) {
+            if (!buffer.hasRemaining() && !fill()) {
+                return length == 0 ? -1 : trimCarriageReturn(length);
+            }
+            byte value = buffer.get();
+            if (value == '\n') {
+                return trimCarriageReturn(length);
+            }
+            if (length < MAX_LINE_LENGTH) {
+                line[length] = value;
+            }
+            length++;
+        }
+    }
+
+    private int trimCarriageReturn(int length) {
+        return length > 0 && length <= MAX_LINE_LENGTH && line[length - 1] == '\r' ? length - 1 : length;
+    }
+
+    private boolean fill() throws IOException {
+        if (endOfFile) {
+            return false;
+        }
+        buffer.clear();
+        int read = channel.read(buffer);
+        buffer.flip();
+        if (read <= 0) {
+            endOfFile = true;
+            return false;
+        }
+        return true;
+    }
+
+    private int skipSpaces(int position, int length) {
+        while (position < length && (line[position] == ' ' || line[position] == '\t')) {
+            position++;
+        }
+        return position;
+    }
+
+    private boolean isBlank(int length) {
+        return skipSpaces(0, length) == length;
+    }
+
+    private static boolean isDigit(byte value) {
+        return value >= '0' && value <= '9';
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,407 @@
+package com.bankinc.card.service.recharge;
+
+import com.bankinc.card.dto.RechargeImportReport;
+import com.bankinc.card.exceptions.CardBlockedException;
+import com.bankinc.card.exceptions.CardNotFoundException;
+import com.bankinc.card.exceptions.InvalidTransactionException;
+import com.bankinc.card.exceptions.ProcessingFailureException;
+import com.bankinc.card.model.Card;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.model.LedgerEntryType;
+import com.bankinc.card.model.Recharge;
+import com.bankinc.card.model.RechargeImportProgress;
+import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.repository.RechargeImportProgressRepository;
+import com.bankinc.card.repository.RechargeRepository;
+import com.bankinc.card.service.ledger.BalanceLedger;
+import com.bankinc.card.service.store.CardGenerations;
+import com.bankinc.card.service.store.ConditionalOnJpaStore;
+import com.bankinc.card.util.LongObjectHashMap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+// Importacion masiva de recargas desde ficheros que se dejan en <directory>/inbox. El fichero se
+// lee en streaming y se aplica en lotes de chunk-size lineas, cada uno en su propia transaccion:
+// se bloquean las tarjetas del lote una a una por numero ascendente (Oracle no garantiza el orden
+// de bloqueo de un IN ... ORDER BY) y se aplican las recargas con las mismas reglas que
+// /card/balance (activa y no bloqueada), dejando la recarga y su apunte en el libro mayor. Las
+// lineas rechazadas van a rejects/<fichero>.rejects.csv con el motivo.
+// Al terminar el fichero se mueve a processed/ o, si falla, a failed/ para que no se vuelva a
+// aplicar: committedLines indica hasta donde quedo aplicado y se guarda con cada lote, de modo que
+// resume() (o volver a dejarlo en el buzon) continua tras esa linea
+@Slf4j
+@Service
+@ConditionalOnJpaStore
+public class RechargeImportService {
+
+    static final String INBOX = "inbox";
+    static final String PROCESSED = "processed";
+    static final String FAILED = "failed";
+    static final String REJECTS = "rejects";
+    static final String REJECTS_SUFFIX = ".rejects.csv";
+    private static final byte[] REJECTS_HEADER = "line,reason,content\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private RechargeRepository rechargeRepository;
+
+    @Autowired
+    private RechargeImportProgressRepository progressRepository;
+
+    @Autowired
+    private BalanceLedger balanceLedger;
+
+    @Autowired
+    private CardGenerations cardGenerations;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${card.recharge-import.directory:./data/recharges}")
+    private String directory;
+
+    // Lineas (y como mucho tarjetas bloqueadas) por transaccion
+    @Value("${card.recharge-import.chunk-size:500}")
+    private int chunkSize;
+
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("recharge-import-"));
+
+    private volatile Run current;
+    private Counter importedRecharges;
+    private Counter rejectedRecharges;
+
+    @PostConstruct
+    void init() {
+        importedRecharges = meterRegistry.counter("card.recharges.imported");
+        rejectedRecharges = meterRegistry.counter("card.recharges.rejected");
+    }
+
+    // Recoge el primer fichero pendiente del buzon (por nombre)
+    @Scheduled(cron = "${card.recharge-import.cron:-}")
+    public void scheduledRun() {
+        Path inbox = root().resolve(INBOX);
+        if (!Files.isDirectory(inbox)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(inbox)) {
+            Optional<Path> next = files.filter(Files::isRegularFile).min(Comparator.naturalOrder());
+            next.ifPresent(file -> start(file.getFileName().toString()));
+        } catch (IOException e) {
+            log.error("Could not list recharge inbox {}", inbox, e);
+        }
+    }
+
+    // Un solo fichero a la vez: si hay una importacion en curso devuelve su estado
+    public synchronized RechargeImportReport start(String fileName) {
+        Run run = current;
+        if (run != null && run.finishedAt == null) {
+            return run.toReport();
+        }
+        Path inbox = root().resolve(INBOX);
+        Path file = inbox.resolve(fileName).normalize();
+        if (!inbox.equals(file.getParent()) || !Files.isRegularFile(file)) {
+            throw new InvalidTransactionException("Recharge file not found in the inbox: " + fileName);
+        }
+        run = new Run(file, root().resolve(REJECTS).resolve(file.getFileName() + REJECTS_SUFFIX));
+        current = run;
+        Run started = run;
+        executor.execute(() -> execute(started));
+        return run.toReport();
+    }
+
+    // Devuelve al buzon un fichero fallido y lo reanuda tras la ultima linea confirmada
+    public synchronized RechargeImportReport resume(String fileName) {
+        Run run = current;
+        if (run != null && run.finishedAt == null) {
+            return run.toReport();
+        }
+        Path failed = root().resolve(FAILED);
+        Path file = failed.resolve(fileName).normalize();
+        if (!failed.equals(file.getParent()) || !Files.isRegularFile(file)) {
+            throw new InvalidTransactionException("Recharge file not found in failed: " + fileName);
+        }
+        try {
+            moveTo(file, INBOX);
+        } catch (IOException e) {
+            throw new ProcessingFailureException("Could not move recharge file back to the inbox: " + fileName, e);
+        }
+        return start(fileName);
+    }
+
+    public RechargeImportReport getStatus() {
+        Run run = current;
+        return run == null ? null : run.toReport();
+    }
+
+    private void execute(Run run) {
+        try {
+            // Un fichero que ya se aplico en parte sigue tras la ultima linea confirmada y conserva sus rechazos
+            long resumeAfter = progressRepository.findById(run.fileName())
+                    .map(RechargeImportProgress::getCommittedLines).orElse(0L);
+            run.committedLines = resumeAfter;
+            if (resumeAfter > 0) {
+                log.info("Resuming recharge file {} after line {}", run.file.getFileName(), resumeAfter);
+            }
+            Files.createDirectories(run.rejectsFile.getParent());
+            try (RechargeFileReader reader = new RechargeFileReader(run.file, BUFFER_SIZE);
+                 OutputStream rejects = new BufferedOutputStream(resumeAfter > 0
+                         ? Files.newOutputStream(run.rejectsFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND)
+                         : Files.newOutputStream(run.rejectsFile), BUFFER_SIZE)) {
+                if (resumeAfter == 0) {
+                    rejects.write(REJECTS_HEADER);
+                }
+                Chunk chunk = new Chunk(chunkSize);
+                RechargeLine line = new RechargeLine();
+                while (reader.next(line)) {
+                    if (line.number <= resumeAfter) {
+                        continue;
+                    }
+                    chunk.add(line);
+                    if (chunk.size == chunkSize) {
+                        commit(run, chunk, reader.lineNumber(), rejects);
+                    }
+                }
+                commit(run, chunk, reader.lineNumber(), rejects);
+            }
+            moveTo(run.file, PROCESSED);
+            progressRepository.deleteById(run.fileName());
+            run.finish("COMPLETED", null);
+            log.info("Imported recharge file {}: {} recharges applied for {}, {} rejected, in {} ms",
+                    run.file.getFileName(), run.accepted, run.amount(), run.rejected, run.elapsedMillis());
+        } catch (RuntimeException | IOException e) {
+            log.error("Recharge file {} failed after line {}", run.file.getFileName(), run.committedLines, e);
+            // El fichero llega a failed antes de dar la importacion por terminada: resume lo busca alli
+            try {
+                moveTo(run.file, FAILED);
+            } catch (IOException moveError) {
+                log.error("Could not move failed recharge file {}", run.file, moveError);
+            }
+            run.finish("FAILED", e.getMessage());
+        }
+    }
+
+    // Aplica el lote junto con el avance del fichero y, una vez confirmado, escribe sus rechazos en el
+    // orden del fichero
+    private void commit(Run run, Chunk chunk, long lastLine, OutputStream rejects) throws IOException {
+        if (chunk.size == 0 && chunk.rejects.isEmpty()) {
+            return;
+        }
+        Long cents = transactionTemplate.execute(status -> {
+            long applied = apply(chunk);
+            progressRepository.save(new RechargeImportProgress(run.fileName(), lastLine, LocalDateTime.now()));
+            return applied;
+        });
+        for (int i = 0; i < chunk.size; i++) {
+            cardGenerations.advance(chunk.cardNumbers[i]);
+        }
+        if (chunk.size > 0) {
+            run.chunks++;
+            run.accepted += chunk.size - chunk.businessRejects;
+            run.amountCents += cents == null ? 0 : cents;
+            importedRecharges.increment(chunk.size - chunk.businessRejects);
+        }
+        chunk.rejects.sort(Comparator.comparingLong(Reject::line));
+        for (Reject reject : chunk.rejects) {
+            rejects.write(Long.toString(reject.line()).getBytes(StandardCharsets.US_ASCII));
+            rejects.write(',');
+            rejects.write(reject.reason().getBytes(StandardCharsets.US_ASCII));
+            rejects.write(',');
+            rejects.write(reject.content());
+            rejects.write('\n');
+        }
+        rejects.flush();
+        run.rejected += chunk.rejects.size();
+        rejectedRecharges.increment(chunk.rejects.size());
+        run.committedLines = lastLine;
+        chunk.clear();
+    }
+
+    // Devuelve el total recargado en centimos
+    private long apply(Chunk chunk) {
+        if (chunk.size == 0) {
+            return 0;
+        }
+        List<CardNumber> cardIds = new ArrayList<>();
+        long[] sorted = Arrays.copyOf(chunk.cardNumbers, chunk.size);
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                cardIds.add(CardNumber.of(sorted[i]));
+            }
+        }
+        LongObjectHashMap<Card> cards = new LongObjectHashMap<>(cardIds.size());
+        for (CardNumber cardId : cardIds) {
+            cardRepository.findByCardNumberForUpdate(cardId)
+                    .ifPresent(card -> cards.put(card.getCardNumber().longValue(), card));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        long total = 0;
+        for (int i = 0; i < chunk.size; i++) {
+            Card card = cards.get(chunk.cardNumbers[i]);
+            String reason = rejectReason(card);
+            if (reason != null) {
+                chunk.rejectApplied(i, reason);
+                continue;
+            }
+            BigDecimal amount = BigDecimal.valueOf(chunk.amounts[i], 2);
+            card.setBalance(card.getBalance().add(amount));
+            long sequence = card.getLedgerSequence() + 1;
+            card.setLedgerSequence(sequence);
+            rechargeRepository.save(new Recharge(card, amount, now));
+            balanceLedger.append(card, sequence, card.getBalance(), LedgerEntryType.RECHARGE, amount, null);
+            total += chunk.amounts[i];
+        }
+        return total;
+    }
+
+    // Mismas reglas y mensajes que CardService.rechargeBalance
+    private static String rejectReason(Card card) {
+        if (card == null || !card.isActive()) {
+            return CardNotFoundException.NOT_FOUND_OR_INACTIVE.getMessage();
+        }
+        if (card.isBlocked()) {
+            return CardBlockedException.RECHARGE_BLOCKED.getMessage();
+        }
+        return null;
+    }
+
+    private void moveTo(Path file, String target) throws IOException {
+        Path targetDirectory = root().resolve(target);
+        Files.createDirectories(targetDirectory);
+        Files.move(file, targetDirectory.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path root() {
+        return Paths.get(directory).toAbsolutePath().normalize();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private record Reject(long line, String reason, byte[] content) {
+    }
+
+    // Lineas validas del lote en arrays paralelos, sin un objeto por linea
+    private static final class Chunk {
+        private final long[] lines;
+        private final long[] cardNumbers;
+        private final long[] amounts;
+        private final List<Reject> rejects = new ArrayList<>();
+        private int size;
+        private int businessRejects;
+
+        private Chunk(int capacity) {
+            this.lines = new long[capacity];
+            this.cardNumbers = new long[capacity];
+            this.amounts = new long[capacity];
+        }
+
+        private void add(RechargeLine line) {
+            if (line.isRejected()) {
+                rejects.add(new Reject(line.number, line.rejectReason, line.content));
+                return;
+            }
+            lines[size] = line.number;
+            cardNumbers[size] = line.cardNumber;
+            amounts[size] = line.amountCents;
+            size++;
+        }
+
+        private void rejectApplied(int index, String reason) {
+            String content = CardNumber.of(cardNumbers[index]) + "," + BigDecimal.valueOf(amounts[index], 2);
+            rejects.add(new Reject(lines[index], reason, content.getBytes(StandardCharsets.US_ASCII)));
+            businessRejects++;
+        }
+
+        private void clear() {
+            rejects.clear();
+            size = 0;
+            businessRejects = 0;
+        }
+    }
+
+    private final class Run {
+        private final Path file;
+        private final Path rejectsFile;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private volatile long chunks;
+        private volatile long committedLines;
+        private volatile long accepted;
+        private volatile long rejected;
+        private volatile long amountCents;
+        private volatile LocalDateTime finishedAt;
+        private volatile long elapsedMillis;
+        private volatile String status = "RUNNING";
+        private volatile String error;
+
+        private Run(Path file, Path rejectsFile) {
+            this.file = file;
+            this.rejectsFile = rejectsFile;
+        }
+
+        private String fileName() {
+            return file.getFileName().toString();
+        }
+
+        private BigDecimal amount() {
+            return BigDecimal.valueOf(amountCents, 2);
+        }
+
+        private void finish(String status, String error) {
+            this.elapsedMillis = elapsedMillis();
+            this.error = error;
+            this.status = status;
+            this.finishedAt = LocalDateTime.now();
+        }
+
+        private long elapsedMillis() {
+            return finishedAt != null ? elapsedMillis : (System.nanoTime() - startNanos) / 1_000_000;
+        }
+
+        private RechargeImportReport toReport() {
+            return new RechargeImportReport(file.getFileName().toString(), status, startedAt, finishedAt, chunks,
+                    committedLines, accepted, rejected, amount(), elapsedMillis(),
+                    rejectsFile.toString(), error);
+        }
+    }
+}
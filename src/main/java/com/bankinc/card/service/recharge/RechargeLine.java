@@ -0,0 +1,31 @@
+package com.bankinc.card.service.recharge;
+
+import java.util.Arrays;
+
+// Linea leida del fichero; el lector la reutiliza, solo se copian los bytes de las rechazadas
+final class RechargeLine {
+
+    long number;
+    long cardNumber;
+    long amountCents;
+    String rejectReason;
+    byte[] content;
+
+    void accept(long number, long cardNumber, long amountCents) {
+        this.number = number;
+        this.cardNumber = cardNumber;
+        this.amountCents = amountCents;
+        this.rejectReason = null;
+        this.content = null;
+    }
+
+    void reject(long number, String reason, byte[] line, int length) {
+        this.number = number;
+        this.rejectReason = reason;
+        this.content = Arrays.copyOf(line, length);
+    }
+
+    boolean isRejected() {
+        return rejectReason != null;
+    }
+}
@@ -0,0 +1,302 @@
+package com.bankinc.card.service.reconciliation;
+
+import com.bankinc.card.dto.BalanceMismatch;
+import com.bankinc.card.dto.CardBalanceRow;
+import com.bankinc.card.dto.ReconciliationReport;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.service.partition.CardOwnershipGuard;
+import com.bankinc.card.service.store.ConditionalOnJpaStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+// Conciliacion de saldos sin bloquear tablas: el espacio de numeros de tarjeta se parte en rangos
+// que se procesan en paralelo en un ForkJoinPool (un rango se divide mientras tenga demasiadas
+// tarjetas) y cada rango se recorre por keyset en lotes de chunk-size, asi la memoria no depende
+// del numero de tarjetas. Las diferencias se vuelven a comprobar tarjeta a tarjeta antes de
+// informarlas, porque una compra puede confirmarse entre la lectura del saldo y la de los totales
+@Slf4j
+@Service
+@ConditionalOnJpaStore
+public class LedgerReconciliationService {
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final int RECHECK_ATTEMPTS = 3;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private LedgerTotals ledgerTotals;
+
+    @Autowired
+    private CardOwnershipGuard cardOwnershipGuard;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${card.reconciliation.directory:./data/reconciliation}")
+    private String directory;
+
+    @Value("${card.reconciliation.chunk-size:1000}")
+    private int chunkSize;
+
+    // Un rango con mas tarjetas que esto se divide en dos
+    @Value("${card.reconciliation.split-threshold:20000}")
+    private long splitThreshold;
+
+    // Diferencias que se devuelven en el estado; el fichero las tiene todas
+    @Value("${card.reconciliation.max-reported:100}")
+    private int maxReported;
+
+    private final ForkJoinPool pool;
+
+    private volatile Run current;
+    private Counter checkedCards;
+    private Counter mismatches;
+
+    // Cada hilo ocupa una conexion del pool durante su rango
+    public LedgerReconciliationService(@Value("${card.reconciliation.parallelism:2}") int parallelism) {
+        this.pool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("ledger-reconciliation-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    @PostConstruct
+    void init() {
+        checkedCards = meterRegistry.counter("card.reconciliation.cards");
+        mismatches = meterRegistry.counter("card.reconciliation.mismatches");
+        Gauge.builder("card.reconciliation.progress", this, LedgerReconciliationService::progress)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${card.reconciliation.cron:-}")
+    public void scheduledRun() {
+        start();
+    }
+
+    // Si ya hay una conciliacion en curso devuelve su estado en lugar de lanzar otra
+    public synchronized ReconciliationReport start() {
+        Run run = current;
+        if (run != null && run.finishedAt == null) {
+            return run.toReport();
+        }
+        run = new Run(Paths.get(directory).resolve(
+                "reconciliation-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".ndjson"));
+        current = run;
+        Run started = run;
+        pool.execute(() -> execute(started));
+        return run.toReport();
+    }
+
+    public ReconciliationReport getStatus() {
+        Run run = current;
+        return run == null ? null : run.toReport();
+    }
+
+    private void execute(Run run) {
+        try {
+            Files.createDirectories(run.reportFile.getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(run.reportFile, StandardCharsets.UTF_8)) {
+                run.writer = writer;
+                run.totalCards = cardRepository.countInRange(CardNumber.MIN, CardNumber.MAX);
+                new RangeTask(run, CardNumber.MIN, CardNumber.MAX, run.totalCards).invoke();
+            }
+            run.finish("COMPLETED", null);
+            log.info("Ledger reconciliation checked {} cards, {} mismatches, {} without opening balance, in {} ms",
+                    run.checked.sum(), run.mismatchCount.sum(), run.pendingOpening.sum(), run.elapsedMillis());
+        } catch (RuntimeException | IOException e) {
+            run.finish("FAILED", e.getMessage());
+            log.error("Ledger reconciliation failed", e);
+        }
+    }
+
+    private void reconcileRange(Run run, CardNumber from, CardNumber to) {
+        CardNumber next = from;
+        while (next != null && next.compareTo(to) <= 0) {
+            List<CardBalanceRow> rows = cardRepository.findBalanceRows(next, to, PageRequest.of(0, chunkSize));
+            if (rows.isEmpty()) {
+                return;
+            }
+            CardNumber last = rows.get(rows.size() - 1).getCardNumber();
+            LedgerTotals.Totals totals = ledgerTotals.load(rows.get(0).getCardNumber(), last);
+            for (CardBalanceRow row : rows) {
+                // Con particionado cada instancia concilia sus tarjetas
+                if (!cardOwnershipGuard.isOwnedLocally(row.getCardNumber())) {
+                    continue;
+                }
+                if (row.getOpeningBalance() == null) {
+                    run.pendingOpening.increment();
+                    continue;
+                }
+                if (totals.expectedBalance(row).compareTo(row.getBalance()) != 0) {
+                    BalanceMismatch mismatch = confirm(row.getCardNumber());
+                    if (mismatch != null) {
+                        run.report(mismatch);
+                    }
+                }
+                run.checked.increment();
+                checkedCards.increment();
+            }
+            next = last.next();
+        }
+    }
+
+    // Se repite la comparacion para una sola tarjeta y solo se acepta si su version no cambio
+    // mientras se leian los totales; si sigue cambiando se deja para la siguiente ejecucion
+    private BalanceMismatch confirm(CardNumber cardNumber) {
+        for (int attempt = 0; attempt < RECHECK_ATTEMPTS; attempt++) {
+            CardBalanceRow before = balanceRow(cardNumber);
+            if (before == null || before.getOpeningBalance() == null) {
+                return null;
+            }
+            LedgerTotals.Totals totals = ledgerTotals.load(cardNumber, cardNumber);
+            CardBalanceRow after = balanceRow(cardNumber);
+            if (after != null && after.getVersion() == before.getVersion()) {
+                BigDecimal expected = totals.expectedBalance(before);
+                if (expected.compareTo(before.getBalance()) == 0) {
+                    return null;
+                }
+                return new BalanceMismatch(cardNumber.toString(), before.getBalance(), expected,
+                        before.getOpeningBalance(), totals.recharged(cardNumber), totals.purchased(cardNumber),
+                        totals.held(cardNumber));
+            }
+        }
+        return null;
+    }
+
+    private CardBalanceRow balanceRow(CardNumber cardNumber) {
+        List<CardBalanceRow> rows = cardRepository.findBalanceRows(cardNumber, cardNumber, PageRequest.of(0, 1));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private double progress() {
+        Run run = current;
+        if (run == null || run.totalCards == 0) {
+            return 0;
+        }
+        return (double) run.checked.sum() / run.totalCards;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // Divide el rango por la mitad del espacio numerico mientras tenga demasiadas tarjetas; los
+    // rangos vacios (productos no emitidos) se descartan con un solo COUNT por el indice
+    private final class RangeTask extends RecursiveAction {
+        private final Run run;
+        private final CardNumber from;
+        private final CardNumber to;
+        private final long cards;
+
+        private RangeTask(Run run, CardNumber from, CardNumber to, long cards) {
+            this.run = run;
+            this.from = from;
+            this.to = to;
+            this.cards = cards;
+        }
+
+        @Override
+        protected void compute() {
+            if (cards == 0) {
+                return;
+            }
+            if (cards <= splitThreshold || from.equals(to)) {
+                reconcileRange(run, from, to);
+                return;
+            }
+            long middle = from.longValue() + (to.longValue() - from.longValue()) / 2;
+            CardNumber leftTo = CardNumber.of(middle);
+            CardNumber rightFrom = CardNumber.of(middle + 1);
+            long leftCards = cardRepository.countInRange(from, leftTo);
+            invokeAll(new RangeTask(run, from, leftTo, leftCards),
+                    new RangeTask(run, rightFrom, to, cards - leftCards));
+        }
+    }
+
+    private final class Run {
+        private final Path reportFile;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private final LongAdder checked = new LongAdder();
+        private final LongAdder pendingOpening = new LongAdder();
+        private final LongAdder mismatchCount = new LongAdder();
+        private final List<BalanceMismatch> sample = new ArrayList<>();
+        private volatile long totalCards;
+        private volatile LocalDateTime finishedAt;
+        private volatile long elapsedMillis;
+        private volatile String status = "RUNNING";
+        private volatile String error;
+        private BufferedWriter writer;
+
+        private Run(Path reportFile) {
+            this.reportFile = reportFile;
+        }
+
+        private synchronized void report(BalanceMismatch mismatch) {
+            try {
+                writer.write(objectMapper.writeValueAsString(mismatch));
+                writer.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (sample.size() < maxReported) {
+                sample.add(mismatch);
+            }
+            mismatchCount.increment();
+            mismatches.increment();
+        }
+
+        private void finish(String status, String error) {
+            this.elapsedMillis = elapsedMillis();
+            this.error = error;
+            this.status = status;
+            this.finishedAt = LocalDateTime.now();
+        }
+
+        private long elapsedMillis() {
+            return finishedAt != null ? elapsedMillis : (System.nanoTime() - startNanos) / 1_000_000;
+        }
+
+        private synchronized ReconciliationReport toReport() {
+            return new ReconciliationReport(status, startedAt, finishedAt, totalCards, checked.sum(),
+                    pendingOpening.sum(), mismatchCount.sum(), elapsedMillis(), reportFile.toString(), error,
+                    List.copyOf(sample));
+        }
+    }
+}
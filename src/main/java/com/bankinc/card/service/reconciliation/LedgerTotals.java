@@ -0,0 +1,103 @@
+package com.bankinc.card.service.reconciliation;
+
+import com.bankinc.card.dto.ArchivedTransaction;
+import com.bankinc.card.dto.CardBalanceRow;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.repository.AuthorizationHoldRepository;
+import com.bankinc.card.repository.RechargeRepository;
+import com.bankinc.card.repository.TransactionRepository;
+import com.bankinc.card.service.archive.TransactionArchive;
+import com.bankinc.card.util.LongObjectHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Totales por tarjeta de un rango contiguo que explican su saldo:
+// saldo esperado = saldo de partida + recargas - compras no anuladas (tabla y archivo) - preautorizaciones abiertas
+@Component
+public class LedgerTotals {
+
+    @Autowired
+    private RechargeRepository rechargeRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AuthorizationHoldRepository holdRepository;
+
+    @Autowired
+    private TransactionArchive transactionArchive;
+
+    // Una consulta agrupada por concepto para todo el rango, no una por tarjeta
+    public Totals load(CardNumber fromCardId, CardNumber toCardId) {
+        Totals totals = new Totals();
+        put(totals.recharged, rechargeRepository.sumByCardInRange(fromCardId, toCardId));
+        put(totals.purchased, transactionRepository.sumOutstandingByCardInRange(fromCardId, toCardId));
+        put(totals.held, holdRepository.sumAuthorizedByCardInRange(fromCardId, toCardId));
+        transactionArchive.forEachOutstanding(fromCardId, toCardId, (cardNumber, cents) ->
+                add(totals.purchased, cardNumber, BigDecimal.valueOf(cents, 2)));
+        subtractArchivedRows(totals, fromCardId, toCardId);
+        return totals;
+    }
+
+    // Entre la escritura del segmento y el borrado de las filas (o tras una caida en medio) un movimiento
+    // esta en la tabla y en el archivo: se descuenta la copia archivada para contarlo una sola vez
+    private void subtractArchivedRows(Totals totals, CardNumber fromCardId, CardNumber toCardId) {
+        if (transactionArchive.getSegmentCount() == 0) {
+            return;
+        }
+        for (ArchivedTransaction row : transactionRepository.findFinalizedOutstandingInRange(fromCardId, toCardId)) {
+            if (transactionArchive.contains(row.getId())) {
+                add(totals.purchased, row.getCardNumber().longValue(), row.getPrice().negate());
+            }
+        }
+    }
+
+    private static void put(LongObjectHashMap<BigDecimal> target, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            add(target, ((CardNumber) row[0]).longValue(), (BigDecimal) row[1]);
+        }
+    }
+
+    private static void add(LongObjectHashMap<BigDecimal> target, long cardNumber, BigDecimal amount) {
+        if (amount == null) {
+            return;
+        }
+        BigDecimal previous = target.get(cardNumber);
+        target.put(cardNumber, previous == null ? amount : previous.add(amount));
+    }
+
+    public static class Totals {
+        private final LongObjectHashMap<BigDecimal> recharged = new LongObjectHashMap<>();
+        private final LongObjectHashMap<BigDecimal> purchased = new LongObjectHashMap<>();
+        private final LongObjectHashMap<BigDecimal> held = new LongObjectHashMap<>();
+
+        public BigDecimal recharged(CardNumber cardNumber) {
+            return valueOf(recharged, cardNumber);
+        }
+
+        public BigDecimal purchased(CardNumber cardNumber) {
+            return valueOf(purchased, cardNumber);
+        }
+
+        public BigDecimal held(CardNumber cardNumber) {
+            return valueOf(held, cardNumber);
+        }
+
+        // Saldo que deberia tener la tarjeta si todos los cambios quedaron registrados
+        public BigDecimal expectedBalance(CardBalanceRow row) {
+            return row.getOpeningBalance()
+                    .add(recharged(row.getCardNumber()))
+                    .subtract(purchased(row.getCardNumber()))
+                    .subtract(held(row.getCardNumber()));
+        }
+
+        private static BigDecimal valueOf(LongObjectHashMap<BigDecimal> totals, CardNumber cardNumber) {
+            BigDecimal value = totals.get(cardNumber.longValue());
+            return value == null ? BigDecimal.ZERO : value;
+        }
+    }
+}
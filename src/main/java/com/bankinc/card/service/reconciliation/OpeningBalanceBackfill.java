@@ -0,0 +1,72 @@
+package com.bankinc.card.service.reconciliation;
+
+import com.bankinc.card.dto.CardBalanceRow;
+import com.bankinc.card.model.Card;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.service.store.ConditionalOnJpaStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Las tarjetas emitidas antes de registrar las recargas no tienen historia que explique su saldo:
+// se toma como saldo de partida el que cuadra con lo registrado hasta ahora. Cada lote bloquea sus
+// tarjetas para que ningun cambio de saldo se cuele entre la lectura y el calculo
+@Slf4j
+@Component
+@ConditionalOnJpaStore
+public class OpeningBalanceBackfill implements ApplicationRunner {
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private LedgerTotals ledgerTotals;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${card.bulk.chunk-size:500}")
+    private int chunkSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long updated = 0;
+        List<CardNumber> cardIds = cardRepository.findCardIdsWithoutOpeningBalance(PageRequest.of(0, chunkSize));
+        while (!cardIds.isEmpty()) {
+            List<CardNumber> chunk = cardIds;
+            Integer count = transactionTemplate.execute(status -> assignOpeningBalances(chunk));
+            updated += count == null ? 0 : count;
+            cardIds = cardRepository.findCardIdsWithoutOpeningBalance(PageRequest.of(0, chunkSize));
+        }
+        if (updated > 0) {
+            log.info("Assigned opening balance to {} existing cards", updated);
+        }
+    }
+
+    private int assignOpeningBalances(List<CardNumber> chunk) {
+        LedgerTotals.Totals totals = ledgerTotals.load(chunk.get(0), chunk.get(chunk.size() - 1));
+        int updated = 0;
+        // Una a una en el orden del lote (ascendente), el mismo que el resto de bloqueos de varias tarjetas
+        for (CardNumber cardId : chunk) {
+            Card card = cardRepository.findByCardNumberForUpdate(cardId).orElse(null);
+            if (card == null || card.getOpeningBalance() != null) {
+                continue;
+            }
+            // Con saldo de partida 0 el esperado es lo registrado; la diferencia es el saldo heredado
+            CardBalanceRow row = new CardBalanceRow(card.getCardNumber(), card.getBalance(), BigDecimal.ZERO,
+                    card.getVersion());
+            card.setOpeningBalance(row.getBalance().subtract(totals.expectedBalance(row)));
+            updated++;
+        }
+        return updated;
+    }
+}
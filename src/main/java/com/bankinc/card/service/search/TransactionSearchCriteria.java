@@ -0,0 +1,76 @@
+package com.bankinc.card.service.search;
+
+import com.bankinc.card.model.CardNumber;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Filtros opcionales (null = sin filtro). El rango de fechas es [from, to) y el de importes inclusivo
+public class TransactionSearchCriteria {
+    private final CardNumber cardNumber;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final BigDecimal minPrice;
+    private final BigDecimal maxPrice;
+    private final Boolean anulated;
+    private final TransactionSortField sort;
+    private final boolean descending;
+    private final int limit;
+    private final TransactionSearchCursor cursor;
+
+    public TransactionSearchCriteria(CardNumber cardNumber, LocalDateTime from, LocalDateTime to,
+                                     BigDecimal minPrice, BigDecimal maxPrice, Boolean anulated,
+                                     TransactionSortField sort, boolean descending, int limit,
+                                     TransactionSearchCursor cursor) {
+        this.cardNumber = cardNumber;
+        this.from = from;
+        this.to = to;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.anulated = anulated;
+        this.sort = sort;
+        this.descending = descending;
+        this.limit = limit;
+        this.cursor = cursor;
+    }
+
+    public CardNumber getCardNumber() {
+        return cardNumber;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public Boolean getAnulated() {
+        return anulated;
+    }
+
+    public TransactionSortField getSort() {
+        return sort;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public TransactionSearchCursor getCursor() {
+        return cursor;
+    }
+}
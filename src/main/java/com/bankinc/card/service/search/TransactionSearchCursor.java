@@ -0,0 +1,71 @@
+package com.bankinc.card.service.search;
+
+import com.bankinc.card.dto.TransactionSearchRow;
+import com.bankinc.card.exceptions.InvalidTransactionException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+// Cursor opaco para el keyset: columna de orden, su valor en la ultima fila y el id que desempata
+public final class TransactionSearchCursor {
+
+    private static final InvalidTransactionException INVALID = new InvalidTransactionException("Invalid search cursor");
+
+    private final TransactionSortField sort;
+    private final LocalDateTime timestamp;
+    private final BigDecimal price;
+    private final UUID id;
+
+    private TransactionSearchCursor(TransactionSortField sort, LocalDateTime timestamp, BigDecimal price, UUID id) {
+        this.sort = sort;
+        this.timestamp = timestamp;
+        this.price = price;
+        this.id = id;
+    }
+
+    public static TransactionSearchCursor after(TransactionSortField sort, TransactionSearchRow row) {
+        return new TransactionSearchCursor(sort, row.getTimestamp(), row.getPrice(), row.getId());
+    }
+
+    public static TransactionSearchCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3) {
+                throw INVALID;
+            }
+            TransactionSortField sort = TransactionSortField.valueOf(parts[0]);
+            UUID id = UUID.fromString(parts[2]);
+            return sort == TransactionSortField.TIMESTAMP
+                    ? new TransactionSearchCursor(sort, LocalDateTime.parse(parts[1]), null, id)
+                    : new TransactionSearchCursor(sort, null, new BigDecimal(parts[1]), id);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw INVALID;
+        }
+    }
+
+    public String encode() {
+        String value = sort == TransactionSortField.TIMESTAMP ? timestamp.toString() : price.toPlainString();
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((sort.name() + "|" + value + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public TransactionSortField getSort() {
+        return sort;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+}
@@ -0,0 +1,85 @@
+package com.bankinc.card.service.search;
+
+import com.bankinc.card.dto.TransactionSearchPage;
+import com.bankinc.card.dto.TransactionSearchRow;
+import com.bankinc.card.exceptions.InvalidTransactionException;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.repository.TransactionRepository;
+import com.bankinc.card.service.store.ConditionalOnJpaStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+// Busqueda de movimientos para disputas, paginada por keyset: el cursor lleva el valor de la
+// columna de orden y el id de la ultima fila, asi cada pagina cuesta lo mismo sin importar su
+// posicion. Solo busca en la tabla en linea; los movimientos archivados no aparecen
+@Service
+@ConditionalOnJpaStore
+public class TransactionSearchService {
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Value("${card.search.max-page-size:200}")
+    private int maxPageSize;
+
+    public TransactionSearchPage search(TransactionSearchCriteria criteria) {
+        if (criteria.getLimit() < 1 || criteria.getLimit() > maxPageSize) {
+            throw new InvalidTransactionException("Limit must be between 1 and " + maxPageSize);
+        }
+        if (criteria.getCursor() != null && criteria.getCursor().getSort() != criteria.getSort()) {
+            throw new InvalidTransactionException("The cursor belongs to a search with a different sort");
+        }
+
+        UUID cardKey = null;
+        if (criteria.getCardNumber() != null) {
+            Optional<UUID> key = cardRepository.findIdByCardNumber(criteria.getCardNumber());
+            if (key.isEmpty()) {
+                return new TransactionSearchPage(List.of(), null);
+            }
+            cardKey = key.get();
+        }
+
+        // Una fila de mas para saber si hay otra pagina
+        List<TransactionSearchRow> rows = transactionRepository.search(
+                TransactionSpecifications.matching(criteria, cardKey), criteria.getSort(), criteria.isDescending(),
+                criteria.getLimit() + 1);
+        boolean hasMore = rows.size() > criteria.getLimit();
+        if (hasMore) {
+            rows = rows.subList(0, criteria.getLimit());
+        }
+        assignCardNumbers(rows, criteria.getCardNumber());
+
+        String nextCursor = hasMore
+                ? TransactionSearchCursor.after(criteria.getSort(), rows.get(rows.size() - 1)).encode()
+                : null;
+        return new TransactionSearchPage(rows, nextCursor);
+    }
+
+    // Una sola consulta por pagina sobre la clave primaria de tarjetas
+    private void assignCardNumbers(List<TransactionSearchRow> rows, CardNumber cardNumber) {
+        if (cardNumber != null) {
+            rows.forEach(row -> row.setCardNumber(cardNumber));
+            return;
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        Map<UUID, CardNumber> cardNumbers = new HashMap<>();
+        List<UUID> cardKeys = rows.stream().map(TransactionSearchRow::getCardKey).distinct().toList();
+        for (Object[] row : cardRepository.findCardNumbersByIds(cardKeys)) {
+            cardNumbers.put((UUID) row[0], (CardNumber) row[1]);
+        }
+        rows.forEach(row -> row.setCardNumber(cardNumbers.get(row.getCardKey())));
+    }
+}
@@ -0,0 +1,17 @@
+package com.bankinc.card.service.search;
+
+// Columnas por las que se puede ordenar la busqueda; el id desempata y completa la clave del cursor
+public enum TransactionSortField {
+    TIMESTAMP("timestamp"),
+    PRICE("price");
+
+    private final String attribute;
+
+    TransactionSortField(String attribute) {
+        this.attribute = attribute;
+    }
+
+    public String attribute() {
+        return attribute;
+    }
+}
@@ -0,0 +1,63 @@
+package com.bankinc.card.service.search;
+
+import com.bankinc.card.model.Transaction;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Predicados de la busqueda de movimientos. Solo usan columnas de los indices de busqueda de
+// Transaction: la tarjeta se filtra por su clave (card_id) para no unir con la tabla de tarjetas
+public final class TransactionSpecifications {
+
+    private TransactionSpecifications() {
+    }
+
+    public static Specification<Transaction> matching(TransactionSearchCriteria criteria, UUID cardKey) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (cardKey != null) {
+                predicates.add(cb.equal(root.get("card").get("id"), cardKey));
+            }
+            if (criteria.getFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("timestamp"), criteria.getFrom()));
+            }
+            if (criteria.getTo() != null) {
+                predicates.add(cb.lessThan(root.get("timestamp"), criteria.getTo()));
+            }
+            if (criteria.getMinPrice() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("price"), criteria.getMinPrice()));
+            }
+            if (criteria.getMaxPrice() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("price"), criteria.getMaxPrice()));
+            }
+            if (criteria.getAnulated() != null) {
+                predicates.add(cb.equal(root.get("anulated"), criteria.getAnulated()));
+            }
+            TransactionSearchCursor cursor = criteria.getCursor();
+            if (cursor != null) {
+                Expression<UUID> id = root.get("id");
+                predicates.add(cursor.getSort() == TransactionSortField.TIMESTAMP
+                        ? after(cb, root.<LocalDateTime>get("timestamp"), cursor.getTimestamp(), id, cursor.getId(), criteria.isDescending())
+                        : after(cb, root.<BigDecimal>get("price"), cursor.getPrice(), id, cursor.getId(), criteria.isDescending()));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    // Filas posteriores a (value, lastId) en el orden de la busqueda
+    private static <T extends Comparable<? super T>> Predicate after(CriteriaBuilder cb, Expression<T> sort, T value,
+                                                                     Expression<UUID> id, UUID lastId,
+                                                                     boolean descending) {
+        if (descending) {
+            return cb.or(cb.lessThan(sort, value), cb.and(cb.equal(sort, value), cb.lessThan(id, lastId)));
+        }
+        return cb.or(cb.greaterThan(sort, value), cb.and(cb.equal(sort, value), cb.greaterThan(id, lastId)));
+    }
+}
@@ -0,0 +1,72 @@
+package com.bankinc.card.service.statement;
+
+import com.bankinc.card.model.CardNumber;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+// Punto de reanudacion de un periodo: la ultima tarjeta hasta la que todos los lotes estan escritos
+// y los totales acumulados. Se reescribe con un move atomico, asi nunca queda a medias
+final class StatementCheckpoint {
+
+    static final String FILE_NAME = "checkpoint.properties";
+    static final String RUNNING = "RUNNING";
+    static final String COMPLETED = "COMPLETED";
+    static final String FAILED = "FAILED";
+
+    final String status;
+    final CardNumber lastCardId;
+    final long chunks;
+    final long cards;
+    final long transactions;
+
+    StatementCheckpoint(String status, CardNumber lastCardId, long chunks, long cards, long transactions) {
+        this.status = status;
+        this.lastCardId = lastCardId;
+        this.chunks = chunks;
+        this.cards = cards;
+        this.transactions = transactions;
+    }
+
+    static StatementCheckpoint read(Path directory) throws IOException {
+        Path file = directory.resolve(FILE_NAME);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.ISO_8859_1)) {
+            properties.load(reader);
+        }
+        String lastCardId = properties.getProperty("lastCardId", "");
+        return new StatementCheckpoint(properties.getProperty("status", RUNNING),
+                lastCardId.isEmpty() ? null : CardNumber.parse(lastCardId),
+                Long.parseLong(properties.getProperty("chunks", "0")),
+                Long.parseLong(properties.getProperty("cards", "0")),
+                Long.parseLong(properties.getProperty("transactions", "0")));
+    }
+
+    void write(Path directory) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("status", status);
+        properties.setProperty("lastCardId", lastCardId == null ? "" : lastCardId.toString());
+        properties.setProperty("chunks", Long.toString(chunks));
+        properties.setProperty("cards", Long.toString(cards));
+        properties.setProperty("transactions", Long.toString(transactions));
+        Path temporary = directory.resolve(FILE_NAME + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.ISO_8859_1)) {
+            properties.store(writer, null);
+        }
+        Files.move(temporary, directory.resolve(FILE_NAME), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    StatementCheckpoint withStatus(String status) {
+        return new StatementCheckpoint(status, lastCardId, chunks, cards, transactions);
+    }
+}
@@ -0,0 +1,464 @@
+package com.bankinc.card.service.statement;
+
+import com.bankinc.card.dto.ArchivedTransaction;
+import com.bankinc.card.dto.StatementCard;
+import com.bankinc.card.dto.StatementRunReport;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.repository.TransactionRepository;
+import com.bankinc.card.service.archive.TransactionArchive;
+import com.bankinc.card.service.partition.CardOwnershipGuard;
+import com.bankinc.card.service.store.ConditionalOnJpaStore;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPOutputStream;
+
+// Extractos mensuales de todas las tarjetas. Un hilo coordinador recorre las tarjetas por keyset en
+// lotes de chunk-size y los reparte entre los workers; cada lote se escribe en su propio fichero
+// NDJSON comprimido leyendo los movimientos del periodo por keyset en paginas de line-page-size.
+// Nunca hay mas de 2 * workers lotes en memoria, asi el consumo no depende del numero de tarjetas.
+// Tras cada lote se guarda en checkpoint.properties la ultima tarjeta hasta la que todo esta
+// escrito; si el proceso se interrumpe, la siguiente ejecucion del periodo sigue desde ahi
+@Slf4j
+@Service
+@ConditionalOnJpaStore
+public class StatementService {
+
+    static final String PART_PREFIX = "part-";
+    static final String PART_SUFFIX = ".ndjson.gz";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionArchive transactionArchive;
+
+    @Autowired
+    private CardOwnershipGuard cardOwnershipGuard;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${card.statements.directory:./data/statements}")
+    private String directory;
+
+    @Value("${card.statements.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${card.statements.line-page-size:1000}")
+    private int linePageSize;
+
+    private final int workers;
+    private final ExecutorService coordinator;
+    private final ExecutorService pool;
+
+    private volatile Run current;
+    private Counter statementCards;
+
+    public StatementService(@Value("${card.statements.workers:2}") int workers) {
+        this.workers = workers;
+        this.coordinator = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("statement-coordinator-"));
+        this.pool = Executors.newFixedThreadPool(workers, new CustomizableThreadFactory("statement-worker-"));
+    }
+
+    @PostConstruct
+    void init() {
+        statementCards = meterRegistry.counter("card.statements.cards");
+    }
+
+    // El dia 1 se generan los del mes anterior
+    @Scheduled(cron = "${card.statements.cron:-}")
+    public void scheduledRun() {
+        start(YearMonth.now().minusMonths(1));
+    }
+
+    // Una sola generacion a la vez; un periodo ya completado no se vuelve a generar
+    public synchronized StatementRunReport start(YearMonth period) {
+        Run run = current;
+        if (run != null && run.finishedAt == null) {
+            return run.toReport();
+        }
+        Path periodDirectory = periodDirectory(period);
+        StatementCheckpoint checkpoint;
+        try {
+            checkpoint = StatementCheckpoint.read(periodDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read statement checkpoint for " + period, e);
+        }
+        if (checkpoint != null && StatementCheckpoint.COMPLETED.equals(checkpoint.status)) {
+            return toReport(period, periodDirectory, checkpoint);
+        }
+        run = new Run(period, periodDirectory, checkpoint);
+        current = run;
+        Run started = run;
+        coordinator.execute(() -> execute(started));
+        return run.toReport();
+    }
+
+    public StatementRunReport getStatus(YearMonth period) {
+        Run run = current;
+        if (run != null && run.period.equals(period)) {
+            return run.toReport();
+        }
+        Path periodDirectory = periodDirectory(period);
+        try {
+            StatementCheckpoint checkpoint = StatementCheckpoint.read(periodDirectory);
+            return checkpoint == null ? null : toReport(period, periodDirectory, checkpoint);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read statement checkpoint for " + period, e);
+        }
+    }
+
+    private void execute(Run run) {
+        Semaphore inFlight = new Semaphore(2 * workers);
+        try {
+            Files.createDirectories(run.directory);
+            removeUncommittedParts(run.directory, run.resumedFrom);
+            run.checkpoint(StatementCheckpoint.RUNNING);
+
+            CardNumber next = run.resumedFrom == null ? CardNumber.MIN : run.resumedFrom.next();
+            long chunk = 0;
+            while (next != null && run.error == null) {
+                List<StatementCard> cards = cardRepository.findStatementCards(next, PageRequest.of(0, chunkSize));
+                if (cards.isEmpty()) {
+                    break;
+                }
+                inFlight.acquire();
+                long index = chunk++;
+                pool.execute(() -> {
+                    try {
+                        run.complete(index, writeChunk(run, cards));
+                    } catch (RuntimeException | IOException e) {
+                        run.fail(e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+                next = cards.get(cards.size() - 1).getCardNumber().next();
+            }
+            inFlight.acquire(2 * workers);
+
+            if (run.error != null) {
+                run.finish(StatementCheckpoint.FAILED);
+                log.error("Statement generation for {} failed after card {}: {}", run.period, run.lastCardId, run.error);
+            } else {
+                run.finish(StatementCheckpoint.COMPLETED);
+                log.info("Statements for {} written: {} cards, {} transactions, {} files in {} ms", run.period,
+                        run.cards, run.transactions, run.chunks, run.elapsedMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.fail(e);
+            run.finish(StatementCheckpoint.FAILED);
+        } catch (RuntimeException | IOException e) {
+            run.fail(e);
+            run.finish(StatementCheckpoint.FAILED);
+            log.error("Statement generation for {} failed", run.period, e);
+        }
+    }
+
+    // Un lote se escribe en un temporal y se renombra al terminar: un fichero part-* siempre esta completo
+    private ChunkResult writeChunk(Run run, List<StatementCard> cards) throws IOException {
+        CardNumber first = cards.get(0).getCardNumber();
+        CardNumber last = cards.get(cards.size() - 1).getCardNumber();
+        Path target = run.directory.resolve(PART_PREFIX + first + "-" + last + PART_SUFFIX);
+        Path temporary = run.directory.resolve(target.getFileName() + ".tmp");
+
+        LineCursor lines = new LineCursor(first, last, run.start, run.end);
+        boolean archived = transactionArchive.getSegmentCount() > 0;
+        long written = 0;
+        long transactions = 0;
+        try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), BUFFER_SIZE), BUFFER_SIZE);
+             JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            for (StatementCard card : cards) {
+                // Con particionado cada instancia escribe los extractos de sus tarjetas
+                if (!cardOwnershipGuard.isOwnedLocally(card.getCardNumber())) {
+                    lines.skip(card.getCardNumber());
+                    continue;
+                }
+                List<ArchivedTransaction> fromArchive = archived
+                        ? transactionArchive.findByCardId(card.getCardNumber(), run.start, run.end)
+                        : List.of();
+                transactions += writeStatement(json, run.period, card, fromArchive, lines);
+                written++;
+            }
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        statementCards.increment(written);
+        return new ChunkResult(last, written, transactions);
+    }
+
+    // Movimientos del archivo y de la tabla mezclados por fecha; ambos llegan ya ordenados
+    private static long writeStatement(JsonGenerator json, YearMonth period, StatementCard card,
+                                       List<ArchivedTransaction> fromArchive, LineCursor lines) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("cardId", card.getCardNumber().toString());
+        json.writeStringField("holderName", card.getHolderName());
+        json.writeStringField("productId", card.getProductId());
+        json.writeStringField("period", period.toString());
+        json.writeArrayFieldStart("transactions");
+
+        long purchases = 0;
+        long anulations = 0;
+        BigDecimal charged = BigDecimal.ZERO;
+        BigDecimal anulated = BigDecimal.ZERO;
+        int archivedIndex = 0;
+        while (true) {
+            ArchivedTransaction fromTable = lines.peek(card.getCardNumber());
+            ArchivedTransaction fromFile = archivedIndex < fromArchive.size() ? fromArchive.get(archivedIndex) : null;
+            ArchivedTransaction next;
+            if (fromFile != null && (fromTable == null || !fromTable.getTimestamp().isBefore(fromFile.getTimestamp()))) {
+                next = fromFile;
+                archivedIndex++;
+            } else if (fromTable != null) {
+                next = fromTable;
+                lines.advance();
+            } else {
+                break;
+            }
+            json.writeStartObject();
+            json.writeStringField("id", next.getId().toString());
+            json.writeStringField("timestamp", next.getTimestamp().toString());
+            json.writeNumberField("amount", next.getPrice());
+            json.writeBooleanField("anulated", next.isAnulated());
+            json.writeEndObject();
+            if (next.isAnulated()) {
+                anulations++;
+                anulated = anulated.add(next.getPrice());
+            } else {
+                purchases++;
+                charged = charged.add(next.getPrice());
+            }
+        }
+
+        json.writeEndArray();
+        json.writeNumberField("purchases", purchases);
+        json.writeNumberField("totalCharged", charged);
+        json.writeNumberField("anulations", anulations);
+        json.writeNumberField("totalAnulated", anulated);
+        json.writeEndObject();
+        json.writeRaw('\n');
+        return purchases + anulations;
+    }
+
+    // Al reanudar, los lotes posteriores al checkpoint pudieron quedar escritos o a medias; se
+    // borran porque sus limites pueden no coincidir con los de los nuevos lotes
+    private static void removeUncommittedParts(Path periodDirectory, CardNumber committed) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(periodDirectory)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.delete(file);
+                } else if (name.startsWith(PART_PREFIX) && name.endsWith(PART_SUFFIX)) {
+                    CardNumber first = CardNumber.parse(name.substring(PART_PREFIX.length(),
+                            PART_PREFIX.length() + CardNumber.LENGTH));
+                    if (committed == null || first.compareTo(committed) > 0) {
+                        Files.delete(file);
+                    }
+                }
+            }
+        }
+    }
+
+    private Path periodDirectory(YearMonth period) {
+        return Paths.get(directory).resolve(period.toString());
+    }
+
+    private static StatementRunReport toReport(YearMonth period, Path periodDirectory, StatementCheckpoint checkpoint) {
+        return new StatementRunReport(period.toString(), checkpoint.status, null, null, null,
+                checkpoint.lastCardId == null ? null : checkpoint.lastCardId.toString(), checkpoint.chunks,
+                checkpoint.cards, checkpoint.transactions, 0, periodDirectory.toString(), null);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        coordinator.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    private record ChunkResult(CardNumber lastCardId, long cards, long transactions) {
+    }
+
+    // Movimientos de la tabla para las tarjetas de un lote, pagina a pagina
+    private final class LineCursor {
+        private final CardNumber first;
+        private final CardNumber last;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private List<ArchivedTransaction> page;
+        private int index;
+        private boolean exhausted;
+
+        private LineCursor(CardNumber first, CardNumber last, LocalDateTime start, LocalDateTime end) {
+            this.first = first;
+            this.last = last;
+            this.start = start;
+            this.end = end;
+        }
+
+        // Siguiente movimiento si es de la tarjeta indicada
+        private ArchivedTransaction peek(CardNumber cardNumber) {
+            if (page == null || index == page.size()) {
+                fetch();
+            }
+            if (index == page.size()) {
+                return null;
+            }
+            ArchivedTransaction line = page.get(index);
+            return line.getCardNumber().equals(cardNumber) ? line : null;
+        }
+
+        private void advance() {
+            index++;
+        }
+
+        private void skip(CardNumber cardNumber) {
+            while (peek(cardNumber) != null) {
+                advance();
+            }
+        }
+
+        private void fetch() {
+            if (exhausted) {
+                page = List.of();
+                index = 0;
+                return;
+            }
+            PageRequest request = PageRequest.of(0, linePageSize);
+            List<ArchivedTransaction> fetched;
+            if (page == null) {
+                fetched = transactionRepository.findStatementLines(first, last, start, end, request);
+            } else {
+                ArchivedTransaction after = page.get(page.size() - 1);
+                fetched = transactionRepository.findStatementLinesAfter(first, last, start, end,
+                        after.getCardNumber(), after.getTimestamp(), after.getId(), request);
+            }
+            exhausted = fetched.size() < linePageSize;
+            page = fetched;
+            index = 0;
+        }
+    }
+
+    private final class Run {
+        private final YearMonth period;
+        private final Path directory;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final CardNumber resumedFrom;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        // Lotes terminados fuera de orden, a la espera de que acaben los anteriores
+        private final Map<Long, ChunkResult> pending = new HashMap<>();
+        private long nextChunk;
+        private CardNumber lastCardId;
+        private long chunks;
+        private long cards;
+        private long transactions;
+        private volatile String status = StatementCheckpoint.RUNNING;
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+        private volatile long elapsedMillis;
+
+        private Run(YearMonth period, Path directory, StatementCheckpoint checkpoint) {
+            this.period = period;
+            this.directory = directory;
+            this.start = period.atDay(1).atStartOfDay();
+            this.end = period.plusMonths(1).atDay(1).atStartOfDay();
+            this.resumedFrom = checkpoint == null ? null : checkpoint.lastCardId;
+            if (checkpoint != null) {
+                lastCardId = checkpoint.lastCardId;
+                chunks = checkpoint.chunks;
+                cards = checkpoint.cards;
+                transactions = checkpoint.transactions;
+            }
+        }
+
+        // El checkpoint solo avanza por lotes contiguos: todo lo anterior a lastCardId esta escrito
+        private synchronized void complete(long chunk, ChunkResult result) throws IOException {
+            pending.put(chunk, result);
+            ChunkResult next;
+            boolean advanced = false;
+            while ((next = pending.remove(nextChunk)) != null) {
+                nextChunk++;
+                lastCardId = next.lastCardId();
+                chunks++;
+                cards += next.cards();
+                transactions += next.transactions();
+                advanced = true;
+            }
+            if (advanced) {
+                checkpoint(StatementCheckpoint.RUNNING);
+            }
+        }
+
+        private synchronized void checkpoint(String status) throws IOException {
+            new StatementCheckpoint(status, lastCardId, chunks, cards, transactions).write(directory);
+        }
+
+        private void fail(Exception e) {
+            if (error == null) {
+                error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+            }
+        }
+
+        private synchronized void finish(String status) {
+            try {
+                checkpoint(status);
+            } catch (IOException e) {
+                fail(e);
+                log.error("Could not write statement checkpoint for {}", period, e);
+            }
+            this.elapsedMillis = elapsedMillis();
+            this.status = status;
+            this.finishedAt = LocalDateTime.now();
+        }
+
+        private long elapsedMillis() {
+            return finishedAt != null ? elapsedMillis : (System.nanoTime() - startNanos) / 1_000_000;
+        }
+
+        private synchronized StatementRunReport toReport() {
+            return new StatementRunReport(period.toString(), status, startedAt, finishedAt,
+                    resumedFrom == null ? null : resumedFrom.toString(),
+                    lastCardId == null ? null : lastCardId.toString(), chunks, cards, transactions,
+                    elapsedMillis(), directory.toString(), error);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.bankinc.card.service.stats;
+
+public enum PurchaseOutcome {
+    APPROVED,
+    DECLINED,
+    ANULATED
+}
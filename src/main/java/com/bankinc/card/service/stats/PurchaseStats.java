@@ -0,0 +1,109 @@
+package com.bankinc.card.service.stats;
+
+import com.bankinc.card.dto.ProductStats;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.util.LongObjectHashMap;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Compras aprobadas, rechazadas y anuladas por producto en ventanas deslizantes de 60 segundos,
+// 60 minutos y 24 horas, en memoria y sin bloqueos en el camino de la compra. Sustituye al
+// SELECT COUNT(*) periodico del panel de operaciones. Cada instancia cuenta solo lo que autoriza.
+// Los productos se guardan en un mapa de clave long que se copia al aparecer uno nuevo (muy poco
+// frecuente): la lectura es un acceso volatil sin boxing ni asignaciones
+@Component
+public class PurchaseStats {
+
+    private static final long PRODUCT_DIVISOR = 10_000_000_000L;
+    private static final long SECOND = 1_000L;
+    private static final long MINUTE = 60 * SECOND;
+    private static final long HOUR = 60 * MINUTE;
+
+    private volatile LongObjectHashMap<ProductWindows> products = new LongObjectHashMap<>();
+
+    public void record(String cardId, BigDecimal price, PurchaseOutcome outcome) {
+        record(cardId, price, outcome, System.currentTimeMillis());
+    }
+
+    void record(String cardId, BigDecimal price, PurchaseOutcome outcome, long nowMillis) {
+        long cardNumber = CardNumber.parseOrNegative(cardId);
+        if (cardNumber < 0 || price == null) {
+            return;
+        }
+        windows(cardNumber / PRODUCT_DIVISOR).add(nowMillis, outcome, toCents(price));
+    }
+
+    public List<ProductStats> snapshot() {
+        return snapshot(System.currentTimeMillis());
+    }
+
+    List<ProductStats> snapshot(long nowMillis) {
+        List<ProductStats> snapshot = new ArrayList<>();
+        products.forEach((product, windows) -> snapshot.add(windows.totals(product, nowMillis, false)));
+        snapshot.sort(Comparator.comparing(ProductStats::getProductId));
+        return snapshot;
+    }
+
+    // null si el producto aun no ha tenido compras en esta instancia
+    public ProductStats snapshot(String productId) {
+        long product = CardNumber.firstOfProduct(productId).longValue() / PRODUCT_DIVISOR;
+        ProductWindows windows = products.get(product);
+        return windows == null ? null : windows.totals(product, System.currentTimeMillis(), true);
+    }
+
+    private ProductWindows windows(long product) {
+        ProductWindows windows = products.get(product);
+        return windows != null ? windows : addProduct(product);
+    }
+
+    private synchronized ProductWindows addProduct(long product) {
+        LongObjectHashMap<ProductWindows> current = products;
+        ProductWindows windows = current.get(product);
+        if (windows != null) {
+            return windows;
+        }
+        LongObjectHashMap<ProductWindows> copy = new LongObjectHashMap<>(current.size() + 1);
+        current.forEach(copy::put);
+        windows = new ProductWindows();
+        copy.put(product, windows);
+        products = copy;
+        return windows;
+    }
+
+    private static long toCents(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private static String productId(long product) {
+        return CardNumber.of(product * PRODUCT_DIVISOR).productId();
+    }
+
+    private static final class ProductWindows {
+        final RollingWindow seconds = new RollingWindow(SECOND, 60);
+        final RollingWindow minutes = new RollingWindow(MINUTE, 60);
+        final RollingWindow hours = new RollingWindow(HOUR, 24);
+
+        void add(long nowMillis, PurchaseOutcome outcome, long cents) {
+            seconds.add(nowMillis, outcome, cents);
+            minutes.add(nowMillis, outcome, cents);
+            hours.add(nowMillis, outcome, cents);
+        }
+
+        // Minuto, hora y dia incluyen el periodo en curso para no perder lo ultimo en los totales
+        ProductStats totals(long product, long nowMillis, boolean withSeries) {
+            return new ProductStats(productId(product),
+                    seconds.totals(nowMillis, 1, false),
+                    seconds.totals(nowMillis, 60, true),
+                    minutes.totals(nowMillis, 60, true),
+                    hours.totals(nowMillis, 24, true),
+                    withSeries ? seconds.series(nowMillis) : null,
+                    withSeries ? minutes.series(nowMillis) : null,
+                    withSeries ? hours.series(nowMillis) : null);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.bankinc.card.service.stats;
+
+import com.bankinc.card.dto.ProductStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// /actuator/purchasestats: totales por producto; /actuator/purchasestats/{productId} agrega las series
+@Component
+@Endpoint(id = "purchasestats")
+public class PurchaseStatsEndpoint {
+
+    @Autowired
+    private PurchaseStats purchaseStats;
+
+    @ReadOperation
+    public List<ProductStats> products() {
+        return purchaseStats.snapshot();
+    }
+
+    // null responde 404
+    @ReadOperation
+    public ProductStats product(@Selector String productId) {
+        return purchaseStats.snapshot(productId);
+    }
+}
@@ -0,0 +1,65 @@
+package com.bankinc.card.service.stats;
+
+import com.bankinc.card.dto.ProductStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Difunde por server-sent events los totales por producto cada stream-interval-ms. Se calcula un
+// solo snapshot por intervalo para todos los suscriptores, y nada si no hay ninguno
+@Slf4j
+@Component
+public class PurchaseStatsStream {
+
+    static final String EVENT = "purchase-stats";
+
+    @Autowired
+    private PurchaseStats purchaseStats;
+
+    // El cliente (EventSource) se reconecta solo al vencer
+    @Value("${card.stats.stream-timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    @Value("${card.stats.max-subscribers:50}")
+    private int maxSubscribers;
+
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+
+    // null si ya hay demasiados suscriptores
+    public SseEmitter subscribe() {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(error -> subscribers.remove(emitter));
+        subscribers.add(emitter);
+        return emitter;
+    }
+
+    @Scheduled(fixedRateString = "${card.stats.stream-interval-ms:1000}")
+    public void publish() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        List<ProductStats> snapshot = purchaseStats.snapshot();
+        for (SseEmitter emitter : subscribers) {
+            try {
+                emitter.send(SseEmitter.event().name(EVENT).data(snapshot));
+            } catch (IOException | IllegalStateException e) {
+                // Cliente desconectado: se libera la conexion
+                subscribers.remove(emitter);
+                emitter.completeWithError(e);
+                log.debug("Purchase stats subscriber dropped: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.bankinc.card.service.stats;
+
+import com.bankinc.card.dto.WindowTotals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Ventana deslizante de size cubos de bucketMillis sin bloqueos. Cada ranura guarda el cubo de un
+// periodo (epoch); el primer evento de un periodo nuevo sustituye con CAS el cubo que lleva ahi
+// size periodos. Solo se asigna memoria al cambiar de cubo, nunca por evento.
+// Un evento que llega cuando su cubo ya se ha reciclado se descarta: estaba fuera de la ventana
+final class RollingWindow {
+
+    private final long bucketMillis;
+    private final int size;
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    RollingWindow(long bucketMillis, int size) {
+        this.bucketMillis = bucketMillis;
+        this.size = size;
+        this.buckets = new AtomicReferenceArray<>(size);
+    }
+
+    void add(long nowMillis, PurchaseOutcome outcome, long cents) {
+        long epoch = nowMillis / bucketMillis;
+        int slot = (int) (epoch % size);
+        Bucket bucket = buckets.get(slot);
+        while (bucket == null || bucket.epoch < epoch) {
+            Bucket fresh = new Bucket(epoch);
+            if (buckets.compareAndSet(slot, bucket, fresh)) {
+                bucket = fresh;
+                break;
+            }
+            bucket = buckets.get(slot);
+        }
+        if (bucket.epoch == epoch) {
+            bucket.add(outcome, cents);
+        }
+    }
+
+    // Suma de los ultimos periods periodos completos, o de los anteriores y el que esta en curso
+    WindowTotals totals(long nowMillis, int periods, boolean includeCurrent) {
+        long current = nowMillis / bucketMillis;
+        long last = includeCurrent ? current : current - 1;
+        long[] sums = new long[Bucket.SLOTS];
+        for (long epoch = last - Math.min(periods, size) + 1; epoch <= last; epoch++) {
+            Bucket bucket = buckets.get((int) Math.floorMod(epoch, (long) size));
+            if (bucket != null && bucket.epoch == epoch) {
+                bucket.addTo(sums);
+            }
+        }
+        return Bucket.toTotals(sums, (last + 1 - Math.min(periods, size)) * bucketMillis);
+    }
+
+    // Un elemento por periodo, del mas antiguo al actual; los periodos sin eventos salen a cero
+    List<WindowTotals> series(long nowMillis) {
+        long current = nowMillis / bucketMillis;
+        List<WindowTotals> series = new ArrayList<>(size);
+        for (long epoch = current - size + 1; epoch <= current; epoch++) {
+            long[] sums = new long[Bucket.SLOTS];
+            Bucket bucket = buckets.get((int) Math.floorMod(epoch, (long) size));
+            if (bucket != null && bucket.epoch == epoch) {
+                bucket.addTo(sums);
+            }
+            series.add(Bucket.toTotals(sums, epoch * bucketMillis));
+        }
+        return series;
+    }
+
+    private static final class Bucket {
+        static final int SLOTS = PurchaseOutcome.values().length * 2;
+
+        final long epoch;
+        // Por resultado: numero de operaciones e importe en centimos
+        final LongAdder[] counters = new LongAdder[SLOTS];
+
+        Bucket(long epoch) {
+            this.epoch = epoch;
+            for (int i = 0; i < SLOTS; i++) {
+                counters[i] = new LongAdder();
+            }
+        }
+
+        void add(PurchaseOutcome outcome, long cents) {
+            counters[outcome.ordinal() * 2].increment();
+            counters[outcome.ordinal() * 2 + 1].add(cents);
+        }
+
+        void addTo(long[] sums) {
+            for (int i = 0; i < SLOTS; i++) {
+                sums[i] += counters[i].sum();
+            }
+        }
+
+        static WindowTotals toTotals(long[] sums, long startMillis) {
+            return new WindowTotals(startMillis,
+                    sums[PurchaseOutcome.APPROVED.ordinal() * 2], sums[PurchaseOutcome.APPROVED.ordinal() * 2 + 1],
+                    sums[PurchaseOutcome.DECLINED.ordinal() * 2], sums[PurchaseOutcome.DECLINED.ordinal() * 2 + 1],
+                    sums[PurchaseOutcome.ANULATED.ordinal() * 2], sums[PurchaseOutcome.ANULATED.ordinal() * 2 + 1]);
+        }
+    }
+}
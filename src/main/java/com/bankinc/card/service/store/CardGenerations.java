@@ -0,0 +1,40 @@
+package com.bankinc.card.service.store;
+
+import com.bankinc.card.model.CardNumber;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Generacion de cada tarjeta para las lecturas agrupadas de CardService: sube despues de confirmar
+// un cambio de saldo o de estado, y una lectura nunca se suma a otra empezada con una generacion
+// anterior. Las tarjetas se reparten en SLOTS contadores, sin memoria por tarjeta: dos tarjetas que
+// comparten contador solo provocan alguna lectura de mas
+@Component
+public class CardGenerations {
+
+    private static final int SLOT_BITS = 12;
+
+    private final AtomicLongArray generations = new AtomicLongArray(1 << SLOT_BITS);
+
+    public long current(long cardNumber) {
+        return generations.get(slot(cardNumber));
+    }
+
+    public void advance(long cardNumber) {
+        if (cardNumber >= 0) {
+            generations.incrementAndGet(slot(cardNumber));
+        }
+    }
+
+    public void advance(Collection<CardNumber> cardNumbers) {
+        for (CardNumber cardNumber : cardNumbers) {
+            advance(cardNumber.longValue());
+        }
+    }
+
+    // Los numeros de un producto son consecutivos: se mezclan para no caer en los mismos contadores
+    private static int slot(long cardNumber) {
+        return (int) ((cardNumber * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - SLOT_BITS));
+    }
+}
@@ -0,0 +1,71 @@
+package com.bankinc.card.service.store;
+
+import com.bankinc.card.model.Card;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.model.Recharge;
+import com.bankinc.card.model.Transaction;
+import com.bankinc.card.service.concurrency.BalanceMutation;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.LongConsumer;
+
+// Almacen de tarjetas y movimientos que usan CardService y TransactionService. El motor se elige
+// con card.store.engine: jpa (Oracle, por defecto) o memory (sin base de datos, para despliegues
+// embebidos, pasarelas y pruebas de integracion con mucho volumen).
+// saveTransaction, markAnulated y saveRecharge se llaman desde BalanceMutation.apply: quedan en la
+// misma unidad atomica que el cambio de saldo y se deshacen con el si algo falla
+public interface CardStore {
+
+    Optional<Card> findCard(CardNumber cardNumber);
+
+    // Vacio si el texto no es un numero de tarjeta valido
+    default Optional<Card> findCard(String cardId) {
+        return CardNumber.tryParse(cardId).flatMap(this::findCard);
+    }
+
+    // Las tarjetas existentes de la lista, en cualquier orden; el motor jpa las lee en una sola consulta
+    List<Card> findCards(Collection<CardNumber> cardNumbers);
+
+    // Alta o modificacion completa; DataIntegrityViolationException si el numero ya existe y
+    // ObjectOptimisticLockingFailureException si la tarjeta cambio desde que se leyo
+    Card saveCard(Card card);
+
+    // Cambios de estado condicionales, sin leer ni reescribir la tarjeta entera: no chocan con la
+    // version que suben los cambios de saldo concurrentes. false si no existe o ya estaba en ese estado
+    boolean activateCard(CardNumber cardNumber);
+
+    boolean blockCard(CardNumber cardNumber);
+
+    // Generacion de la tarjeta (ver CardGenerations): los cambios de saldo y de estado la suben al
+    // confirmarse, y las escrituras que no pasan por el almacen la suben con CardGenerations
+    long generation(CardNumber cardNumber);
+
+    // Lectura-modificacion-escritura atomica sobre una tarjeta
+    <T> T updateBalance(String cardId, BalanceMutation<T> mutation);
+
+    // Varias tarjetas en una sola unidad atomica: se bloquean en orden de numero de tarjeta, asi dos
+    // operaciones que compartan tarjetas nunca se esperan en cruz, y con todas ya bloqueadas se
+    // aplican las mutaciones en el orden recibido. Si alguna falla no se aplica ninguna
+    <T> List<T> updateBalances(List<String> cardIds, List<? extends BalanceMutation<T>> mutations);
+
+    Optional<Transaction> findTransaction(UUID transactionId);
+
+    Transaction saveTransaction(Transaction transaction);
+
+    // Movimientos aun no archivados de la tarjeta, en orden cronologico
+    List<Transaction> findTransactionsByCard(CardNumber cardNumber);
+
+    // Marca condicional: false si ya estaba anulado (o no existe)
+    boolean markAnulated(UUID transactionId);
+
+    void saveRecharge(Recharge recharge);
+
+    // Numeros de tarjeta del rango inclusivo, para la emision; el motor jpa los lee por el indice de
+    // cardId en paginas de pageSize filas
+    void forEachCardNumber(CardNumber from, CardNumber to, int pageSize, LongConsumer visitor);
+
+    long countCards(CardNumber from, CardNumber to);
+}
@@ -0,0 +1,183 @@
+package com.bankinc.card.service.store;
+
+import com.bankinc.card.model.Card;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.model.Recharge;
+import com.bankinc.card.model.Transaction;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Volcado binario del motor en memoria: cabecera, numero de tarjetas y, por tarjeta, sus campos,
+// sus movimientos y sus recargas. Importes y fechas van como texto para no perder escala ni precision
+final class CardStoreSnapshot {
+
+    private static final int MAGIC = 0x43534e50; // "CSNP"
+    // La version 2 anade el parentId de los movimientos; los volcados de la 1 se siguen leyendo
+    private static final int FORMAT_VERSION = 2;
+
+    record CardImage(Card card, List<Transaction> transactions, List<Recharge> recharges) {
+    }
+
+    private CardStoreSnapshot() {
+    }
+
+    static void write(Path path, List<CardImage> images) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(temp))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(images.size());
+            for (CardImage image : images) {
+                writeCard(out, image.card());
+                out.writeInt(image.transactions().size());
+                for (Transaction transaction : image.transactions()) {
+                    writeUuid(out, transaction.getId());
+                    writeDecimal(out, transaction.getPrice());
+                    writeTimestamp(out, transaction.getTimestamp());
+                    out.writeBoolean(transaction.isAnulated());
+                    out.writeBoolean(transaction.isFinalized());
+                    out.writeBoolean(transaction.getParentId() != null);
+                    if (transaction.getParentId() != null) {
+                        writeUuid(out, transaction.getParentId());
+                    }
+                }
+                out.writeInt(image.recharges().size());
+                for (Recharge recharge : image.recharges()) {
+                    writeUuid(out, recharge.getId());
+                    writeDecimal(out, recharge.getAmount());
+                    writeTimestamp(out, recharge.getTimestamp());
+                }
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static List<CardImage> read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(path))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a card store snapshot: " + path);
+            }
+            int version = in.readInt();
+            if (version < 1 || version > FORMAT_VERSION) {
+                throw new IOException("Unsupported card store snapshot version " + version);
+            }
+            int cards = in.readInt();
+            List<CardImage> images = new ArrayList<>(cards);
+            for (int i = 0; i < cards; i++) {
+                Card card = readCard(in);
+                int transactionCount = in.readInt();
+                List<Transaction> transactions = new ArrayList<>(transactionCount);
+                for (int j = 0; j < transactionCount; j++) {
+                    Transaction transaction = new Transaction();
+                    transaction.setId(readUuid(in));
+                    transaction.setPrice(readDecimal(in));
+                    transaction.setTimestamp(readTimestamp(in));
+                    transaction.setAnulated(in.readBoolean());
+                    transaction.setFinalized(in.readBoolean());
+                    if (version > 1 && in.readBoolean()) {
+                        transaction.setParentId(readUuid(in));
+                    }
+                    transactions.add(transaction);
+                }
+                int rechargeCount = in.readInt();
+                List<Recharge> recharges = new ArrayList<>(rechargeCount);
+                for (int j = 0; j < rechargeCount; j++) {
+                    UUID id = readUuid(in);
+                    Recharge recharge = new Recharge(null, readDecimal(in), readTimestamp(in));
+                    recharge.setId(id);
+                    recharges.add(recharge);
+                }
+                images.add(new CardImage(card, transactions, recharges));
+            }
+            return images;
+        }
+    }
+
+    private static void writeCard(DataOutputStream out, Card card) throws IOException {
+        writeUuid(out, card.getId());
+        out.writeLong(card.getCardNumber().longValue());
+        writeText(out, card.getProductId());
+        writeText(out, card.getHolderName());
+        writeText(out, card.getExpirationDate());
+        out.writeBoolean(card.isActive());
+        out.writeBoolean(card.isBlocked());
+        writeDecimal(out, card.getBalance());
+        writeDecimal(out, card.getOpeningBalance());
+        out.writeLong(card.getVersion() == null ? 0 : card.getVersion());
+        out.writeLong(card.getLedgerSequence());
+    }
+
+    private static Card readCard(DataInputStream in) throws IOException {
+        Card card = new Card();
+        card.setId(readUuid(in));
+        card.setCardNumber(CardNumber.of(in.readLong()));
+        card.setProductId(readText(in));
+        card.setHolderName(readText(in));
+        card.setExpirationDate(readText(in));
+        card.setActive(in.readBoolean());
+        card.setBlocked(in.readBoolean());
+        card.setBalance(readDecimal(in));
+        card.setOpeningBalance(readDecimal(in));
+        card.setVersion(in.readLong());
+        card.setLedgerSequence(in.readLong());
+        return card;
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private static void writeText(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        writeText(out, value == null ? null : value.toPlainString());
+    }
+
+    private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        String value = readText(in);
+        return value == null ? null : new BigDecimal(value);
+    }
+
+    private static void writeTimestamp(DataOutputStream out, LocalDateTime value) throws IOException {
+        writeText(out, value == null ? null : value.toString());
+    }
+
+    private static LocalDateTime readTimestamp(DataInputStream in) throws IOException {
+        String value = readText(in);
+        return value == null ? null : LocalDateTime.parse(value);
+    }
+}
@@ -0,0 +1,19 @@
+package com.bankinc.card.service.store;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Solo con el motor jpa (el de por defecto): componentes que leen o escriben tarjetas y movimientos
+// directamente en la base. Con el motor en memoria no se crean, en lugar de trabajar sobre tablas
+// que no son las del almacen
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@ConditionalOnProperty(name = "card.store.engine", havingValue = JpaCardStore.ENGINE, matchIfMissing = true)
+public @interface ConditionalOnJpaStore {
+}
@@ -0,0 +1,645 @@
+package com.bankinc.card.service.store;
+
+import com.bankinc.card.model.Card;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.model.Recharge;
+import com.bankinc.card.model.Transaction;
+import com.bankinc.card.service.concurrency.BalanceMutation;
+import com.bankinc.card.util.LongObjectHashMap;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+
+// Motor en memoria: tarjetas indexadas por numero (sin boxing) y por id, movimientos por id y, dentro
+// de cada tarjeta, en su orden de llegada. Cada cambio de saldo se hace con el monitor de la tarjeta:
+// la mutacion y lo que guarde en apply son atomicos, y si algo falla se deshace todo. Las lecturas
+// devuelven copias; guardar una tarjeta leida antes de otro cambio falla como con @Version.
+// No lleva libro mayor (solo avanza la secuencia) ni cierra ventanas de anulacion: la anulacion se
+// limita por la fecha del movimiento. Lo que trabaja directamente sobre la base (preautorizaciones,
+// emision y operaciones masivas, importacion de recargas, libro mayor, directorio y archivo) no
+// se activa con este motor. Con card.store.snapshot-path vuelca el contenido a disco cada
+// snapshot-interval-ms y al apagar, y lo recupera al arrancar
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "card.store.engine", havingValue = InMemoryCardStore.ENGINE)
+public class InMemoryCardStore implements CardStore {
+
+    public static final String ENGINE = "memory";
+
+    @Value("${card.store.snapshot-path:}")
+    private String snapshotPath = "";
+
+    @Autowired
+    private CardGenerations cardGenerations = new CardGenerations();
+
+    private final CardIndex cardsByNumber = new CardIndex();
+    private final ConcurrentHashMap<UUID, CardEntry> cardsById = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, TransactionSlot> transactions = new ConcurrentHashMap<>();
+
+    // Por hilo y reutilizada: un rechazo no asigna memoria
+    private final ThreadLocal<UnitOfWork> unitOfWork = ThreadLocal.withInitial(UnitOfWork::new);
+
+    @PostConstruct
+    void init() {
+        Path path = snapshotFile();
+        if (path == null || !Files.exists(path)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            restore(CardStoreSnapshot.read(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read card store snapshot " + path, e);
+        }
+        log.info("Card store restored {} cards and {} transactions from {} in {} ms", cardsByNumber.size(),
+                transactions.size(), path, System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public Optional<Card> findCard(CardNumber cardNumber) {
+        CardEntry entry = cardsByNumber.get(cardNumber.longValue());
+        if (entry == null) {
+            return Optional.empty();
+        }
+        synchronized (entry) {
+            return Optional.of(copy(entry.card));
+        }
+    }
+
+    @Override
+    public List<Card> findCards(Collection<CardNumber> cardNumbers) {
+        List<Card> cards = new ArrayList<>(cardNumbers.size());
+        for (CardNumber cardNumber : cardNumbers) {
+            findCard(cardNumber).ifPresent(cards::add);
+        }
+        return cards;
+    }
+
+    @Override
+    public Card saveCard(Card card) {
+        if (card.getCardNumber() == null) {
+            throw new DataIntegrityViolationException("Card number is required");
+        }
+        CardEntry entry = card.getId() == null ? null : cardsById.get(card.getId());
+        if (entry == null) {
+            return insert(card);
+        }
+        Card stored = copy(card);
+        synchronized (entry) {
+            Card current = entry.card;
+            if (!Objects.equals(current.getVersion(), card.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(Card.class, card.getId());
+            }
+            if (!current.getCardNumber().equals(card.getCardNumber())) {
+                throw new DataIntegrityViolationException("Card number of " + card.getId() + " cannot change");
+            }
+            stored.setVersion(current.getVersion() + 1);
+            entry.card = stored;
+        }
+        cardGenerations.advance(entry.key);
+        return copy(stored);
+    }
+
+    @Override
+    public boolean activateCard(CardNumber cardNumber) {
+        return changeStatus(cardNumber, card -> !card.isActive(), card -> {
+            card.setActive(true);
+            card.setBlocked(false);
+        });
+    }
+
+    @Override
+    public boolean blockCard(CardNumber cardNumber) {
+        return changeStatus(cardNumber, card -> !card.isBlocked(), card -> card.setBlocked(true));
+    }
+
+    private boolean changeStatus(CardNumber cardNumber, Predicate<Card> applies, Consumer<Card> change) {
+        CardEntry entry = cardsByNumber.get(cardNumber.longValue());
+        if (entry == null) {
+            return false;
+        }
+        synchronized (entry) {
+            Card current = entry.card;
+            if (!applies.test(current)) {
+                return false;
+            }
+            Card stored = copy(current);
+            change.accept(stored);
+            stored.setVersion(current.getVersion() + 1);
+            entry.card = stored;
+        }
+        cardGenerations.advance(entry.key);
+        return true;
+    }
+
+    @Override
+    public long generation(CardNumber cardNumber) {
+        return cardGenerations.current(cardNumber.longValue());
+    }
+
+    private Card insert(Card card) {
+        Card stored = copy(card);
+        stored.setId(card.getId() == null ? UUID.randomUUID() : card.getId());
+        stored.setVersion(0L);
+        CardEntry entry = new CardEntry(stored);
+        if (!cardsByNumber.putIfAbsent(stored.getCardNumber().longValue(), entry)) {
+            throw new DataIntegrityViolationException("Card number already exists: " + stored.getCardId());
+        }
+        cardsById.put(stored.getId(), entry);
+        cardGenerations.advance(entry.key);
+        // Como persist: la instancia recibida queda con su id y version
+        card.setId(stored.getId());
+        card.setVersion(stored.getVersion());
+        return card;
+    }
+
+    @Override
+    public <T> T updateBalance(String cardId, BalanceMutation<T> mutation) {
+        long key = CardNumber.parseOrNegative(cardId);
+        CardEntry entry = key < 0 ? null : cardsByNumber.get(key);
+        if (entry == null) {
+            throw mutation.cardNotFound(cardId);
+        }
+        // Una llamada anidada (desde apply) es una unidad independiente, como REQUIRES_NEW
+        UnitOfWork work = unitOfWork.get();
+        int mark = work.undo.size();
+        work.depth++;
+        T result;
+        try {
+            synchronized (entry) {
+                Card card = entry.card;
+                BigDecimal previousBalance = card.getBalance();
+                long previousSequence = card.getLedgerSequence();
+                Long previousVersion = card.getVersion();
+                try {
+                    BigDecimal delta = mutation.delta(card);
+                    card.setBalance(previousBalance.add(delta));
+                    card.setLedgerSequence(previousSequence + 1);
+                    card.setVersion(previousVersion + 1);
+                    result = mutation.apply(card);
+                } catch (RuntimeException | Error e) {
+                    restore(card, previousBalance, previousSequence, previousVersion);
+                    work.rollback(mark);
+                    throw e;
+                }
+            }
+        } finally {
+            work.depth--;
+            work.discard(mark);
+        }
+        cardGenerations.advance(key);
+        return result;
+    }
+
+    @Override
+    public <T> List<T> updateBalances(List<String> cardIds, List<? extends BalanceMutation<T>> mutations) {
+        int legs = cardIds.size();
+        CardEntry[] entries = new CardEntry[legs];
+        for (int i = 0; i < legs; i++) {
+            long key = CardNumber.parseOrNegative(cardIds.get(i));
+            entries[i] = key < 0 ? null : cardsByNumber.get(key);
+            if (entries[i] == null) {
+                throw mutations.get(i).cardNotFound(cardIds.get(i));
+            }
+        }
+        CardEntry[] lockOrder = entries.clone();
+        Arrays.sort(lockOrder, Comparator.comparingLong(entry -> entry.key));
+
+        UnitOfWork work = unitOfWork.get();
+        int mark = work.undo.size();
+        work.depth++;
+        List<T> results = new ArrayList<>(legs);
+        try {
+            applyLocked(lockOrder, 0, () -> {
+                for (int i = 0; i < legs; i++) {
+                    CardEntry entry = entries[i];
+                    BalanceMutation<T> mutation = mutations.get(i);
+                    Card card = entry.card;
+                    BigDecimal previousBalance = card.getBalance();
+                    long previousSequence = card.getLedgerSequence();
+                    Long previousVersion = card.getVersion();
+                    // Antes de tocar la tarjeta: si esta mutacion falla tambien se deshacen las anteriores
+                    work.undo.push(() -> restore(entry.card, previousBalance, previousSequence, previousVersion));
+                    BigDecimal delta = mutation.delta(card);
+                    card.setBalance(previousBalance.add(delta));
+                    card.setLedgerSequence(previousSequence + 1);
+                    card.setVersion(previousVersion + 1);
+                    results.add(mutation.apply(card));
+                }
+            }, () -> work.rollback(mark));
+        } finally {
+            work.depth--;
+            work.discard(mark);
+        }
+        for (CardEntry entry : entries) {
+            cardGenerations.advance(entry.key);
+        }
+        return results;
+    }
+
+    // Toma los monitores de uno en uno, anidados, y ejecuta la operacion con todos tomados; si
+    // falla, deshace todavia dentro de ellos
+    private static void applyLocked(CardEntry[] lockOrder, int index, Runnable operation, Runnable rollback) {
+        if (index == lockOrder.length) {
+            try {
+                operation.run();
+            } catch (RuntimeException | Error e) {
+                rollback.run();
+                throw e;
+            }
+            return;
+        }
+        synchronized (lockOrder[index]) {
+            applyLocked(lockOrder, index + 1, operation, rollback);
+        }
+    }
+
+    @Override
+    public Optional<Transaction> findTransaction(UUID transactionId) {
+        TransactionSlot slot = transactions.get(transactionId);
+        if (slot == null) {
+            return Optional.empty();
+        }
+        synchronized (slot.owner()) {
+            Transaction transaction = copy(slot.transaction());
+            transaction.setCard(copy(slot.owner().card));
+            return Optional.of(transaction);
+        }
+    }
+
+    @Override
+    public Transaction saveTransaction(Transaction transaction) {
+        CardEntry owner = entryOf(transaction.getCard());
+        synchronized (owner) {
+            if (transaction.getId() == null) {
+                transaction.setId(UUID.randomUUID());
+            }
+            UUID id = transaction.getId();
+            Transaction stored = copy(transaction);
+            TransactionSlot previous = transactions.put(id, new TransactionSlot(owner, stored));
+            if (previous == null) {
+                owner.transactions.add(stored);
+                record(() -> {
+                    synchronized (owner) {
+                        transactions.remove(id);
+                        owner.transactions.remove(stored);
+                    }
+                });
+            } else {
+                if (previous.owner() != owner) {
+                    transactions.put(id, previous);
+                    throw new DataIntegrityViolationException("Transaction " + id + " belongs to another card");
+                }
+                int index = owner.transactions.indexOf(previous.transaction());
+                owner.transactions.set(index, stored);
+                record(() -> {
+                    synchronized (owner) {
+                        transactions.put(id, previous);
+                        owner.transactions.set(owner.transactions.indexOf(stored), previous.transaction());
+                    }
+                });
+            }
+        }
+        return transaction;
+    }
+
+    @Override
+    public List<Transaction> findTransactionsByCard(CardNumber cardNumber) {
+        CardEntry entry = cardsByNumber.get(cardNumber.longValue());
+        if (entry == null) {
+            return new ArrayList<>();
+        }
+        List<Transaction> history;
+        synchronized (entry) {
+            Card card = copy(entry.card);
+            history = new ArrayList<>(entry.transactions.size());
+            for (Transaction stored : entry.transactions) {
+                Transaction transaction = copy(stored);
+                transaction.setCard(card);
+                history.add(transaction);
+            }
+        }
+        // La hora se toma antes de entrar en la tarjeta: dos compras seguidas pueden llegar cruzadas
+        history.sort(Comparator.comparing(Transaction::getTimestamp));
+        return history;
+    }
+
+    @Override
+    public boolean markAnulated(UUID transactionId) {
+        TransactionSlot slot = transactions.get(transactionId);
+        if (slot == null) {
+            return false;
+        }
+        synchronized (slot.owner()) {
+            Transaction stored = slot.transaction();
+            if (stored.isAnulated()) {
+                return false;
+            }
+            stored.setAnulated(true);
+            record(() -> {
+                synchronized (slot.owner()) {
+                    stored.setAnulated(false);
+                }
+            });
+            return true;
+        }
+    }
+
+    @Override
+    public void saveRecharge(Recharge recharge) {
+        CardEntry owner = entryOf(recharge.getCard());
+        Recharge stored = new Recharge(null, recharge.getAmount(), recharge.getTimestamp());
+        stored.setId(recharge.getId() == null ? UUID.randomUUID() : recharge.getId());
+        recharge.setId(stored.getId());
+        synchronized (owner) {
+            owner.recharges.add(stored);
+            record(() -> {
+                synchronized (owner) {
+                    owner.recharges.remove(stored);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void forEachCardNumber(CardNumber from, CardNumber to, int pageSize, LongConsumer visitor) {
+        long first = from.longValue();
+        long last = to.longValue();
+        for (CardEntry entry : cardsByNumber.values()) {
+            if (entry.key >= first && entry.key <= last) {
+                visitor.accept(entry.key);
+            }
+        }
+    }
+
+    @Override
+    public long countCards(CardNumber from, CardNumber to) {
+        long first = from.longValue();
+        long last = to.longValue();
+        long count = 0;
+        for (CardEntry entry : cardsByNumber.values()) {
+            if (entry.key >= first && entry.key <= last) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int size() {
+        return cardsByNumber.size();
+    }
+
+    @Scheduled(fixedDelayString = "${card.store.snapshot-interval-ms:60000}",
+            initialDelayString = "${card.store.snapshot-interval-ms:60000}")
+    public void scheduledSnapshot() {
+        if (snapshotFile() == null) {
+            return;
+        }
+        try {
+            snapshot();
+        } catch (UncheckedIOException e) {
+            log.error("Card store snapshot failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (snapshotFile() != null) {
+            snapshot();
+        }
+    }
+
+    // Cada tarjeta se copia con su monitor y se escribe fuera de el: el volcado es coherente por
+    // tarjeta, no entre tarjetas. Se escribe en un temporal y se renombra
+    public synchronized void snapshot() {
+        Path path = snapshotFile();
+        if (path == null) {
+            throw new IllegalStateException("card.store.snapshot-path is not configured");
+        }
+        long start = System.currentTimeMillis();
+        List<CardEntry> entries = cardsByNumber.values();
+        List<CardStoreSnapshot.CardImage> images = new ArrayList<>(entries.size());
+        for (CardEntry entry : entries) {
+            synchronized (entry) {
+                List<Transaction> cardTransactions = new ArrayList<>(entry.transactions.size());
+                entry.transactions.forEach(transaction -> cardTransactions.add(copy(transaction)));
+                List<Recharge> recharges = new ArrayList<>(entry.recharges);
+                images.add(new CardStoreSnapshot.CardImage(copy(entry.card), cardTransactions, recharges));
+            }
+        }
+        try {
+            CardStoreSnapshot.write(path, images);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write card store snapshot " + path, e);
+        }
+        log.info("Card store snapshot of {} cards written to {} in {} ms", images.size(), path,
+                System.currentTimeMillis() - start);
+    }
+
+    private void restore(List<CardStoreSnapshot.CardImage> images) {
+        cardsByNumber.clear();
+        cardsById.clear();
+        transactions.clear();
+        for (CardStoreSnapshot.CardImage image : images) {
+            CardEntry entry = new CardEntry(image.card());
+            cardsByNumber.put(image.card().getCardNumber().longValue(), entry);
+            cardsById.put(image.card().getId(), entry);
+            for (Transaction transaction : image.transactions()) {
+                entry.transactions.add(transaction);
+                transactions.put(transaction.getId(), new TransactionSlot(entry, transaction));
+            }
+            entry.recharges.addAll(image.recharges());
+        }
+    }
+
+    private Path snapshotFile() {
+        return snapshotPath == null || snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+    }
+
+    private CardEntry entryOf(Card card) {
+        CardEntry entry = card == null || card.getCardNumber() == null
+                ? null : cardsByNumber.get(card.getCardNumber().longValue());
+        if (entry == null) {
+            throw new DataIntegrityViolationException("Card does not exist: " + (card == null ? null : card.getCardId()));
+        }
+        return entry;
+    }
+
+    // Solo dentro de updateBalance hay algo que deshacer
+    private void record(Runnable undo) {
+        UnitOfWork work = unitOfWork.get();
+        if (work.depth > 0) {
+            work.undo.push(undo);
+        }
+    }
+
+    private static void restore(Card card, BigDecimal balance, long sequence, Long version) {
+        card.setBalance(balance);
+        card.setLedgerSequence(sequence);
+        card.setVersion(version);
+    }
+
+    static Card copy(Card card) {
+        Card copy = new Card();
+        copy.setId(card.getId());
+        copy.setCardNumber(card.getCardNumber());
+        copy.setProductId(card.getProductId());
+        copy.setHolderName(card.getHolderName());
+        copy.setExpirationDate(card.getExpirationDate());
+        copy.setActive(card.isActive());
+        copy.setBlocked(card.isBlocked());
+        copy.setBalance(card.getBalance());
+        copy.setOpeningBalance(card.getOpeningBalance());
+        copy.setVersion(card.getVersion());
+        copy.setLedgerSequence(card.getLedgerSequence());
+        return copy;
+    }
+
+    // Sin la tarjeta: la referencia la pone quien lee
+    static Transaction copy(Transaction transaction) {
+        Transaction copy = new Transaction();
+        copy.setId(transaction.getId());
+        copy.setPrice(transaction.getPrice());
+        copy.setTimestamp(transaction.getTimestamp());
+        copy.setAnulated(transaction.isAnulated());
+        copy.setFinalized(transaction.isFinalized());
+        copy.setParentId(transaction.getParentId());
+        return copy;
+    }
+
+    private static final class CardEntry {
+        // El numero no cambia nunca: sirve para ordenar los bloqueos sin tomarlos
+        final long key;
+        // Protegidos por el monitor de la entrada
+        Card card;
+        final List<Transaction> transactions = new ArrayList<>();
+        final List<Recharge> recharges = new ArrayList<>();
+
+        CardEntry(Card card) {
+            this.key = card.getCardNumber().longValue();
+            this.card = card;
+        }
+    }
+
+    private record TransactionSlot(CardEntry owner, Transaction transaction) {
+    }
+
+    // Tarjetas por numero en LongObjectHashMap repartidos en franjas con su propio cerrojo, como en
+    // SingleFlight: sin boxing de la clave en cada busqueda. La franja solo se toma para leer o
+    // cambiar su mapa, nunca mientras se toma el monitor de una tarjeta
+    private static final class CardIndex {
+        private static final int STRIPES = 64;
+
+        private final LongObjectHashMap<CardEntry>[] stripes;
+
+        @SuppressWarnings("unchecked")
+        CardIndex() {
+            stripes = new LongObjectHashMap[STRIPES];
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new LongObjectHashMap<>();
+            }
+        }
+
+        CardEntry get(long key) {
+            LongObjectHashMap<CardEntry> stripe = stripe(key);
+            synchronized (stripe) {
+                return stripe.get(key);
+            }
+        }
+
+        // false si el numero ya existe
+        boolean putIfAbsent(long key, CardEntry entry) {
+            LongObjectHashMap<CardEntry> stripe = stripe(key);
+            synchronized (stripe) {
+                if (stripe.containsKey(key)) {
+                    return false;
+                }
+                stripe.put(key, entry);
+                return true;
+            }
+        }
+
+        void put(long key, CardEntry entry) {
+            LongObjectHashMap<CardEntry> stripe = stripe(key);
+            synchronized (stripe) {
+                stripe.put(key, entry);
+            }
+        }
+
+        int size() {
+            int size = 0;
+            for (LongObjectHashMap<CardEntry> stripe : stripes) {
+                synchronized (stripe) {
+                    size += stripe.size();
+                }
+            }
+            return size;
+        }
+
+        // Copia franja a franja: quien la recorre no retiene ningun cerrojo
+        List<CardEntry> values() {
+            List<CardEntry> values = new ArrayList<>(size());
+            for (LongObjectHashMap<CardEntry> stripe : stripes) {
+                synchronized (stripe) {
+                    stripe.forEach((key, entry) -> values.add(entry));
+                }
+            }
+            return values;
+        }
+
+        void clear() {
+            for (LongObjectHashMap<CardEntry> stripe : stripes) {
+                synchronized (stripe) {
+                    stripe.clear();
+                }
+            }
+        }
+
+        private LongObjectHashMap<CardEntry> stripe(long key) {
+            return stripes[(int) (key ^ (key >>> 32)) & (STRIPES - 1)];
+        }
+    }
+
+    private static final class UnitOfWork {
+        int depth;
+        final ArrayDeque<Runnable> undo = new ArrayDeque<>();
+
+        void rollback(int mark) {
+            while (undo.size() > mark) {
+                undo.pop().run();
+            }
+        }
+
+        void discard(int mark) {
+            while (undo.size() > mark) {
+                undo.pop();
+            }
+        }
+    }
+}
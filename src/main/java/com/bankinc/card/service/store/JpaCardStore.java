@@ -0,0 +1,154 @@
+package com.bankinc.card.service.store;
+
+import com.bankinc.card.model.Card;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.model.Recharge;
+import com.bankinc.card.model.Transaction;
+import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.repository.RechargeRepository;
+import com.bankinc.card.repository.TransactionRepository;
+import com.bankinc.card.service.concurrency.BalanceMutation;
+import com.bankinc.card.service.concurrency.CardBalanceUpdater;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.LongConsumer;
+
+// Motor por defecto: repositorios JPA sobre Oracle y la estrategia de concurrencia configurada,
+// que ademas deja el apunte del libro mayor en la misma transaccion
+@Component
+@ConditionalOnJpaStore
+public class JpaCardStore implements CardStore {
+
+    public static final String ENGINE = "jpa";
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private RechargeRepository rechargeRepository;
+
+    @Autowired
+    private CardBalanceUpdater cardBalanceUpdater;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CardGenerations cardGenerations;
+
+    @Override
+    public Optional<Card> findCard(CardNumber cardNumber) {
+        return cardRepository.findByCardNumber(cardNumber);
+    }
+
+    @Override
+    public Optional<Card> findCard(String cardId) {
+        return cardRepository.findByCardId(cardId);
+    }
+
+    @Override
+    public List<Card> findCards(Collection<CardNumber> cardNumbers) {
+        return cardNumbers.isEmpty() ? List.of() : cardRepository.findAllByCardNumbers(cardNumbers);
+    }
+
+    @Override
+    public Card saveCard(Card card) {
+        Card saved = cardRepository.save(card);
+        cardGenerations.advance(saved.getCardNumber().longValue());
+        return saved;
+    }
+
+    // Los mismos UPDATE condicionales que las operaciones masivas
+    @Override
+    public boolean activateCard(CardNumber cardNumber) {
+        return changed(cardNumber, transactionTemplate.execute(status -> cardRepository.activateAll(List.of(cardNumber))));
+    }
+
+    @Override
+    public boolean blockCard(CardNumber cardNumber) {
+        return changed(cardNumber, transactionTemplate.execute(status -> cardRepository.blockAll(List.of(cardNumber))));
+    }
+
+    private boolean changed(CardNumber cardNumber, int updated) {
+        if (updated == 0) {
+            return false;
+        }
+        cardGenerations.advance(cardNumber.longValue());
+        return true;
+    }
+
+    @Override
+    public long generation(CardNumber cardNumber) {
+        return cardGenerations.current(cardNumber.longValue());
+    }
+
+    // La estrategia ya confirmo su transaccion al volver
+    @Override
+    public <T> T updateBalance(String cardId, BalanceMutation<T> mutation) {
+        T result = cardBalanceUpdater.update(cardId, mutation);
+        cardGenerations.advance(CardNumber.parseOrNegative(cardId));
+        return result;
+    }
+
+    @Override
+    public <T> List<T> updateBalances(List<String> cardIds, List<? extends BalanceMutation<T>> mutations) {
+        List<T> results = cardBalanceUpdater.updateAll(cardIds, mutations);
+        for (String cardId : cardIds) {
+            cardGenerations.advance(CardNumber.parseOrNegative(cardId));
+        }
+        return results;
+    }
+
+    @Override
+    public Optional<Transaction> findTransaction(UUID transactionId) {
+        return transactionRepository.findById(transactionId);
+    }
+
+    @Override
+    public Transaction saveTransaction(Transaction transaction) {
+        return transactionRepository.save(transaction);
+    }
+
+    @Override
+    public List<Transaction> findTransactionsByCard(CardNumber cardNumber) {
+        return transactionRepository.findByCardIdOrderByTimestamp(cardNumber);
+    }
+
+    @Override
+    public boolean markAnulated(UUID transactionId) {
+        return transactionRepository.markAnulated(transactionId) > 0;
+    }
+
+    @Override
+    public void saveRecharge(Recharge recharge) {
+        rechargeRepository.save(recharge);
+    }
+
+    @Override
+    public void forEachCardNumber(CardNumber from, CardNumber to, int pageSize, LongConsumer visitor) {
+        CardNumber next = from;
+        while (next != null) {
+            List<CardNumber> page = cardRepository.findCardIdsInRange(next, to, PageRequest.of(0, pageSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            page.forEach(cardNumber -> visitor.accept(cardNumber.longValue()));
+            next = page.get(page.size() - 1).next();
+        }
+    }
+
+    @Override
+    public long countCards(CardNumber from, CardNumber to) {
+        return cardRepository.countInRange(from, to);
+    }
+}
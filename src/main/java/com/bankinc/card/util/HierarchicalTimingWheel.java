@@ -0,0 +1,110 @@
+package com.bankinc.card.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Rueda de tiempos jerarquica: alta y vencimiento en O(1) sin recorrer las entradas pendientes. El
+// nivel 0 tiene wheelSize ranuras de tickMillis; cada nivel superior cubre wheelSize ranuras del
+// anterior. Una entrada se guarda en el nivel mas bajo que la alcanza sin dar la vuelta y baja de
+// nivel (cascada) cuando el reloj entra en su ranura. Los niveles se crean a demanda.
+// Es segura entre hilos; advance() se llama desde un unico hilo temporizador
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final List<ArrayDeque<Entry<T>>[]> levels = new ArrayList<>();
+
+    // Numero de ticks del nivel 0 ya procesados desde la epoca
+    private long tick;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("tickMillis must be positive and wheelSize at least 2");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.tick = startMillis / tickMillis;
+        addLevel();
+    }
+
+    // Las entradas ya vencidas se entregan en el siguiente advance()
+    public synchronized void schedule(long expirationMillis, T item) {
+        insert(new Entry<>(Math.max(expirationMillis / tickMillis, tick), item));
+        size++;
+    }
+
+    // Entrega, en orden de tick, todas las entradas con vencimiento anterior a nowMillis
+    public void advance(long nowMillis, Consumer<T> expired) {
+        List<T> due = new ArrayList<>();
+        synchronized (this) {
+            long target = nowMillis / tickMillis;
+            while (tick < target) {
+                cascade();
+                ArrayDeque<Entry<T>> bucket = levels.get(0)[(int) (tick % wheelSize)];
+                for (Entry<T> entry; (entry = bucket.poll()) != null; ) {
+                    due.add(entry.item());
+                }
+                tick++;
+            }
+            size -= due.size();
+        }
+        // Fuera del bloqueo: el consumidor puede programar nuevas entradas
+        due.forEach(expired);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // Al entrar en una ranura de un nivel superior sus entradas se redistribuyen en los inferiores
+    private void cascade() {
+        for (int level = levels.size() - 1; level >= 1; level--) {
+            long span = span(level);
+            if (tick % span != 0) {
+                continue;
+            }
+            ArrayDeque<Entry<T>> bucket = levels.get(level)[(int) ((tick / span) % wheelSize)];
+            if (bucket.isEmpty()) {
+                continue;
+            }
+            List<Entry<T>> entries = new ArrayList<>(bucket);
+            bucket.clear();
+            entries.forEach(this::insert);
+        }
+    }
+
+    private void insert(Entry<T> entry) {
+        int level = 0;
+        while ((entry.tick() / span(level)) - (tick / span(level)) >= wheelSize) {
+            level++;
+            if (level == levels.size()) {
+                addLevel();
+            }
+        }
+        levels.get(level)[(int) ((entry.tick() / span(level)) % wheelSize)].add(entry);
+    }
+
+    // Ticks del nivel 0 que cubre una ranura del nivel indicado
+    private long span(int level) {
+        long span = 1;
+        for (int i = 0; i < level; i++) {
+            span *= wheelSize;
+        }
+        return span;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addLevel() {
+        ArrayDeque<Entry<T>>[] buckets = new ArrayDeque[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        levels.add(buckets);
+    }
+
+    private record Entry<T>(long tick, T item) {
+    }
+}
@@ -0,0 +1,97 @@
+package com.bankinc.card.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Filtro de Bloom sobre claves long, seguro entre hilos y sin asignar memoria por operacion.
+// "No contiene" es definitivo; "puede contener" se equivoca con la probabilidad de falsos
+// positivos pedida mientras no se supere la capacidad (despues crece rapido)
+public final class LongBloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    private final long capacity;
+    private final AtomicLong size = new AtomicLong();
+
+    public LongBloomFilter(long capacity, double falsePositiveRate) {
+        if (capacity <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter sizing: " + capacity + ", " + falsePositiveRate);
+        }
+        long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (LN2 * LN2));
+        long wordCount = Math.max(1, (optimalBits + 63) >>> 6);
+        if (wordCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bloom filter too large for capacity " + capacity);
+        }
+        this.words = new AtomicLongArray((int) wordCount);
+        this.bits = wordCount << 6;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / capacity * LN2));
+        this.capacity = capacity;
+    }
+
+    public boolean mightContain(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = index(h1 + i * h2);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // true si la clave no estaba (se ha encendido algun bit). Dos hilos que insertan la misma clave
+    // a la vez pueden recibir true ambos: quien necesite unicidad estricta debe tener otra garantia
+    public boolean put(long key) {
+        long h1 = mix(key);
+        long h2 = mix(h1) | 1;
+        boolean changed = false;
+        for (int i = 0; i < hashes; i++) {
+            long bit = index(h1 + i * h2);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0) {
+                if (words.compareAndSet(word, current, current | mask)) {
+                    changed = true;
+                    break;
+                }
+                current = words.get(word);
+            }
+        }
+        if (changed) {
+            size.incrementAndGet();
+        }
+        return changed;
+    }
+
+    // Claves distintas insertadas (aproximado: no cuenta las que parecian repetidas)
+    public long size() {
+        return size.get();
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    public long bytes() {
+        return bits >>> 3;
+    }
+
+    private long index(long hash) {
+        return (hash & Long.MAX_VALUE) % bits;
+    }
+
+    // Finalizador de MurmurHash3: los numeros de tarjeta consecutivos quedan bien repartidos
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,116 @@
+package com.bankinc.card.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Agrupa lecturas concurrentes de la misma clave: el primero ejecuta la carga y los que llegan
+// mientras tanto esperan y reciben su mismo resultado (o su misma excepcion). No es una cache: en
+// cuanto la carga termina, la siguiente peticion vuelve a ir a la base. Con generacion, una llamada
+// solo se suma a una carga empezada con la misma generacion o una posterior: la que llega despues de
+// confirmarse una escritura no recibe una lectura que pudo hacerse antes de ella. Las llamadas en
+// curso se guardan en LongObjectHashMap repartidos en franjas con su propio cerrojo, sin boxing de la clave
+public class SingleFlight<V> {
+
+    private static final int STRIPES = 16;
+
+    private final Stripe<V>[] stripes;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public SingleFlight() {
+        stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe<>();
+        }
+    }
+
+    public V execute(long key, Supplier<V> loader) {
+        return execute(key, 0, loader);
+    }
+
+    public V execute(long key, long generation, Supplier<V> loader) {
+        calls.increment();
+        Stripe<V> stripe = stripes[(int) (key ^ (key >>> 32)) & (STRIPES - 1)];
+        Call<V> call;
+        boolean leader = false;
+        synchronized (stripe) {
+            call = stripe.inFlight.get(key);
+            if (call == null || call.generation < generation) {
+                // La carga anterior sigue para quien ya espera en ella; los nuevos esperan en esta
+                call = new Call<>(generation);
+                stripe.inFlight.put(key, call);
+                leader = true;
+            }
+        }
+        if (!leader) {
+            shared.increment();
+            return await(call.result);
+        }
+
+        // Se retira antes de publicar el resultado: quien llegue despues hace su propia lectura
+        V value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error e) {
+            remove(stripe, key, call);
+            call.result.completeExceptionally(e);
+            throw e;
+        }
+        remove(stripe, key, call);
+        call.result.complete(value);
+        return value;
+    }
+
+    private static <V> V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Solo si sigue siendo la suya: una carga de una generacion posterior pudo sustituirla
+    private void remove(Stripe<V> stripe, long key, Call<V> call) {
+        synchronized (stripe) {
+            if (stripe.inFlight.get(key) == call) {
+                stripe.inFlight.remove(key);
+            }
+        }
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    // Llamadas que no fueron a la base porque se sumaron a una carga en curso
+    public long getShared() {
+        return shared.sum();
+    }
+
+    public double coalescingRatio() {
+        long total = calls.sum();
+        return total == 0 ? 0 : (double) shared.sum() / total;
+    }
+
+    private static final class Call<V> {
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private final long generation;
+
+        private Call(long generation) {
+            this.generation = generation;
+        }
+    }
+
+    private static final class Stripe<V> {
+        private final LongObjectHashMap<Call<V>> inFlight = new LongObjectHashMap<>();
+    }
+}
@@ -0,0 +1,165 @@
+package com.bankinc.card.benchmark;
+
+import com.bankinc.card.binary.BinaryAuthorizationClient;
+import com.bankinc.card.binary.BinaryAuthorizationResponse;
+import com.bankinc.card.binary.BinaryAuthorizationServer;
+import com.bankinc.card.model.Card;
+import com.bankinc.card.repository.CardRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Misma carga por REST (JSON sobre HTTP/1.1, un hilo por peticion en curso) y por el protocolo binario
+// (una conexion con peticiones encadenadas). Se ejecuta con:
+// mvn test -Pbenchmark -Dtest=BinaryProtocolBenchmarkTest
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:binary;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000",
+        "spring.datasource.hikari.maximum-pool-size=16",
+        "spring.jpa.show-sql=false",
+        "card.binary.enabled=true",
+        "card.binary.port=0"
+})
+class BinaryProtocolBenchmarkTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("bench.concurrency", 16);
+    private static final int INQUIRIES = 8_000;
+    private static final int PURCHASES = 2_000;
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int CARDS = 200;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000.00");
+
+    @LocalServerPort
+    private int httpPort;
+
+    @Autowired
+    private BinaryAuthorizationServer binaryServer;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @Test
+    @DisplayName("Throughput of balance inquiries and purchases over REST and the binary protocol")
+    void restVersusBinary() throws Exception {
+        List<String> cards = createCards();
+        try (BinaryAuthorizationClient client = new BinaryAuthorizationClient("localhost", binaryServer.getPort())) {
+            // Calentamiento del JIT en ambos caminos
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                rest(cards, INQUIRIES / 4, false);
+                binary(client, cards, INQUIRIES / 4, false);
+            }
+
+            System.out.printf("concurrency=%d%n", CONCURRENCY);
+            System.out.printf("%-10s %-10s %12s %12s%n", "path", "operation", "ops/s", "avg us");
+            report("rest", "balance", INQUIRIES, rest(cards, INQUIRIES, false));
+            report("binary", "balance", INQUIRIES, binary(client, cards, INQUIRIES, false));
+            report("rest", "purchase", PURCHASES, rest(cards, PURCHASES, true));
+            report("binary", "purchase", PURCHASES, binary(client, cards, PURCHASES, true));
+
+            // Las compras por ambos caminos deben quedar reflejadas en el saldo consultado por binario
+            long spent = 0;
+            for (String cardId : cards) {
+                BinaryAuthorizationResponse balance = client.balance(cardId).get(10, TimeUnit.SECONDS);
+                spent += INITIAL_BALANCE.movePointRight(2).longValueExact() - balance.getAmountMinor();
+            }
+            assertThat(spent).isEqualTo(2L * PURCHASES);
+        }
+    }
+
+    private long rest(List<String> cards, int operations, boolean purchase) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        AtomicLong remaining = new AtomicLong(operations);
+        long begin = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < CONCURRENCY; t++) {
+            futures.add(executor.submit(() -> {
+                while (remaining.decrementAndGet() >= 0) {
+                    String cardId = cards.get(ThreadLocalRandom.current().nextInt(cards.size()));
+                    HttpRequest request = purchase
+                            ? HttpRequest.newBuilder(URI.create("http://localhost:" + httpPort + "/transaction/purchase"))
+                                    .header("Content-Type", "application/json")
+                                    .POST(HttpRequest.BodyPublishers.ofString(
+                                            "{\"cardId\":\"" + cardId + "\",\"price\":0.01}"))
+                                    .build()
+                            : HttpRequest.newBuilder(URI.create("http://localhost:" + httpPort + "/card/balance/" + cardId))
+                                    .build();
+                    HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                    assertThat(response.statusCode()).isEqualTo(200);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        return System.nanoTime() - begin;
+    }
+
+    private long binary(BinaryAuthorizationClient client, List<String> cards, int operations, boolean purchase)
+            throws Exception {
+        Semaphore window = new Semaphore(CONCURRENCY);
+        List<CompletableFuture<BinaryAuthorizationResponse>> futures = new ArrayList<>(operations);
+        long begin = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            String cardId = cards.get(ThreadLocalRandom.current().nextInt(cards.size()));
+            window.acquire();
+            CompletableFuture<BinaryAuthorizationResponse> future = purchase
+                    ? client.purchase(cardId, 1)
+                    : client.balance(cardId);
+            futures.add(future.whenComplete((response, error) -> window.release()));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - begin;
+        for (CompletableFuture<BinaryAuthorizationResponse> future : futures) {
+            assertThat(future.get().isApproved()).isTrue();
+        }
+        return elapsed;
+    }
+
+    private static void report(String path, String operation, int operations, long elapsedNanos) {
+        System.out.printf("%-10s %-10s %,12.0f %12.1f%n", path, operation, operations * 1e9 / elapsedNanos,
+                elapsedNanos / 1e3 / operations * CONCURRENCY);
+    }
+
+    private List<String> createCards() {
+        List<Card> cards = new ArrayList<>(CARDS);
+        for (int i = 0; i < CARDS; i++) {
+            Card card = new Card();
+            card.setCardId(String.format("%016d", ThreadLocalRandom.current().nextLong(10_000_000_000_000_000L)));
+            card.setProductId(card.getCardId().substring(0, 6));
+            card.setHolderName("Benchmark Holder");
+            card.setExpirationDate("12/2099");
+            card.setActive(true);
+            card.setBlocked(false);
+            card.setBalance(INITIAL_BALANCE);
+            cards.add(card);
+        }
+        return cardRepository.saveAll(cards).stream().map(Card::getCardId).toList();
+    }
+}
@@ -0,0 +1,190 @@
+package com.bankinc.card.benchmark;
+
+import com.bankinc.card.model.Card;
+import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.service.CardService;
+import com.bankinc.card.service.TransactionService;
+import com.bankinc.card.service.concurrency.AtomicBalanceUpdateStrategy;
+import com.bankinc.card.service.concurrency.BalanceUpdateStrategy;
+import com.bankinc.card.service.concurrency.CardBalanceUpdater;
+import com.bankinc.card.service.concurrency.OptimisticBalanceUpdateStrategy;
+import com.bankinc.card.service.concurrency.PessimisticBalanceUpdateStrategy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Contencion sobre H2: compras, recargas y anulaciones concurrentes con distintas proporciones de
+// tarjetas "calientes". Se ejecuta con: mvn test -Pbenchmark -Dtest=ConcurrencyStrategyBenchmarkTest
+@Tag("benchmark")
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:contention;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000",
+        "spring.datasource.hikari.maximum-pool-size=16",
+        "spring.jpa.show-sql=false",
+        // Con 8 hilos sobre 4 tarjetas calientes los 5 intentos por defecto se agotan y la estrategia
+        // optimista rechaza operaciones validas; aqui se mide el coste de los reintentos, no ese limite
+        "card.concurrency.max-attempts=50"
+})
+class ConcurrencyStrategyBenchmarkTest {
+
+    private static final int THREADS = Integer.getInteger("bench.threads", 8);
+    private static final int OPERATIONS_PER_THREAD = 1000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int COLD_CARDS = 400;
+    private static final int HOT_CARDS = 4;
+    private static final double[] HOT_RATIOS = {0.0, 0.5, 0.95};
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private CardBalanceUpdater cardBalanceUpdater;
+
+    @Autowired
+    private OptimisticBalanceUpdateStrategy optimistic;
+
+    @Autowired
+    private PessimisticBalanceUpdateStrategy pessimistic;
+
+    @Autowired
+    private AtomicBalanceUpdateStrategy atomic;
+
+    @Test
+    @DisplayName("Throughput and retry rate per concurrency strategy and hot-card ratio")
+    void contention() throws Exception {
+        BalanceUpdateStrategy configured = cardBalanceUpdater.getStrategy();
+        System.out.printf("threads=%d operations/thread=%d%n", THREADS, OPERATIONS_PER_THREAD);
+        System.out.printf("%-12s %6s %12s %10s %10s %8s%n", "strategy", "hot", "ops/s", "retries/op", "failed", "drift");
+        try {
+            // Calentamiento del JIT y de los planes de Hibernate antes de medir
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                for (BalanceUpdateStrategy strategy : List.of(optimistic, pessimistic, atomic)) {
+                    ReflectionTestUtils.setField(cardBalanceUpdater, "strategy", strategy);
+                    run(strategy, 0.5, false);
+                }
+            }
+            for (BalanceUpdateStrategy strategy : List.of(optimistic, pessimistic, atomic)) {
+                ReflectionTestUtils.setField(cardBalanceUpdater, "strategy", strategy);
+                for (double hotRatio : HOT_RATIOS) {
+                    run(strategy, hotRatio, true);
+                }
+            }
+        } finally {
+            ReflectionTestUtils.setField(cardBalanceUpdater, "strategy", configured);
+        }
+    }
+
+    private void run(BalanceUpdateStrategy strategy, double hotRatio, boolean report) throws Exception {
+        List<String> cold = createCards(COLD_CARDS);
+        List<String> hot = createCards(HOT_CARDS);
+        long attemptsBefore = strategy.getAttempts();
+        long retriesBefore = strategy.getRetries();
+        AtomicLong succeeded = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        AtomicLong expectedDelta = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                List<String[]> purchases = new ArrayList<>();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    List<String> pool = random.nextDouble() < hotRatio ? hot : cold;
+                    String cardId = pool.get(random.nextInt(pool.size()));
+                    int operation = random.nextInt(10);
+                    try {
+                        if (operation == 0) {
+                            cardService.rechargeBalance(cardId, AMOUNT);
+                            expectedDelta.addAndGet(100);
+                        } else if (operation == 1 && !purchases.isEmpty()) {
+                            String[] purchase = purchases.remove(purchases.size() - 1);
+                            transactionService.anulateTransaction(purchase[0], UUID.fromString(purchase[1]));
+                            expectedDelta.addAndGet(100);
+                        } else {
+                            UUID id = transactionService.purchase(cardId, AMOUNT);
+                            purchases.add(new String[] {cardId, id.toString()});
+                            expectedDelta.addAndGet(-100);
+                        }
+                        succeeded.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.MINUTES)).isTrue();
+        long elapsed = System.nanoTime() - begin;
+
+        long operations = strategy.getAttempts() - attemptsBefore;
+        long retries = strategy.getRetries() - retriesBefore;
+        long drift = totalCents(cold, hot) - expectedDelta.get();
+        if (report) {
+            System.out.printf("%-12s %6.2f %,12.0f %10.3f %10d %8d%n", strategy.name(), hotRatio,
+                    succeeded.get() * 1e9 / elapsed, operations == 0 ? 0.0 : (double) retries / (operations - retries),
+                    failed.get(), drift);
+        }
+
+        // Ninguna estrategia puede perder actualizaciones de saldo ni rechazar por la contencion
+        assertThat(drift).isZero();
+        assertThat(failed.get()).isZero();
+    }
+
+    private long totalCents(List<String> cold, List<String> hot) {
+        long total = 0;
+        for (List<String> cardIds : List.of(cold, hot)) {
+            for (String cardId : cardIds) {
+                BigDecimal balance = cardRepository.findByCardId(cardId).orElseThrow().getBalance();
+                total += balance.subtract(INITIAL_BALANCE).movePointRight(2).longValueExact();
+            }
+        }
+        return total;
+    }
+
+    private List<String> createCards(int count) {
+        List<Card> cards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Card card = new Card();
+            card.setCardId(String.format("%016d", ThreadLocalRandom.current().nextLong(10_000_000_000_000_000L)));
+            card.setProductId(card.getCardId().substring(0, 6));
+            card.setHolderName("Benchmark Holder");
+            card.setExpirationDate("12/2099");
+            card.setActive(true);
+            card.setBlocked(false);
+            card.setBalance(INITIAL_BALANCE);
+            cards.add(card);
+        }
+        return cardRepository.saveAll(cards).stream().map(Card::getCardId).toList();
+    }
+}
@@ -0,0 +1,210 @@
+package com.bankinc.card.benchmark;
+
+import com.bankinc.card.dto.ErrorResponse;
+import com.bankinc.card.exceptions.BusinessException;
+import com.bankinc.card.model.Card;
+import com.bankinc.card.model.LedgerEntryType;
+import com.bankinc.card.service.TransactionService;
+import com.bankinc.card.service.concurrency.BalanceMutation;
+import com.bankinc.card.service.directory.CardDirectory;
+import com.bankinc.card.service.lifecycle.AuthorizationGate;
+import com.bankinc.card.service.stats.PurchaseStats;
+import com.bankinc.card.service.store.InMemoryCardStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Trafico de rechazos (bloqueada, inactiva, vencida, sin fondos) contra TransactionService.
+// Se ejecuta con: mvn test -Pbenchmark -Dtest=DeclinePathBenchmarkTest
+@Tag("benchmark")
+class DeclinePathBenchmarkTest {
+
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int WARMUP_ITERATIONS = 200_000;
+    private static final int MEASURED_ITERATIONS = 1_000_000;
+    private static final BigDecimal PRICE = new BigDecimal("100");
+
+    @Test
+    @DisplayName("Decline-heavy traffic: stackless declines vs stack-capturing exceptions")
+    void declineHeavyTraffic() throws Exception {
+        Map<String, Card> cards = Map.of(
+                "0000000000000001", card("0000000000000001", false, false, "12/99", "1000"),
+                "0000000000000002", card("0000000000000002", true, true, "12/99", "1000"),
+                "0000000000000003", card("0000000000000003", true, false, "01/00", "1000"),
+                "0000000000000004", card("0000000000000004", true, false, "12/99", "10"));
+        String[] cardIds = cards.keySet().toArray(String[]::new);
+
+        TransactionService transactionService = new TransactionService();
+        // Directorio sin cargar: se mide el rechazo dentro del almacen en memoria
+        ReflectionTestUtils.setField(transactionService, "cardDirectory", new CardDirectory(1));
+        ReflectionTestUtils.setField(transactionService, "purchaseStats", new PurchaseStats());
+        ReflectionTestUtils.setField(transactionService, "authorizationGate", new AuthorizationGate());
+        InMemoryCardStore cardStore = new InMemoryCardStore();
+        cards.values().forEach(cardStore::saveCard);
+        ReflectionTestUtils.setField(transactionService, "cardStore", cardStore);
+
+        Runnable stackless = declineLoop(cardIds, transactionService);
+        Runnable withStackTrace = legacyDeclineLoop(cardIds, cardStore);
+
+        run("warm-up stackless", stackless, WARMUP_ITERATIONS);
+        run("warm-up stack trace", withStackTrace, WARMUP_ITERATIONS);
+
+        Result legacy = run("stack-capturing exceptions", withStackTrace, MEASURED_ITERATIONS);
+        Result current = run("stackless preallocated declines", stackless, MEASURED_ITERATIONS);
+
+        System.out.printf("Decline path speed-up: %.1fx, allocation reduction: %.1fx%n",
+                legacy.nanosPerOp() / current.nanosPerOp(),
+                legacy.bytesPerOp() / Math.max(1.0, current.bytesPerOp()));
+        assertThat(current.declines()).isEqualTo((long) MEASURED_ITERATIONS * THREADS);
+    }
+
+    private Runnable declineLoop(String[] cardIds, TransactionService transactionService) {
+        return () -> {
+            int i = ThreadLocalIndex.next();
+            try {
+                transactionService.purchase(cardIds[i & 3], PRICE);
+            } catch (BusinessException e) {
+                Sink.consume(e.getErrorResponse());
+            }
+        };
+    }
+
+    // Reproduce el camino anterior sobre el mismo almacen: validacion con excepciones que capturan
+    // su stack trace en el punto del rechazo, vencimiento con split/parseInt, mensaje concatenado y
+    // un cuerpo de respuesta nuevo por rechazo
+    private Runnable legacyDeclineLoop(String[] cardIds, InMemoryCardStore cardStore) {
+        return () -> {
+            int i = ThreadLocalIndex.next();
+            try {
+                cardStore.updateBalance(cardIds[i & 3], new BalanceMutation<UUID>() {
+                    @Override
+                    public BigDecimal delta(Card card) {
+                        legacyValidate(card, PRICE, LocalDateTime.now());
+                        return PRICE.negate();
+                    }
+
+                    @Override
+                    public UUID apply(Card card) {
+                        throw new IllegalStateException("Every benchmark card declines");
+                    }
+
+                    @Override
+                    public LedgerEntryType entryType() {
+                        return LedgerEntryType.PURCHASE;
+                    }
+                });
+            } catch (LegacyDecline e) {
+                Sink.consume(new ErrorResponse(e.getMessage()));
+            }
+        };
+    }
+
+    private static void legacyValidate(Card card, BigDecimal price, LocalDateTime now) {
+        if (!card.isActive()) {
+            throw new LegacyDecline("Card is not activated");
+        }
+        if (card.isBlocked()) {
+            throw new LegacyDecline("Card is blocked");
+        }
+        String[] parts = card.getExpirationDate().split("/");
+        LocalDateTime expiration = LocalDateTime.of(2000 + Integer.parseInt(parts[1]), Integer.parseInt(parts[0]), 1, 0, 0)
+                .plusMonths(1).minusSeconds(1);
+        if (now.isAfter(expiration)) {
+            throw new LegacyDecline("Card is expired");
+        }
+        if (card.getBalance().compareTo(price) < 0) {
+            throw new LegacyDecline("Insufficient funds: available balance is " + card.getBalance());
+        }
+    }
+
+    // Excepcion de negocio como las de antes: RuntimeException con stack trace completo
+    private static final class LegacyDecline extends RuntimeException {
+        LegacyDecline(String message) {
+            super(message);
+        }
+    }
+
+    private Result run(String name, Runnable operation, int iterations) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong allocated = new AtomicLong();
+        AtomicLong declines = new AtomicLong();
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                long before = threads.getCurrentThreadAllocatedBytes();
+                for (int i = 0; i < iterations; i++) {
+                    operation.run();
+                }
+                allocated.addAndGet(threads.getCurrentThreadAllocatedBytes() - before);
+                declines.addAndGet(iterations);
+                return null;
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+        long elapsed = System.nanoTime() - begin;
+
+        Result result = new Result(declines.get(), elapsed, allocated.get());
+        System.out.printf("%-32s threads=%d ops=%d throughput=%,.0f ops/s latency=%.0f ns/op alloc=%.0f B/op%n",
+                name, THREADS, result.declines(), result.declines() * 1e9 / elapsed,
+                result.nanosPerOp(), result.bytesPerOp());
+        return result;
+    }
+
+    private static Card card(String cardId, boolean active, boolean blocked, String expiration, String balance) {
+        Card card = new Card();
+        card.setCardId(cardId);
+        card.setActive(active);
+        card.setBlocked(blocked);
+        card.setExpirationDate(expiration);
+        card.setBalance(new BigDecimal(balance));
+        return card;
+    }
+
+    private record Result(long declines, long elapsedNanos, long allocatedBytes) {
+        double nanosPerOp() {
+            return (double) elapsedNanos * THREADS / declines;
+        }
+
+        double bytesPerOp() {
+            return (double) allocatedBytes / declines;
+        }
+    }
+
+    private static final class ThreadLocalIndex {
+        private static final ThreadLocal<int[]> COUNTER = ThreadLocal.withInitial(() -> new int[1]);
+
+        static int next() {
+            return COUNTER.get()[0]++;
+        }
+    }
+
+    private static final class Sink {
+        private static volatile Object last;
+
+        static void consume(Object value) {
+            last = value;
+        }
+    }
+}
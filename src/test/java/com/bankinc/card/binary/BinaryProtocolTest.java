@@ -0,0 +1,102 @@
+package com.bankinc.card.binary;
+
+import com.bankinc.card.exceptions.CardBlockedException;
+import com.bankinc.card.exceptions.InsufficientFundsException;
+import com.bankinc.card.exceptions.InvalidTransactionException;
+import com.bankinc.card.exceptions.TransactionProcessingException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BinaryProtocolTest {
+
+    private static final String VALID_CARD_ID = "1234567890123456";
+
+    @Nested
+    @DisplayName("Frame Decoding Tests")
+    class FrameDecodingTests {
+        @Test
+        @DisplayName("Should decode pipelined requests split across reads")
+        void decode_PipelinedRequests() {
+            UUID transactionId = UUID.randomUUID();
+            ByteBuf bytes = Unpooled.buffer();
+            BinaryProtocol.writeRequest(new BinaryAuthorizationRequest(BinaryProtocol.TYPE_PURCHASE, 1,
+                    VALID_CARD_ID, 12_345, null), bytes);
+            BinaryProtocol.writeRequest(new BinaryAuthorizationRequest(BinaryProtocol.TYPE_ANULATION, 2,
+                    VALID_CARD_ID, 0, transactionId), bytes);
+            EmbeddedChannel channel = new EmbeddedChannel(BinaryProtocol.frameDecoder(),
+                    new BinaryProtocol.RequestDecoder());
+
+            // Se entrega en dos trozos que no coinciden con los limites de trama
+            channel.writeInbound(bytes.readRetainedSlice(30));
+            assertThat((Object) channel.readInbound()).isNull();
+            channel.writeInbound(bytes);
+
+            BinaryAuthorizationRequest purchase = channel.readInbound();
+            BinaryAuthorizationRequest anulation = channel.readInbound();
+            assertThat(purchase.getType()).isEqualTo(BinaryProtocol.TYPE_PURCHASE);
+            assertThat(purchase.getCorrelationId()).isEqualTo(1);
+            assertThat(purchase.getCardId()).isEqualTo(VALID_CARD_ID);
+            assertThat(purchase.getAmountMinor()).isEqualTo(12_345);
+            assertThat(anulation.getCorrelationId()).isEqualTo(2);
+            assertThat(anulation.getTransactionId()).isEqualTo(transactionId);
+        }
+
+        @Test
+        @DisplayName("Should answer a frame with a non-numeric card id as an invalid request")
+        void decode_InvalidCardId() {
+            ByteBuf bytes = Unpooled.buffer();
+            BinaryProtocol.writeRequest(new BinaryAuthorizationRequest(BinaryProtocol.TYPE_BALANCE, 7,
+                    "12345678901234AB", 0, null), bytes);
+            EmbeddedChannel channel = new EmbeddedChannel(BinaryProtocol.frameDecoder(),
+                    new BinaryProtocol.RequestDecoder());
+
+            channel.writeInbound(bytes);
+
+            BinaryAuthorizationResponse response = channel.readInbound();
+            assertThat(response.getCorrelationId()).isEqualTo(7);
+            assertThat(response.getStatus()).isEqualTo(BinaryProtocol.STATUS_INVALID_REQUEST);
+        }
+
+        @Test
+        @DisplayName("Should round-trip a response through the encoder and decoder")
+        void response_RoundTrip() {
+            UUID transactionId = UUID.randomUUID();
+            EmbeddedChannel server = new EmbeddedChannel(new BinaryProtocol.ResponseEncoder());
+            EmbeddedChannel client = new EmbeddedChannel(BinaryProtocol.frameDecoder(),
+                    new BinaryProtocol.ResponseDecoder());
+
+            server.writeOutbound(new BinaryAuthorizationResponse(BinaryProtocol.TYPE_PURCHASE, 42,
+                    BinaryProtocol.STATUS_APPROVED, 10_000, transactionId));
+            ByteBuf encoded = server.readOutbound();
+            assertThat(encoded.readableBytes()).isEqualTo(2 + BinaryProtocol.RESPONSE_LENGTH);
+            client.writeInbound(encoded);
+
+            BinaryAuthorizationResponse response = client.readInbound();
+            assertThat(response.isApproved()).isTrue();
+            assertThat(response.getCorrelationId()).isEqualTo(42);
+            assertThat(response.getAmountMinor()).isEqualTo(10_000);
+            assertThat(response.getTransactionId()).isEqualTo(transactionId);
+        }
+    }
+
+    @Test
+    @DisplayName("Should map business declines to protocol status codes")
+    void statusOf_BusinessExceptions() {
+        assertThat(BinaryAuthorizationHandler.statusOf(new InsufficientFundsException("Insufficient funds")))
+                .isEqualTo(BinaryProtocol.STATUS_INSUFFICIENT_FUNDS);
+        assertThat(BinaryAuthorizationHandler.statusOf(CardBlockedException.BLOCKED))
+                .isEqualTo(BinaryProtocol.STATUS_CARD_BLOCKED);
+        assertThat(BinaryAuthorizationHandler.statusOf(TransactionProcessingException.ALREADY_ANULATED))
+                .isEqualTo(BinaryProtocol.STATUS_TRANSACTION_REJECTED);
+        assertThat(BinaryAuthorizationHandler.statusOf(InvalidTransactionException.NON_POSITIVE_AMOUNT))
+                .isEqualTo(BinaryProtocol.STATUS_INVALID_REQUEST);
+    }
+}
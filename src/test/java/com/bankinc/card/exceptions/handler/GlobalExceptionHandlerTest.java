@@ -0,0 +1,38 @@
+package com.bankinc.card.exceptions.handler;
+
+import com.bankinc.card.dto.ErrorResponse;
+import com.bankinc.card.exceptions.TransactionProcessingException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    @Test
+    @DisplayName("Should answer processing declines with their cached body and an explicit status")
+    void handleTransactionProcessing_Status() {
+        assertStatus(TransactionProcessingException.CONCURRENT_UPDATE, HttpStatus.CONFLICT);
+        assertStatus(TransactionProcessingException.ALREADY_ANULATED, HttpStatus.CONFLICT);
+        assertStatus(TransactionProcessingException.HOLD_ALREADY_SETTLED, HttpStatus.CONFLICT);
+        assertStatus(TransactionProcessingException.ANULATION_NOT_FOUND, HttpStatus.NOT_FOUND);
+        assertStatus(TransactionProcessingException.HOLD_NOT_FOUND, HttpStatus.NOT_FOUND);
+        assertStatus(TransactionProcessingException.ANULATION_WINDOW_CLOSED, HttpStatus.BAD_REQUEST);
+        assertStatus(TransactionProcessingException.ANULATION_NOT_CARD_OWNER, HttpStatus.BAD_REQUEST);
+        assertStatus(TransactionProcessingException.HOLD_NOT_CARD_OWNER, HttpStatus.BAD_REQUEST);
+        assertStatus(TransactionProcessingException.HOLD_EXPIRED, HttpStatus.BAD_REQUEST);
+        assertStatus(new TransactionProcessingException("Error processing transaction anulation: Card is blocked"), HttpStatus.BAD_REQUEST);
+    }
+
+    private void assertStatus(TransactionProcessingException ex, HttpStatus status) {
+        ResponseEntity<ErrorResponse> response = handler.handleTransactionProcessing(ex);
+
+        assertThat(response.getStatusCode()).isEqualTo(status);
+        // La respuesta preasignada, sin construir otra por rechazo
+        assertThat(response.getBody()).isSameAs(ex.getErrorResponse());
+    }
+}
@@ -0,0 +1,55 @@
+package com.bankinc.card.model;
+
+import com.bankinc.card.exceptions.InvalidCardNumberException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CardNumberTest {
+
+    @Test
+    @DisplayName("Should round-trip leading zeros and keep numeric and column order aligned")
+    void parse_RoundTripAndOrder() {
+        CardNumber low = CardNumber.parse("0000120000000042");
+        CardNumber high = CardNumber.parse("1234567890123456");
+
+        assertThat(low.longValue()).isEqualTo(120000000042L);
+        assertThat(low.toString()).isEqualTo("0000120000000042");
+        assertThat(low.productId()).isEqualTo("000012");
+        assertThat(low.compareTo(high)).isNegative();
+        assertThat(low.toString().compareTo(high.toString())).isNegative();
+        assertThat(CardNumber.parse("1234567890123456")).isEqualTo(high).hasSameHashCodeAs(high);
+    }
+
+    @Test
+    @DisplayName("Should reject anything that is not exactly 16 digits")
+    void parse_RejectsInvalidText() {
+        for (String invalid : new String[] {"123456789012345", "12345678901234567", "12345678901234a6", "-234567890123456"}) {
+            assertThat(CardNumber.isValid(invalid)).isFalse();
+            assertThat(CardNumber.tryParse(invalid)).isEmpty();
+            assertThatThrownBy(() -> CardNumber.parse(invalid)).isInstanceOf(InvalidCardNumberException.class);
+        }
+        assertThat(CardNumber.tryParse(null)).isEmpty();
+        assertThatThrownBy(() -> CardNumber.of(CardNumber.MAX_VALUE + 1)).isInstanceOf(InvalidCardNumberException.class);
+    }
+
+    @Test
+    @DisplayName("Should validate and compute the Luhn check digit")
+    void luhn() {
+        assertThat(CardNumber.parse("4539578763621486").isLuhnValid()).isTrue();
+        assertThat(CardNumber.parse("4539578763621487").isLuhnValid()).isFalse();
+        assertThat(CardNumber.luhnCheckDigit(453957876362148L)).isEqualTo(6);
+        assertThat(CardNumber.parse("0000000000000000").isLuhnValid()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should cover a product with inclusive bounds and stop after the last number")
+    void productBoundsAndNext() {
+        assertThat(CardNumber.firstOfProduct("123456").toString()).isEqualTo("1234560000000000");
+        assertThat(CardNumber.lastOfProduct("123456").toString()).isEqualTo("1234569999999999");
+        assertThat(CardNumber.parse("1234560000000009").next().toString()).isEqualTo("1234560000000010");
+        assertThat(CardNumber.MAX.next()).isNull();
+    }
+}
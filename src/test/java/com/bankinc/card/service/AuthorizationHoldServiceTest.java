@@ -0,0 +1,241 @@
+package com.bankinc.card.service;
+
+import com.bankinc.card.exceptions.*;
+import com.bankinc.card.model.AuthorizationHold;
+import com.bankinc.card.model.Card;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.model.HoldStatus;
+import com.bankinc.card.model.Transaction;
+import com.bankinc.card.repository.AuthorizationHoldRepository;
+import com.bankinc.card.repository.TransactionRepository;
+import com.bankinc.card.service.concurrency.BalanceMutation;
+import com.bankinc.card.service.concurrency.CardBalanceUpdater;
+import com.bankinc.card.service.expiry.ExpiryKind;
+import com.bankinc.card.service.expiry.ExpiryScheduler;
+import com.bankinc.card.service.lifecycle.AuthorizationGate;
+import com.bankinc.card.service.partition.CardOwnershipGuard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuthorizationHoldServiceTest {
+
+    @Mock
+    private AuthorizationHoldRepository holdRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private CardBalanceUpdater cardBalanceUpdater;
+
+    @Mock
+    private ExpiryScheduler expiryScheduler;
+
+    @Mock
+    private TransactionFinalizer transactionFinalizer;
+
+    @Mock
+    private AuthorizationGate authorizationGate;
+
+    @Mock
+    private CardOwnershipGuard cardOwnershipGuard;
+
+    @InjectMocks
+    private AuthorizationHoldService authorizationHoldService;
+
+    private Card mockCard;
+    private AuthorizationHold mockHold;
+    private static final String VALID_CARD_ID = "1234567890123456";
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000");
+    private static final BigDecimal HOLD_AMOUNT = new BigDecimal("300");
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(authorizationHoldService, "defaultDurationMinutes", 60L);
+        ReflectionTestUtils.setField(authorizationHoldService, "maxDurationMinutes", 43200L);
+
+        mockCard = new Card();
+        mockCard.setCardId(VALID_CARD_ID);
+        mockCard.setActive(true);
+        mockCard.setBlocked(false);
+        mockCard.setBalance(INITIAL_BALANCE.subtract(HOLD_AMOUNT));
+        mockCard.setExpirationDate("12/2099");
+
+        mockHold = new AuthorizationHold();
+        mockHold.setId(UUID.randomUUID());
+        mockHold.setCard(mockCard);
+        mockHold.setAmount(HOLD_AMOUNT);
+        mockHold.setStatus(HoldStatus.AUTHORIZED);
+        mockHold.setCreatedAt(LocalDateTime.now());
+        mockHold.setExpiresAt(LocalDateTime.now().plusHours(1));
+    }
+
+    // Simula la estrategia de concurrencia aplicando la mutacion sobre la tarjeta de prueba
+    private void givenBalanceUpdatesApplyTo(Card card) {
+        when(cardBalanceUpdater.update(eq(VALID_CARD_ID), any())).thenAnswer(invocation -> {
+            BalanceMutation<?> mutation = invocation.getArgument(1);
+            card.setBalance(card.getBalance().add(mutation.delta(card)));
+            return mutation.apply(card);
+        });
+    }
+
+    @Nested
+    @DisplayName("Authorization Tests")
+    class AuthorizationTests {
+        @Test
+        @DisplayName("Should reserve the amount and schedule the hold expiration")
+        void authorize_Success() {
+            mockCard.setBalance(INITIAL_BALANCE);
+            givenBalanceUpdatesApplyTo(mockCard);
+            when(holdRepository.save(any(AuthorizationHold.class))).thenAnswer(invocation -> {
+                AuthorizationHold hold = invocation.getArgument(0);
+                hold.setId(UUID.randomUUID());
+                return hold;
+            });
+
+            UUID holdId = authorizationHoldService.authorize(VALID_CARD_ID, HOLD_AMOUNT, null);
+
+            assertThat(mockCard.getBalance()).isEqualByComparingTo(INITIAL_BALANCE.subtract(HOLD_AMOUNT));
+            verify(expiryScheduler).schedule(eq(ExpiryKind.HOLD_EXPIRATION), eq(holdId), any(LocalDateTime.class));
+            verify(transactionRepository, never()).save(any(Transaction.class));
+        }
+
+        @Test
+        @DisplayName("Should decline a hold larger than the available balance")
+        void authorize_InsufficientFunds() {
+            mockCard.setBalance(new BigDecimal("100"));
+            givenBalanceUpdatesApplyTo(mockCard);
+
+            assertThatThrownBy(() -> authorizationHoldService.authorize(VALID_CARD_ID, HOLD_AMOUNT, 30L))
+                    .isInstanceOf(InsufficientFundsException.class);
+            verify(expiryScheduler, never()).schedule(any(), any(), any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Settlement Tests")
+    class SettlementTests {
+        @Test
+        @DisplayName("Should capture a lower amount and return the difference to the balance")
+        void capture_PartialAmount() {
+            givenBalanceUpdatesApplyTo(mockCard);
+            when(holdRepository.findWithCard(mockHold.getId())).thenReturn(Optional.of(mockHold));
+            when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
+                Transaction transaction = invocation.getArgument(0);
+                transaction.setId(UUID.randomUUID());
+                return transaction;
+            });
+            when(holdRepository.settle(eq(mockHold.getId()), eq(HoldStatus.CAPTURED), any(), any(), any()))
+                    .thenReturn(1);
+
+            UUID transactionId = authorizationHoldService.capture(VALID_CARD_ID, mockHold.getId(), new BigDecimal("250"));
+
+            assertThat(transactionId).isNotNull();
+            assertThat(mockCard.getBalance()).isEqualByComparingTo(INITIAL_BALANCE.subtract(new BigDecimal("250")));
+            verify(transactionRepository).save(argThat(transaction ->
+                    transaction.getPrice().compareTo(new BigDecimal("250")) == 0));
+            verify(transactionFinalizer).schedule(eq(transactionId), any(LocalDateTime.class));
+        }
+
+        @Test
+        @DisplayName("Should reject a capture above the authorized amount")
+        void capture_ExceedsHold() {
+            when(holdRepository.findWithCard(mockHold.getId())).thenReturn(Optional.of(mockHold));
+
+            assertThatThrownBy(() -> authorizationHoldService.capture(VALID_CARD_ID, mockHold.getId(),
+                    new BigDecimal("300.01")))
+                    .isSameAs(InvalidTransactionException.CAPTURE_EXCEEDS_HOLD);
+        }
+
+        @Test
+        @DisplayName("Should return the whole amount when the hold is released")
+        void release_Success() {
+            givenBalanceUpdatesApplyTo(mockCard);
+            when(holdRepository.findWithCard(mockHold.getId())).thenReturn(Optional.of(mockHold));
+            when(holdRepository.settle(eq(mockHold.getId()), eq(HoldStatus.RELEASED), isNull(), isNull(), any()))
+                    .thenReturn(1);
+
+            assertThat(authorizationHoldService.release(VALID_CARD_ID, mockHold.getId())).isTrue();
+            assertThat(mockCard.getBalance()).isEqualByComparingTo(INITIAL_BALANCE);
+        }
+
+        @Test
+        @DisplayName("Should reject a release that loses the race against a capture")
+        void release_ConcurrentlySettled() {
+            givenBalanceUpdatesApplyTo(mockCard);
+            when(holdRepository.findWithCard(mockHold.getId())).thenReturn(Optional.of(mockHold));
+            when(holdRepository.settle(any(), any(), any(), any(), any())).thenReturn(0);
+
+            assertThatThrownBy(() -> authorizationHoldService.release(VALID_CARD_ID, mockHold.getId()))
+                    .isSameAs(TransactionProcessingException.HOLD_ALREADY_SETTLED);
+        }
+
+        @Test
+        @DisplayName("Should expire open holds and skip those already settled")
+        void expireAll_SkipsSettled() {
+            AuthorizationHold captured = new AuthorizationHold();
+            captured.setId(UUID.randomUUID());
+            captured.setStatus(HoldStatus.CAPTURED);
+            givenBalanceUpdatesApplyTo(mockCard);
+            when(holdRepository.findWithCard(mockHold.getId())).thenReturn(Optional.of(mockHold));
+            when(holdRepository.findWithCard(captured.getId())).thenReturn(Optional.of(captured));
+            when(holdRepository.settle(eq(mockHold.getId()), eq(HoldStatus.EXPIRED), isNull(), isNull(), any()))
+                    .thenReturn(1);
+            when(cardOwnershipGuard.isOwnedLocally(any(CardNumber.class))).thenReturn(true);
+
+            authorizationHoldService.expireAll(List.of(mockHold.getId(), captured.getId()));
+
+            assertThat(mockCard.getBalance()).isEqualByComparingTo(INITIAL_BALANCE);
+            verify(holdRepository, never()).settle(eq(captured.getId()), any(), any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Should sweep due holds page by page and leave those of other instances' partitions")
+        void expireDue_OnlyOwnedPartitions() {
+            ReflectionTestUtils.setField(authorizationHoldService, "sweepPageSize", 2);
+            LocalDateTime now = LocalDateTime.now();
+            CardNumber owned = CardNumber.parse(VALID_CARD_ID);
+            CardNumber foreign = CardNumber.parse("6543210000000011");
+            UUID foreignHold = UUID.randomUUID();
+            UUID lastHold = UUID.randomUUID();
+            LocalDateTime expiredAt = now.minusMinutes(5);
+            when(holdRepository.findExpired(eq(now), any())).thenReturn(List.<Object[]>of(
+                    new Object[] {mockHold.getId(), now.minusMinutes(10), owned},
+                    new Object[] {foreignHold, expiredAt, foreign}));
+            when(holdRepository.findExpiredAfter(eq(now), eq(expiredAt), eq(foreignHold), any())).thenReturn(List.<Object[]>of(
+                    new Object[] {lastHold, now.minusMinutes(1), owned}));
+            when(cardOwnershipGuard.isOwnedLocally(any(CardNumber.class)))
+                    .thenAnswer(invocation -> owned.equals(invocation.getArgument(0)));
+            when(holdRepository.findWithCard(mockHold.getId())).thenReturn(Optional.of(mockHold));
+            when(holdRepository.findWithCard(lastHold)).thenReturn(Optional.empty());
+            givenBalanceUpdatesApplyTo(mockCard);
+            when(holdRepository.settle(eq(mockHold.getId()), eq(HoldStatus.EXPIRED), isNull(), isNull(), any()))
+                    .thenReturn(1);
+
+            authorizationHoldService.expireDue(now);
+
+            assertThat(mockCard.getBalance()).isEqualByComparingTo(INITIAL_BALANCE);
+            verify(holdRepository, never()).findWithCard(foreignHold);
+            verify(holdRepository).findWithCard(lastHold);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.bankinc.card.service;
+
+import com.bankinc.card.dto.BulkChunkProgress;
+import com.bankinc.card.dto.BulkOperationResult;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.service.directory.CardDirectory;
+import com.bankinc.card.service.store.CardGenerations;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardBulkServiceTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private CardDirectory cardDirectory;
+
+    @Mock
+    private CardGenerations cardGenerations;
+
+    @InjectMocks
+    private CardBulkService cardBulkService;
+
+    private final List<BulkChunkProgress> progress = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cardBulkService, "chunkSize", 2);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    @DisplayName("Should block an explicit ID list in sorted, de-duplicated chunks")
+    void byCardIds_ChunksSortedIds() {
+        when(cardRepository.countByCardNumbers(anyCollection())).thenAnswer(invocation ->
+                (long) invocation.<List<CardNumber>>getArgument(0).size());
+        when(cardRepository.blockAll(anyCollection())).thenAnswer(invocation ->
+                invocation.<List<CardNumber>>getArgument(0).size());
+
+        BulkOperationResult result = cardBulkService.byCardIds(BulkCardOperation.BLOCK,
+                List.of("3000000000000000", "1000000000000000", "2000000000000000", "1000000000000000"),
+                progress::add);
+
+        verify(cardRepository).blockAll(List.of(CardNumber.parse("1000000000000000"), CardNumber.parse("2000000000000000")));
+        verify(cardRepository).blockAll(List.of(CardNumber.parse("3000000000000000")));
+        assertThat(result.getChunks()).isEqualTo(2);
+        assertThat(result.getUpdated()).isEqualTo(3);
+        assertThat(progress).extracting(BulkChunkProgress::getLastCardId)
+                .containsExactly("2000000000000000", "3000000000000000");
+    }
+
+    @Test
+    @DisplayName("Should report unknown card numbers as not found rather than skipped")
+    void byCardIds_UnknownCards() {
+        when(cardRepository.countByCardNumbers(anyCollection())).thenReturn(1L, 1L);
+        when(cardRepository.activateAll(anyCollection())).thenReturn(1, 0);
+
+        BulkOperationResult result = cardBulkService.byCardIds(BulkCardOperation.ACTIVATE,
+                List.of("1000000000000000", "2000000000000000", "3000000000000000"), progress::add);
+
+        assertThat(result.getMatched()).isEqualTo(2);
+        assertThat(result.getUpdated()).isEqualTo(1);
+        assertThat(result.getSkipped()).isEqualTo(1);
+        assertThat(result.getNotFound()).isEqualTo(1);
+        assertThat(progress).extracting(BulkChunkProgress::getMatched).containsExactly(1, 1);
+    }
+
+    @Test
+    @DisplayName("Should activate a product with keyset pagination until no cards remain")
+    void byProduct_KeysetPagination() {
+        when(cardRepository.findCardIdsByProductFrom(eq("123456"), any(CardNumber.class), any(Pageable.class)))
+                .thenReturn(List.of(CardNumber.parse("1234560000000001"), CardNumber.parse("1234560000000002")))
+                .thenReturn(List.of(CardNumber.parse("1234560000000003")))
+                .thenReturn(List.of());
+        when(cardRepository.activateAll(anyCollection())).thenReturn(2, 0);
+
+        BulkOperationResult result = cardBulkService.byProduct(BulkCardOperation.ACTIVATE, "123456", progress::add);
+
+        verify(cardRepository).findCardIdsByProductFrom(eq("123456"), eq(CardNumber.MIN), any(Pageable.class));
+        verify(cardRepository).findCardIdsByProductFrom(eq("123456"), eq(CardNumber.parse("1234560000000003")), any(Pageable.class));
+        verify(cardRepository).findCardIdsByProductFrom(eq("123456"), eq(CardNumber.parse("1234560000000004")), any(Pageable.class));
+        assertThat(result.getMatched()).isEqualTo(3);
+        assertThat(result.getUpdated()).isEqualTo(2);
+        assertThat(result.getSkipped()).isEqualTo(1);
+        assertThat(result.getNotFound()).isZero();
+        verify(cardRepository, never()).countByCardNumbers(anyCollection());
+    }
+}
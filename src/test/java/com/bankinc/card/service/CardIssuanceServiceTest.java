@@ -0,0 +1,130 @@
+package com.bankinc.card.service;
+
+import com.bankinc.card.dto.BulkOperationResult;
+import com.bankinc.card.dto.IssuedCardsChunk;
+import com.bankinc.card.model.Card;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.service.directory.CardDirectory;
+import com.bankinc.card.service.store.JpaCardStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardIssuanceServiceTest {
+
+    private static final String PRODUCT_ID = "123456";
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private CardDirectory cardDirectory;
+
+    @InjectMocks
+    private CardNumberIssuer cardNumberIssuer;
+
+    private CardIssuanceService cardIssuanceService;
+
+    private final List<IssuedCardsChunk> chunks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // El emisor lee los numeros existentes a traves del almacen jpa sobre el repositorio simulado
+        JpaCardStore cardStore = new JpaCardStore();
+        ReflectionTestUtils.setField(cardStore, "cardRepository", cardRepository);
+        ReflectionTestUtils.setField(cardNumberIssuer, "cardStore", cardStore);
+        ReflectionTestUtils.setField(cardNumberIssuer, "minCapacity", 1_000L);
+        ReflectionTestUtils.setField(cardNumberIssuer, "falsePositiveRate", 0.001);
+        ReflectionTestUtils.setField(cardNumberIssuer, "pageSize", 100);
+        ReflectionTestUtils.setField(cardNumberIssuer, "maxProductFill", 0.5);
+
+        cardIssuanceService = new CardIssuanceService();
+        ReflectionTestUtils.setField(cardIssuanceService, "cardRepository", cardRepository);
+        ReflectionTestUtils.setField(cardIssuanceService, "cardNumberIssuer", cardNumberIssuer);
+        ReflectionTestUtils.setField(cardIssuanceService, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(cardIssuanceService, "cardDirectory", cardDirectory);
+        ReflectionTestUtils.setField(cardIssuanceService, "chunkSize", 200);
+        ReflectionTestUtils.setField(cardIssuanceService, "maxAttempts", 3);
+
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    @DisplayName("Should issue unique, Luhn-valid numbers of the product in batched chunks, skipping existing ones")
+    void issue_UniqueLuhnValidChunks() {
+        CardNumber existing = CardNumber.parse("1234560000000017");
+        when(cardRepository.countInRange(any(CardNumber.class), any(CardNumber.class))).thenReturn(1L);
+        when(cardRepository.findCardIdsInRange(any(CardNumber.class), any(CardNumber.class), any(Pageable.class)))
+                .thenReturn(List.of(existing), List.of());
+
+        BulkOperationResult result = cardIssuanceService.issue(PRODUCT_ID, 500, chunks::add);
+
+        assertThat(result.getUpdated()).isEqualTo(500);
+        assertThat(result.getChunks()).isEqualTo(3);
+        assertThat(chunks).extracting(chunk -> chunk.getCardIds().size()).containsExactly(200, 200, 100);
+        List<String> cardIds = chunks.stream().flatMap(chunk -> chunk.getCardIds().stream()).toList();
+        assertThat(cardIds).doesNotHaveDuplicates().doesNotContain(existing.toString())
+                .allSatisfy(cardId -> {
+                    assertThat(cardId).startsWith(PRODUCT_ID);
+                    assertThat(CardNumber.parse(cardId).isLuhnValid()).isTrue();
+                });
+        verify(cardRepository, times(3)).saveAll(anyList());
+        verify(cardRepository, times(3)).flush();
+        verify(cardDirectory, times(3)).cardsChanged(anyList());
+    }
+
+    @Test
+    @DisplayName("Should reload the product filter and retry a chunk that hits the unique index")
+    void issue_RetriesCollidingChunk() {
+        when(cardRepository.findCardIdsInRange(any(CardNumber.class), any(CardNumber.class), any(Pageable.class)))
+                .thenReturn(List.of());
+        doThrow(new DataIntegrityViolationException("duplicate")).doNothing().when(cardRepository).flush();
+
+        BulkOperationResult result = cardIssuanceService.issue(PRODUCT_ID, 10, chunks::add);
+
+        assertThat(result.getUpdated()).isEqualTo(10);
+        assertThat(chunks).singleElement().satisfies(chunk -> assertThat(chunk.getAttempts()).isEqualTo(2));
+        // Carga inicial y recarga tras el choque
+        verify(cardRepository, times(2)).findCardIdsInRange(any(CardNumber.class), any(CardNumber.class), any(Pageable.class));
+        verify(cardDirectory, times(1)).cardsChanged(anyList());
+    }
+
+    @Test
+    @DisplayName("Should give up after the configured attempts")
+    void issue_GivesUpAfterMaxAttempts() {
+        when(cardRepository.findCardIdsInRange(any(CardNumber.class), any(CardNumber.class), any(Pageable.class)))
+                .thenReturn(List.of());
+        doThrow(new DataIntegrityViolationException("duplicate")).when(cardRepository).flush();
+
+        assertThatThrownBy(() -> cardIssuanceService.issue(PRODUCT_ID, 10, chunks::add))
+                .isInstanceOf(IllegalStateException.class);
+        verify(cardRepository, times(3)).saveAll(anyList());
+        verify(cardRepository, never()).save(any(Card.class));
+    }
+}
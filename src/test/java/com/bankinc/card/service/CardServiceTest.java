@@ -2,7 +2,10 @@ package com.bankinc.card.service;
 
 import com.bankinc.card.exceptions.*;
 import com.bankinc.card.model.Card;
-import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.service.concurrency.BalanceMutation;
+import com.bankinc.card.service.directory.CardDirectory;
+import com.bankinc.card.service.store.CardStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -11,22 +14,31 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class CardServiceTest {
 
     @Mock
-    private CardRepository cardRepository;
+    private CardStore cardStore;
+
+    @Mock
+    private CardDirectory cardDirectory;
+
+    @Mock
+    private CardNumberIssuer cardNumberIssuer;
 
     @InjectMocks
     private CardService cardService;
@@ -34,6 +46,7 @@ class CardServiceTest {
     private Card mockCard;
     private static final String VALID_CARD_ID = "1234567890123456";
     private static final String VALID_PRODUCT_ID = "123456";
+    private static final String ISSUED_CARD_ID = "1234560000000017";
     private static final BigDecimal INITIAL_BALANCE = BigDecimal.ZERO;
 
     @BeforeEach
@@ -48,13 +61,23 @@ class CardServiceTest {
                 .format(DateTimeFormatter.ofPattern("MM/yyyy")));
     }
 
+    // Simula el almacen aplicando la mutacion sobre la tarjeta de prueba
+    private void givenBalanceUpdatesApplyTo(Card card) {
+        when(cardStore.updateBalance(eq(VALID_CARD_ID), any())).thenAnswer(invocation -> {
+            BalanceMutation<?> mutation = invocation.getArgument(1);
+            card.setBalance(card.getBalance().add(mutation.delta(card)));
+            return mutation.apply(card);
+        });
+    }
+
     @Nested
     @DisplayName("Card Generation Tests")
     class CardGenerationTests {
         @Test
         @DisplayName("Should successfully generate a card number")
         void generateCardNumber_Success() {
-            when(cardRepository.save(any(Card.class))).thenReturn(mockCard);
+            when(cardNumberIssuer.next(VALID_PRODUCT_ID)).thenReturn(CardNumber.parse(ISSUED_CARD_ID));
+            when(cardStore.saveCard(any(Card.class))).thenReturn(mockCard);
 
             String cardNumber = cardService.generateCardNumber(VALID_PRODUCT_ID);
 
@@ -62,13 +85,30 @@ class CardServiceTest {
                     .isNotNull()
                     .hasSize(16)
                     .startsWith(VALID_PRODUCT_ID);
-            verify(cardRepository).save(any(Card.class));
+            assertThat(CardNumber.parse(cardNumber).isLuhnValid()).isTrue();
+            verify(cardStore).saveCard(any(Card.class));
+        }
+
+        @Test
+        @DisplayName("Should draw a new number when the unique index rejects the first one")
+        void generateCardNumber_RetriesOnDuplicate() {
+            when(cardNumberIssuer.next(VALID_PRODUCT_ID))
+                    .thenReturn(CardNumber.parse(VALID_CARD_ID), CardNumber.parse(ISSUED_CARD_ID));
+            when(cardStore.saveCard(any(Card.class)))
+                    .thenThrow(new DataIntegrityViolationException("duplicate"))
+                    .thenReturn(mockCard);
+
+            String cardNumber = cardService.generateCardNumber(VALID_PRODUCT_ID);
+
+            assertThat(cardNumber).isEqualTo(ISSUED_CARD_ID);
+            verify(cardStore, times(2)).saveCard(any(Card.class));
         }
 
         @Test
         @DisplayName("Should throw exception when card generation fails")
         void generateCardNumber_Failure() {
-            when(cardRepository.save(any(Card.class))).thenThrow(new RuntimeException());
+            when(cardNumberIssuer.next(VALID_PRODUCT_ID)).thenReturn(CardNumber.parse(ISSUED_CARD_ID));
+            when(cardStore.saveCard(any(Card.class))).thenThrow(new RuntimeException());
 
             assertThatThrownBy(() -> cardService.generateCardNumber(VALID_PRODUCT_ID))
                     .isInstanceOf(RuntimeException.class)
@@ -82,20 +122,18 @@ class CardServiceTest {
         @Test
         @DisplayName("Should successfully activate a card")
         void activateCard_Success() {
-            when(cardRepository.findByCardId(VALID_CARD_ID)).thenReturn(Optional.of(mockCard));
-            when(cardRepository.save(any(Card.class))).thenReturn(mockCard);
+            when(cardStore.activateCard(CardNumber.parse(VALID_CARD_ID))).thenReturn(true);
 
             cardService.activateCard(VALID_CARD_ID);
 
-            verify(cardRepository).save(argThat(card -> 
-                card.isActive() && !card.isBlocked()
-            ));
+            verify(cardStore, never()).saveCard(any(Card.class));
+            verify(cardDirectory).cardsChanged(List.of(CardNumber.parse(VALID_CARD_ID)));
         }
 
         @Test
         @DisplayName("Should throw exception when activating non-existent card")
         void activateCard_NotFound() {
-            when(cardRepository.findByCardId(VALID_CARD_ID)).thenReturn(Optional.empty());
+            when(cardStore.findCard(VALID_CARD_ID)).thenReturn(Optional.empty());
 
             assertThatThrownBy(() -> cardService.activateCard(VALID_CARD_ID))
                     .isInstanceOf(CardNotFoundException.class)
@@ -106,11 +144,12 @@ class CardServiceTest {
         @DisplayName("Should throw exception when activating already active card")
         void activateCard_AlreadyActive() {
             mockCard.setActive(true);
-            when(cardRepository.findByCardId(VALID_CARD_ID)).thenReturn(Optional.of(mockCard));
+            when(cardStore.findCard(VALID_CARD_ID)).thenReturn(Optional.of(mockCard));
 
             assertThatThrownBy(() -> cardService.activateCard(VALID_CARD_ID))
                     .isInstanceOf(CardActivationException.class)
                     .hasMessage("Card is already active");
+            verifyNoInteractions(cardDirectory);
         }
     }
 
@@ -120,24 +159,32 @@ class CardServiceTest {
         @Test
         @DisplayName("Should successfully block a card")
         void blockCard_Success() {
-            mockCard.setBlocked(false);
-            when(cardRepository.findByCardId(VALID_CARD_ID)).thenReturn(Optional.of(mockCard));
-            when(cardRepository.save(any(Card.class))).thenReturn(mockCard);
+            when(cardStore.blockCard(CardNumber.parse(VALID_CARD_ID))).thenReturn(true);
 
             cardService.blockCard(VALID_CARD_ID);
 
-            verify(cardRepository).save(argThat(Card::isBlocked));
+            verify(cardStore, never()).saveCard(any(Card.class));
+            verify(cardDirectory).cardsChanged(List.of(CardNumber.parse(VALID_CARD_ID)));
         }
 
         @Test
         @DisplayName("Should throw exception when blocking already blocked card")
         void blockCard_AlreadyBlocked() {
-            when(cardRepository.findByCardId(VALID_CARD_ID)).thenReturn(Optional.of(mockCard));
+            when(cardStore.findCard(VALID_CARD_ID)).thenReturn(Optional.of(mockCard));
 
             assertThatThrownBy(() -> cardService.blockCard(VALID_CARD_ID))
                     .isInstanceOf(CardBlockedException.class)
                     .hasMessage("Card is already blocked");
         }
+
+        @Test
+        @DisplayName("Should throw exception when blocking non-existent card")
+        void blockCard_NotFound() {
+            when(cardStore.findCard(VALID_CARD_ID)).thenReturn(Optional.empty());
+
+            assertThatThrownBy(() -> cardService.blockCard(VALID_CARD_ID))
+                    .isInstanceOf(CardNotFoundException.class);
+        }
     }
 
     @Nested
@@ -149,23 +196,20 @@ class CardServiceTest {
             mockCard.setActive(true);
             mockCard.setBlocked(false);
             BigDecimal rechargeAmount = new BigDecimal("100");
-            when(cardRepository.findByCardIdAndIsActive(VALID_CARD_ID, true))
-                    .thenReturn(Optional.of(mockCard));
-            when(cardRepository.save(any(Card.class))).thenReturn(mockCard);
+            givenBalanceUpdatesApplyTo(mockCard);
 
             cardService.rechargeBalance(VALID_CARD_ID, rechargeAmount);
 
-            verify(cardRepository).save(argThat(card -> 
-                card.getBalance().compareTo(INITIAL_BALANCE.add(rechargeAmount)) == 0
-            ));
+            assertThat(mockCard.getBalance()).isEqualByComparingTo(INITIAL_BALANCE.add(rechargeAmount));
+            verify(cardStore).saveRecharge(argThat(recharge ->
+                    recharge.getCard() == mockCard && recharge.getAmount().compareTo(rechargeAmount) == 0));
         }
 
         @Test
         @DisplayName("Should throw exception when recharging blocked card")
         void rechargeBalance_BlockedCard() {
             mockCard.setActive(true);
-            when(cardRepository.findByCardIdAndIsActive(VALID_CARD_ID, true))
-                    .thenReturn(Optional.of(mockCard));
+            givenBalanceUpdatesApplyTo(mockCard);
 
             assertThatThrownBy(() -> cardService.rechargeBalance(VALID_CARD_ID, BigDecimal.TEN))
                     .isInstanceOf(CardBlockedException.class)
@@ -175,7 +219,7 @@ class CardServiceTest {
         @Test
         @DisplayName("Should successfully get balance")
         void getBalance_Success() {
-            when(cardRepository.findByCardId(VALID_CARD_ID)).thenReturn(Optional.of(mockCard));
+            when(cardStore.findCard(VALID_CARD_ID)).thenReturn(Optional.of(mockCard));
 
             BigDecimal balance = cardService.getBalance(VALID_CARD_ID);
 
@@ -189,7 +233,7 @@ class CardServiceTest {
         @Test
         @DisplayName("Should successfully get card")
         void getCard_Success() {
-            when(cardRepository.findByCardId(VALID_CARD_ID)).thenReturn(Optional.of(mockCard));
+            when(cardStore.findCard(VALID_CARD_ID)).thenReturn(Optional.of(mockCard));
 
             Card result = cardService.getCard(VALID_CARD_ID);
 
@@ -199,12 +243,12 @@ class CardServiceTest {
         @Test
         @DisplayName("Should successfully update card")
         void updateCard_Success() {
-            when(cardRepository.save(any(Card.class))).thenReturn(mockCard);
+            when(cardStore.saveCard(any(Card.class))).thenReturn(mockCard);
 
             Card result = cardService.updateCard(mockCard);
 
             assertThat(result).isEqualTo(mockCard);
-            verify(cardRepository).save(mockCard);
+            verify(cardStore).saveCard(mockCard);
         }
 
         @Test
@@ -0,0 +1,104 @@
+package com.bankinc.card.service;
+
+import com.bankinc.card.exceptions.BusinessException;
+import com.bankinc.card.model.Card;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.repository.CardRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+// Bloqueo de una tarjeta en uso sobre H2: cada compra sube la version de la tarjeta mientras se bloquea
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:cardstatus;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.jpa.show-sql=false",
+        "card.concurrency.strategy=optimistic",
+        "card.concurrency.max-attempts=50"
+})
+class CardStatusConcurrencyTest {
+
+    private static final String CARD_ID = "7777770000000001";
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("100000.00");
+    private static final int THREADS = 4;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Test
+    @DisplayName("Should block a card while purchases are running on it")
+    void blockCard_DuringPurchases() throws Exception {
+        cardRepository.save(card());
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicInteger approved = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> purchasers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            purchasers.add(executor.submit(() -> {
+                while (!stop.get()) {
+                    try {
+                        transactionService.purchase(CARD_ID, BigDecimal.ONE);
+                        approved.incrementAndGet();
+                    } catch (BusinessException e) {
+                        // Rechazada por el bloqueo
+                    }
+                }
+            }));
+        }
+        try {
+            while (approved.get() < 20) {
+                Thread.sleep(1);
+            }
+
+            assertThatCode(() -> cardService.blockCard(CARD_ID)).doesNotThrowAnyException();
+            Thread.sleep(50);
+        } finally {
+            stop.set(true);
+            executor.shutdown();
+        }
+        for (Future<?> purchaser : purchasers) {
+            purchaser.get(10, TimeUnit.SECONDS);
+        }
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        Card blocked = cardRepository.findByCardNumber(CardNumber.parse(CARD_ID)).orElseThrow();
+        assertThat(blocked.isBlocked()).isTrue();
+        // Ninguna compra aprobada se pierde
+        assertThat(blocked.getBalance()).isEqualByComparingTo(INITIAL_BALANCE.subtract(BigDecimal.valueOf(approved.get())));
+        assertThat(blocked.getLedgerSequence()).isEqualTo(approved.get());
+    }
+
+    private static Card card() {
+        Card card = new Card();
+        card.setCardId(CARD_ID);
+        card.setProductId(CARD_ID.substring(0, 6));
+        card.setHolderName("Elena Soto");
+        card.setExpirationDate("12/2099");
+        card.setActive(true);
+        card.setBlocked(false);
+        card.setBalance(INITIAL_BALANCE);
+        card.setOpeningBalance(INITIAL_BALANCE);
+        return card;
+    }
+}
@@ -0,0 +1,134 @@
+package com.bankinc.card.service;
+
+import com.bankinc.card.dto.ArchivedTransaction;
+import com.bankinc.card.dto.ProductAggregate;
+import com.bankinc.card.model.Card;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.model.Transaction;
+import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.repository.TransactionRepository;
+import com.bankinc.card.service.archive.TransactionArchive;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Agregados reales sobre H2: conteos por estado, saldo y exposicion de la tabla y del archivo
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:aggregates;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "card.aggregates.ranges=4"
+})
+class ProductAggregateServiceTest {
+
+    private static final String PRODUCT = "777777";
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 1, 12, 0);
+
+    @TempDir
+    static Path archiveDirectory;
+
+    @DynamicPropertySource
+    static void archive(DynamicPropertyRegistry registry) {
+        registry.add("card.archive.directory", archiveDirectory::toString);
+    }
+
+    @Autowired
+    private ProductAggregateService productAggregateService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionArchive transactionArchive;
+
+    @Test
+    @DisplayName("Should split a product into contiguous, inclusive card ID ranges")
+    void splitRanges_CoversWholeProduct() {
+        List<CardNumber[]> ranges = ProductAggregateService.splitRanges("123456", 3);
+
+        assertThat(ranges).hasSize(3);
+        assertThat(ranges.get(0)).containsExactly(CardNumber.parse("1234560000000000"), CardNumber.parse("1234563333333332"));
+        assertThat(ranges.get(1)).containsExactly(CardNumber.parse("1234563333333333"), CardNumber.parse("1234566666666665"));
+        assertThat(ranges.get(2)).containsExactly(CardNumber.parse("1234566666666666"), CardNumber.parse("1234569999999999"));
+    }
+
+    @Test
+    @DisplayName("Should count cards per state and add table and archived exposure across ranges")
+    void aggregate_CountsAndAmounts() {
+        // Una tarjeta en cada uno de los cuatro rangos, mas una de otro producto que no debe contar
+        Card active = cardRepository.save(card(PRODUCT + "0000000001", true, false, "100.00"));
+        Card blocked = cardRepository.save(card(PRODUCT + "3000000002", true, true, "20.50"));
+        cardRepository.save(card(PRODUCT + "6000000003", false, true, "0.00"));
+        cardRepository.save(card(PRODUCT + "9999999999", false, false, "5.25"));
+        Card otherProduct = cardRepository.save(card("7777780000000001", true, false, "999.00"));
+
+        transactionRepository.save(transaction(active, "10.00", false));
+        transactionRepository.save(transaction(active, "4.00", true));
+        transactionRepository.save(transaction(blocked, "2.50", false));
+        transactionRepository.save(transaction(otherProduct, "50.00", false));
+        transactionArchive.append(List.of(
+                archived(active, "30.00", false),
+                archived(blocked, "7.00", true),
+                archived(otherProduct, "80.00", false)));
+
+        ProductAggregate aggregate = productAggregateService.aggregate(PRODUCT);
+
+        assertThat(aggregate.getRanges()).isEqualTo(4);
+        assertThat(aggregate.getCards()).isEqualTo(4);
+        assertThat(aggregate.getActiveCards()).isEqualTo(1);
+        assertThat(aggregate.getBlockedCards()).isEqualTo(1);
+        assertThat(aggregate.getInactiveCards()).isEqualTo(2);
+        assertThat(aggregate.getTotalBalance()).isEqualByComparingTo("125.75");
+        // 10.00 + 2.50 de la tabla y 30.00 del archivo; lo anulado no cuenta
+        assertThat(aggregate.getOutstandingExposure()).isEqualByComparingTo("42.50");
+
+        List<ProductAggregate> streamed = new ArrayList<>();
+        productAggregateService.streamAggregates(List.of(PRODUCT, "777778"), streamed::add);
+        assertThat(streamed).extracting(ProductAggregate::getCards).containsExactly(4L, 1L);
+        assertThat(streamed.get(1).getOutstandingExposure()).isEqualByComparingTo("130.00");
+    }
+
+    private static Card card(String cardId, boolean active, boolean blocked, String balance) {
+        Card card = new Card();
+        card.setCardId(cardId);
+        card.setProductId(cardId.substring(0, 6));
+        card.setHolderName("Marta Ruiz");
+        card.setExpirationDate("12/2099");
+        card.setActive(active);
+        card.setBlocked(blocked);
+        card.setBalance(new BigDecimal(balance));
+        card.setOpeningBalance(new BigDecimal(balance));
+        return card;
+    }
+
+    private static Transaction transaction(Card card, String price, boolean anulated) {
+        Transaction transaction = new Transaction();
+        transaction.setCard(card);
+        transaction.setPrice(new BigDecimal(price));
+        transaction.setTimestamp(NOW);
+        transaction.setAnulated(anulated);
+        return transaction;
+    }
+
+    private static ArchivedTransaction archived(Card card, String price, boolean anulated) {
+        return new ArchivedTransaction(UUID.randomUUID(), card.getCardNumber(), new BigDecimal(price),
+                NOW.minusDays(120), anulated);
+    }
+}
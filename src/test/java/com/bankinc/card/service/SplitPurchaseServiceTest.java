@@ -0,0 +1,191 @@
+package com.bankinc.card.service;
+
+import com.bankinc.card.dto.SplitPurchaseLeg;
+import com.bankinc.card.dto.SplitPurchaseResult;
+import com.bankinc.card.exceptions.CardBlockedException;
+import com.bankinc.card.exceptions.CardNotFoundException;
+import com.bankinc.card.exceptions.InsufficientFundsException;
+import com.bankinc.card.exceptions.InvalidTransactionException;
+import com.bankinc.card.model.Card;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.model.Transaction;
+import com.bankinc.card.service.directory.CardDirectory;
+import com.bankinc.card.service.lifecycle.AuthorizationGate;
+import com.bankinc.card.service.stats.PurchaseStats;
+import com.bankinc.card.service.store.InMemoryCardStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+// Sobre el almacen en memoria: los tramos se debitan de verdad y se comprueba la atomicidad
+class SplitPurchaseServiceTest {
+
+    private static final String CORPORATE = "1234560000000017";
+    private static final String PERSONAL = "1234560000000025";
+    private static final String GIFT = "6543210000000011";
+
+    private InMemoryCardStore cardStore;
+    private SplitPurchaseService splitPurchaseService;
+    private PurchaseStats purchaseStats;
+
+    @BeforeEach
+    void setUp() {
+        cardStore = new InMemoryCardStore();
+        cardStore.saveCard(card(CORPORATE, "100"));
+        cardStore.saveCard(card(PERSONAL, "50"));
+        cardStore.saveCard(card(GIFT, "20"));
+
+        CardDirectory cardDirectory = new CardDirectory(1);
+        purchaseStats = new PurchaseStats();
+        TransactionFinalizer transactionFinalizer = mock(TransactionFinalizer.class);
+        AuthorizationGate authorizationGate = new AuthorizationGate();
+
+        TransactionService transactionService = new TransactionService();
+        ReflectionTestUtils.setField(transactionService, "cardStore", cardStore);
+
+        splitPurchaseService = new SplitPurchaseService();
+        ReflectionTestUtils.setField(splitPurchaseService, "cardStore", cardStore);
+        ReflectionTestUtils.setField(splitPurchaseService, "transactionService", transactionService);
+        ReflectionTestUtils.setField(splitPurchaseService, "cardDirectory", cardDirectory);
+        ReflectionTestUtils.setField(splitPurchaseService, "purchaseStats", purchaseStats);
+        ReflectionTestUtils.setField(splitPurchaseService, "transactionFinalizer", transactionFinalizer);
+        ReflectionTestUtils.setField(splitPurchaseService, "authorizationGate", authorizationGate);
+        ReflectionTestUtils.setField(splitPurchaseService, "maxLegs", 8);
+    }
+
+    @Test
+    @DisplayName("Should debit every card and link the legs to the first one")
+    void purchase_AllLegsApproved() {
+        SplitPurchaseResult result = splitPurchaseService.purchase(List.of(
+                new SplitPurchaseLeg(GIFT, new BigDecimal("20")),
+                new SplitPurchaseLeg(CORPORATE, new BigDecimal("30.50"))));
+
+        assertThat(result.getTotal()).isEqualByComparingTo("50.50");
+        assertThat(result.getParentTransactionId()).isEqualTo(result.getLegs().get(0).getTransactionId());
+        assertThat(balance(GIFT)).isEqualByComparingTo("0");
+        assertThat(balance(CORPORATE)).isEqualByComparingTo("69.50");
+
+        Transaction parent = cardStore.findTransaction(result.getParentTransactionId()).orElseThrow();
+        Transaction child = cardStore.findTransaction(result.getLegs().get(1).getTransactionId()).orElseThrow();
+        assertThat(parent.getParentId()).isNull();
+        assertThat(parent.getCard().getCardId()).isEqualTo(GIFT);
+        assertThat(child.getParentId()).isEqualTo(parent.getId());
+        assertThat(child.getCard().getCardId()).isEqualTo(CORPORATE);
+    }
+
+    @Test
+    @DisplayName("Should leave every card untouched when one leg is declined")
+    void purchase_OneLegDeclined() {
+        assertThatThrownBy(() -> splitPurchaseService.purchase(List.of(
+                new SplitPurchaseLeg(CORPORATE, new BigDecimal("40")),
+                new SplitPurchaseLeg(GIFT, new BigDecimal("25")))))
+                .isInstanceOf(InsufficientFundsException.class);
+
+        assertThat(balance(CORPORATE)).isEqualByComparingTo("100");
+        assertThat(balance(GIFT)).isEqualByComparingTo("20");
+        assertThat(cardStore.findTransactionsByCard(CardNumber.parse(CORPORATE))).isEmpty();
+        // Solo el tramo rechazado cuenta como rechazo
+        assertThat(purchaseStats.snapshot("654321").getLastMinute().getDeclinedCount()).isEqualTo(1);
+        assertThat(purchaseStats.snapshot("654321").getLastMinute().getDeclinedAmount()).isEqualByComparingTo("25");
+        assertThat(purchaseStats.snapshot("123456")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should count only the leg whose card was blocked between the check and the debit")
+    void purchase_LegDeclinedAtDebit() {
+        InMemoryCardStore racingStore = new InMemoryCardStore() {
+            @Override
+            public List<Card> findCards(Collection<CardNumber> cardNumbers) {
+                List<Card> cards = super.findCards(cardNumbers);
+                blockCard(CardNumber.parse(GIFT));
+                return cards;
+            }
+        };
+        racingStore.saveCard(card(CORPORATE, "100"));
+        racingStore.saveCard(card(GIFT, "20"));
+        ReflectionTestUtils.setField(splitPurchaseService, "cardStore", racingStore);
+        TransactionService transactionService = new TransactionService();
+        ReflectionTestUtils.setField(transactionService, "cardStore", racingStore);
+        ReflectionTestUtils.setField(splitPurchaseService, "transactionService", transactionService);
+
+        assertThatThrownBy(() -> splitPurchaseService.purchase(List.of(
+                new SplitPurchaseLeg(CORPORATE, new BigDecimal("40")),
+                new SplitPurchaseLeg(GIFT, new BigDecimal("5")))))
+                .isInstanceOf(CardBlockedException.class);
+
+        assertThat(racingStore.findCard(CORPORATE).orElseThrow().getBalance()).isEqualByComparingTo("100");
+        assertThat(purchaseStats.snapshot("654321").getLastMinute().getDeclinedCount()).isEqualTo(1);
+        assertThat(purchaseStats.snapshot("123456")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should decline the purchase when one of the cards does not exist")
+    void purchase_UnknownCard() {
+        assertThatThrownBy(() -> splitPurchaseService.purchase(List.of(
+                new SplitPurchaseLeg(CORPORATE, BigDecimal.ONE),
+                new SplitPurchaseLeg("9999990000000001", BigDecimal.ONE))))
+                .isInstanceOf(CardNotFoundException.class);
+
+        assertThat(balance(CORPORATE)).isEqualByComparingTo("100");
+    }
+
+    @Test
+    @DisplayName("Should reject the same card funding two legs")
+    void purchase_DuplicateCard() {
+        assertThatThrownBy(() -> splitPurchaseService.purchase(List.of(
+                new SplitPurchaseLeg(CORPORATE, BigDecimal.ONE),
+                new SplitPurchaseLeg(CORPORATE, BigDecimal.ONE))))
+                .isInstanceOf(InvalidTransactionException.class);
+    }
+
+    @Test
+    @DisplayName("Should not deadlock when concurrent purchases list the same cards in opposite order")
+    void purchase_OppositeOrders() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<SplitPurchaseResult>> purchases = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            List<SplitPurchaseLeg> legs = i % 2 == 0
+                    ? List.of(new SplitPurchaseLeg(CORPORATE, new BigDecimal("0.10")), new SplitPurchaseLeg(PERSONAL, new BigDecimal("0.10")))
+                    : List.of(new SplitPurchaseLeg(PERSONAL, new BigDecimal("0.10")), new SplitPurchaseLeg(CORPORATE, new BigDecimal("0.10")));
+            purchases.add(executor.submit(() -> splitPurchaseService.purchase(legs)));
+        }
+        for (Future<SplitPurchaseResult> purchase : purchases) {
+            purchase.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(balance(CORPORATE)).isEqualByComparingTo("80");
+        assertThat(balance(PERSONAL)).isEqualByComparingTo("30");
+    }
+
+    private BigDecimal balance(String cardId) {
+        return cardStore.findCard(cardId).orElseThrow().getBalance();
+    }
+
+    private static Card card(String cardId, String balance) {
+        Card card = new Card();
+        card.setCardId(cardId);
+        card.setProductId(cardId.substring(0, 6));
+        card.setHolderName("Luis Perez");
+        card.setExpirationDate("12/2099");
+        card.setActive(true);
+        card.setBlocked(false);
+        card.setBalance(new BigDecimal(balance));
+        card.setOpeningBalance(new BigDecimal(balance));
+        return card;
+    }
+}
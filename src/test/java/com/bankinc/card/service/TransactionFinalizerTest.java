@@ -0,0 +1,88 @@
+package com.bankinc.card.service;
+
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.repository.TransactionRepository;
+import com.bankinc.card.service.expiry.ExpiryScheduler;
+import com.bankinc.card.service.partition.CardOwnershipGuard;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionFinalizerTest {
+
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2026, 10, 18, 12, 0);
+    private static final CardNumber OWNED = CardNumber.parse("1234560000000017");
+    private static final CardNumber FOREIGN = CardNumber.parse("6543210000000011");
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private ExpiryScheduler expiryScheduler;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private CardOwnershipGuard cardOwnershipGuard;
+
+    @InjectMocks
+    private TransactionFinalizer transactionFinalizer;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(transactionFinalizer, "chunkSize", 2);
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+    }
+
+    @Test
+    @DisplayName("Should close every expired anulation window with one statement without partitioning")
+    void finalizeDue_SingleStatement() {
+        when(transactionRepository.finalizeBefore(CUTOFF)).thenReturn(7);
+
+        assertThat(transactionFinalizer.finalizeDue(CUTOFF)).isEqualTo(7);
+        verify(transactionRepository, never()).findOpenBefore(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should only finalize transactions of owned partitions, page by page, with partitioning")
+    void finalizeDue_OwnedPartitions() {
+        UUID first = UUID.randomUUID();
+        UUID foreign = UUID.randomUUID();
+        UUID last = UUID.randomUUID();
+        LocalDateTime foreignTime = CUTOFF.minusHours(2);
+        when(cardOwnershipGuard.isEnabled()).thenReturn(true);
+        when(cardOwnershipGuard.isOwnedLocally(any(CardNumber.class)))
+                .thenAnswer(invocation -> OWNED.equals(invocation.getArgument(0)));
+        when(transactionRepository.findOpenBefore(eq(CUTOFF), any())).thenReturn(List.<Object[]>of(
+                new Object[] {first, CUTOFF.minusHours(3), OWNED},
+                new Object[] {foreign, foreignTime, FOREIGN}));
+        when(transactionRepository.findOpenBeforeAfter(eq(CUTOFF), eq(foreignTime), eq(foreign), any())).thenReturn(List.<Object[]>of(
+                new Object[] {last, CUTOFF.minusHours(1), OWNED}));
+        when(transactionRepository.finalizeAll(any())).thenAnswer(invocation -> invocation.<List<UUID>>getArgument(0).size());
+
+        assertThat(transactionFinalizer.finalizeDue(CUTOFF)).isEqualTo(2);
+        verify(transactionRepository).finalizeAll(List.of(first));
+        verify(transactionRepository).finalizeAll(List.of(last));
+        verify(transactionRepository, never()).finalizeBefore(any());
+    }
+}
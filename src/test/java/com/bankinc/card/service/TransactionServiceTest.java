@@ -1,9 +1,17 @@
 package com.bankinc.card.service;
 
+import com.bankinc.card.dto.ArchivedTransaction;
 import com.bankinc.card.exceptions.*;
 import com.bankinc.card.model.Card;
+import com.bankinc.card.model.CardNumber;
 import com.bankinc.card.model.Transaction;
-import com.bankinc.card.repository.TransactionRepository;
+import com.bankinc.card.service.archive.TransactionArchive;
+import com.bankinc.card.service.concurrency.BalanceMutation;
+import com.bankinc.card.service.directory.CardDirectory;
+import com.bankinc.card.service.stats.PurchaseStats;
+import com.bankinc.card.service.lifecycle.AuthorizationGate;
+import com.bankinc.card.service.lifecycle.WarmUp;
+import com.bankinc.card.service.store.CardStore;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -13,6 +21,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -29,10 +38,22 @@ import static org.mockito.Mockito.*;
 class TransactionServiceTest {
 
     @Mock
-    private TransactionRepository transactionRepository;
+    private CardStore cardStore;
 
     @Mock
-    private CardService cardService;
+    private TransactionArchive transactionArchive;
+
+    @Mock
+    private TransactionFinalizer transactionFinalizer;
+
+    @Mock
+    private CardDirectory cardDirectory;
+
+    @Mock
+    private PurchaseStats purchaseStats;
+
+    @Mock
+    private AuthorizationGate authorizationGate;
 
     @InjectMocks
     private TransactionService transactionService;
@@ -60,6 +81,15 @@ class TransactionServiceTest {
         mockTransaction.setAnulated(false);
     }
 
+    // Simula el almacen aplicando la mutacion sobre la tarjeta de prueba
+    private void givenBalanceUpdatesApplyTo(Card card) {
+        when(cardStore.updateBalance(eq(VALID_CARD_ID), any())).thenAnswer(invocation -> {
+            BalanceMutation<?> mutation = invocation.getArgument(1);
+            card.setBalance(card.getBalance().add(mutation.delta(card)));
+            return mutation.apply(card);
+        });
+    }
+
     @Nested
     @DisplayName("Purchase Tests")
     class PurchaseTests {
@@ -67,8 +97,8 @@ class TransactionServiceTest {
         @DisplayName("Should successfully process a purchase")
         void purchase_Success() {
             // Arrange
-            when(cardService.getCard(VALID_CARD_ID)).thenReturn(mockCard);
-            when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
+            givenBalanceUpdatesApplyTo(mockCard);
+            when(cardStore.saveTransaction(any(Transaction.class))).thenAnswer(invocation -> {
                 Transaction savedTransaction = invocation.getArgument(0);
                 savedTransaction.setId(UUID.randomUUID()); // Aseguramos que tenga un ID
                 return savedTransaction;
@@ -79,9 +109,51 @@ class TransactionServiceTest {
 
             // Assert
             assertThat(result).isNotNull();
-            verify(cardService).updateCard(
-                    argThat(card -> card.getBalance().compareTo(INITIAL_BALANCE.subtract(VALID_PRICE)) == 0));
-            verify(transactionRepository).save(any(Transaction.class));
+            assertThat(mockCard.getBalance()).isEqualByComparingTo(INITIAL_BALANCE.subtract(VALID_PRICE));
+            verify(cardStore).saveTransaction(argThat(transaction -> transaction.getCard() == mockCard));
+            verify(transactionFinalizer).schedule(eq(result), any(LocalDateTime.class));
+        }
+
+        @Test
+        @DisplayName("Should decline a blocked card with a stackless preallocated exception")
+        void purchase_BlockedCard() {
+            mockCard.setBlocked(true);
+            givenBalanceUpdatesApplyTo(mockCard);
+
+            assertThatThrownBy(() -> transactionService.purchase(VALID_CARD_ID, VALID_PRICE))
+                    .isSameAs(CardBlockedException.BLOCKED)
+                    .satisfies(e -> assertThat(e.getStackTrace()).isEmpty());
+            verify(cardStore, never()).saveTransaction(any(Transaction.class));
+        }
+
+        @Test
+        @DisplayName("Should keep the cause and stack trace of a system failure")
+        void purchase_SystemFailure() {
+            DataAccessResourceFailureException outage = new DataAccessResourceFailureException("Connection refused");
+            when(cardStore.updateBalance(eq(VALID_CARD_ID), any())).thenThrow(outage);
+
+            assertThatThrownBy(() -> transactionService.purchase(VALID_CARD_ID, VALID_PRICE))
+                    .isInstanceOf(ProcessingFailureException.class)
+                    .hasCause(outage)
+                    .satisfies(e -> assertThat(e.getStackTrace()).isNotEmpty());
+            verify(purchaseStats, never()).record(any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Should not record stats or schedule finalization for the warm-up card")
+        void purchase_SyntheticCard() {
+            mockCard.setCardId(WarmUp.SYNTHETIC_CARD_ID);
+            when(cardStore.updateBalance(eq(WarmUp.SYNTHETIC_CARD_ID), any())).thenAnswer(invocation ->
+                    invocation.<BalanceMutation<?>>getArgument(1).apply(mockCard));
+            when(cardStore.saveTransaction(any(Transaction.class))).thenAnswer(invocation -> {
+                Transaction savedTransaction = invocation.getArgument(0);
+                savedTransaction.setId(UUID.randomUUID());
+                return savedTransaction;
+            });
+
+            assertThat(transactionService.purchase(WarmUp.SYNTHETIC_CARD_ID, VALID_PRICE)).isNotNull();
+
+            verifyNoInteractions(purchaseStats, transactionFinalizer);
         }
         // ... otros tests ...
     }
@@ -89,6 +161,32 @@ class TransactionServiceTest {
     @Nested
     @DisplayName("Transaction Anulation Tests")
     class TransactionAnulationTests {
+        @Test
+        @DisplayName("Should credit the card and mark the transaction as anulated")
+        void anulateTransaction_Success() {
+            UUID transactionId = mockTransaction.getId();
+            givenBalanceUpdatesApplyTo(mockCard);
+            when(cardStore.findTransaction(transactionId)).thenReturn(Optional.of(mockTransaction));
+            when(cardStore.markAnulated(transactionId)).thenReturn(true);
+
+            boolean result = transactionService.anulateTransaction(VALID_CARD_ID, transactionId);
+
+            assertThat(result).isTrue();
+            assertThat(mockCard.getBalance()).isEqualByComparingTo(INITIAL_BALANCE.add(VALID_PRICE));
+        }
+
+        @Test
+        @DisplayName("Should reject a concurrent second anulation of the same transaction")
+        void anulateTransaction_ConcurrentlyAnulated() {
+            UUID transactionId = mockTransaction.getId();
+            givenBalanceUpdatesApplyTo(mockCard);
+            when(cardStore.findTransaction(transactionId)).thenReturn(Optional.of(mockTransaction));
+            when(cardStore.markAnulated(transactionId)).thenReturn(false);
+
+            assertThatThrownBy(() -> transactionService.anulateTransaction(VALID_CARD_ID, transactionId))
+                    .isSameAs(TransactionProcessingException.ALREADY_ANULATED);
+        }
+
         @Test
         @DisplayName("Should throw exception when trying to anulate after 24 hours")
         void anulateTransaction_After24Hours() {
@@ -96,7 +194,7 @@ class TransactionServiceTest {
             UUID transactionId = mockTransaction.getId();
             mockTransaction.setTimestamp(LocalDateTime.now().minusDays(2));
 
-            when(transactionRepository.findById(transactionId))
+            when(cardStore.findTransaction(transactionId))
                     .thenReturn(Optional.of(mockTransaction));
 
             // Act & Assert
@@ -112,7 +210,7 @@ class TransactionServiceTest {
             @DisplayName("Should successfully retrieve a transaction")
             void getTransaction_Success() {
                 String transactionId = mockTransaction.getId().toString();
-                when(transactionRepository.findById(any(UUID.class)))
+                when(cardStore.findTransaction(any(UUID.class)))
                         .thenReturn(Optional.of(mockTransaction));
 
                 Transaction result = transactionService.getTransaction(transactionId);
@@ -122,11 +220,29 @@ class TransactionServiceTest {
                         .isEqualTo(mockTransaction);
             }
 
+            @Test
+            @DisplayName("Should fall back to the archive when the row has left the table")
+            void getTransaction_FromArchive() {
+                UUID transactionId = UUID.randomUUID();
+                LocalDateTime timestamp = LocalDateTime.now().minusDays(90);
+                when(cardStore.findTransaction(transactionId)).thenReturn(Optional.empty());
+                when(transactionArchive.findById(transactionId)).thenReturn(Optional.of(
+                        new ArchivedTransaction(transactionId, CardNumber.parse(VALID_CARD_ID), VALID_PRICE, timestamp, false)));
+                when(cardStore.findCard(CardNumber.parse(VALID_CARD_ID))).thenReturn(Optional.of(mockCard));
+
+                Transaction result = transactionService.getTransaction(transactionId.toString());
+
+                assertThat(result.getId()).isEqualTo(transactionId);
+                assertThat(result.getCard()).isSameAs(mockCard);
+                assertThat(result.getPrice()).isEqualByComparingTo(VALID_PRICE);
+                assertThat(result.getTimestamp()).isEqualTo(timestamp);
+            }
+
             @Test
             @DisplayName("Should throw exception when transaction is not found")
             void getTransaction_NotFound() {
                 String transactionId = UUID.randomUUID().toString();
-                when(transactionRepository.findById(any(UUID.class)))
+                when(cardStore.findTransaction(any(UUID.class)))
                         .thenReturn(Optional.empty());
 
                 assertThatThrownBy(() -> transactionService.getTransaction(transactionId))
@@ -0,0 +1,97 @@
+package com.bankinc.card.service.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Nested
+    @DisplayName("Limiter Tests")
+    class LimiterTests {
+        @Test
+        @DisplayName("Should reject immediately once the limit is in use and admit again after a release")
+        void tryAcquire_RejectsOverLimit() {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 2.0, 0.5);
+
+            assertThat(limiter.tryAcquire()).isTrue();
+            assertThat(limiter.tryAcquire()).isTrue();
+            assertThat(limiter.tryAcquire()).isFalse();
+            assertThat(limiter.getRejected()).isEqualTo(1);
+
+            limiter.release(FAST, false);
+            assertThat(limiter.tryAcquire()).isTrue();
+            assertThat(limiter.getInFlight()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should grow while latency stays near the minimum and back off when it degrades")
+        void onSample_AdditiveIncreaseMultiplicativeDecrease() {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 2, 8, 2.0, 0.5);
+            long now = System.nanoTime();
+            for (int i = 0; i < 100; i++) {
+                limiter.onSample(FAST, limiter.getLimit(), false, now);
+            }
+            assertThat(limiter.getLimit()).isEqualTo(8);
+
+            // Varias respuestas lentas en la misma ventana reducen el limite una sola vez
+            now += SLOW;
+            limiter.onSample(SLOW, 8, false, now);
+            limiter.onSample(SLOW, 8, false, now + 1);
+            assertThat(limiter.getLimit()).isEqualTo(4);
+
+            limiter.onSample(FAST, 4, true, now + 2 * SLOW);
+            limiter.onSample(SLOW, 2, false, now + 4 * SLOW);
+            assertThat(limiter.getLimit()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should not grow the limit while it is mostly unused")
+        void onSample_IdleLimitDoesNotGrow() {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 8, 2.0, 0.5);
+            for (int i = 0; i < 100; i++) {
+                limiter.onSample(FAST, 1, false, System.nanoTime());
+            }
+            assertThat(limiter.getLimit()).isEqualTo(4);
+        }
+    }
+
+    @Test
+    @DisplayName("Should shed inquiries while purchases use most of their budget")
+    void admissionControl_InquiriesYieldToPurchases() {
+        AdmissionControl admissionControl = new AdmissionControl();
+        ReflectionTestUtils.setField(admissionControl, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(admissionControl, "purchaseInitialLimit", 4);
+        ReflectionTestUtils.setField(admissionControl, "purchaseMinLimit", 1);
+        ReflectionTestUtils.setField(admissionControl, "purchaseMaxLimit", 10);
+        ReflectionTestUtils.setField(admissionControl, "inquiryInitialLimit", 4);
+        ReflectionTestUtils.setField(admissionControl, "inquiryMinLimit", 1);
+        ReflectionTestUtils.setField(admissionControl, "inquiryMaxLimit", 10);
+        ReflectionTestUtils.setField(admissionControl, "latencyTolerance", 2.0);
+        ReflectionTestUtils.setField(admissionControl, "decreaseFactor", 0.9);
+        ReflectionTestUtils.setField(admissionControl, "inquiryYieldUtilization", 0.75);
+        admissionControl.init();
+
+        assertThat(admissionControl.tryAcquire(AdmissionBudget.INQUIRY)).isTrue();
+        for (int i = 0; i < 3; i++) {
+            assertThat(admissionControl.tryAcquire(AdmissionBudget.PURCHASE)).isTrue();
+        }
+        assertThat(admissionControl.tryAcquire(AdmissionBudget.INQUIRY)).isFalse();
+        // Las compras siguen entrando hasta su propio limite
+        assertThat(admissionControl.tryAcquire(AdmissionBudget.PURCHASE)).isTrue();
+
+        admissionControl.release(AdmissionBudget.PURCHASE, FAST, false);
+        admissionControl.release(AdmissionBudget.PURCHASE, FAST, false);
+        assertThat(admissionControl.tryAcquire(AdmissionBudget.INQUIRY)).isTrue();
+        assertThat(admissionControl.getLimiter(AdmissionBudget.INQUIRY).getRejected()).isEqualTo(1);
+    }
+}
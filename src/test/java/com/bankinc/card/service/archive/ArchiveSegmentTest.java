@@ -0,0 +1,93 @@
+package com.bankinc.card.service.archive;
+
+import com.bankinc.card.dto.ArchivedTransaction;
+import com.bankinc.card.model.CardNumber;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArchiveSegmentTest {
+
+    private static final String FIRST_CARD = "0000001234567890";
+    private static final String SECOND_CARD = "4567891234567890";
+    private static final String THIRD_CARD = "9999991234567890";
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 10, 15, 30, 123_456_000);
+
+    @TempDir
+    Path directory;
+
+    private final List<ArchivedTransaction> transactions = new ArrayList<>();
+    private ArchiveSegment segment;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        for (int i = 0; i < 7; i++) {
+            transactions.add(transaction(SECOND_CARD, i, "10.25", i == 3));
+        }
+        for (int i = 0; i < 3; i++) {
+            transactions.add(transaction(FIRST_CARD, i, "1.00", false));
+        }
+        transactions.add(transaction(THIRD_CARD, 0, "99999999.99", false));
+        Collections.shuffle(transactions);
+
+        Path file = directory.resolve("transactions-1" + TransactionArchive.SEGMENT_SUFFIX);
+        // Paginas pequenas para que la historia de una tarjeta cruce varias paginas
+        ArchiveSegmentWriter.write(file, transactions, 4);
+        segment = ArchiveSegment.open(file);
+    }
+
+    @Test
+    @DisplayName("Should find every archived transaction by id with all its fields")
+    void findById_AllRows() {
+        assertThat(segment.getRows()).isEqualTo(transactions.size());
+        for (ArchivedTransaction expected : transactions) {
+            ArchivedTransaction found = segment.findById(expected.getId());
+            assertThat(found.getCardId()).isEqualTo(expected.getCardId());
+            assertThat(found.getPrice()).isEqualByComparingTo(expected.getPrice());
+            assertThat(found.getTimestamp()).isEqualTo(expected.getTimestamp());
+            assertThat(found.isAnulated()).isEqualTo(expected.isAnulated());
+        }
+        assertThat(segment.findById(UUID.randomUUID())).isNull();
+        assertThat(segment.contains(UUID.randomUUID())).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should return the history of a card across pages in chronological order")
+    void findByCard_AcrossPages() {
+        List<ArchivedTransaction> history = segment.findByCard(Long.parseLong(SECOND_CARD));
+
+        assertThat(history).hasSize(7)
+                .allSatisfy(transaction -> assertThat(transaction.getCardId()).isEqualTo(SECOND_CARD));
+        assertThat(history).extracting(ArchivedTransaction::getTimestamp).isSorted();
+        assertThat(segment.findByCard(Long.parseLong(FIRST_CARD))).hasSize(3);
+        assertThat(segment.findByCard(1L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should sum non-anulated amounts for a card range from the card index")
+    void sumOutstandingCents_Range() {
+        assertThat(segment.sumOutstandingCents(Long.parseLong(SECOND_CARD), Long.parseLong(SECOND_CARD)))
+                .isEqualTo(6 * 1025);
+        assertThat(segment.sumOutstandingCents(0, Long.parseLong(SECOND_CARD)))
+                .isEqualTo(6 * 1025 + 300);
+        assertThat(segment.sumOutstandingCents(Long.parseLong(SECOND_CARD) + 1, Long.MAX_VALUE))
+                .isEqualTo(9_999_999_999L);
+    }
+
+    private static ArchivedTransaction transaction(String cardId, int minutes, String price, boolean anulated) {
+        return new ArchivedTransaction(UUID.randomUUID(), CardNumber.parse(cardId), new BigDecimal(price),
+                START.plusMinutes(minutes).plusNanos(minutes * 1_000L), anulated);
+    }
+}
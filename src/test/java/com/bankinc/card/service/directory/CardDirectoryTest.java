@@ -0,0 +1,145 @@
+package com.bankinc.card.service.directory;
+
+import com.bankinc.card.exceptions.CardBlockedException;
+import com.bankinc.card.exceptions.CardExpiredException;
+import com.bankinc.card.exceptions.CardNotActiveException;
+import com.bankinc.card.exceptions.InsufficientFundsException;
+import com.bankinc.card.model.Card;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.service.partition.CardOwnershipGuard;
+import com.bankinc.card.service.store.JpaCardStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CardDirectoryTest {
+
+    private static final String CARD_ID = "1234567890123456";
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 19, 12, 0);
+
+    private CardDirectory cardDirectory;
+    private CardStateTable table;
+
+    @BeforeEach
+    void setUp() {
+        cardDirectory = new CardDirectory(1);
+        table = new CardStateTable(0);
+        ReflectionTestUtils.setField(cardDirectory, "enabled", true);
+        ReflectionTestUtils.setField(cardDirectory, "table", table);
+        ReflectionTestUtils.setField(cardDirectory, "ready", true);
+    }
+
+    @Nested
+    @DisplayName("Purchase Pre-validation Tests")
+    class PrevalidationTests {
+        @Test
+        @DisplayName("Should reject ineligible cards with the same preallocated exceptions as the purchase")
+        void prevalidatePurchase_IneligibleCards() {
+            cardDirectory.cardChanged(card(CARD_ID, false, false, "12/99", "1000", 1));
+            assertThatThrownBy(() -> prevalidate(CARD_ID, "10")).isSameAs(CardNotActiveException.NOT_ACTIVATED);
+
+            cardDirectory.cardChanged(card(CARD_ID, true, true, "12/99", "1000", 2));
+            assertThatThrownBy(() -> prevalidate(CARD_ID, "10")).isSameAs(CardBlockedException.BLOCKED);
+
+            cardDirectory.cardChanged(card(CARD_ID, true, false, "09/26", "1000", 3));
+            assertThatThrownBy(() -> prevalidate(CARD_ID, "10")).isSameAs(CardExpiredException.EXPIRED);
+
+            cardDirectory.cardChanged(card(CARD_ID, true, false, "10/26", "50", 4));
+            assertThatThrownBy(() -> prevalidate(CARD_ID, "50.01"))
+                    .isSameAs(InsufficientFundsException.INSUFFICIENT_FUNDS);
+            assertThatCode(() -> prevalidate(CARD_ID, "50")).doesNotThrowAnyException();
+        }
+
+        @Test
+        @DisplayName("Should leave the decision to the database when the card is unknown or the directory is loading")
+        void prevalidatePurchase_Undecided() {
+            assertThatCode(() -> prevalidate(CARD_ID, "10")).doesNotThrowAnyException();
+
+            // Solo se conoce el saldo: el estado llegara con la carga
+            cardDirectory.balanceChanged(CardNumber.parse(CARD_ID), 1, new BigDecimal("5"));
+            assertThatCode(() -> prevalidate(CARD_ID, "10")).doesNotThrowAnyException();
+
+            cardDirectory.cardChanged(card(CARD_ID, false, false, "12/99", "0", 1));
+            ReflectionTestUtils.setField(cardDirectory, "ready", false);
+            assertThatCode(() -> prevalidate(CARD_ID, "10")).doesNotThrowAnyException();
+        }
+    }
+
+    @Nested
+    @DisplayName("Update Ordering Tests")
+    class OrderingTests {
+        @Test
+        @DisplayName("Should ignore balance changes and card states older than the stored ones")
+        void updates_IgnoreOlderChanges() {
+            CardNumber cardNumber = CardNumber.parse(CARD_ID);
+            cardDirectory.cardChanged(card(CARD_ID, true, false, "12/99", "100", 5));
+            cardDirectory.balanceChanged(cardNumber, 3, new BigDecimal("80"));
+            cardDirectory.balanceChanged(cardNumber, 2, new BigDecimal("90"));
+            assertThat(table.balanceCents(cardNumber.longValue())).isEqualTo(8000);
+
+            cardDirectory.balanceChanged(cardNumber, 1, new BigDecimal("1"));
+            assertThat(table.balanceCents(cardNumber.longValue())).isEqualTo(8000);
+
+            // Una lectura anterior al bloqueo no deshace el bloqueo
+            cardDirectory.cardChanged(card(CARD_ID, true, true, "12/99", "80", 7));
+            cardDirectory.cardChanged(card(CARD_ID, true, false, "12/99", "80", 6));
+            assertThatThrownBy(() -> prevalidate(CARD_ID, "10")).isSameAs(CardBlockedException.BLOCKED);
+        }
+
+        @Test
+        @DisplayName("Should keep every card when the table grows")
+        void put_Grows() {
+            long first = 4000000000000000L;
+            for (int i = 0; i < 5000; i++) {
+                table.put(first + i, 0, CardStateTable.ACTIVE, CardStateTable.NO_EXPIRY, 0, i);
+            }
+
+            assertThat(table.size()).isEqualTo(5000);
+            assertThat(table.bytes()).isGreaterThanOrEqualTo(5000L * CardStateTable.BYTES_PER_SLOT);
+            for (int i = 0; i < 5000; i++) {
+                assertThat(table.balanceCents(first + i)).isEqualTo(i);
+            }
+            assertThat(table.state(first - 1)).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    @DisplayName("Should turn itself off when card ownership is partitioned across instances")
+    void init_PartitioningDisablesDirectory() {
+        CardDirectory partitioned = new CardDirectory(1);
+        ReflectionTestUtils.setField(partitioned, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(partitioned, "cardOwnershipGuard", new CardOwnershipGuard(true, 4, "instance-a", ""));
+        ReflectionTestUtils.setField(partitioned, "enabled", true);
+        ReflectionTestUtils.setField(partitioned, "storeEngine", JpaCardStore.ENGINE);
+
+        partitioned.init();
+
+        assertThat(ReflectionTestUtils.getField(partitioned, "enabled")).isEqualTo(false);
+    }
+
+    private void prevalidate(String cardId, String price) {
+        cardDirectory.prevalidatePurchase(cardId, new BigDecimal(price), NOW);
+    }
+
+    private static Card card(String cardId, boolean active, boolean blocked, String expiration, String balance,
+                             long version) {
+        Card card = new Card();
+        card.setCardId(cardId);
+        card.setActive(active);
+        card.setBlocked(blocked);
+        card.setExpirationDate(expiration);
+        card.setBalance(new BigDecimal(balance));
+        card.setVersion(version);
+        return card;
+    }
+}
@@ -0,0 +1,131 @@
+package com.bankinc.card.service.ledger;
+
+import com.bankinc.card.dto.LedgerBalance;
+import com.bankinc.card.dto.LedgerTail;
+import com.bankinc.card.model.BalanceSnapshot;
+import com.bankinc.card.model.Card;
+import com.bankinc.card.model.LedgerEntry;
+import com.bankinc.card.model.LedgerEntryType;
+import com.bankinc.card.repository.BalanceSnapshotRepository;
+import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.repository.LedgerEntryRepository;
+import com.bankinc.card.service.directory.CardDirectory;
+import com.bankinc.card.service.store.CardGenerations;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceLedgerTest {
+
+    private static final String CARD_ID = "1234567890123456";
+
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Mock
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private CardDirectory cardDirectory;
+
+    @Mock
+    private CardGenerations cardGenerations;
+
+    @InjectMocks
+    private BalanceLedger balanceLedger;
+
+    private Card card;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(balanceLedger, "snapshotInterval", 3);
+        card = new Card();
+        card.setId(UUID.randomUUID());
+        card.setCardId(CARD_ID);
+    }
+
+    @Nested
+    @DisplayName("Append Tests")
+    class AppendTests {
+        @Test
+        @DisplayName("Should open the ledger with the balance before the first entry")
+        void append_FirstEntryWritesOpeningSnapshot() {
+            balanceLedger.append(card, 1, new BigDecimal("150.00"), LedgerEntryType.RECHARGE, new BigDecimal("100.00"), null);
+
+            ArgumentCaptor<BalanceSnapshot> snapshot = ArgumentCaptor.forClass(BalanceSnapshot.class);
+            verify(balanceSnapshotRepository).save(snapshot.capture());
+            assertThat(snapshot.getValue().getSequence()).isZero();
+            assertThat(snapshot.getValue().getBalance()).isEqualByComparingTo("50.00");
+            verify(ledgerEntryRepository).save(argThat(entry -> entry.getSequence() == 1
+                    && entry.getType() == LedgerEntryType.RECHARGE));
+        }
+
+        @Test
+        @DisplayName("Should snapshot the resulting balance every snapshot-interval entries only")
+        void append_SnapshotsAtInterval() {
+            UUID transactionId = UUID.randomUUID();
+            balanceLedger.append(card, 2, new BigDecimal("120.00"), LedgerEntryType.PURCHASE, new BigDecimal("-30.00"), transactionId);
+            verify(balanceSnapshotRepository, never()).save(any());
+
+            balanceLedger.append(card, 3, new BigDecimal("90.00"), LedgerEntryType.PURCHASE, new BigDecimal("-30.00"), transactionId);
+            verify(balanceSnapshotRepository).save(argThat(snapshot -> snapshot.getSequence() == 3
+                    && snapshot.getBalance().compareTo(new BigDecimal("90.00")) == 0));
+            verify(ledgerEntryRepository, times(2)).save(any(LedgerEntry.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("Replay Tests")
+    class ReplayTests {
+        @Test
+        @DisplayName("Should rebuild the balance from the latest snapshot plus the tail")
+        void current_ReplaysSnapshotAndTail() {
+            card.setBalance(new BigDecimal("75.00"));
+            card.setLedgerSequence(8);
+            when(cardRepository.findByCardId(CARD_ID)).thenReturn(Optional.of(card));
+            when(balanceSnapshotRepository.findLatest(eq(card.getId()), eq(8L), any()))
+                    .thenReturn(List.of(new BalanceSnapshot(card, 6, new BigDecimal("100.00"), null)));
+            when(ledgerEntryRepository.sumTail(card.getId(), 6, 8)).thenReturn(new LedgerTail(new BigDecimal("-25.00"), 2L));
+
+            LedgerBalance result = balanceLedger.current(CARD_ID);
+
+            assertThat(result.getReplayedBalance()).isEqualByComparingTo("75.00");
+            assertThat(result.getSnapshotSequence()).isEqualTo(6);
+            assertThat(result.getReplayedEntries()).isEqualTo(2);
+            assertThat(result.isConsistent()).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should report the stored projection as it is when the card has no entries")
+        void current_NoEntries() {
+            card.setBalance(new BigDecimal("40.00"));
+            when(cardRepository.findByCardId(CARD_ID)).thenReturn(Optional.of(card));
+
+            LedgerBalance result = balanceLedger.current(CARD_ID);
+
+            assertThat(result.getReplayedBalance()).isEqualByComparingTo("40.00");
+            verifyNoInteractions(balanceSnapshotRepository, ledgerEntryRepository);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.bankinc.card.service.lifecycle;
+
+import com.bankinc.card.exceptions.ServiceDrainingException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class AuthorizationGateTest {
+
+    private AuthorizationGate gate;
+    private ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    void setUp() {
+        gate = new AuthorizationGate();
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        ReflectionTestUtils.setField(gate, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(gate, "drainTimeoutMillis", 5_000L);
+        gate.start();
+    }
+
+    @Test
+    @DisplayName("Should wait for in-flight authorizations and refuse new ones while draining")
+    void stop_DrainsInFlight() throws Exception {
+        gate.enter();
+
+        CompletableFuture<Void> stopping = CompletableFuture.runAsync(gate::stop);
+        while (!gate.isDraining()) {
+            Thread.onSpinWait();
+        }
+
+        assertThatThrownBy(gate::enter).isSameAs(ServiceDrainingException.DRAINING);
+        assertThat(stopping).isNotDone();
+        assertThat(gate.getInFlight()).isEqualTo(1);
+
+        gate.exit();
+        stopping.get(5, TimeUnit.SECONDS);
+
+        assertThat(gate.isRunning()).isFalse();
+        verify(eventPublisher).publishEvent(argThat((ApplicationEvent event) -> event instanceof AvailabilityChangeEvent<?> change
+                && change.getState() == ReadinessState.REFUSING_TRAFFIC));
+    }
+
+    @Test
+    @DisplayName("Should give up waiting after the drain timeout")
+    void stop_TimesOut() {
+        ReflectionTestUtils.setField(gate, "drainTimeoutMillis", 50L);
+        gate.enter();
+
+        long start = System.currentTimeMillis();
+        gate.stop();
+
+        assertThat(System.currentTimeMillis() - start).isLessThan(5_000);
+        assertThat(gate.getInFlight()).isEqualTo(1);
+        assertThat(gate.isRunning()).isFalse();
+    }
+}
@@ -0,0 +1,122 @@
+package com.bankinc.card.service.lifecycle;
+
+import com.bankinc.card.model.Card;
+import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.repository.TransactionRepository;
+import com.bankinc.card.service.CardService;
+import com.bankinc.card.service.TransactionService;
+import com.bankinc.card.service.store.InMemoryCardStore;
+import com.bankinc.card.service.store.JpaCardStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class WarmUpTest {
+
+    private static final int ITERATIONS = 5;
+
+    private WarmUp warmUp;
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final TransactionStatus transactionStatus = mock(TransactionStatus.class);
+    private final CardRepository cardRepository = mock(CardRepository.class);
+    private final TransactionService transactionService = mock(TransactionService.class);
+    private final CardService cardService = mock(CardService.class);
+    private final AuthorizationGate authorizationGate = mock(AuthorizationGate.class);
+
+    @BeforeEach
+    void setUp() {
+        warmUp = new WarmUp();
+        ReflectionTestUtils.setField(warmUp, "dataSource", mock(DataSource.class));
+        ReflectionTestUtils.setField(warmUp, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(warmUp, "cardRepository", cardRepository);
+        ReflectionTestUtils.setField(warmUp, "transactionRepository", mock(TransactionRepository.class));
+        ReflectionTestUtils.setField(warmUp, "transactionService", transactionService);
+        ReflectionTestUtils.setField(warmUp, "cardService", cardService);
+        ReflectionTestUtils.setField(warmUp, "authorizationGate", authorizationGate);
+        ReflectionTestUtils.setField(warmUp, "enabled", true);
+        ReflectionTestUtils.setField(warmUp, "iterations", ITERATIONS);
+        ReflectionTestUtils.setField(warmUp, "storeEngine", JpaCardStore.ENGINE);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(transactionStatus);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    @DisplayName("Should report out of service until the warm-up has finished")
+    void health_WarmingUp() {
+        Health health = warmUp.health();
+
+        assertThat(health.getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+        assertThat(health.getDetails()).containsEntry("phase", "warming up");
+    }
+
+    @Test
+    @DisplayName("Should run synthetic purchases on a throw-away card in a rolled back transaction")
+    void run_ExercisesSyntheticCard() {
+        warmUp.run();
+
+        verify(transactionStatus).setRollbackOnly();
+        verify(cardRepository).saveAndFlush(argThat((Card card) -> WarmUp.SYNTHETIC_CARD_ID.equals(card.getCardId())
+                && card.getBalance().compareTo(BigDecimal.valueOf(ITERATIONS)) > 0));
+        verify(transactionService, times(ITERATIONS)).purchase(WarmUp.SYNTHETIC_CARD_ID, BigDecimal.ONE);
+        verify(cardService, times(ITERATIONS)).getBalance(WarmUp.SYNTHETIC_CARD_ID);
+        assertThat(warmUp.isDone()).isTrue();
+        assertThat(warmUp.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    @DisplayName("Should only prepare queries with the in-memory store")
+    void run_InMemoryStoreSkipsPurchases() {
+        ReflectionTestUtils.setField(warmUp, "storeEngine", InMemoryCardStore.ENGINE);
+
+        warmUp.run();
+
+        verify(cardRepository).findByCardNumber(any());
+        verify(cardRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(transactionService);
+        assertThat(warmUp.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    @DisplayName("Should accept traffic even when the warm-up fails")
+    void run_FailureStillFinishes() {
+        doThrow(new DataAccessResourceFailureException("Connection refused"))
+                .when(transactionTemplate).executeWithoutResult(any());
+
+        warmUp.run();
+
+        assertThat(warmUp.isDone()).isTrue();
+        assertThat(warmUp.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    @DisplayName("Should report out of service while draining authorizations")
+    void health_Draining() {
+        ReflectionTestUtils.setField(warmUp, "enabled", false);
+        warmUp.run();
+        when(authorizationGate.isDraining()).thenReturn(true);
+        when(authorizationGate.getInFlight()).thenReturn(3);
+
+        Health health = warmUp.health();
+
+        assertThat(health.getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+        assertThat(health.getDetails()).containsEntry("phase", "draining").containsEntry("inFlight", 3);
+        verifyNoInteractions(transactionTemplate);
+    }
+}
@@ -0,0 +1,129 @@
+package com.bankinc.card.service.partition;
+
+import com.bankinc.card.exceptions.CardNotOwnedException;
+import com.bankinc.card.exceptions.InvalidTransactionException;
+import com.bankinc.card.model.PartitionLease;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CardOwnershipGuardTest {
+
+    private static final int PARTITIONS = 4;
+    private static final String CARD_ID = "1234560000000017";
+    private static final String OTHER_CARD_ID = otherPartitionCard();
+
+    private CardOwnershipGuard guard;
+
+    // Una tarjeta de otra particion que CARD_ID
+    private static String otherPartitionCard() {
+        for (long suffix = 25; ; suffix += 8) {
+            String cardId = String.format("123456%010d", suffix);
+            if (PartitionAssignment.partitionOf(cardId, PARTITIONS) != PartitionAssignment.partitionOf(CARD_ID, PARTITIONS)) {
+                return cardId;
+            }
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        guard = new CardOwnershipGuard(true, PARTITIONS, "instance-a", "http://instance-a:8080");
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("Should not let a client skip the ownership check with the forwarded header")
+    void checkOwnership_IgnoresForwardedHeader() {
+        ownAllPartitions("instance-b");
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/transaction/purchase");
+        request.addHeader(CardOwnershipGuard.FORWARDED_HEADER, "true");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        assertThatThrownBy(() -> guard.checkOwnership(CARD_ID))
+                .isInstanceOf(CardNotOwnedException.class)
+                .extracting("ownerInstanceId").isEqualTo("instance-b");
+    }
+
+    @Test
+    @DisplayName("Should accept cards of its own partitions and of partitions without a live lease")
+    void checkOwnership_LocalOrUnowned() {
+        assertThatCode(() -> guard.checkOwnership(CARD_ID)).doesNotThrowAnyException();
+
+        ownAllPartitions("instance-a");
+        assertThatCode(() -> guard.checkOwnership(CARD_ID)).doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("Should send a split purchase once to the instance that owns every card")
+    void checkOwnership_SplitOnOneRemoteInstance() {
+        ownAllPartitions("instance-b");
+
+        assertThatThrownBy(() -> guard.checkOwnership(List.of(CARD_ID, OTHER_CARD_ID)))
+                .isInstanceOf(CardNotOwnedException.class)
+                .extracting("ownerInstanceId").isEqualTo("instance-b");
+    }
+
+    @Test
+    @DisplayName("Should reject a split purchase whose cards are owned by different instances")
+    void checkOwnership_SplitAcrossInstances() {
+        own(Map.of(partitionOf(CARD_ID), "instance-a", partitionOf(OTHER_CARD_ID), "instance-b"));
+        assertThatThrownBy(() -> guard.checkOwnership(List.of(CARD_ID, OTHER_CARD_ID)))
+                .isSameAs(InvalidTransactionException.CARDS_ON_SEVERAL_INSTANCES);
+
+        own(Map.of(partitionOf(CARD_ID), "instance-c", partitionOf(OTHER_CARD_ID), "instance-b"));
+        assertThatThrownBy(() -> guard.checkOwnership(List.of(CARD_ID, OTHER_CARD_ID)))
+                .isSameAs(InvalidTransactionException.CARDS_ON_SEVERAL_INSTANCES);
+    }
+
+    @Test
+    @DisplayName("Should accept a split purchase mixing its own cards and cards without a live lease")
+    void checkOwnership_SplitLocalAndUnowned() {
+        own(Map.of(partitionOf(CARD_ID), "instance-a"));
+
+        assertThatCode(() -> guard.checkOwnership(List.of(CARD_ID, OTHER_CARD_ID))).doesNotThrowAnyException();
+    }
+
+    private static int partitionOf(String cardId) {
+        return PartitionAssignment.partitionOf(cardId, PARTITIONS);
+    }
+
+    private void own(Map<Integer, String> owners) {
+        List<PartitionLease> leases = new ArrayList<>();
+        owners.forEach((partition, instanceId) -> {
+            PartitionLease lease = new PartitionLease(partition);
+            lease.setOwnerInstanceId(instanceId);
+            lease.setOwnerBaseUrl("http://" + instanceId + ":8080");
+            lease.setLeaseExpiresAt(LocalDateTime.now().plusMinutes(1));
+            leases.add(lease);
+        });
+        guard.updateOwners(leases);
+    }
+
+    private void ownAllPartitions(String instanceId) {
+        List<PartitionLease> leases = new ArrayList<>();
+        for (int partition = 0; partition < PARTITIONS; partition++) {
+            PartitionLease lease = new PartitionLease(partition);
+            lease.setOwnerInstanceId(instanceId);
+            lease.setOwnerBaseUrl("http://" + instanceId + ":8080");
+            lease.setLeaseExpiresAt(LocalDateTime.now().plusMinutes(1));
+            leases.add(lease);
+        }
+        guard.updateOwners(leases);
+    }
+}
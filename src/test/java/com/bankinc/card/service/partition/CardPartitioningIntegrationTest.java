@@ -0,0 +1,112 @@
+package com.bankinc.card.service.partition;
+
+import com.bankinc.card.Application;
+import com.bankinc.card.service.CardService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Dos instancias de card-service en la misma JVM contra una unica base H2 embebida
+class CardPartitioningIntegrationTest {
+
+    private final List<ConfigurableApplicationContext> instances = new ArrayList<>();
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @AfterEach
+    void tearDown() {
+        instances.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    @DisplayName("Should split partitions between instances, forward non-owned cards and rebalance on leave")
+    void partitionsAreSharedAndRebalanced() throws Exception {
+        ConfigurableApplicationContext first = start("instance-a");
+        ConfigurableApplicationContext second = start("instance-b");
+        CardOwnershipGuard firstGuard = first.getBean(CardOwnershipGuard.class);
+        CardOwnershipGuard secondGuard = second.getBean(CardOwnershipGuard.class);
+
+        awaitOwnedPartitions(List.of(firstGuard, secondGuard), 64);
+
+        CardService cardService = first.getBean(CardService.class);
+        String cardId = null;
+        for (int i = 0; i < 20 && (cardId == null || firstGuard.isOwnedLocally(cardId)); i++) {
+            cardId = cardService.generateCardNumber("123456");
+        }
+        assertThat(firstGuard.isOwnedLocally(cardId)).isFalse();
+        assertThat(secondGuard.isOwnedLocally(cardId)).isTrue();
+
+        // Se consulta en la instancia que no es propietaria y esta reenvia a la otra
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(
+                URI.create(firstGuard.getBaseUrl() + "/card/balance/" + cardId)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(new BigDecimal(response.body())).isEqualByComparingTo(BigDecimal.ZERO);
+
+        second.close();
+        awaitOwnedPartitions(List.of(firstGuard), 64);
+        assertThat(firstGuard.isOwnedLocally(cardId)).isTrue();
+    }
+
+    private ConfigurableApplicationContext start(String instanceId) throws IOException {
+        int port = freePort();
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                // Como argumentos para que prevalezcan sobre application.properties
+                .run(
+                        "--spring.profiles.active=test",
+                        "--server.port=" + port,
+                        "--spring.datasource.url=jdbc:h2:mem:partitioning;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=update",
+                        "--spring.jpa.show-sql=false",
+                        "--card.partitioning.enabled=true",
+                        "--card.partitioning.mode=forward",
+                        "--card.partitioning.instance-id=" + instanceId,
+                        "--card.partitioning.heartbeat-ms=200",
+                        "--card.partitioning.instance-ttl-ms=3000",
+                        "--card.partitioning.lease-ttl-ms=4000");
+        instances.add(context);
+        return context;
+    }
+
+    private static void awaitOwnedPartitions(List<CardOwnershipGuard> guards, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (System.currentTimeMillis() < deadline) {
+            int owned = 0;
+            boolean everyoneOwns = true;
+            for (CardOwnershipGuard guard : guards) {
+                int count = 0;
+                for (int i = 0; i < 4096; i++) {
+                    if (guard.isOwnedLocally(String.format("%016d", i * 2_441_406_250_000L))) {
+                        count++;
+                    }
+                }
+                everyoneOwns &= count > 0;
+                owned += count;
+            }
+            if (everyoneOwns && owned == 4096) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Partitions were not assigned to " + guards.size() + " instance(s) of " + expected);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.bankinc.card.service.partition;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PartitionAssignmentTest {
+
+    private static final int PARTITIONS = 256;
+
+    @Test
+    @DisplayName("Should spread partitions across instances")
+    void ownerOf_Balanced() {
+        Map<String, Integer> counts = new HashMap<>();
+        List<String> instances = List.of("instance-a", "instance-b", "instance-c");
+
+        for (int partition = 0; partition < PARTITIONS; partition++) {
+            counts.merge(PartitionAssignment.ownerOf(partition, instances), 1, Integer::sum);
+        }
+
+        assertThat(counts).hasSize(3);
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(50, 120));
+    }
+
+    @Test
+    @DisplayName("Should only move the partitions taken by a joining instance")
+    void ownerOf_MinimalMovementOnJoin() {
+        List<String> before = List.of("instance-a", "instance-b");
+        List<String> after = List.of("instance-a", "instance-b", "instance-c");
+
+        for (int partition = 0; partition < PARTITIONS; partition++) {
+            String newOwner = PartitionAssignment.ownerOf(partition, after);
+            if (!newOwner.equals("instance-c")) {
+                assertThat(newOwner).isEqualTo(PartitionAssignment.ownerOf(partition, before));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should map a card to the same partition every time")
+    void partitionOf_Stable() {
+        int partition = PartitionAssignment.partitionOf("1234567890123456", PARTITIONS);
+
+        assertThat(partition).isBetween(0, PARTITIONS - 1)
+                .isEqualTo(PartitionAssignment.partitionOf("1234567890123456", PARTITIONS));
+    }
+}
@@ -0,0 +1,91 @@
+package com.bankinc.card.service.recharge;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RechargeFileReaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should parse CSV and fixed-width lines into card numbers and cents")
+    void next_ParsesCsvAndFixedWidth() throws IOException {
+        List<String> lines = read("cardId,amount\r\n"
+                + "1234567890123456,100\r\n"
+                + "1234567890123457; 25.5\n"
+                + "\n"
+                + "1234567890123458     000012.34   \n"
+                + "1234567890123459|0.01");
+
+        assertThat(lines).containsExactly(
+                "2:1234567890123456:10000",
+                "3:1234567890123457:2550",
+                "5:1234567890123458:1234",
+                "6:1234567890123459:1");
+    }
+
+    @Test
+    @DisplayName("Should reject malformed lines with a reason and keep reading")
+    void next_RejectsMalformedLines() throws IOException {
+        List<String> lines = read("1234567890123456,100\n"
+                + "12345678901234,100\n"
+                + "1234567890123456\n"
+                + "1234567890123456,abc\n"
+                + "1234567890123456,1.234\n"
+                + "1234567890123456,0.00\n"
+                + "1234567890123456,100000000\n"
+                + "1234567890123456," + "9".repeat(300) + "\n"
+                + "1234567890123456,99999999.99\n");
+
+        assertThat(lines).containsExactly(
+                "1:1234567890123456:10000",
+                "2!Card ID must be a 16-digit number",
+                "3!Card ID and balance are required",
+                "4!Invalid balance format",
+                "5!Invalid balance format",
+                "6!Balance must be greater than zero",
+                "7!Balance exceeds the maximum recharge amount",
+                "8!Line too long",
+                "9:1234567890123456:9999999999");
+    }
+
+    @Test
+    @DisplayName("Should read lines that straddle the read buffer")
+    void next_LinesAcrossBuffers() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            content.append(1234567890000000L + i).append(',').append(i + 1).append(".00\n");
+        }
+
+        List<String> lines = read(content.toString());
+
+        assertThat(lines).hasSize(1000);
+        assertThat(lines.get(999)).isEqualTo("1000:1234567890000999:100000");
+    }
+
+    private List<String> read(String content) throws IOException {
+        Path file = directory.resolve("recharges.csv");
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+        List<String> result = new ArrayList<>();
+        try (RechargeFileReader reader = new RechargeFileReader(file, 0)) {
+            RechargeLine line = new RechargeLine();
+            while (reader.next(line)) {
+                result.add(line.isRejected()
+                        ? line.number + "!" + line.rejectReason
+                        : line.number + ":" + line.cardNumber + ":" + line.amountCents);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,165 @@
+package com.bankinc.card.service.recharge;
+
+import com.bankinc.card.dto.RechargeImportReport;
+import com.bankinc.card.model.Card;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.repository.RechargeImportProgressRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Importaciones reales sobre H2 con lotes de dos lineas: aplicacion, rechazos y reanudacion
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:recharges;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "card.recharge-import.chunk-size=2"
+})
+class RechargeImportServiceTest {
+
+    private static final String ACTIVE = "4444440000000001";
+    private static final String BLOCKED = "4444440000000002";
+    private static final String UNKNOWN = "4444440000000003";
+    private static final String RESUMED = "4444440000000004";
+    private static final String FULL = "4444440000000005";
+
+    @TempDir
+    static Path directory;
+
+    @DynamicPropertySource
+    static void directories(DynamicPropertyRegistry registry) {
+        registry.add("card.recharge-import.directory", () -> directory.resolve("recharges").toString());
+        registry.add("card.archive.directory", () -> directory.resolve("archive").toString());
+    }
+
+    @Autowired
+    private RechargeImportService rechargeImportService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private RechargeImportProgressRepository progressRepository;
+
+    @Test
+    @DisplayName("Should apply valid lines, write rejects in file order and move the file to processed")
+    void start_AppliesAndRejects() throws Exception {
+        cardRepository.save(card(ACTIVE, false, "100.00"));
+        cardRepository.save(card(BLOCKED, true, "100.00"));
+        inbox("daily.csv",
+                "cardId,amount",
+                ACTIVE + ",10.00",
+                ACTIVE + ";5.50",
+                BLOCKED + ",7.00",
+                UNKNOWN + ",1.00",
+                "12345,3.00");
+
+        rechargeImportService.start("daily.csv");
+        RechargeImportReport report = awaitCompletion();
+
+        assertThat(report.getStatus()).isEqualTo("COMPLETED");
+        assertThat(report.getAccepted()).isEqualTo(2);
+        assertThat(report.getRejected()).isEqualTo(3);
+        assertThat(report.getAmount()).isEqualByComparingTo("15.50");
+        assertThat(report.getCommittedLines()).isEqualTo(6);
+        assertThat(balance(ACTIVE)).isEqualByComparingTo("115.50");
+        assertThat(balance(BLOCKED)).isEqualByComparingTo("100.00");
+        assertThat(Files.readAllLines(Path.of(report.getRejectsFile()))).satisfiesExactly(
+                header -> assertThat(header).isEqualTo("line,reason,content"),
+                blocked -> assertThat(blocked).startsWith("4,").endsWith(BLOCKED + ",7.00"),
+                unknown -> assertThat(unknown).startsWith("5,").endsWith(UNKNOWN + ",1.00"),
+                malformed -> assertThat(malformed).startsWith("6,Card ID must be a 16-digit number"));
+        assertThat(recharges().resolve(RechargeImportService.PROCESSED).resolve("daily.csv")).exists();
+        assertThat(recharges().resolve(RechargeImportService.INBOX).resolve("daily.csv")).doesNotExist();
+        assertThat(progressRepository.findById("daily.csv")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should move a failed file to failed and resume it after the last committed line")
+    void resume_ContinuesAfterCommittedLines() throws Exception {
+        cardRepository.save(card(RESUMED, false, "10.00"));
+        // El saldo de la columna NUMBER(10, 2) desborda con la recarga y el segundo lote falla entero
+        Card full = cardRepository.save(card(FULL, false, "99999999.00"));
+        inbox("resumed.csv",
+                RESUMED + ",1.00",
+                RESUMED + ",2.00",
+                FULL + ",5.00",
+                RESUMED + ",4.00");
+
+        rechargeImportService.start("resumed.csv");
+        RechargeImportReport failed = awaitCompletion();
+
+        assertThat(failed.getStatus()).isEqualTo("FAILED");
+        assertThat(failed.getCommittedLines()).isEqualTo(2);
+        assertThat(balance(RESUMED)).isEqualByComparingTo("13.00");
+        assertThat(recharges().resolve(RechargeImportService.FAILED).resolve("resumed.csv")).exists();
+        assertThat(progressRepository.findById("resumed.csv")).get()
+                .extracting("committedLines").isEqualTo(2L);
+
+        full.setBalance(BigDecimal.ZERO);
+        cardRepository.save(full);
+        rechargeImportService.resume("resumed.csv");
+        RechargeImportReport resumed = awaitCompletion();
+
+        assertThat(resumed.getStatus()).isEqualTo("COMPLETED");
+        assertThat(resumed.getAccepted()).isEqualTo(2);
+        assertThat(resumed.getCommittedLines()).isEqualTo(4);
+        // Las dos primeras lineas no se vuelven a aplicar
+        assertThat(balance(RESUMED)).isEqualByComparingTo("17.00");
+        assertThat(balance(FULL)).isEqualByComparingTo("5.00");
+        assertThat(recharges().resolve(RechargeImportService.PROCESSED).resolve("resumed.csv")).exists();
+        assertThat(recharges().resolve(RechargeImportService.FAILED).resolve("resumed.csv")).doesNotExist();
+        assertThat(progressRepository.findById("resumed.csv")).isEmpty();
+    }
+
+    private RechargeImportReport awaitCompletion() throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            RechargeImportReport report = rechargeImportService.getStatus();
+            if (!"RUNNING".equals(report.getStatus())) {
+                return report;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Recharge import did not finish");
+    }
+
+    private BigDecimal balance(String cardId) {
+        return cardRepository.findByCardNumber(CardNumber.parse(cardId)).orElseThrow().getBalance();
+    }
+
+    private static Path recharges() {
+        return directory.resolve("recharges");
+    }
+
+    private static void inbox(String fileName, String... lines) throws IOException {
+        Path inbox = Files.createDirectories(recharges().resolve(RechargeImportService.INBOX));
+        Files.write(inbox.resolve(fileName), List.of(lines));
+    }
+
+    private static Card card(String cardId, boolean blocked, String balance) {
+        Card card = new Card();
+        card.setCardId(cardId);
+        card.setProductId(cardId.substring(0, 6));
+        card.setHolderName("Marta Ruiz");
+        card.setExpirationDate("12/2099");
+        card.setActive(true);
+        card.setBlocked(blocked);
+        card.setBalance(new BigDecimal(balance));
+        card.setOpeningBalance(new BigDecimal(balance));
+        return card;
+    }
+}
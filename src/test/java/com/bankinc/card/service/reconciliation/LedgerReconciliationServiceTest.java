@@ -0,0 +1,212 @@
+package com.bankinc.card.service.reconciliation;
+
+import com.bankinc.card.dto.ArchivedTransaction;
+import com.bankinc.card.dto.CardBalanceRow;
+import com.bankinc.card.dto.ReconciliationReport;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.repository.AuthorizationHoldRepository;
+import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.repository.RechargeRepository;
+import com.bankinc.card.repository.TransactionRepository;
+import com.bankinc.card.service.archive.TransactionArchive;
+import com.bankinc.card.service.partition.CardOwnershipGuard;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LedgerReconciliationServiceTest {
+
+    private static final CardNumber CONSISTENT = CardNumber.parse("1234560000000001");
+    private static final CardNumber DRIFTED = CardNumber.parse("1234560000000002");
+    private static final CardNumber LEGACY = CardNumber.parse("9876540000000001");
+
+    @TempDir
+    Path directory;
+
+    private final CardRepository cardRepository = mock(CardRepository.class);
+    private final RechargeRepository rechargeRepository = mock(RechargeRepository.class);
+    private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+    private final AuthorizationHoldRepository holdRepository = mock(AuthorizationHoldRepository.class);
+    private final TransactionArchive transactionArchive = mock(TransactionArchive.class);
+    private final CardOwnershipGuard cardOwnershipGuard = mock(CardOwnershipGuard.class);
+
+    private LedgerReconciliationService service;
+
+    @BeforeEach
+    void setUp() {
+        LedgerTotals ledgerTotals = new LedgerTotals();
+        ReflectionTestUtils.setField(ledgerTotals, "rechargeRepository", rechargeRepository);
+        ReflectionTestUtils.setField(ledgerTotals, "transactionRepository", transactionRepository);
+        ReflectionTestUtils.setField(ledgerTotals, "holdRepository", holdRepository);
+        ReflectionTestUtils.setField(ledgerTotals, "transactionArchive", transactionArchive);
+
+        service = new LedgerReconciliationService(2);
+        ReflectionTestUtils.setField(service, "cardRepository", cardRepository);
+        ReflectionTestUtils.setField(service, "ledgerTotals", ledgerTotals);
+        ReflectionTestUtils.setField(service, "cardOwnershipGuard", cardOwnershipGuard);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "directory", directory.toString());
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+        ReflectionTestUtils.setField(service, "splitThreshold", 2L);
+        ReflectionTestUtils.setField(service, "maxReported", 10);
+        service.init();
+
+        when(cardOwnershipGuard.isOwnedLocally(any(CardNumber.class))).thenReturn(true);
+        // Recargas 100 y compras 30 en ambas tarjetas; la segunda ademas tiene 20 reservados
+        when(rechargeRepository.sumByCardInRange(any(), any())).thenAnswer(invocation ->
+                rows(invocation.getArgument(0), invocation.getArgument(1), "100.00", CONSISTENT, DRIFTED));
+        when(transactionRepository.sumOutstandingByCardInRange(any(), any())).thenAnswer(invocation ->
+                rows(invocation.getArgument(0), invocation.getArgument(1), "30.00", CONSISTENT, DRIFTED));
+        when(holdRepository.sumAuthorizedByCardInRange(any(), any())).thenAnswer(invocation ->
+                rows(invocation.getArgument(0), invocation.getArgument(1), "20.00", DRIFTED));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should split the card space, report confirmed drift and skip cards without opening balance")
+    void start_ReportsDrift() throws Exception {
+        List<CardBalanceRow> cards = List.of(
+                new CardBalanceRow(CONSISTENT, new BigDecimal("70.00"), BigDecimal.ZERO, 3L),
+                // Esperado 100 - 30 - 20 = 50, pero tiene 55
+                new CardBalanceRow(DRIFTED, new BigDecimal("55.00"), BigDecimal.ZERO, 7L),
+                new CardBalanceRow(LEGACY, new BigDecimal("10.00"), null, 1L));
+        when(cardRepository.countInRange(any(), any())).thenAnswer(invocation ->
+                (long) inRange(cards, invocation.getArgument(0), invocation.getArgument(1)).size());
+        when(cardRepository.findBalanceRows(any(), any(), any(Pageable.class))).thenAnswer(invocation -> {
+            List<CardBalanceRow> found = inRange(cards, invocation.getArgument(0), invocation.getArgument(1));
+            Pageable page = invocation.getArgument(2);
+            return found.subList(0, Math.min(found.size(), page.getPageSize()));
+        });
+
+        service.start();
+        ReconciliationReport report = awaitCompletion();
+
+        assertThat(report.getStatus()).isEqualTo("COMPLETED");
+        assertThat(report.getTotalCards()).isEqualTo(3);
+        assertThat(report.getCheckedCards()).isEqualTo(2);
+        assertThat(report.getPendingOpeningBalance()).isEqualTo(1);
+        assertThat(report.getMismatchCount()).isEqualTo(1);
+        assertThat(report.getMismatches()).singleElement().satisfies(mismatch -> {
+            assertThat(mismatch.getCardId()).isEqualTo(DRIFTED.toString());
+            assertThat(mismatch.getExpectedBalance()).isEqualByComparingTo("50.00");
+            assertThat(mismatch.getDifference()).isEqualByComparingTo("5.00");
+        });
+        assertThat(Files.readAllLines(Path.of(report.getReportFile()))).hasSize(1);
+        // El espacio completo tiene 3 tarjetas y el umbral es 2: se divide antes de recorrer
+        verify(cardRepository, atLeast(2)).countInRange(any(), any());
+        verify(cardRepository, atLeastOnce()).findBalanceRows(eq(DRIFTED), eq(DRIFTED), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should not report a difference that disappears when the card is read again")
+    void start_IgnoresTransientDifference() throws Exception {
+        CardBalanceRow stale = new CardBalanceRow(DRIFTED, new BigDecimal("80.00"), BigDecimal.ZERO, 7L);
+        CardBalanceRow settled = new CardBalanceRow(DRIFTED, new BigDecimal("50.00"), BigDecimal.ZERO, 8L);
+        when(cardRepository.countInRange(any(), any())).thenReturn(1L);
+        when(cardRepository.findBalanceRows(eq(CardNumber.MIN), any(), any(Pageable.class))).thenReturn(List.of(stale));
+        when(cardRepository.findBalanceRows(eq(DRIFTED), eq(DRIFTED), any(Pageable.class))).thenReturn(List.of(settled));
+        when(cardRepository.findBalanceRows(eq(DRIFTED.next()), any(), any(Pageable.class))).thenReturn(List.of());
+
+        service.start();
+        ReconciliationReport report = awaitCompletion();
+
+        assertThat(report.getCheckedCards()).isEqualTo(1);
+        assertThat(report.getMismatchCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should count once a purchase that is both in the table and in the archive")
+    void start_CountsArchivedRowOnce() throws Exception {
+        List<CardBalanceRow> cards = List.of(
+                new CardBalanceRow(CONSISTENT, new BigDecimal("70.00"), BigDecimal.ZERO, 3L),
+                // Esperado 100 - 30 - 20 - 10 archivados = 40
+                new CardBalanceRow(DRIFTED, new BigDecimal("40.00"), BigDecimal.ZERO, 7L));
+        when(cardRepository.countInRange(any(), any())).thenAnswer(invocation ->
+                (long) inRange(cards, invocation.getArgument(0), invocation.getArgument(1)).size());
+        when(cardRepository.findBalanceRows(any(), any(), any(Pageable.class))).thenAnswer(invocation ->
+                inRange(cards, invocation.getArgument(0), invocation.getArgument(1)));
+        // La compra de 30 de la primera tarjeta ya esta en un segmento pero aun no se ha borrado de la tabla
+        UUID copied = UUID.randomUUID();
+        when(transactionArchive.getSegmentCount()).thenReturn(1);
+        when(transactionArchive.contains(copied)).thenReturn(true);
+        doAnswer(invocation -> {
+            CardNumber from = invocation.getArgument(0);
+            CardNumber to = invocation.getArgument(1);
+            TransactionArchive.OutstandingVisitor visitor = invocation.getArgument(2);
+            if (CONSISTENT.compareTo(from) >= 0 && CONSISTENT.compareTo(to) <= 0) {
+                visitor.accept(CONSISTENT.longValue(), 3000);
+            }
+            if (DRIFTED.compareTo(from) >= 0 && DRIFTED.compareTo(to) <= 0) {
+                visitor.accept(DRIFTED.longValue(), 1000);
+            }
+            return null;
+        }).when(transactionArchive).forEachOutstanding(any(), any(), any());
+        when(transactionRepository.findFinalizedOutstandingInRange(any(), any())).thenAnswer(invocation -> {
+            CardNumber from = invocation.getArgument(0);
+            CardNumber to = invocation.getArgument(1);
+            if (CONSISTENT.compareTo(from) < 0 || CONSISTENT.compareTo(to) > 0) {
+                return List.of();
+            }
+            return List.of(new ArchivedTransaction(copied, CONSISTENT, new BigDecimal("30.00"),
+                    LocalDateTime.now().minusDays(120), false));
+        });
+
+        service.start();
+        ReconciliationReport report = awaitCompletion();
+
+        assertThat(report.getStatus()).isEqualTo("COMPLETED");
+        assertThat(report.getCheckedCards()).isEqualTo(2);
+        assertThat(report.getMismatchCount()).isZero();
+    }
+
+    private ReconciliationReport awaitCompletion() throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            ReconciliationReport report = service.getStatus();
+            if (!"RUNNING".equals(report.getStatus())) {
+                return report;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Reconciliation did not finish");
+    }
+
+    private static List<CardBalanceRow> inRange(List<CardBalanceRow> cards, CardNumber from, CardNumber to) {
+        return cards.stream()
+                .filter(row -> row.getCardNumber().compareTo(from) >= 0 && row.getCardNumber().compareTo(to) <= 0)
+                .toList();
+    }
+
+    private static List<Object[]> rows(CardNumber from, CardNumber to, String amount, CardNumber... cardNumbers) {
+        List<Object[]> rows = new ArrayList<>();
+        for (CardNumber cardNumber : cardNumbers) {
+            if (cardNumber.compareTo(from) >= 0 && cardNumber.compareTo(to) <= 0) {
+                rows.add(new Object[] {cardNumber, new BigDecimal(amount)});
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,129 @@
+package com.bankinc.card.service.search;
+
+import com.bankinc.card.dto.TransactionSearchPage;
+import com.bankinc.card.dto.TransactionSearchRow;
+import com.bankinc.card.exceptions.InvalidTransactionException;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionSearchServiceTest {
+
+    private static final CardNumber CARD = CardNumber.parse("1234560000000017");
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 1, 12, 0);
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @InjectMocks
+    private TransactionSearchService transactionSearchService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(transactionSearchService, "maxPageSize", 100);
+    }
+
+    private static TransactionSearchCriteria criteria(CardNumber cardNumber, TransactionSortField sort, int limit,
+                                                      TransactionSearchCursor cursor) {
+        return new TransactionSearchCriteria(cardNumber, null, null, null, null, null, sort, true, limit, cursor);
+    }
+
+    private static TransactionSearchRow row(UUID cardKey, int minutesAgo) {
+        return new TransactionSearchRow(UUID.randomUUID(), cardKey, new BigDecimal("10.00"), NOW.minusMinutes(minutesAgo), false);
+    }
+
+    @Test
+    @DisplayName("Should fetch one extra row and return a cursor after the last row of the page")
+    void search_ReturnsCursorWhenMoreRows() {
+        UUID cardKey = UUID.randomUUID();
+        when(cardRepository.findIdByCardNumber(CARD)).thenReturn(Optional.of(cardKey));
+        List<TransactionSearchRow> rows = new ArrayList<>(List.of(row(cardKey, 1), row(cardKey, 2), row(cardKey, 3)));
+        when(transactionRepository.search(any(), eq(TransactionSortField.TIMESTAMP), eq(true), eq(3))).thenReturn(rows);
+
+        TransactionSearchPage page = transactionSearchService.search(criteria(CARD, TransactionSortField.TIMESTAMP, 2, null));
+
+        assertThat(page.getTransactions()).hasSize(2)
+                .allSatisfy(transaction -> assertThat(transaction.getCardId()).isEqualTo(CARD.toString()));
+        TransactionSearchCursor cursor = TransactionSearchCursor.decode(page.getNextCursor());
+        assertThat(cursor.getSort()).isEqualTo(TransactionSortField.TIMESTAMP);
+        assertThat(cursor.getTimestamp()).isEqualTo(rows.get(1).getTimestamp());
+        assertThat(cursor.getId()).isEqualTo(rows.get(1).getId());
+        verify(cardRepository, never()).findCardNumbersByIds(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Should resolve card numbers with one lookup when searching across cards")
+    void search_ResolvesCardNumbersPerPage() {
+        UUID cardKey = UUID.randomUUID();
+        when(transactionRepository.search(any(), eq(TransactionSortField.PRICE), eq(true), eq(11)))
+                .thenReturn(List.of(row(cardKey, 1), row(cardKey, 2)));
+        when(cardRepository.findCardNumbersByIds(List.of(cardKey)))
+                .thenReturn(List.<Object[]>of(new Object[]{cardKey, CARD}));
+
+        TransactionSearchPage page = transactionSearchService.search(criteria(null, TransactionSortField.PRICE, 10, null));
+
+        assertThat(page.getNextCursor()).isNull();
+        assertThat(page.getTransactions()).extracting(TransactionSearchRow::getCardId)
+                .containsExactly(CARD.toString(), CARD.toString());
+    }
+
+    @Test
+    @DisplayName("Should return an empty page for an unknown card without searching")
+    void search_UnknownCard() {
+        when(cardRepository.findIdByCardNumber(CARD)).thenReturn(Optional.empty());
+
+        TransactionSearchPage page = transactionSearchService.search(criteria(CARD, TransactionSortField.TIMESTAMP, 10, null));
+
+        assertThat(page.getTransactions()).isEmpty();
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    @DisplayName("Should reject a cursor from a search with another sort and out-of-range limits")
+    void search_InvalidRequests() {
+        TransactionSearchCursor priceCursor = TransactionSearchCursor.after(TransactionSortField.PRICE, row(UUID.randomUUID(), 1));
+
+        assertThatThrownBy(() -> transactionSearchService.search(
+                criteria(null, TransactionSortField.TIMESTAMP, 10, priceCursor)))
+                .isInstanceOf(InvalidTransactionException.class);
+        assertThatThrownBy(() -> transactionSearchService.search(criteria(null, TransactionSortField.TIMESTAMP, 101, null)))
+                .isInstanceOf(InvalidTransactionException.class);
+        assertThatThrownBy(() -> TransactionSearchCursor.decode("not-a-cursor"))
+                .isInstanceOf(InvalidTransactionException.class);
+    }
+
+    @Test
+    @DisplayName("Should round-trip price cursors without losing scale")
+    void cursor_RoundTrip() {
+        TransactionSearchRow last = row(UUID.randomUUID(), 5);
+        TransactionSearchCursor cursor = TransactionSearchCursor.decode(
+                TransactionSearchCursor.after(TransactionSortField.PRICE, last).encode());
+
+        assertThat(cursor.getPrice()).isEqualTo(new BigDecimal("10.00"));
+        assertThat(cursor.getId()).isEqualTo(last.getId());
+    }
+}
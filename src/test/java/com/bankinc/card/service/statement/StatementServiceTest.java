@@ -0,0 +1,201 @@
+package com.bankinc.card.service.statement;
+
+import com.bankinc.card.dto.ArchivedTransaction;
+import com.bankinc.card.dto.StatementCard;
+import com.bankinc.card.dto.StatementRunReport;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.repository.TransactionRepository;
+import com.bankinc.card.service.archive.TransactionArchive;
+import com.bankinc.card.service.partition.CardOwnershipGuard;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class StatementServiceTest {
+
+    private static final YearMonth PERIOD = YearMonth.of(2026, 9);
+    private static final CardNumber FIRST = CardNumber.parse("1234560000000001");
+    private static final CardNumber SECOND = CardNumber.parse("1234560000000002");
+    private static final CardNumber THIRD = CardNumber.parse("1234560000000003");
+    private static final LocalDateTime DAY = LocalDateTime.of(2026, 9, 10, 12, 0);
+
+    @TempDir
+    Path directory;
+
+    private final CardRepository cardRepository = mock(CardRepository.class);
+    private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+    private final TransactionArchive transactionArchive = mock(TransactionArchive.class);
+    private final CardOwnershipGuard cardOwnershipGuard = mock(CardOwnershipGuard.class);
+    private final List<StatementCard> cards = List.of(card(FIRST), card(SECOND), card(THIRD));
+    private final List<ArchivedTransaction> lines = new ArrayList<>();
+
+    private StatementService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new StatementService(2);
+        ReflectionTestUtils.setField(service, "cardRepository", cardRepository);
+        ReflectionTestUtils.setField(service, "transactionRepository", transactionRepository);
+        ReflectionTestUtils.setField(service, "transactionArchive", transactionArchive);
+        ReflectionTestUtils.setField(service, "cardOwnershipGuard", cardOwnershipGuard);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "directory", directory.toString());
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+        // Una fila por pagina para recorrer el keyset completo
+        ReflectionTestUtils.setField(service, "linePageSize", 1);
+        service.init();
+
+        when(cardOwnershipGuard.isOwnedLocally(any(CardNumber.class))).thenReturn(true);
+        when(cardRepository.findStatementCards(any(), any())).thenAnswer(invocation -> {
+            CardNumber from = invocation.getArgument(0);
+            Pageable page = invocation.getArgument(1);
+            return cards.stream().filter(card -> card.getCardNumber().compareTo(from) >= 0)
+                    .limit(page.getPageSize()).toList();
+        });
+        lines.add(line(FIRST, DAY.plusDays(2), "30.00", false));
+        lines.add(line(FIRST, DAY, "10.00", true));
+        lines.add(line(THIRD, DAY, "5.00", false));
+        when(transactionRepository.findStatementLines(any(), any(), any(), any(), any())).thenAnswer(invocation ->
+                page(invocation.getArgument(0), invocation.getArgument(1), null, invocation.getArgument(4)));
+        when(transactionRepository.findStatementLinesAfter(any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> page(invocation.getArgument(0), invocation.getArgument(1),
+                        new ArchivedTransaction(invocation.getArgument(6), invocation.getArgument(4), null,
+                                invocation.getArgument(5), false), invocation.getArgument(7)));
+        // Un movimiento de la primera tarjeta ya salio de la tabla al archivo
+        when(transactionArchive.getSegmentCount()).thenReturn(1);
+        when(transactionArchive.findByCardId(any(CardNumber.class), any(), any())).thenReturn(List.of());
+        when(transactionArchive.findByCardId(eq(FIRST), any(), any()))
+                .thenReturn(List.of(line(FIRST, DAY.minusDays(5), "20.00", false)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should write one compressed file per chunk with archived and table movements merged by date")
+    void generate_WritesCompressedStatements() throws Exception {
+        StatementRunReport report = awaitFinished(service.start(PERIOD));
+
+        assertThat(report.getStatus()).isEqualTo("COMPLETED");
+        assertThat(report.getCards()).isEqualTo(3);
+        assertThat(report.getTransactions()).isEqualTo(4);
+        assertThat(report.getChunks()).isEqualTo(2);
+
+        List<JsonNode> statements = readStatements();
+        assertThat(statements).extracting(node -> node.get("cardId").asText())
+                .containsExactly(FIRST.toString(), SECOND.toString(), THIRD.toString());
+        JsonNode first = statements.get(0);
+        assertThat(first.get("transactions")).extracting(node -> node.get("amount").doubleValue())
+                .containsExactly(20.0, 10.0, 30.0);
+        assertThat(first.get("totalCharged").decimalValue()).isEqualByComparingTo("50.00");
+        assertThat(first.get("totalAnulated").decimalValue()).isEqualByComparingTo("10.00");
+        assertThat(statements.get(1).get("transactions")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should resume after the checkpoint and drop files written past it")
+    void generate_ResumesFromCheckpoint() throws Exception {
+        Path periodDirectory = Files.createDirectories(directory.resolve(PERIOD.toString()));
+        new StatementCheckpoint(StatementCheckpoint.FAILED, SECOND, 1, 2, 3).write(periodDirectory);
+        Files.writeString(periodDirectory.resolve("part-" + FIRST + "-" + SECOND + ".ndjson.gz"), "kept");
+        Files.writeString(periodDirectory.resolve("part-" + THIRD + "-" + THIRD + ".ndjson.gz.tmp"), "partial");
+
+        StatementRunReport report = awaitFinished(service.start(PERIOD));
+
+        assertThat(report.getStatus()).isEqualTo("COMPLETED");
+        assertThat(report.getResumedFrom()).isEqualTo(SECOND.toString());
+        assertThat(report.getCards()).isEqualTo(3);
+        assertThat(report.getTransactions()).isEqualTo(4);
+        verify(cardRepository).findStatementCards(eq(THIRD), any());
+        verify(cardRepository, never()).findStatementCards(eq(CardNumber.MIN), any());
+        try (Stream<Path> files = Files.list(periodDirectory)) {
+            assertThat(files.map(file -> file.getFileName().toString())).containsExactlyInAnyOrder(
+                    "checkpoint.properties",
+                    "part-" + FIRST + "-" + SECOND + ".ndjson.gz",
+                    "part-" + THIRD + "-" + THIRD + ".ndjson.gz");
+        }
+        // Un periodo completado no se vuelve a generar
+        assertThat(service.start(PERIOD).getStatus()).isEqualTo("COMPLETED");
+        verify(cardRepository, times(2)).findStatementCards(any(), any());
+    }
+
+    private StatementRunReport awaitFinished(StatementRunReport started) throws InterruptedException {
+        assertThat(started.getStatus()).isEqualTo("RUNNING");
+        for (int i = 0; i < 500; i++) {
+            StatementRunReport report = service.getStatus(PERIOD);
+            if (report.getFinishedAt() != null) {
+                return report;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Statement generation did not finish");
+    }
+
+    private List<JsonNode> readStatements() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        List<JsonNode> statements = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory.resolve(PERIOD.toString()))) {
+            for (Path file : files.filter(path -> path.toString().endsWith(".ndjson.gz")).sorted().toList()) {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        statements.add(mapper.readTree(line));
+                    }
+                }
+            }
+        }
+        return statements;
+    }
+
+    private List<ArchivedTransaction> page(CardNumber from, CardNumber to, ArchivedTransaction after, Pageable page) {
+        Comparator<ArchivedTransaction> order = Comparator.comparing(ArchivedTransaction::getCardNumber)
+                .thenComparing(ArchivedTransaction::getTimestamp).thenComparing(ArchivedTransaction::getId);
+        return lines.stream()
+                .filter(line -> line.getCardNumber().compareTo(from) >= 0 && line.getCardNumber().compareTo(to) <= 0)
+                .filter(line -> after == null || order.compare(line, after) > 0)
+                .sorted(order)
+                .limit(page.getPageSize())
+                .toList();
+    }
+
+    private static StatementCard card(CardNumber cardNumber) {
+        return new StatementCard(cardNumber, "Holder " + cardNumber.longValue() % 10, cardNumber.productId());
+    }
+
+    private static ArchivedTransaction line(CardNumber cardNumber, LocalDateTime timestamp, String price, boolean anulated) {
+        return new ArchivedTransaction(UUID.randomUUID(), cardNumber, new BigDecimal(price), timestamp, anulated);
+    }
+}
@@ -0,0 +1,99 @@
+package com.bankinc.card.service.stats;
+
+import com.bankinc.card.dto.ProductStats;
+import com.bankinc.card.dto.WindowTotals;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PurchaseStatsTest {
+
+    private static final long T0 = 1_800_000_000_000L;
+
+    @Test
+    @DisplayName("Should split totals by product and outcome")
+    void record_ByProductAndOutcome() {
+        PurchaseStats stats = new PurchaseStats();
+        stats.record("1234560000000017", new BigDecimal("10.50"), PurchaseOutcome.APPROVED, T0);
+        stats.record("1234560000000025", new BigDecimal("4.25"), PurchaseOutcome.APPROVED, T0);
+        stats.record("1234560000000017", new BigDecimal("99"), PurchaseOutcome.DECLINED, T0);
+        stats.record("6543210000000011", new BigDecimal("1"), PurchaseOutcome.ANULATED, T0);
+        stats.record("not-a-card", new BigDecimal("1"), PurchaseOutcome.APPROVED, T0);
+
+        List<ProductStats> snapshot = stats.snapshot(T0 + 1_000);
+
+        assertThat(snapshot).extracting(ProductStats::getProductId).containsExactly("123456", "654321");
+        WindowTotals lastSecond = snapshot.get(0).getLastSecond();
+        assertThat(lastSecond.getApprovedCount()).isEqualTo(2);
+        assertThat(lastSecond.getApprovedAmount()).isEqualByComparingTo("14.75");
+        assertThat(lastSecond.getDeclinedCount()).isEqualTo(1);
+        assertThat(lastSecond.getDeclinedAmount()).isEqualByComparingTo("99");
+        assertThat(snapshot.get(1).getLastMinute().getAnulatedCount()).isEqualTo(1);
+        assertThat(snapshot.get(0).getPerSecond()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should drop events as they slide out of each window")
+    void windows_Slide() {
+        PurchaseStats stats = new PurchaseStats();
+        stats.record("1234560000000017", BigDecimal.ONE, PurchaseOutcome.APPROVED, T0);
+
+        ProductStats afterTwoMinutes = stats.snapshot(T0 + 120_000).get(0);
+        assertThat(afterTwoMinutes.getLastSecond().getApprovedCount()).isZero();
+        assertThat(afterTwoMinutes.getLastMinute().getApprovedCount()).isZero();
+        assertThat(afterTwoMinutes.getLastHour().getApprovedCount()).isEqualTo(1);
+
+        ProductStats afterTwoDays = stats.snapshot(T0 + 48 * 3_600_000L).get(0);
+        assertThat(afterTwoDays.getLastDay().getApprovedCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should recycle a bucket slot for a new period and keep a per-period series")
+    void window_RecyclesBuckets() {
+        RollingWindow window = new RollingWindow(1_000, 4);
+        window.add(T0, PurchaseOutcome.APPROVED, 100);
+        // Misma ranura cuatro periodos despues: el cubo anterior se sustituye
+        window.add(T0 + 4_000, PurchaseOutcome.APPROVED, 200);
+        // Evento atrasado de un periodo ya reciclado
+        window.add(T0, PurchaseOutcome.APPROVED, 100);
+
+        List<WindowTotals> series = window.series(T0 + 4_000);
+        assertThat(series).hasSize(4);
+        assertThat(series).extracting(WindowTotals::getApprovedCount).containsExactly(0L, 0L, 0L, 1L);
+        assertThat(window.totals(T0 + 4_000, 4, true).getApprovedAmount()).isEqualByComparingTo("2.00");
+    }
+
+    @Test
+    @DisplayName("Should not lose concurrent updates")
+    void record_Concurrent() throws Exception {
+        PurchaseStats stats = new PurchaseStats();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                String cardId = (thread % 2 == 0 ? "1234560000000017" : "6543210000000011");
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        stats.record(cardId, BigDecimal.ONE, PurchaseOutcome.APPROVED, T0);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(stats.snapshot(T0)).allSatisfy(product ->
+                assertThat(product.getLastMinute().getApprovedCount()).isEqualTo(40_000));
+    }
+}
@@ -0,0 +1,236 @@
+package com.bankinc.card.service.store;
+
+import com.bankinc.card.exceptions.InsufficientFundsException;
+import com.bankinc.card.model.Card;
+import com.bankinc.card.model.CardNumber;
+import com.bankinc.card.model.LedgerEntryType;
+import com.bankinc.card.model.Recharge;
+import com.bankinc.card.model.Transaction;
+import com.bankinc.card.service.concurrency.BalanceMutation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryCardStoreTest {
+
+    private static final String CARD_ID = "1234560000000017";
+
+    private InMemoryCardStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryCardStore();
+        store.saveCard(card(CARD_ID, "1000"));
+    }
+
+    @Test
+    @DisplayName("Should keep every concurrent purchase on the same card")
+    void updateBalance_ConcurrentPurchases() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<UUID>> purchases = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            purchases.add(executor.submit(() -> store.updateBalance(CARD_ID, purchase(new BigDecimal("1.00")))));
+        }
+        for (Future<UUID> purchase : purchases) {
+            purchase.get();
+        }
+        executor.shutdown();
+
+        Card card = store.findCard(CARD_ID).orElseThrow();
+        assertThat(card.getBalance()).isEqualByComparingTo("0");
+        assertThat(card.getLedgerSequence()).isEqualTo(1_000);
+        assertThat(store.findTransactionsByCard(CardNumber.parse(CARD_ID))).hasSize(1_000);
+    }
+
+    @Test
+    @DisplayName("Should undo the balance and the saved transaction when the mutation fails")
+    void updateBalance_RollsBack() {
+        assertThatThrownBy(() -> store.updateBalance(CARD_ID, new BalanceMutation<UUID>() {
+            @Override
+            public BigDecimal delta(Card card) {
+                return new BigDecimal("-10");
+            }
+
+            @Override
+            public UUID apply(Card card) {
+                store.saveTransaction(transaction(card, "10"));
+                throw new InsufficientFundsException("late failure");
+            }
+
+            @Override
+            public LedgerEntryType entryType() {
+                return LedgerEntryType.PURCHASE;
+            }
+        })).isInstanceOf(InsufficientFundsException.class);
+
+        assertThat(store.findCard(CARD_ID).orElseThrow().getBalance()).isEqualByComparingTo("1000");
+        assertThat(store.findTransactionsByCard(CardNumber.parse(CARD_ID))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should apply every card of a multi-card update or none of them")
+    void updateBalances_AllOrNothing() {
+        String otherCardId = "1234560000000025";
+        store.saveCard(card(otherCardId, "5"));
+
+        List<UUID> ids = store.updateBalances(List.of(CARD_ID, otherCardId),
+                List.of(purchase(new BigDecimal("100")), purchase(new BigDecimal("5"))));
+        assertThat(ids).hasSize(2).doesNotContainNull();
+
+        assertThatThrownBy(() -> store.updateBalances(List.of(CARD_ID, otherCardId),
+                List.of(purchase(new BigDecimal("100")), purchase(BigDecimal.ONE))))
+                .isInstanceOf(InsufficientFundsException.class);
+
+        assertThat(store.findCard(CARD_ID).orElseThrow().getBalance()).isEqualByComparingTo("900");
+        assertThat(store.findCard(otherCardId).orElseThrow().getBalance()).isEqualByComparingTo("0");
+        assertThat(store.findTransactionsByCard(CardNumber.parse(CARD_ID))).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should mark a transaction as anulated only once")
+    void markAnulated_Once() {
+        UUID transactionId = store.updateBalance(CARD_ID, purchase(BigDecimal.TEN));
+
+        assertThat(store.markAnulated(transactionId)).isTrue();
+        assertThat(store.markAnulated(transactionId)).isFalse();
+        assertThat(store.findTransaction(transactionId).orElseThrow().isAnulated()).isTrue();
+        assertThat(store.markAnulated(UUID.randomUUID())).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should reject duplicate card numbers and stale updates")
+    void saveCard_Constraints() {
+        assertThatThrownBy(() -> store.saveCard(card(CARD_ID, "0")))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        Card first = store.findCard(CARD_ID).orElseThrow();
+        Card second = store.findCard(CARD_ID).orElseThrow();
+        first.setBlocked(true);
+        store.saveCard(first);
+        second.setActive(false);
+
+        assertThatThrownBy(() -> store.saveCard(second))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(store.findCard(CARD_ID).orElseThrow().isBlocked()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should change the status of a card whose balance changed since it was read")
+    void blockCard_AfterBalanceChange() {
+        CardNumber cardNumber = CardNumber.parse(CARD_ID);
+        store.updateBalance(CARD_ID, purchase(BigDecimal.TEN));
+
+        assertThat(store.blockCard(cardNumber)).isTrue();
+        assertThat(store.blockCard(cardNumber)).isFalse();
+        assertThat(store.activateCard(cardNumber)).isFalse();
+        assertThat(store.blockCard(CardNumber.parse("9999990000000001"))).isFalse();
+        Card card = store.findCard(CARD_ID).orElseThrow();
+        assertThat(card.isBlocked()).isTrue();
+        assertThat(card.getBalance()).isEqualByComparingTo("990");
+    }
+
+    @Test
+    @DisplayName("Should advance the card generation only after a change is applied")
+    void generation_AdvancesOnWrites() {
+        CardNumber cardNumber = CardNumber.parse(CARD_ID);
+        long initial = store.generation(cardNumber);
+
+        store.updateBalance(CARD_ID, purchase(BigDecimal.TEN));
+        long afterPurchase = store.generation(cardNumber);
+        assertThat(afterPurchase).isGreaterThan(initial);
+
+        assertThatThrownBy(() -> store.updateBalance(CARD_ID, purchase(new BigDecimal("5000"))))
+                .isInstanceOf(InsufficientFundsException.class);
+        assertThat(store.blockCard(cardNumber)).isTrue();
+        long afterBlock = store.generation(cardNumber);
+        assertThat(afterBlock).isEqualTo(afterPurchase + 1);
+
+        assertThat(store.blockCard(cardNumber)).isFalse();
+        assertThat(store.generation(cardNumber)).isEqualTo(afterBlock);
+    }
+
+    @Test
+    @DisplayName("Should restore cards, transactions and recharges from a snapshot")
+    void snapshot_RoundTrip(@TempDir Path directory) {
+        Path file = directory.resolve("cards.snapshot");
+        ReflectionTestUtils.setField(store, "snapshotPath", file.toString());
+        UUID transactionId = store.updateBalance(CARD_ID, purchase(new BigDecimal("12.34")));
+        store.markAnulated(transactionId);
+        store.saveRecharge(new Recharge(store.findCard(CARD_ID).orElseThrow(), BigDecimal.ONE, LocalDateTime.now()));
+        store.snapshot();
+
+        InMemoryCardStore restored = new InMemoryCardStore();
+        ReflectionTestUtils.setField(restored, "snapshotPath", file.toString());
+        ReflectionTestUtils.invokeMethod(restored, "init");
+
+        Card card = restored.findCard(CARD_ID).orElseThrow();
+        assertThat(card.getBalance()).isEqualByComparingTo("987.66");
+        assertThat(card.getLedgerSequence()).isEqualTo(1);
+        Transaction transaction = restored.findTransaction(transactionId).orElseThrow();
+        assertThat(transaction.isAnulated()).isTrue();
+        assertThat(transaction.getCard().getCardId()).isEqualTo(CARD_ID);
+        assertThat(restored.size()).isEqualTo(1);
+    }
+
+    private BalanceMutation<UUID> purchase(BigDecimal price) {
+        return new BalanceMutation<>() {
+            @Override
+            public BigDecimal delta(Card card) {
+                if (card.getBalance().compareTo(price) < 0) {
+                    throw new InsufficientFundsException("Insufficient funds");
+                }
+                return price.negate();
+            }
+
+            @Override
+            public UUID apply(Card card) {
+                Transaction transaction = transaction(card, price.toPlainString());
+                store.saveTransaction(transaction);
+                return transaction.getId();
+            }
+
+            @Override
+            public LedgerEntryType entryType() {
+                return LedgerEntryType.PURCHASE;
+            }
+        };
+    }
+
+    private static Transaction transaction(Card card, String price) {
+        Transaction transaction = new Transaction();
+        transaction.setCard(card);
+        transaction.setPrice(new BigDecimal(price));
+        transaction.setTimestamp(LocalDateTime.now());
+        return transaction;
+    }
+
+    private static Card card(String cardId, String balance) {
+        Card card = new Card();
+        card.setCardId(cardId);
+        card.setProductId(cardId.substring(0, 6));
+        card.setHolderName("Ana Lopez");
+        card.setExpirationDate("12/2099");
+        card.setActive(true);
+        card.setBlocked(false);
+        card.setBalance(new BigDecimal(balance));
+        card.setOpeningBalance(new BigDecimal(balance));
+        return card;
+    }
+}
@@ -0,0 +1,116 @@
+package com.bankinc.card.service.store;
+
+import com.bankinc.card.controller.ProductController;
+import com.bankinc.card.controller.ReconciliationController;
+import com.bankinc.card.controller.StatementController;
+import com.bankinc.card.controller.TransactionController;
+import com.bankinc.card.exceptions.InvalidTransactionException;
+import com.bankinc.card.repository.CardRepository;
+import com.bankinc.card.repository.TransactionRepository;
+import com.bankinc.card.service.AuthorizationHoldService;
+import com.bankinc.card.service.CardBulkService;
+import com.bankinc.card.service.CardIssuanceService;
+import com.bankinc.card.service.CardService;
+import com.bankinc.card.service.ProductAggregateService;
+import com.bankinc.card.service.TransactionFinalizer;
+import com.bankinc.card.service.TransactionService;
+import com.bankinc.card.service.concurrency.CardBalanceUpdater;
+import com.bankinc.card.service.directory.CardDirectory;
+import com.bankinc.card.service.ledger.BalanceLedger;
+import com.bankinc.card.service.recharge.RechargeImportService;
+import com.bankinc.card.service.reconciliation.LedgerReconciliationService;
+import com.bankinc.card.service.search.TransactionSearchService;
+import com.bankinc.card.service.statement.StatementService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// La aplicacion completa con el motor en memoria: lo que lee o escribe directamente en la base no se crea
+// y las tarjetas y compras no llegan a las tablas
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:memorystore;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "card.store.engine=memory"
+})
+class InMemoryStoreContextTest {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private CardStore cardStore;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private CardDirectory cardDirectory;
+
+    @Autowired
+    private TransactionController transactionController;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Test
+    @DisplayName("Should not create the components that bypass the in-memory store")
+    void context_SkipsDatabaseOnlyComponents() {
+        assertThat(cardStore).isInstanceOf(InMemoryCardStore.class);
+        assertThat(context.getBeanNamesForType(AuthorizationHoldService.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(CardIssuanceService.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(CardBulkService.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(RechargeImportService.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(BalanceLedger.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(CardBalanceUpdater.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(TransactionFinalizer.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(JpaCardStore.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(TransactionSearchService.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(StatementService.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(LedgerReconciliationService.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(ProductAggregateService.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(StatementController.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(ReconciliationController.class)).isEmpty();
+        assertThat(context.getBeanNamesForType(ProductController.class)).isEmpty();
+        assertThat(ReflectionTestUtils.getField(cardDirectory, "enabled")).isEqualTo(false);
+    }
+
+    @Test
+    @DisplayName("Should refuse transaction searches instead of returning an empty page")
+    void search_Unavailable() {
+        assertThatThrownBy(() -> transactionController.search(null, null, null, null, null, null, "TIMESTAMP", "DESC",
+                50, null))
+                .isInstanceOf(InvalidTransactionException.class);
+    }
+
+    @Test
+    @DisplayName("Should issue, recharge and charge cards without touching the card tables")
+    void purchase_StaysInMemory() {
+        String cardId = cardService.generateCardNumber("555555");
+        cardService.activateCard(cardId);
+        cardService.rechargeBalance(cardId, new BigDecimal("50.00"));
+
+        UUID transactionId = transactionService.purchase(cardId, new BigDecimal("20.00"));
+
+        assertThat(cardService.getBalance(cardId)).isEqualByComparingTo("30.00");
+        assertThat(transactionService.getTransaction(transactionId.toString()).getPrice()).isEqualByComparingTo("20.00");
+        assertThat(cardRepository.count()).isZero();
+        assertThat(transactionRepository.count()).isZero();
+    }
+}
@@ -0,0 +1,66 @@
+package com.bankinc.card.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long TICK = 10;
+
+    @Test
+    @DisplayName("Should fire every entry in the tick of its expiration across all levels")
+    void advance_FiresAtExpiration() {
+        long start = 1_000_000;
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(TICK, 4, start);
+        Random random = new Random(42);
+        Map<Long, Long> firedAt = new HashMap<>();
+        List<Long> expirations = new ArrayList<>();
+
+        long now = start;
+        for (int step = 0; step < 5_000; step++) {
+            // Se programan entradas desde distintos instantes para cubrir la cascada entre niveles
+            if (random.nextInt(3) == 0) {
+                long expiration = now + random.nextInt(20_000);
+                expirations.add(expiration);
+                wheel.schedule(expiration, expiration);
+            }
+            now += TICK;
+            long current = now;
+            wheel.advance(now, expiration -> firedAt.merge(expiration, current, Math::max));
+        }
+        wheel.advance(now + 100_000, expiration -> firedAt.putIfAbsent(expiration, Long.MAX_VALUE));
+
+        for (long expiration : expirations) {
+            long fired = firedAt.get(expiration);
+            if (fired != Long.MAX_VALUE) {
+                assertThat(fired).isGreaterThan(expiration).isLessThanOrEqualTo(expiration + TICK);
+            }
+        }
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should deliver past-due entries on the next advance")
+    void schedule_PastDue() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, 8, 500);
+        List<String> fired = new ArrayList<>();
+
+        wheel.schedule(100, "late");
+        wheel.schedule(10_000_000, "far");
+        wheel.advance(510, fired::add);
+
+        assertThat(fired).containsExactly("late");
+        assertThat(wheel.size()).isEqualTo(1);
+
+        wheel.advance(10_000_010, fired::add);
+        assertThat(fired).containsExactly("late", "far");
+    }
+}
@@ -0,0 +1,65 @@
+package com.bankinc.card.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LongBloomFilterTest {
+
+    @Test
+    @DisplayName("Should never report an inserted key as absent")
+    void insertedKeys_AlwaysFound() {
+        LongBloomFilter filter = new LongBloomFilter(50_000, 0.01);
+        Random random = new Random(11);
+        Set<Long> keys = new HashSet<>();
+        for (int i = 0; i < 50_000; i++) {
+            long key = 1234560000000000L + random.nextInt(1_000_000_000);
+            keys.add(key);
+            filter.put(key);
+        }
+
+        keys.forEach(key -> assertThat(filter.mightContain(key)).isTrue());
+    }
+
+    @Test
+    @DisplayName("Should keep false positives near the requested rate at capacity")
+    void falsePositiveRate_WithinBound() {
+        LongBloomFilter filter = new LongBloomFilter(100_000, 0.01);
+        // Numeros consecutivos: el caso de un producto emitido en orden
+        for (long key = 0; key < 100_000; key++) {
+            filter.put(4000000000000000L + key);
+        }
+
+        int falsePositives = 0;
+        for (long key = 0; key < 100_000; key++) {
+            if (filter.mightContain(5000000000000000L + key)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+
+    @Test
+    @DisplayName("Should report repeated inserts and count distinct keys")
+    void put_ReportsNewKeys() {
+        LongBloomFilter filter = new LongBloomFilter(1_000, 0.001);
+
+        assertThat(filter.put(1234560000000017L)).isTrue();
+        assertThat(filter.put(1234560000000017L)).isFalse();
+        assertThat(filter.size()).isEqualTo(1);
+        assertThat(filter.capacity()).isEqualTo(1_000);
+    }
+
+    @Test
+    @DisplayName("Should reject invalid sizing")
+    void invalidSizing() {
+        assertThatThrownBy(() -> new LongBloomFilter(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new LongBloomFilter(1_000, 1.0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,53 @@
+package com.bankinc.card.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LongObjectHashMapTest {
+
+    @Test
+    @DisplayName("Should behave like a HashMap under random puts and removals")
+    void randomOperations_MatchHashMap() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 200_000; i++) {
+            // Claves de un rango pequeno para forzar colisiones, grupos largos y borrados en medio
+            long key = 1234560000000000L + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+            } else {
+                assertThat(map.put(key, (long) i)).isEqualTo(expected.put(key, (long) i));
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        expected.forEach((key, value) -> assertThat(map.get(key)).isEqualTo(value));
+        Map<Long, Long> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertThat(visited).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("Should support zero and negative keys and reject null values")
+    void edgeKeys() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>(0);
+        map.put(0, "zero");
+        map.put(-1, "minus one");
+
+        assertThat(map.get(0)).isEqualTo("zero");
+        assertThat(map.get(-1)).isEqualTo("minus one");
+        assertThat(map.containsKey(1)).isFalse();
+        assertThat(map.computeIfAbsent(1, key -> "one")).isEqualTo("one");
+        assertThat(map.computeIfAbsent(1, key -> "other")).isEqualTo("one");
+        assertThatThrownBy(() -> map.put(2, null)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
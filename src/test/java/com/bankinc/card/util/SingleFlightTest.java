@@ -0,0 +1,145 @@
+package com.bankinc.card.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private static final long CARD = 1234567890123456L;
+    private static final int CALLERS = 8;
+
+    @Test
+    @DisplayName("Should run one load for concurrent callers of the same key and share its result")
+    void execute_CoalescesConcurrentCalls() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> flight.execute(CARD, () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "balance";
+                })));
+            }
+            // Todos dentro: el lider esperando en la carga y el resto sumados a ella
+            while (flight.getShared() < CALLERS - 1) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("balance");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(flight.getShared()).isEqualTo(CALLERS - 1);
+        assertThat(flight.coalescingRatio()).isEqualTo((CALLERS - 1) / (double) CALLERS);
+
+        // Terminada la carga no queda nada guardado: la siguiente llamada vuelve a cargar
+        assertThat(flight.execute(CARD, () -> "reloaded")).isEqualTo("reloaded");
+    }
+
+    @Test
+    @DisplayName("Should propagate the leader's failure to every waiter")
+    void execute_SharesFailure() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>();
+        IllegalStateException failure = new IllegalStateException("database unavailable");
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> flight.execute(CARD, () -> {
+                await(release);
+                throw failure;
+            }));
+            while (flight.getCalls() < 1) {
+                Thread.sleep(1);
+            }
+            Future<String> waiter = executor.submit(() -> flight.execute(CARD, () -> "unused"));
+            while (flight.getShared() < 1) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS)).hasCause(failure);
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCause(failure);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should not join a load started under an older generation")
+    void execute_NewerGenerationLoadsAgain() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+        try {
+            // Lectura empezada antes de la escritura, todavia en curso
+            Future<String> stale = executor.submit(() -> flight.execute(CARD, 0, () -> {
+                loading.countDown();
+                await(release);
+                return "before write";
+            }));
+            await(loading);
+
+            // Tras confirmarse la escritura: carga propia, sin esperar a la anterior
+            assertThat(flight.execute(CARD, 1, () -> "after write")).isEqualTo("after write");
+            assertThat(flight.getShared()).isZero();
+
+            release.countDown();
+            assertThat(stale.get(5, TimeUnit.SECONDS)).isEqualTo("before write");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should let an older generation join a load started under a newer one")
+    void execute_OlderGenerationJoinsNewerLoad() throws Exception {
+        SingleFlight<String> flight = new SingleFlight<>();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> flight.execute(CARD, 2, () -> {
+                loading.countDown();
+                await(release);
+                return "fresh";
+            }));
+            await(loading);
+            Future<String> waiter = executor.submit(() -> flight.execute(CARD, 1, () -> "unused"));
+            while (flight.getShared() < 1) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            assertThat(waiter.get(5, TimeUnit.SECONDS)).isEqualTo("fresh");
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("fresh");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}